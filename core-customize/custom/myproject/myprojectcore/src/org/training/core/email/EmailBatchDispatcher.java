@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.email;
+
+import de.hybris.platform.acceleratorservices.model.email.EmailMessageModel;
+
+import java.util.List;
+
+
+/**
+ * Sends many generated email messages at once, the batch counterpart of the SendEmail and RemoveSentEmail process
+ * actions.
+ */
+public interface EmailBatchDispatcher
+{
+	/**
+	 * Sends the messages and removes the sent ones.
+	 *
+	 * @param messages
+	 *           the generated messages
+	 * @return the messages that were sent, in the given order
+	 */
+	List<EmailMessageModel> dispatch(List<EmailMessageModel> messages);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.email;
+
+import de.hybris.platform.acceleratorservices.model.email.EmailMessageModel;
+
+import java.util.List;
+
+
+/**
+ * Sends generated email messages over SMTP, the transport part of the EmailService.
+ */
+public interface EmailMessageSender
+{
+	/**
+	 * @return whether the messages should be sent through this sender instead of the EmailService
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Sends the message and marks it as sent.
+	 *
+	 * @param message
+	 *           the generated message
+	 * @return <code>true</code> if the message was sent
+	 */
+	boolean send(EmailMessageModel message);
+
+	/**
+	 * Sends the messages and marks the sent ones as sent.
+	 *
+	 * @param messages
+	 *           the generated messages
+	 * @return the messages that were sent, in the given order
+	 */
+	List<EmailMessageModel> sendAll(List<EmailMessageModel> messages);
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.email.impl;
+
+import de.hybris.platform.acceleratorservices.email.EmailService;
+import de.hybris.platform.acceleratorservices.model.email.EmailMessageModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.core.email.EmailBatchDispatcher;
+import org.training.core.email.EmailMessageSender;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Default implementation of {@link EmailBatchDispatcher}. The messages are sent one by one through the
+ * {@link EmailService}; the sent messages are removed with one call per {@link #setBatchSize(int)} messages instead of
+ * one removal per message. Messages that could not be sent are kept, like SendEmailAction does.
+ *
+ * If an enabled {@link EmailMessageSender} is set, each batch is handed to it at once, so the batch is sent over the
+ * pooled SMTP connections in parallel.
+ */
+public class DefaultEmailBatchDispatcher implements EmailBatchDispatcher
+{
+	private static final Logger LOG = Logger.getLogger(DefaultEmailBatchDispatcher.class);
+
+	private EmailService emailService;
+	private ModelService modelService;
+	private EmailMessageSender emailMessageSender;
+	private int batchSize = 100;
+
+	@Override
+	public List<EmailMessageModel> dispatch(final List<EmailMessageModel> messages)
+	{
+		final List<EmailMessageModel> sent = new ArrayList<>(messages.size());
+		for (int from = 0; from < messages.size(); from += getBatchSize())
+		{
+			final List<EmailMessageModel> batch = messages.subList(from, Math.min(from + getBatchSize(), messages.size()));
+			final List<EmailMessageModel> sentInBatch = send(batch);
+			getModelService().removeAll(sentInBatch);
+			sent.addAll(sentInBatch);
+		}
+		return sent;
+	}
+
+	protected List<EmailMessageModel> send(final List<EmailMessageModel> batch)
+	{
+		if (getEmailMessageSender() != null && getEmailMessageSender().isEnabled())
+		{
+			return getEmailMessageSender().sendAll(batch);
+		}
+		final List<EmailMessageModel> sent = new ArrayList<>(batch.size());
+		for (final EmailMessageModel message : batch)
+		{
+			if (send(message))
+			{
+				sent.add(message);
+			}
+		}
+		return sent;
+	}
+
+	protected boolean send(final EmailMessageModel message)
+	{
+		try
+		{
+			return getEmailService().send(message);
+		}
+		catch (final RuntimeException e)
+		{
+			LOG.error("Failed to send email message [" + message.getSubject() + "]", e);
+			return false;
+		}
+	}
+
+	protected EmailService getEmailService()
+	{
+		return emailService;
+	}
+
+	@Required
+	public void setEmailService(final EmailService emailService)
+	{
+		this.emailService = emailService;
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected EmailMessageSender getEmailMessageSender()
+	{
+		return emailMessageSender;
+	}
+
+	/**
+	 * @param emailMessageSender
+	 *           sends the batches if set and enabled
+	 */
+	public void setEmailMessageSender(final EmailMessageSender emailMessageSender)
+	{
+		this.emailMessageSender = emailMessageSender;
+	}
+
+	protected int getBatchSize()
+	{
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize
+	 *           number of sent messages removed at once
+	 */
+	public void setBatchSize(final int batchSize)
+	{
+		this.batchSize = batchSize;
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.email.impl;
+
+import de.hybris.platform.acceleratorservices.email.impl.DefaultEmailService;
+import de.hybris.platform.acceleratorservices.model.email.EmailMessageModel;
+import org.training.core.email.EmailMessageSender;
+
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * EmailService sending through the {@link EmailMessageSender} when it is enabled, so the SendEmail action of the email
+ * processes reuses pooled SMTP connections instead of opening one per message.
+ */
+public class PooledEmailService extends DefaultEmailService
+{
+	private EmailMessageSender emailMessageSender;
+
+	@Override
+	public boolean send(final EmailMessageModel message)
+	{
+		if (getEmailMessageSender().isEnabled())
+		{
+			return getEmailMessageSender().send(message);
+		}
+		return super.send(message);
+	}
+
+	protected EmailMessageSender getEmailMessageSender()
+	{
+		return emailMessageSender;
+	}
+
+	@Required
+	public void setEmailMessageSender(final EmailMessageSender emailMessageSender)
+	{
+		this.emailMessageSender = emailMessageSender;
+	}
+}
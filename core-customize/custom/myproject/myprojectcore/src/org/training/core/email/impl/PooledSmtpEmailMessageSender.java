@@ -0,0 +1,513 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.email.impl;
+
+import de.hybris.platform.acceleratorservices.model.email.EmailAddressModel;
+import de.hybris.platform.acceleratorservices.model.email.EmailAttachmentModel;
+import de.hybris.platform.acceleratorservices.model.email.EmailMessageModel;
+import de.hybris.platform.servicelayer.config.ConfigurationService;
+import de.hybris.platform.servicelayer.media.MediaService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.core.email.EmailMessageSender;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import javax.mail.util.ByteArrayDataSource;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.mail.EmailException;
+import org.apache.commons.mail.HtmlEmail;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * {@link EmailMessageSender} keeping a pool of open SMTP connections, so a message does not pay for the connection set
+ * up, TLS handshake and authentication the platform EmailService does for every single message.
+ *
+ * At most {@link #setPoolSize(int)} connections are open at a time; a connection is closed after
+ * {@link #setMaxMessagesPerConnection(int)} messages, as many mail servers limit the messages per session, and replaced
+ * after a failure. {@link #sendAll(List)} builds the MIME messages on the calling thread and sends them over all pooled
+ * connections in parallel. The SMTP server is read from the same <code>mail.*</code> properties as the platform uses.
+ *
+ * Messages are built with commons-email like the platform EmailService, honour its
+ * <code>emailservice.send.enabled</code> switch and get the sent message ID. A message that can not be built or sent
+ * fails on its own, the other messages of the batch are still sent.
+ */
+public class PooledSmtpEmailMessageSender implements EmailMessageSender, InitializingBean, DisposableBean
+{
+	private static final Logger LOG = Logger.getLogger(PooledSmtpEmailMessageSender.class);
+
+	protected static final String SMTP_SERVER = "mail.smtp.server";
+	protected static final String SMTP_PORT = "mail.smtp.port";
+	protected static final String SMTP_USER = "mail.smtp.user";
+	protected static final String SMTP_PASSWORD = "mail.smtp.password";
+	protected static final String USE_TLS = "mail.use.tls";
+	protected static final String SEND_ENABLED = "emailservice.send.enabled";
+
+	private ConfigurationService configurationService;
+	private MediaService mediaService;
+	private ModelService modelService;
+	private boolean enabled;
+	private int poolSize = 4;
+	private int maxMessagesPerConnection = 100;
+	private long borrowTimeoutMillis = 30000L;
+	private int socketTimeoutMillis = 30000;
+
+	private Session session;
+	private BlockingQueue<PooledConnection> pool;
+	private ExecutorService executor;
+
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder connectionsOpened = new LongAdder();
+	private final LongAdder sendNanos = new LongAdder();
+
+	@Override
+	public void afterPropertiesSet()
+	{
+		session = createSession();
+		pool = new ArrayBlockingQueue<>(getPoolSize());
+		for (int i = 0; i < getPoolSize(); i++)
+		{
+			pool.add(new PooledConnection());
+		}
+		executor = Executors.newFixedThreadPool(getPoolSize(), runnable -> {
+			final Thread thread = new Thread(runnable, "smtp-sender");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void destroy()
+	{
+		executor.shutdown();
+		for (final PooledConnection connection : pool)
+		{
+			connection.close();
+		}
+		if (LOG.isInfoEnabled())
+		{
+			LOG.info(this);
+		}
+	}
+
+	protected Session createSession()
+	{
+		final Configuration configuration = getConfigurationService().getConfiguration();
+		final Properties properties = new Properties();
+		properties.setProperty("mail.transport.protocol", "smtp");
+		properties.setProperty("mail.smtp.host", configuration.getString(SMTP_SERVER, "localhost"));
+		properties.setProperty("mail.smtp.port", configuration.getString(SMTP_PORT, "25"));
+		properties.setProperty("mail.smtp.starttls.enable", String.valueOf(configuration.getBoolean(USE_TLS, false)));
+		properties.setProperty("mail.smtp.connectiontimeout", String.valueOf(getSocketTimeoutMillis()));
+		properties.setProperty("mail.smtp.timeout", String.valueOf(getSocketTimeoutMillis()));
+		final String user = configuration.getString(SMTP_USER, null);
+		if (StringUtils.isNotBlank(user))
+		{
+			properties.setProperty("mail.smtp.auth", "true");
+			properties.setProperty("mail.smtp.user", user);
+		}
+		return Session.getInstance(properties);
+	}
+
+	@Override
+	public boolean send(final EmailMessageModel message)
+	{
+		return !sendAll(Collections.singletonList(message)).isEmpty();
+	}
+
+	@Override
+	public List<EmailMessageModel> sendAll(final List<EmailMessageModel> messages)
+	{
+		if (!getConfigurationService().getConfiguration().getBoolean(SEND_ENABLED, true))
+		{
+			// like the EmailService, report the messages as sent without marking them
+			for (final EmailMessageModel message : messages)
+			{
+				LOG.warn("Could not send e-mail pk [" + message.getPk() + "] subject [" + message.getSubject() + "]");
+			}
+			LOG.info("Email sending has been disabled. Check the config property '" + SEND_ENABLED + "'");
+			return new ArrayList<>(messages);
+		}
+
+		final List<MimeMessage> mimeMessages = new ArrayList<>(messages.size());
+		final List<Future<Boolean>> results = new ArrayList<>(messages.size());
+		for (final EmailMessageModel message : messages)
+		{
+			final MimeMessage mimeMessage = createMimeMessage(message);
+			mimeMessages.add(mimeMessage);
+			results.add(mimeMessage == null ? null : executor.submit(() -> Boolean.valueOf(transmit(mimeMessage))));
+		}
+
+		final List<EmailMessageModel> sentMessages = new ArrayList<>(messages.size());
+		for (int i = 0; i < messages.size(); i++)
+		{
+			if (isSent(results.get(i)))
+			{
+				final EmailMessageModel message = messages.get(i);
+				message.setSent(true);
+				message.setSentMessageID(getMessageID(mimeMessages.get(i)));
+				message.setSentDate(new Date());
+				sentMessages.add(message);
+			}
+		}
+		getModelService().saveAll(sentMessages);
+		return sentMessages;
+	}
+
+	protected String getMessageID(final MimeMessage mimeMessage)
+	{
+		try
+		{
+			return mimeMessage.getMessageID();
+		}
+		catch (final MessagingException e)
+		{
+			LOG.warn("Failed to read the ID of a sent email message", e);
+			return null;
+		}
+	}
+
+	protected boolean isSent(final Future<Boolean> result)
+	{
+		if (result == null)
+		{
+			return false;
+		}
+		try
+		{
+			return result.get().booleanValue();
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		catch (final ExecutionException e)
+		{
+			LOG.error("Failed to send email message", e.getCause());
+			return false;
+		}
+	}
+
+	/**
+	 * @return the MIME message, <code>null</code> if the message can not be converted
+	 */
+	protected MimeMessage createMimeMessage(final EmailMessageModel message)
+	{
+		try
+		{
+			final HtmlEmail email = createEmail(message);
+			email.buildMimeMessage();
+			final MimeMessage mimeMessage = email.getMimeMessage();
+			mimeMessage.saveChanges();
+			LOG.info("Sending Email [" + message.getPk() + "] To [" + getEmailAddresses(message.getToAddresses())
+					+ "] From [" + message.getFromAddress().getEmailAddress() + "] Subject [" + email.getSubject()
+					+ "]");
+			return mimeMessage;
+		}
+		catch (final EmailException | MessagingException | RuntimeException e)
+		{
+			failed.increment();
+			LOG.error("Failed to create email message [" + message.getPk() + "] subject [" + message.getSubject() + "]",
+					e);
+			return null;
+		}
+	}
+
+	/**
+	 * Fills the email the way the platform EmailService does, on the mail session of the pool.
+	 */
+	protected HtmlEmail createEmail(final EmailMessageModel message) throws EmailException
+	{
+		final HtmlEmail email = new HtmlEmail();
+		email.setMailSession(session);
+		email.setCharset(StandardCharsets.UTF_8.name());
+		for (final EmailAddressModel address : nullSafe(message.getToAddresses()))
+		{
+			email.addTo(address.getEmailAddress(), nullifyEmpty(address.getDisplayName()));
+		}
+		for (final EmailAddressModel address : nullSafe(message.getCcAddresses()))
+		{
+			email.addCc(address.getEmailAddress(), nullifyEmpty(address.getDisplayName()));
+		}
+		for (final EmailAddressModel address : nullSafe(message.getBccAddresses()))
+		{
+			email.addBcc(address.getEmailAddress(), nullifyEmpty(address.getDisplayName()));
+		}
+		final EmailAddressModel fromAddress = message.getFromAddress();
+		email.setFrom(fromAddress.getEmailAddress(), nullifyEmpty(fromAddress.getDisplayName()));
+		if (StringUtils.isNotBlank(message.getReplyToAddress()))
+		{
+			email.addReplyTo(message.getReplyToAddress());
+		}
+		email.setSubject(message.getSubject());
+		email.setHtmlMsg(getBody(message));
+		for (final EmailAttachmentModel attachment : nullSafe(message.getAttachments()))
+		{
+			email.attach(new ByteArrayDataSource(getMediaService().getDataFromMedia(attachment), attachment.getMime()),
+					attachment.getRealFileName(), attachment.getAltText());
+		}
+		return email;
+	}
+
+	protected String getBody(final EmailMessageModel message)
+	{
+		if (StringUtils.isEmpty(message.getBody()) && message.getBodyMedia() != null)
+		{
+			return new String(getMediaService().getDataFromMedia(message.getBodyMedia()), StandardCharsets.UTF_8);
+		}
+		return message.getBody();
+	}
+
+	private static String getEmailAddresses(final Collection<EmailAddressModel> addresses)
+	{
+		final List<String> emailAddresses = new ArrayList<>();
+		for (final EmailAddressModel address : nullSafe(addresses))
+		{
+			emailAddresses.add(address.getEmailAddress());
+		}
+		return StringUtils.join(emailAddresses, ", ");
+	}
+
+	private static String nullifyEmpty(final String value)
+	{
+		return StringUtils.isBlank(value) ? null : value;
+	}
+
+	private static <T> Collection<T> nullSafe(final Collection<T> items)
+	{
+		return items == null ? Collections.<T> emptyList() : items;
+	}
+
+	/**
+	 * Sends the message over a pooled connection, opening it if needed.
+	 */
+	protected boolean transmit(final MimeMessage mimeMessage) throws InterruptedException
+	{
+		final PooledConnection connection = pool.poll(getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS);
+		if (connection == null)
+		{
+			failed.increment();
+			LOG.error("No SMTP connection available within " + getBorrowTimeoutMillis() + "ms");
+			return false;
+		}
+		final long started = System.nanoTime();
+		try
+		{
+			connection.send(mimeMessage);
+			sent.increment();
+			return true;
+		}
+		catch (final MessagingException e)
+		{
+			failed.increment();
+			connection.close();
+			LOG.error("Failed to send email message", e);
+			return false;
+		}
+		finally
+		{
+			sendNanos.add(System.nanoTime() - started);
+			pool.add(connection);
+		}
+	}
+
+	protected Transport openTransport() throws MessagingException
+	{
+		final Configuration configuration = getConfigurationService().getConfiguration();
+		final Transport transport = session.getTransport();
+		transport.connect(configuration.getString(SMTP_USER, null), configuration.getString(SMTP_PASSWORD, null));
+		connectionsOpened.increment();
+		return transport;
+	}
+
+	public long getSent()
+	{
+		return sent.sum();
+	}
+
+	public long getFailed()
+	{
+		return failed.sum();
+	}
+
+	public long getConnectionsOpened()
+	{
+		return connectionsOpened.sum();
+	}
+
+	public double getMeanSendMillis()
+	{
+		final long attempts = sent.sum() + failed.sum();
+		return attempts == 0 ? 0D : sendNanos.sum() / (double) attempts / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "SMTP sender: sent=" + getSent() + ", failed=" + getFailed() + ", connectionsOpened=" + getConnectionsOpened()
+				+ ", meanSend=" + getMeanSendMillis() + "ms";
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * @param enabled
+	 *           whether the EmailService and the batch dispatcher send through this sender
+	 */
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	protected ConfigurationService getConfigurationService()
+	{
+		return configurationService;
+	}
+
+	@Required
+	public void setConfigurationService(final ConfigurationService configurationService)
+	{
+		this.configurationService = configurationService;
+	}
+
+	protected MediaService getMediaService()
+	{
+		return mediaService;
+	}
+
+	@Required
+	public void setMediaService(final MediaService mediaService)
+	{
+		this.mediaService = mediaService;
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected int getPoolSize()
+	{
+		return poolSize;
+	}
+
+	/**
+	 * @param poolSize
+	 *           number of SMTP connections open at the same time
+	 */
+	public void setPoolSize(final int poolSize)
+	{
+		this.poolSize = poolSize;
+	}
+
+	protected int getMaxMessagesPerConnection()
+	{
+		return maxMessagesPerConnection;
+	}
+
+	/**
+	 * @param maxMessagesPerConnection
+	 *           number of messages after which a connection is closed and opened again
+	 */
+	public void setMaxMessagesPerConnection(final int maxMessagesPerConnection)
+	{
+		this.maxMessagesPerConnection = maxMessagesPerConnection;
+	}
+
+	protected long getBorrowTimeoutMillis()
+	{
+		return borrowTimeoutMillis;
+	}
+
+	/**
+	 * @param borrowTimeoutMillis
+	 *           how long a message waits for a free connection
+	 */
+	public void setBorrowTimeoutMillis(final long borrowTimeoutMillis)
+	{
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+	}
+
+	protected int getSocketTimeoutMillis()
+	{
+		return socketTimeoutMillis;
+	}
+
+	public void setSocketTimeoutMillis(final int socketTimeoutMillis)
+	{
+		this.socketTimeoutMillis = socketTimeoutMillis;
+	}
+
+	/**
+	 * An SMTP connection of the pool, opened on first use.
+	 */
+	protected class PooledConnection
+	{
+		private Transport transport;
+		private int messageCount;
+
+		protected void send(final MimeMessage mimeMessage) throws MessagingException
+		{
+			if (transport == null || !transport.isConnected() || messageCount >= getMaxMessagesPerConnection())
+			{
+				close();
+				transport = openTransport();
+			}
+			transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+			messageCount++;
+		}
+
+		protected void close()
+		{
+			if (transport != null)
+			{
+				try
+				{
+					transport.close();
+				}
+				catch (final MessagingException e)
+				{
+					LOG.debug("Failed to close SMTP connection", e);
+				}
+			}
+			transport = null;
+			messageCount = 0;
+		}
+	}
+}
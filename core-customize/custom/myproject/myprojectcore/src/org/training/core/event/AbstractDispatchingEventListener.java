@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.event;
+
+import de.hybris.platform.servicelayer.event.events.AbstractEvent;
+import de.hybris.platform.servicelayer.event.impl.AbstractEventListener;
+import org.training.core.event.dispatch.EventListenerDispatcher;
+import org.training.core.event.dispatch.SynchronousEventListenerDispatcher;
+
+
+/**
+ * Base class of the event listeners whose work is run by an {@link EventListenerDispatcher}, the counterpart of
+ * {@link AbstractDispatchingSiteEventListener} for events that are not bound to a site channel. Without a configured
+ * dispatcher the event is handled on the publishing thread.
+ */
+public abstract class AbstractDispatchingEventListener<T extends AbstractEvent> extends AbstractEventListener<T>
+{
+	private EventListenerDispatcher eventListenerDispatcher = SynchronousEventListenerDispatcher.INSTANCE;
+
+	@Override
+	protected void onEvent(final T event)
+	{
+		getEventListenerDispatcher().dispatch(getOrderingKey(event), () -> handleEvent(event));
+	}
+
+	/**
+	 * @return the key of the item the event is about, events with equal keys are handled in publishing order
+	 */
+	protected abstract Object getOrderingKey(T event);
+
+	/**
+	 * Handles the event on the thread chosen by the {@link EventListenerDispatcher}.
+	 */
+	protected abstract void handleEvent(T event);
+
+	protected EventListenerDispatcher getEventListenerDispatcher()
+	{
+		return eventListenerDispatcher;
+	}
+
+	/**
+	 * @param eventListenerDispatcher
+	 *           runs the work of the listener, synchronously if not set
+	 */
+	public void setEventListenerDispatcher(final EventListenerDispatcher eventListenerDispatcher)
+	{
+		this.eventListenerDispatcher = eventListenerDispatcher;
+	}
+}
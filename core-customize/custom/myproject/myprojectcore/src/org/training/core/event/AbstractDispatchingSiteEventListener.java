@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.event;
+
+import de.hybris.platform.acceleratorservices.site.AbstractAcceleratorSiteEventListener;
+import de.hybris.platform.servicelayer.event.events.AbstractEvent;
+import org.training.core.event.dispatch.EventListenerDispatcher;
+import org.training.core.event.dispatch.SynchronousEventListenerDispatcher;
+
+
+/**
+ * Base class of the site event listeners whose work, e.g. creating and starting a business process, is run by an
+ * {@link EventListenerDispatcher}. Without a configured dispatcher the event is handled on the publishing thread.
+ */
+public abstract class AbstractDispatchingSiteEventListener<T extends AbstractEvent>
+		extends AbstractAcceleratorSiteEventListener<T>
+{
+	private EventListenerDispatcher eventListenerDispatcher = SynchronousEventListenerDispatcher.INSTANCE;
+
+	@Override
+	protected void onSiteEvent(final T event)
+	{
+		getEventListenerDispatcher().dispatch(getOrderingKey(event), () -> handleSiteEvent(event));
+	}
+
+	/**
+	 * @return the key of the item the event is about, events with equal keys are handled in publishing order
+	 */
+	protected abstract Object getOrderingKey(T event);
+
+	/**
+	 * Handles the event on the thread chosen by the {@link EventListenerDispatcher}.
+	 */
+	protected abstract void handleSiteEvent(T event);
+
+	protected EventListenerDispatcher getEventListenerDispatcher()
+	{
+		return eventListenerDispatcher;
+	}
+
+	/**
+	 * @param eventListenerDispatcher
+	 *           runs the work of the listener, synchronously if not set
+	 */
+	public void setEventListenerDispatcher(final EventListenerDispatcher eventListenerDispatcher)
+	{
+		this.eventListenerDispatcher = eventListenerDispatcher;
+	}
+}
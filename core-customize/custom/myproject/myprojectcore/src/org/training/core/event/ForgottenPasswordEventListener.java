@@ -3,7 +3,6 @@
  */
 package org.training.core.event;
 
-import de.hybris.platform.acceleratorservices.site.AbstractAcceleratorSiteEventListener;
 import de.hybris.platform.basecommerce.model.site.BaseSiteModel;
 import de.hybris.platform.commerceservices.enums.SiteChannel;
 import de.hybris.platform.commerceservices.event.ForgottenPwdEvent;
@@ -11,6 +10,7 @@ import de.hybris.platform.commerceservices.model.process.ForgottenPasswordProces
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -18,11 +18,12 @@ import org.springframework.beans.factory.annotation.Required;
 /**
  * Listener for "forgotten password" functionality event.
  */
-public class ForgottenPasswordEventListener extends AbstractAcceleratorSiteEventListener<ForgottenPwdEvent>
+public class ForgottenPasswordEventListener extends AbstractDispatchingSiteEventListener<ForgottenPwdEvent>
 {
 
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 
 
 	protected BusinessProcessService getBusinessProcessService()
@@ -55,10 +56,16 @@ public class ForgottenPasswordEventListener extends AbstractAcceleratorSiteEvent
 	}
 
 	@Override
-	protected void onSiteEvent(final ForgottenPwdEvent event)
+	protected Object getOrderingKey(final ForgottenPwdEvent event)
+	{
+		return event.getCustomer().getUid();
+	}
+
+	@Override
+	protected void handleSiteEvent(final ForgottenPwdEvent event)
 	{
 		final ForgottenPasswordProcessModel forgottenPasswordProcessModel = (ForgottenPasswordProcessModel) getBusinessProcessService()
-				.createProcess("forgottenPassword-" + event.getCustomer().getUid() + "-" + System.currentTimeMillis(),
+				.createProcess(getProcessCodeGenerator().generate("forgottenPassword", event.getCustomer().getUid()),
 						"forgottenPasswordEmailProcess");
 		forgottenPasswordProcessModel.setSite(event.getSite());
 		forgottenPasswordProcessModel.setCustomer(event.getCustomer());
@@ -77,4 +84,15 @@ public class ForgottenPasswordEventListener extends AbstractAcceleratorSiteEvent
 		ServicesUtil.validateParameterNotNullStandardMessage("event.site", site);
 		return site.getChannel();
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
@@ -3,7 +3,6 @@
  */
 package org.training.core.event;
 
-import de.hybris.platform.acceleratorservices.site.AbstractAcceleratorSiteEventListener;
 import de.hybris.platform.basecommerce.model.site.BaseSiteModel;
 import de.hybris.platform.commerceservices.enums.SiteChannel;
 import de.hybris.platform.core.model.order.OrderModel;
@@ -12,6 +11,7 @@ import de.hybris.platform.orderprocessing.model.OrderProcessModel;
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -19,11 +19,12 @@ import org.springframework.beans.factory.annotation.Required;
 /**
  * Listener for order confirmation events.
  */
-public class OrderConfirmationEventListener extends AbstractAcceleratorSiteEventListener<OrderPlacedEvent>
+public class OrderConfirmationEventListener extends AbstractDispatchingSiteEventListener<OrderPlacedEvent>
 {
 
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 
 	protected BusinessProcessService getBusinessProcessService()
 	{
@@ -48,11 +49,17 @@ public class OrderConfirmationEventListener extends AbstractAcceleratorSiteEvent
 	}
 
 	@Override
-	protected void onSiteEvent(final OrderPlacedEvent orderPlacedEvent)
+	protected Object getOrderingKey(final OrderPlacedEvent orderPlacedEvent)
+	{
+		return orderPlacedEvent.getProcess().getOrder().getCode();
+	}
+
+	@Override
+	protected void handleSiteEvent(final OrderPlacedEvent orderPlacedEvent)
 	{
 		final OrderModel orderModel = orderPlacedEvent.getProcess().getOrder();
 		final OrderProcessModel orderProcessModel = (OrderProcessModel) getBusinessProcessService().createProcess(
-				"orderConfirmationEmailProcess-" + orderModel.getCode() + "-" + System.currentTimeMillis(),
+				getProcessCodeGenerator().generate("orderConfirmationEmailProcess", orderModel.getCode()),
 				"orderConfirmationEmailProcess");
 		orderProcessModel.setOrder(orderModel);
 		getModelService().save(orderProcessModel);
@@ -68,4 +75,15 @@ public class OrderConfirmationEventListener extends AbstractAcceleratorSiteEvent
 		ServicesUtil.validateParameterNotNullStandardMessage("event.order.site", site);
 		return site.getChannel();
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
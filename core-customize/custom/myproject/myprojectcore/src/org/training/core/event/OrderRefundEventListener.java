@@ -12,6 +12,7 @@ import de.hybris.platform.orderprocessing.model.OrderProcessModel;
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -21,13 +22,14 @@ public class OrderRefundEventListener extends AbstractAcceleratorSiteEventListen
 
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 
 	@Override
 	protected void onSiteEvent(final OrderCancelledEvent event)
 	{
 		final OrderModel orderModel = event.getProcess().getOrder();
 		final OrderProcessModel orderProcessModel = (OrderProcessModel) getBusinessProcessService().createProcess(
-				"sendOrderRefundEmailProcess-" + orderModel.getCode() + "-" + System.currentTimeMillis(),
+				getProcessCodeGenerator().generate("sendOrderRefundEmailProcess", orderModel.getCode()),
 				"sendOrderRefundEmailProcess");
 		orderProcessModel.setOrder(orderModel);
 		getModelService().save(orderProcessModel);
@@ -67,4 +69,14 @@ public class OrderRefundEventListener extends AbstractAcceleratorSiteEventListen
 		return site.getChannel();
 	}
 
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
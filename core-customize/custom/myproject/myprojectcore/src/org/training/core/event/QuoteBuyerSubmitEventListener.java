@@ -8,8 +8,8 @@ import de.hybris.platform.commerceservices.event.QuoteBuyerSubmitEvent;
 import de.hybris.platform.commerceservices.model.process.QuoteProcessModel;
 import de.hybris.platform.core.model.order.QuoteModel;
 import de.hybris.platform.processengine.BusinessProcessService;
-import de.hybris.platform.servicelayer.event.impl.AbstractEventListener;
 import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.core.process.ProcessCodeGenerator;
 import org.training.core.constants.MyprojectCoreConstants;
 
 import java.util.HashMap;
@@ -22,14 +22,21 @@ import org.springframework.beans.factory.annotation.Required;
 /**
  * Event Listener for {@link QuoteBuyerSubmitEvent}. This Event Listener starts the quote buyer business process.
  */
-public class QuoteBuyerSubmitEventListener extends AbstractEventListener<QuoteBuyerSubmitEvent>
+public class QuoteBuyerSubmitEventListener extends AbstractDispatchingEventListener<QuoteBuyerSubmitEvent>
 {
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 	private static final Logger LOG = Logger.getLogger(QuoteBuyerSubmitEventListener.class);
 
 	@Override
-	protected void onEvent(final QuoteBuyerSubmitEvent event)
+	protected Object getOrderingKey(final QuoteBuyerSubmitEvent event)
+	{
+		return event.getQuote().getCode();
+	}
+
+	@Override
+	protected void handleEvent(final QuoteBuyerSubmitEvent event)
 	{
 		if (LOG.isDebugEnabled())
 		{
@@ -39,9 +46,10 @@ public class QuoteBuyerSubmitEventListener extends AbstractEventListener<QuoteBu
 		final Map<String, Object> contextParams = new HashMap<String, Object>();
 		contextParams.put(MyprojectCoreConstants.QUOTE_USER_TYPE, event.getQuoteUserType());
 
-		final QuoteProcessModel quoteBuyerProcessModel = (QuoteProcessModel) getBusinessProcessService().createProcess(
-				"quoteBuyerProcess" + "-" + event.getQuote().getCode() + "-" + event.getQuote().getStore().getUid() + "-"
-						+ System.currentTimeMillis(), MyprojectCoreConstants.QUOTE_BUYER_PROCESS, contextParams);
+		final String processCode = getProcessCodeGenerator().generate("quoteBuyerProcess", event.getQuote().getCode(),
+				event.getQuote().getStore().getUid());
+		final QuoteProcessModel quoteBuyerProcessModel = (QuoteProcessModel) getBusinessProcessService().createProcess(processCode,
+				MyprojectCoreConstants.QUOTE_BUYER_PROCESS, contextParams);
 
 		if (LOG.isDebugEnabled())
 		{
@@ -78,4 +86,15 @@ public class QuoteBuyerSubmitEventListener extends AbstractEventListener<QuoteBu
 	{
 		this.modelService = modelService;
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
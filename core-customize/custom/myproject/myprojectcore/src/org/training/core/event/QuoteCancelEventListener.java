@@ -8,8 +8,8 @@ import de.hybris.platform.commerceservices.event.QuoteCancelEvent;
 import de.hybris.platform.commerceservices.model.process.QuoteProcessModel;
 import de.hybris.platform.core.model.order.QuoteModel;
 import de.hybris.platform.processengine.BusinessProcessService;
-import de.hybris.platform.servicelayer.event.impl.AbstractEventListener;
 import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.core.process.ProcessCodeGenerator;
 import org.training.core.constants.MyprojectCoreConstants;
 
 import java.util.HashMap;
@@ -22,14 +22,21 @@ import org.springframework.beans.factory.annotation.Required;
 /**
  * Event Listener for {@link QuoteCancelEvent}. This Event Listener starts the quote post cancellation process.
  */
-public class QuoteCancelEventListener extends AbstractEventListener<QuoteCancelEvent>
+public class QuoteCancelEventListener extends AbstractDispatchingEventListener<QuoteCancelEvent>
 {
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 	private static final Logger LOG = Logger.getLogger(QuoteCancelEventListener.class);
 
 	@Override
-	protected void onEvent(final QuoteCancelEvent event)
+	protected Object getOrderingKey(final QuoteCancelEvent event)
+	{
+		return event.getQuote().getCode();
+	}
+
+	@Override
+	protected void handleEvent(final QuoteCancelEvent event)
 	{
 		if (LOG.isDebugEnabled())
 		{
@@ -39,9 +46,10 @@ public class QuoteCancelEventListener extends AbstractEventListener<QuoteCancelE
 		final Map<String, Object> contextParams = new HashMap<String, Object>();
 		contextParams.put(MyprojectCoreConstants.QUOTE_USER_TYPE, event.getQuoteUserType());
 
-		final QuoteProcessModel quotePostCancellationProcessModel = (QuoteProcessModel) getBusinessProcessService().createProcess(
-				"quotePostCancellationProcess" + "-" + event.getQuote().getCode() + "-" + event.getQuote().getStore().getUid() + "-"
-						+ System.currentTimeMillis(), MyprojectCoreConstants.QUOTE_POST_CANCELLATION_PROCESS, contextParams);
+		final String processCode = getProcessCodeGenerator().generate("quotePostCancellationProcess", event.getQuote().getCode(),
+				event.getQuote().getStore().getUid());
+		final QuoteProcessModel quotePostCancellationProcessModel = (QuoteProcessModel) getBusinessProcessService()
+				.createProcess(processCode, MyprojectCoreConstants.QUOTE_POST_CANCELLATION_PROCESS, contextParams);
 
 		if (LOG.isDebugEnabled())
 		{
@@ -78,4 +86,15 @@ public class QuoteCancelEventListener extends AbstractEventListener<QuoteCancelE
 	{
 		this.modelService = modelService;
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
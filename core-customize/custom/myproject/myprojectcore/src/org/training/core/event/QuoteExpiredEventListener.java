@@ -11,6 +11,7 @@ import de.hybris.platform.core.model.order.QuoteModel;
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.event.impl.AbstractEventListener;
 import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.apache.commons.collections.MapUtils;
 import org.apache.log4j.Logger;
@@ -24,6 +25,7 @@ public class QuoteExpiredEventListener extends AbstractEventListener<QuoteExpire
 {
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 	private static final Logger LOG = Logger.getLogger(QuoteExpiredEventListener.class);
 
 	@Override
@@ -42,9 +44,9 @@ public class QuoteExpiredEventListener extends AbstractEventListener<QuoteExpire
 	{
 		final QuoteModel quote = event.getQuote();
 
-		final QuoteProcessModel quoteProcessModel = (QuoteProcessModel) getBusinessProcessService()
-				.createProcess(String.format("quoteExpired-%s-%s-%s", quote.getCode(), quote.getStore().getUid(),
-						Long.valueOf(System.currentTimeMillis())), QUOTE_EXPIRED_EMAIL_PROCESS, MapUtils.EMPTY_MAP);
+		final String processCode = getProcessCodeGenerator().generate("quoteExpired", quote.getCode(), quote.getStore().getUid());
+		final QuoteProcessModel quoteProcessModel = (QuoteProcessModel) getBusinessProcessService().createProcess(processCode,
+				QUOTE_EXPIRED_EMAIL_PROCESS, MapUtils.EMPTY_MAP);
 
 		if (LOG.isDebugEnabled())
 		{
@@ -78,4 +80,15 @@ public class QuoteExpiredEventListener extends AbstractEventListener<QuoteExpire
 	{
 		this.modelService = modelService;
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
@@ -7,8 +7,8 @@ import de.hybris.platform.commerceservices.event.QuoteSalesRepSubmitEvent;
 import de.hybris.platform.commerceservices.model.process.QuoteProcessModel;
 import de.hybris.platform.core.model.order.QuoteModel;
 import de.hybris.platform.processengine.BusinessProcessService;
-import de.hybris.platform.servicelayer.event.impl.AbstractEventListener;
 import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.core.process.ProcessCodeGenerator;
 import org.training.core.constants.MyprojectCoreConstants;
 
 import org.apache.log4j.Logger;
@@ -19,14 +19,21 @@ import org.springframework.beans.factory.annotation.Required;
  * Event Listener for {@link QuoteSalesRepSubmitEvent}, which is used to trigger quote sales representative business
  * process.
  */
-public class QuoteSalesRepSubmitEventListener extends AbstractEventListener<QuoteSalesRepSubmitEvent>
+public class QuoteSalesRepSubmitEventListener extends AbstractDispatchingEventListener<QuoteSalesRepSubmitEvent>
 {
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 	private static final Logger LOG = Logger.getLogger(QuoteSalesRepSubmitEventListener.class);
 
 	@Override
-	protected void onEvent(final QuoteSalesRepSubmitEvent event)
+	protected Object getOrderingKey(final QuoteSalesRepSubmitEvent event)
+	{
+		return event.getQuote().getCode();
+	}
+
+	@Override
+	protected void handleEvent(final QuoteSalesRepSubmitEvent event)
 	{
 		if (LOG.isDebugEnabled())
 		{
@@ -34,8 +41,8 @@ public class QuoteSalesRepSubmitEventListener extends AbstractEventListener<Quot
 		}
 
 		final QuoteProcessModel quoteSalesRepProcessModel = (QuoteProcessModel) getBusinessProcessService().createProcess(
-				"quoteSalesRepProcess" + "-" + event.getQuote().getCode() + "-" + event.getQuote().getStore().getUid() + "-"
-						+ System.currentTimeMillis(), MyprojectCoreConstants.QUOTE_SALES_REP_PROCESS);
+				getProcessCodeGenerator().generate("quoteSalesRepProcess", event.getQuote().getCode(),
+						event.getQuote().getStore().getUid()), MyprojectCoreConstants.QUOTE_SALES_REP_PROCESS);
 
 		if (LOG.isDebugEnabled())
 		{
@@ -72,4 +79,15 @@ public class QuoteSalesRepSubmitEventListener extends AbstractEventListener<Quot
 	{
 		this.modelService = modelService;
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
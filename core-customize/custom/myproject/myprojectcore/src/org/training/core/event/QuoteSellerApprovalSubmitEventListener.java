@@ -9,8 +9,8 @@ import de.hybris.platform.commerceservices.event.QuoteSellerApprovalSubmitEvent;
 import de.hybris.platform.commerceservices.model.process.QuoteProcessModel;
 import de.hybris.platform.core.model.order.QuoteModel;
 import de.hybris.platform.processengine.BusinessProcessService;
-import de.hybris.platform.servicelayer.event.impl.AbstractEventListener;
 import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
@@ -20,23 +20,32 @@ import org.springframework.beans.factory.annotation.Required;
  * Event listener that listens to {@link QuoteSellerApprovalSubmitEvent} which is used to trigger seller approval
  * process.
  */
-public class QuoteSellerApprovalSubmitEventListener extends AbstractEventListener<QuoteSellerApprovalSubmitEvent>
+public class QuoteSellerApprovalSubmitEventListener
+		extends AbstractDispatchingEventListener<QuoteSellerApprovalSubmitEvent>
 {
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 	private static final Logger LOG = Logger.getLogger(QuoteSellerApprovalSubmitEventListener.class);
 
 	@Override
-	protected void onEvent(final QuoteSellerApprovalSubmitEvent event)
+	protected Object getOrderingKey(final QuoteSellerApprovalSubmitEvent event)
+	{
+		return event.getQuote().getCode();
+	}
+
+	@Override
+	protected void handleEvent(final QuoteSellerApprovalSubmitEvent event)
 	{
 		if (LOG.isDebugEnabled())
 		{
 			LOG.debug("Received QuoteSellerApprovalSubmitEvent..");
 		}
 
+		final String processCode = getProcessCodeGenerator().generate("quoteSellerApprovalProcess", event.getQuote().getCode(),
+				event.getQuote().getStore().getUid());
 		final QuoteProcessModel quoteSellerApprovalProcess = (QuoteProcessModel) getBusinessProcessService()
-				.createProcess("quoteSellerApprovalProcess" + "-" + event.getQuote().getCode() + "-"
-						+ event.getQuote().getStore().getUid() + "-" + System.currentTimeMillis(), QUOTE_SELLER_APPROVER_PROCESS);
+				.createProcess(processCode, QUOTE_SELLER_APPROVER_PROCESS);
 
 		final QuoteModel quoteModel = event.getQuote();
 		quoteSellerApprovalProcess.setQuoteCode(quoteModel.getCode());
@@ -66,4 +75,15 @@ public class QuoteSellerApprovalSubmitEventListener extends AbstractEventListene
 	{
 		this.businessProcessService = businessProcessService;
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
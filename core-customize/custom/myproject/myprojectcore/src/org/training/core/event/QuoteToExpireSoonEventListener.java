@@ -16,6 +16,7 @@ import de.hybris.platform.core.model.order.QuoteModel;
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.event.impl.AbstractEventListener;
 import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.core.process.ProcessCodeGenerator;
 
 
 /**
@@ -26,6 +27,7 @@ public class QuoteToExpireSoonEventListener extends AbstractEventListener<QuoteT
 {
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 	private static final Logger LOG = Logger.getLogger(QuoteToExpireSoonEventListener.class);
 
 	@Override
@@ -44,9 +46,10 @@ public class QuoteToExpireSoonEventListener extends AbstractEventListener<QuoteT
 	{
 		final QuoteModel quote = event.getQuote();
 
-		final QuoteProcessModel quoteProcessModel = (QuoteProcessModel) getBusinessProcessService()
-				.createProcess(String.format("quoteToExpireSoon-%s-%s-%s", quote.getCode(), quote.getStore().getUid(),
-						Long.valueOf(System.currentTimeMillis())), QUOTE_TO_EXPIRE_SOON_EMAIL_PROCESS, MapUtils.EMPTY_MAP);
+		final String processCode = getProcessCodeGenerator().generate("quoteToExpireSoon", quote.getCode(),
+				quote.getStore().getUid());
+		final QuoteProcessModel quoteProcessModel = (QuoteProcessModel) getBusinessProcessService().createProcess(processCode,
+				QUOTE_TO_EXPIRE_SOON_EMAIL_PROCESS, MapUtils.EMPTY_MAP);
 
 		if (LOG.isDebugEnabled())
 		{
@@ -80,4 +83,15 @@ public class QuoteToExpireSoonEventListener extends AbstractEventListener<QuoteT
 	{
 		this.modelService = modelService;
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
@@ -3,7 +3,6 @@
  */
 package org.training.core.event;
 
-import de.hybris.platform.acceleratorservices.site.AbstractAcceleratorSiteEventListener;
 import de.hybris.platform.basecommerce.model.site.BaseSiteModel;
 import de.hybris.platform.commerceservices.enums.SiteChannel;
 import de.hybris.platform.commerceservices.event.RegisterEvent;
@@ -11,6 +10,7 @@ import de.hybris.platform.commerceservices.model.process.StoreFrontCustomerProce
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -18,11 +18,12 @@ import org.springframework.beans.factory.annotation.Required;
 /**
  * Listener for customer registration events.
  */
-public class RegistrationEventListener extends AbstractAcceleratorSiteEventListener<RegisterEvent>
+public class RegistrationEventListener extends AbstractDispatchingSiteEventListener<RegisterEvent>
 {
 
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 
 	protected BusinessProcessService getBusinessProcessService()
 	{
@@ -54,12 +55,17 @@ public class RegistrationEventListener extends AbstractAcceleratorSiteEventListe
 	}
 
 	@Override
-	protected void onSiteEvent(final RegisterEvent registerEvent)
+	protected Object getOrderingKey(final RegisterEvent registerEvent)
+	{
+		return registerEvent.getCustomer().getUid();
+	}
+
+	@Override
+	protected void handleSiteEvent(final RegisterEvent registerEvent)
 	{
 		final StoreFrontCustomerProcessModel storeFrontCustomerProcessModel = (StoreFrontCustomerProcessModel) getBusinessProcessService()
-				.createProcess(
-						"customerRegistrationEmailProcess-" + registerEvent.getCustomer().getUid() + "-" + System.currentTimeMillis(),
-						"customerRegistrationEmailProcess");
+				.createProcess(getProcessCodeGenerator().generate("customerRegistrationEmailProcess",
+						registerEvent.getCustomer().getUid()), "customerRegistrationEmailProcess");
 		storeFrontCustomerProcessModel.setSite(registerEvent.getSite());
 		storeFrontCustomerProcessModel.setCustomer(registerEvent.getCustomer());
 		storeFrontCustomerProcessModel.setLanguage(registerEvent.getLanguage());
@@ -76,4 +82,15 @@ public class RegistrationEventListener extends AbstractAcceleratorSiteEventListe
 		ServicesUtil.validateParameterNotNullStandardMessage("event.order.site", site);
 		return site.getChannel();
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
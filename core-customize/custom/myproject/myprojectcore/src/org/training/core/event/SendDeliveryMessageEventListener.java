@@ -13,6 +13,7 @@ import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -25,6 +26,7 @@ public class SendDeliveryMessageEventListener extends AbstractAcceleratorSiteEve
 
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 
 	/**
 	 * @return the businessProcessService
@@ -67,7 +69,7 @@ public class SendDeliveryMessageEventListener extends AbstractAcceleratorSiteEve
 	{
 		final ConsignmentModel consignmentModel = sendDeliveryMessageEvent.getProcess().getConsignment();
 		final ConsignmentProcessModel consignmentProcessModel = getBusinessProcessService().createProcess(
-				"sendDeliveryEmailProcess-" + consignmentModel.getCode() + "-" + System.currentTimeMillis(),
+				getProcessCodeGenerator().generate("sendDeliveryEmailProcess", consignmentModel.getCode()),
 				"sendDeliveryEmailProcess");
 		consignmentProcessModel.setConsignment(consignmentModel);
 		getModelService().save(consignmentProcessModel);
@@ -83,4 +85,15 @@ public class SendDeliveryMessageEventListener extends AbstractAcceleratorSiteEve
 		ServicesUtil.validateParameterNotNullStandardMessage("event.order.site", site);
 		return site.getChannel();
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
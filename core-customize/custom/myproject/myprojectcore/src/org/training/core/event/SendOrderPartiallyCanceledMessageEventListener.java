@@ -14,6 +14,7 @@ import de.hybris.platform.orderprocessing.events.SendOrderPartiallyCanceledMessa
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -26,6 +27,7 @@ public class SendOrderPartiallyCanceledMessageEventListener extends
 {
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 
 	/**
 	 * @return the businessProcessService
@@ -71,7 +73,7 @@ public class SendOrderPartiallyCanceledMessageEventListener extends
 				.getOrderModificationRecordEntry();
 
 		final OrderModificationProcessModel orderModificationProcessModel = getBusinessProcessService().createProcess(
-				"sendOrderPartiallyCanceledEmailProcess-" + modificationRecordEntry.getCode() + "-" + System.currentTimeMillis(),
+				getProcessCodeGenerator().generate("sendOrderPartiallyCanceledEmailProcess", modificationRecordEntry.getCode()),
 				"sendOrderPartiallyCanceledEmailProcess");
 		orderModificationProcessModel.setOrder(order);
 		orderModificationProcessModel.setOrderModificationRecordEntry(modificationRecordEntry);
@@ -88,4 +90,15 @@ public class SendOrderPartiallyCanceledMessageEventListener extends
 		ServicesUtil.validateParameterNotNullStandardMessage("event.order.site", site);
 		return site.getChannel();
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
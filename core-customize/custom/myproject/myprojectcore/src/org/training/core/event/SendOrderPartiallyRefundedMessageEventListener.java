@@ -14,6 +14,7 @@ import de.hybris.platform.orderprocessing.events.SendOrderPartiallyRefundedMessa
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -26,6 +27,7 @@ public class SendOrderPartiallyRefundedMessageEventListener extends
 {
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 
 	/**
 	 * @return the businessProcessService
@@ -71,7 +73,7 @@ public class SendOrderPartiallyRefundedMessageEventListener extends
 				.getOrderModificationRecordEntry();
 
 		final OrderModificationProcessModel orderModificationProcessModel = getBusinessProcessService().createProcess(
-				"sendOrderPartiallyRefundedEmailProcess-" + modificationRecordEntry.getCode() + "-" + System.currentTimeMillis(),
+				getProcessCodeGenerator().generate("sendOrderPartiallyRefundedEmailProcess", modificationRecordEntry.getCode()),
 				"sendOrderPartiallyRefundedEmailProcess");
 		orderModificationProcessModel.setOrder(order);
 		orderModificationProcessModel.setOrderModificationRecordEntry(modificationRecordEntry);
@@ -88,4 +90,15 @@ public class SendOrderPartiallyRefundedMessageEventListener extends
 		ServicesUtil.validateParameterNotNullStandardMessage("event.order.site", site);
 		return site.getChannel();
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
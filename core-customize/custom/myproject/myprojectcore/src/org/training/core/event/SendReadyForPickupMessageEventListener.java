@@ -13,6 +13,7 @@ import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -24,6 +25,7 @@ public class SendReadyForPickupMessageEventListener extends AbstractAcceleratorS
 {
 	private ModelService modelService;
 	private BusinessProcessService businessProcessService;
+	private ProcessCodeGenerator processCodeGenerator;
 
 	/**
 	 * @return the businessProcessService
@@ -66,7 +68,7 @@ public class SendReadyForPickupMessageEventListener extends AbstractAcceleratorS
 	{
 		final ConsignmentModel consignmentModel = sendReadyForPickupMessageEvent.getProcess().getConsignment();
 		final ConsignmentProcessModel consignmentProcessModel = getBusinessProcessService().createProcess(
-				"sendReadyForPickupEmailProcess-" + consignmentModel.getCode() + "-" + System.currentTimeMillis(),
+				getProcessCodeGenerator().generate("sendReadyForPickupEmailProcess", consignmentModel.getCode()),
 				"sendReadyForPickupEmailProcess");
 		consignmentProcessModel.setConsignment(consignmentModel);
 		getModelService().save(consignmentProcessModel);
@@ -82,4 +84,15 @@ public class SendReadyForPickupMessageEventListener extends AbstractAcceleratorS
 		ServicesUtil.validateParameterNotNullStandardMessage("event.order.site", site);
 		return site.getChannel();
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
@@ -3,7 +3,6 @@
  */
 package org.training.core.event;
 
-import de.hybris.platform.acceleratorservices.site.AbstractAcceleratorSiteEventListener;
 import de.hybris.platform.basecommerce.model.site.BaseSiteModel;
 import de.hybris.platform.commerceservices.enums.SiteChannel;
 import de.hybris.platform.core.model.order.OrderModel;
@@ -14,6 +13,7 @@ import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
 import de.hybris.platform.store.BaseStoreModel;
 import de.hybris.platform.store.services.BaseStoreService;
+import org.training.core.process.ProcessCodeGenerator;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
@@ -22,13 +22,14 @@ import org.springframework.beans.factory.annotation.Required;
 /**
  * Listener for order submits.
  */
-public class SubmitOrderEventListener extends AbstractAcceleratorSiteEventListener<SubmitOrderEvent>
+public class SubmitOrderEventListener extends AbstractDispatchingSiteEventListener<SubmitOrderEvent>
 {
 	private static final Logger LOG = Logger.getLogger(SubmitOrderEventListener.class);
 
 	private BusinessProcessService businessProcessService;
 	private BaseStoreService baseStoreService;
 	private ModelService modelService;
+	private ProcessCodeGenerator processCodeGenerator;
 
 	/**
 	 * @return the businessProcessService
@@ -85,7 +86,15 @@ public class SubmitOrderEventListener extends AbstractAcceleratorSiteEventListen
 	}
 
 	@Override
-	protected void onSiteEvent(final SubmitOrderEvent event)
+	protected Object getOrderingKey(final SubmitOrderEvent event)
+	{
+		final OrderModel order = event.getOrder();
+		ServicesUtil.validateParameterNotNullStandardMessage("event.order", order);
+		return order.getCode();
+	}
+
+	@Override
+	protected void handleSiteEvent(final SubmitOrderEvent event)
 	{
 		final OrderModel order = event.getOrder();
 		ServicesUtil.validateParameterNotNullStandardMessage("event.order", order);
@@ -112,7 +121,8 @@ public class SubmitOrderEventListener extends AbstractAcceleratorSiteEventListen
 			}
 			else
 			{
-				final String processCode = fulfilmentProcessDefinitionName + "-" + order.getCode() + "-" + System.currentTimeMillis();
+				final String processCode = getProcessCodeGenerator().generate(fulfilmentProcessDefinitionName,
+						order.getCode());
 				final OrderProcessModel businessProcessModel = getBusinessProcessService().createProcess(processCode,
 						fulfilmentProcessDefinitionName);
 				businessProcessModel.setOrder(order);
@@ -135,4 +145,15 @@ public class SubmitOrderEventListener extends AbstractAcceleratorSiteEventListen
 		ServicesUtil.validateParameterNotNullStandardMessage("event.order.site", site);
 		return site.getChannel();
 	}
+
+	protected ProcessCodeGenerator getProcessCodeGenerator()
+	{
+		return processCodeGenerator;
+	}
+
+	@Required
+	public void setProcessCodeGenerator(final ProcessCodeGenerator processCodeGenerator)
+	{
+		this.processCodeGenerator = processCodeGenerator;
+	}
 }
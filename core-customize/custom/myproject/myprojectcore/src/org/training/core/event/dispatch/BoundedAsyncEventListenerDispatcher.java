@@ -0,0 +1,534 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.event.dispatch;
+
+import de.hybris.platform.basecommerce.model.site.BaseSiteModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.core.model.c2l.CurrencyModel;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.site.BaseSiteService;
+import de.hybris.platform.tx.Transaction;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Runs the listener work on its own bounded set of threads, so the publishing thread, e.g. a checkout request, does not
+ * wait for it.
+ *
+ * The work is spread over {@link #setLanes(int)} single threaded lanes with a queue of {@link #setQueueCapacity(int)}
+ * tasks each. The lane is chosen by the ordering key, so tasks for the same key run in dispatch order; tasks without
+ * key are spread round robin. What happens to a task whose lane is full is decided by the {@link RejectionPolicy}.
+ *
+ * Work dispatched inside a running transaction is run on the publishing thread, as the items the event refers to may
+ * not be visible to other threads before the commit. With {@link #setAsync(boolean)} switched off all work is run on
+ * the publishing thread.
+ *
+ * A lane runs each task in a new session with the user, language, currency and site of the publishing session, so
+ * listeners resolving e.g. the current base store behave as on the publishing thread.
+ *
+ * The counters are registered in the platform MBean server as
+ * <code>org.training.core:type=EventListenerDispatcher,name=&lt;name&gt;,tenant=&lt;tenant id&gt;</code>.
+ */
+public class BoundedAsyncEventListenerDispatcher
+		implements EventListenerDispatcher, EventListenerDispatcherMXBean, InitializingBean, DisposableBean
+{
+	private static final Logger LOG = Logger.getLogger(BoundedAsyncEventListenerDispatcher.class);
+
+	private String name;
+	private boolean async = true;
+	private int lanes = 2;
+	private int queueCapacity = 1000;
+	private RejectionPolicy rejectionPolicy = RejectionPolicy.BLOCK;
+	private long shutdownTimeoutSeconds = 30;
+	private SessionService sessionService;
+	private UserService userService;
+	private CommonI18NService commonI18NService;
+	private BaseSiteService baseSiteService;
+	private ModelService modelService;
+
+	private ThreadPoolExecutor[] executors;
+	private ObjectName objectName;
+	private final AtomicInteger nextLane = new AtomicInteger();
+
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder blocked = new LongAdder();
+	private final LongAdder callerRuns = new LongAdder();
+	private final LongAdder inTransactionRuns = new LongAdder();
+	private final LongAdder queueWaitNanos = new LongAdder();
+	private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0L);
+	private final LongAdder executionNanos = new LongAdder();
+
+	@Override
+	public void afterPropertiesSet()
+	{
+		executors = new ThreadPoolExecutor[getLanes()];
+		for (int lane = 0; lane < executors.length; lane++)
+		{
+			final String threadName = getName() + "-" + lane;
+			executors[lane] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<Runnable>(getQueueCapacity()), runnable -> {
+						final Thread thread = new Thread(runnable, threadName);
+						thread.setDaemon(true);
+						return thread;
+					}, new ThreadPoolExecutor.AbortPolicy());
+		}
+		registerMBean();
+	}
+
+	protected void registerMBean()
+	{
+		final Tenant tenant = Registry.getCurrentTenantNoFallback();
+		try
+		{
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final String nameProperty = ",name=" + ObjectName.quote(getName());
+			final String tenantProperty = tenant == null ? "" : ",tenant=" + ObjectName.quote(tenant.getTenantID());
+			objectName = new ObjectName(
+					"org.training.core:type=EventListenerDispatcher" + nameProperty + tenantProperty);
+			if (server.isRegistered(objectName))
+			{
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(this, objectName);
+		}
+		catch (final JMException e)
+		{
+			LOG.warn("Metrics of event listener " + getName() + " are not available through JMX", e);
+			objectName = null;
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException, JMException
+	{
+		if (objectName != null && ManagementFactory.getPlatformMBeanServer().isRegistered(objectName))
+		{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+		for (final ThreadPoolExecutor executor : executors)
+		{
+			executor.shutdown();
+		}
+		for (final ThreadPoolExecutor executor : executors)
+		{
+			if (!executor.awaitTermination(getShutdownTimeoutSeconds(), TimeUnit.SECONDS))
+			{
+				LOG.warn("Dropping " + executor.shutdownNow().size() + " queued tasks of event listener " + getName());
+			}
+		}
+		if (LOG.isInfoEnabled())
+		{
+			LOG.info(this);
+		}
+	}
+
+	@Override
+	public void dispatch(final Object orderingKey, final Runnable task)
+	{
+		if (!isAsync())
+		{
+			task.run();
+			return;
+		}
+		if (isTransactionRunning())
+		{
+			inTransactionRuns.increment();
+			task.run();
+			return;
+		}
+
+		submitted.increment();
+		final ThreadPoolExecutor executor = executors[lane(orderingKey)];
+		final Runnable queuedTask = createQueuedTask(orderingKey, task);
+		try
+		{
+			executor.execute(queuedTask);
+		}
+		catch (final RejectedExecutionException e)
+		{
+			reject(executor, task, queuedTask, e);
+		}
+	}
+
+	protected boolean isTransactionRunning()
+	{
+		return Transaction.current().isRunning();
+	}
+
+	protected int lane(final Object orderingKey)
+	{
+		final int hash = orderingKey == null ? nextLane.getAndIncrement() : orderingKey.hashCode();
+		return (hash & Integer.MAX_VALUE) % executors.length;
+	}
+
+	protected Runnable createQueuedTask(final Object orderingKey, final Runnable task)
+	{
+		final Tenant tenant = Registry.getCurrentTenantNoFallback();
+		final PublisherSession publisherSession = capturePublisherSession();
+		final long queuedAt = System.nanoTime();
+		return () -> {
+			final long startedAt = System.nanoTime();
+			queueWaitNanos.add(startedAt - queuedAt);
+			maxQueueWaitNanos.accumulate(startedAt - queuedAt);
+			if (tenant != null)
+			{
+				Registry.setCurrentTenant(tenant);
+			}
+			try
+			{
+				runInSession(publisherSession, task);
+				completed.increment();
+			}
+			catch (final RuntimeException e)
+			{
+				failed.increment();
+				LOG.error("Event listener " + getName() + " failed for [" + orderingKey + "]", e);
+			}
+			finally
+			{
+				executionNanos.add(System.nanoTime() - startedAt);
+				Registry.unsetCurrentTenant();
+			}
+		};
+	}
+
+	/**
+	 * Keeps the primary keys of the session values on the publishing thread, the models themselves belong to the
+	 * publishing session.
+	 */
+	protected PublisherSession capturePublisherSession()
+	{
+		final PublisherSession publisherSession = new PublisherSession();
+		publisherSession.userPk = pk(getUserService().getCurrentUser());
+		publisherSession.languagePk = pk(getCommonI18NService().getCurrentLanguage());
+		publisherSession.currencyPk = pk(getCommonI18NService().getCurrentCurrency());
+		publisherSession.sitePk = pk(getBaseSiteService().getCurrentBaseSite());
+		return publisherSession;
+	}
+
+	protected void runInSession(final PublisherSession publisherSession, final Runnable task)
+	{
+		final Session session = getSessionService().createNewSession();
+		try
+		{
+			if (publisherSession.userPk != null)
+			{
+				final UserModel user = getModelService().get(publisherSession.userPk);
+				getUserService().setCurrentUser(user);
+			}
+			if (publisherSession.languagePk != null)
+			{
+				final LanguageModel language = getModelService().get(publisherSession.languagePk);
+				getCommonI18NService().setCurrentLanguage(language);
+			}
+			if (publisherSession.currencyPk != null)
+			{
+				final CurrencyModel currency = getModelService().get(publisherSession.currencyPk);
+				getCommonI18NService().setCurrentCurrency(currency);
+			}
+			if (publisherSession.sitePk != null)
+			{
+				final BaseSiteModel site = getModelService().get(publisherSession.sitePk);
+				getBaseSiteService().setCurrentBaseSite(site, true);
+			}
+			task.run();
+		}
+		finally
+		{
+			getSessionService().closeSession(session);
+		}
+	}
+
+	private static PK pk(final ItemModel item)
+	{
+		return item == null ? null : item.getPk();
+	}
+
+	protected void reject(final ThreadPoolExecutor executor, final Runnable task, final Runnable queuedTask,
+			final RejectedExecutionException exception)
+	{
+		switch (executor.isShutdown() ? RejectionPolicy.CALLER_RUNS : getRejectionPolicy())
+		{
+			case BLOCK:
+				blocked.increment();
+				try
+				{
+					executor.getQueue().put(queuedTask);
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					rejected.increment();
+					throw new RejectedExecutionException("Interrupted while waiting for event listener " + getName(), e);
+				}
+				break;
+			case CALLER_RUNS:
+				callerRuns.increment();
+				task.run();
+				break;
+			default:
+				rejected.increment();
+				throw exception;
+		}
+	}
+
+	@Override
+	public long getSubmitted()
+	{
+		return submitted.sum();
+	}
+
+	@Override
+	public long getCompleted()
+	{
+		return completed.sum();
+	}
+
+	@Override
+	public long getFailed()
+	{
+		return failed.sum();
+	}
+
+	@Override
+	public long getRejected()
+	{
+		return rejected.sum();
+	}
+
+	@Override
+	public long getBlocked()
+	{
+		return blocked.sum();
+	}
+
+	@Override
+	public long getCallerRuns()
+	{
+		return callerRuns.sum();
+	}
+
+	@Override
+	public long getInTransactionRuns()
+	{
+		return inTransactionRuns.sum();
+	}
+
+	@Override
+	public int getQueueSize()
+	{
+		int size = 0;
+		for (final ThreadPoolExecutor executor : executors)
+		{
+			size += executor.getQueue().size();
+		}
+		return size;
+	}
+
+	@Override
+	public long getMaxQueueWaitMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos.get());
+	}
+
+	@Override
+	public double getMeanQueueWaitMillis()
+	{
+		final long started = completed.sum() + failed.sum();
+		return started == 0 ? 0D : queueWaitNanos.sum() / (double) started / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public double getMeanExecutionMillis()
+	{
+		final long started = completed.sum() + failed.sum();
+		return started == 0 ? 0D : executionNanos.sum() / (double) started / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Event listener " + getName() + ": submitted=" + getSubmitted() + ", completed=" + getCompleted() + ", failed="
+				+ getFailed() + ", rejected=" + getRejected() + ", blocked=" + getBlocked() + ", callerRuns=" + getCallerRuns()
+				+ ", inTransaction=" + getInTransactionRuns() + ", queued=" + getQueueSize() + ", meanQueueWait="
+				+ getMeanQueueWaitMillis() + "ms, maxQueueWait=" + getMaxQueueWaitMillis() + "ms, meanExecution="
+				+ getMeanExecutionMillis() + "ms";
+	}
+
+	protected String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @param name
+	 *           name of the listener, used for the thread names and in the log
+	 */
+	@Required
+	public void setName(final String name)
+	{
+		this.name = name;
+	}
+
+	protected boolean isAsync()
+	{
+		return async;
+	}
+
+	/**
+	 * @param async
+	 *           false to run all work on the publishing thread, e.g. to rule out the dispatcher when analysing a problem
+	 */
+	public void setAsync(final boolean async)
+	{
+		this.async = async;
+	}
+
+	protected int getLanes()
+	{
+		return lanes;
+	}
+
+	/**
+	 * @param lanes
+	 *           number of threads
+	 */
+	public void setLanes(final int lanes)
+	{
+		this.lanes = lanes;
+	}
+
+	protected int getQueueCapacity()
+	{
+		return queueCapacity;
+	}
+
+	/**
+	 * @param queueCapacity
+	 *           number of tasks queued per lane before the {@link RejectionPolicy} applies
+	 */
+	public void setQueueCapacity(final int queueCapacity)
+	{
+		this.queueCapacity = queueCapacity;
+	}
+
+	protected RejectionPolicy getRejectionPolicy()
+	{
+		return rejectionPolicy;
+	}
+
+	public void setRejectionPolicy(final RejectionPolicy rejectionPolicy)
+	{
+		this.rejectionPolicy = rejectionPolicy;
+	}
+
+	protected long getShutdownTimeoutSeconds()
+	{
+		return shutdownTimeoutSeconds;
+	}
+
+	/**
+	 * @param shutdownTimeoutSeconds
+	 *           how long a shutdown waits for the queued tasks
+	 */
+	public void setShutdownTimeoutSeconds(final long shutdownTimeoutSeconds)
+	{
+		this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+	}
+
+	protected SessionService getSessionService()
+	{
+		return sessionService;
+	}
+
+	@Required
+	public void setSessionService(final SessionService sessionService)
+	{
+		this.sessionService = sessionService;
+	}
+
+	protected UserService getUserService()
+	{
+		return userService;
+	}
+
+	@Required
+	public void setUserService(final UserService userService)
+	{
+		this.userService = userService;
+	}
+
+	protected CommonI18NService getCommonI18NService()
+	{
+		return commonI18NService;
+	}
+
+	@Required
+	public void setCommonI18NService(final CommonI18NService commonI18NService)
+	{
+		this.commonI18NService = commonI18NService;
+	}
+
+	protected BaseSiteService getBaseSiteService()
+	{
+		return baseSiteService;
+	}
+
+	@Required
+	public void setBaseSiteService(final BaseSiteService baseSiteService)
+	{
+		this.baseSiteService = baseSiteService;
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	/**
+	 * Primary keys of the user, language, currency and site of the publishing session.
+	 */
+	protected static class PublisherSession
+	{
+		private PK userPk;
+		private PK languagePk;
+		private PK currencyPk;
+		private PK sitePk;
+	}
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.event.dispatch;
+
+/**
+ * Runs the work of an event listener, e.g. the creation and start of a business process, either on the publishing
+ * thread or asynchronously.
+ */
+public interface EventListenerDispatcher
+{
+	/**
+	 * Runs the task. Tasks with equal ordering keys are run one after the other in the order they were dispatched.
+	 *
+	 * @param orderingKey
+	 *           key of the item the event is about, e.g. the order code, or <code>null</code> if the order does not matter
+	 * @param task
+	 *           the work of the listener
+	 */
+	void dispatch(Object orderingKey, Runnable task);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.event.dispatch;
+
+/**
+ * JMX view of a {@link BoundedAsyncEventListenerDispatcher}.
+ */
+public interface EventListenerDispatcherMXBean
+{
+	/**
+	 * @return number of tasks handed to the lanes
+	 */
+	long getSubmitted();
+
+	/**
+	 * @return number of tasks finished without exception on a lane
+	 */
+	long getCompleted();
+
+	/**
+	 * @return number of tasks that threw an exception on a lane
+	 */
+	long getFailed();
+
+	/**
+	 * @return number of tasks refused because their lane was full or the publisher was interrupted while waiting
+	 */
+	long getRejected();
+
+	/**
+	 * @return number of times the publisher waited for a full lane
+	 */
+	long getBlocked();
+
+	/**
+	 * @return number of tasks run on the publishing thread because their lane was full or shut down
+	 */
+	long getCallerRuns();
+
+	/**
+	 * @return number of tasks run on the publishing thread because a transaction was running
+	 */
+	long getInTransactionRuns();
+
+	/**
+	 * @return number of tasks currently waiting in the lanes
+	 */
+	int getQueueSize();
+
+	/**
+	 * @return longest time a task waited in its lane
+	 */
+	long getMaxQueueWaitMillis();
+
+	/**
+	 * @return mean time the tasks waited in their lane
+	 */
+	double getMeanQueueWaitMillis();
+
+	/**
+	 * @return mean execution time of the tasks on the lanes
+	 */
+	double getMeanExecutionMillis();
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.event.dispatch;
+
+/**
+ * What {@link BoundedAsyncEventListenerDispatcher} does with a task whose queue is full.
+ */
+public enum RejectionPolicy
+{
+	/**
+	 * The publishing thread waits for free queue capacity, keeps the ordering.
+	 */
+	BLOCK,
+	/**
+	 * The task runs on the publishing thread, may overtake queued tasks with the same ordering key.
+	 */
+	CALLER_RUNS,
+	/**
+	 * A {@link java.util.concurrent.RejectedExecutionException} is thrown to the publisher.
+	 */
+	ABORT
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.event.dispatch;
+
+/**
+ * Runs the listener work on the publishing thread, the behavior of listeners without a configured dispatcher.
+ */
+public class SynchronousEventListenerDispatcher implements EventListenerDispatcher
+{
+	public static final SynchronousEventListenerDispatcher INSTANCE = new SynchronousEventListenerDispatcher();
+
+	@Override
+	public void dispatch(final Object orderingKey, final Runnable task)
+	{
+		task.run();
+	}
+}
@@ -0,0 +1,12 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.jalo;
+
+/**
+ * Cron job of the chunked retention cleanup, keeps the cursor and the metrics of the last run.
+ */
+public class ChunkedRetentionCronJob extends GeneratedChunkedRetentionCronJob
+{
+	// Deliberately empty class
+}
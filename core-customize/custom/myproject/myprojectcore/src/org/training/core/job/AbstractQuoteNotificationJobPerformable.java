@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import org.training.core.model.QuoteNotificationCronJobModel;
+import org.training.core.quote.BulkQuoteNotificationService;
+
+import de.hybris.platform.commerceservices.enums.QuoteNotificationType;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.enums.QuoteState;
+import de.hybris.platform.core.model.order.QuoteModel;
+import de.hybris.platform.cronjob.enums.CronJobResult;
+import de.hybris.platform.cronjob.enums.CronJobStatus;
+import de.hybris.platform.cronjob.model.CronJobModel;
+import de.hybris.platform.servicelayer.cronjob.PerformResult;
+import de.hybris.platform.servicelayer.event.EventService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.servicelayer.time.TimeService;
+
+
+/**
+ * Base class of the jobs publishing a quote notification event for every quote in one of the
+ * {@link #setSupportedQuoteStatuses(Set) supported states} whose expiration time matches the
+ * {@link #getExpirationRestriction() restriction} of the job and that did not get the
+ * {@link #getQuoteNotificationType() notification} yet, the restrictions of the CommerceQuoteDao queries.
+ *
+ * The quotes are searched page by page, selecting the PKs of at most {@link #setPageSize(int)} quotes after the last
+ * processed PK in ascending order, so neither the job nor the database result ever hold more than one page. The events
+ * of a page are published by up to {@link #setConcurrency(int)} threads, each loading its quotes by PK in its own
+ * session with the user and language of the cron job. The job can be aborted between pages; for a
+ * {@link QuoteNotificationCronJobModel} the last PK is stored after every page so an aborted or failed run is resumed
+ * by the next run, together with the number of events and the duration of the last run.
+ *
+ * If the {@link BulkQuoteNotificationService} is enabled, the notifications of a page are sent through it instead of
+ * publishing one event, and thereby starting one email process, per quote.
+ */
+public abstract class AbstractQuoteNotificationJobPerformable extends AbstractSessionWorkerJobPerformable<CronJobModel>
+{
+	private static final Logger LOG = Logger.getLogger(AbstractQuoteNotificationJobPerformable.class);
+
+	private static final String QUOTE_PKS_QUERY = "SELECT {q." + QuoteModel.PK + "} FROM {" + QuoteModel._TYPECODE
+			+ " AS q} WHERE {q." + QuoteModel.STATE + "} IN (?quoteStates) AND %s AND ({q."
+			+ QuoteModel.GENERATEDNOTIFICATIONS + "} IS NULL OR {q." + QuoteModel.GENERATEDNOTIFICATIONS
+			+ "} NOT LIKE CONCAT('%%', CONCAT(?notificationType, '%%'))) AND {q." + QuoteModel.PK
+			+ "} > ?lastPk ORDER BY {q." + QuoteModel.PK + "}";
+
+	private Set<QuoteState> supportedQuoteStatuses;
+
+	private EventService eventService;
+
+	private TimeService timeService;
+
+	private BulkQuoteNotificationService bulkQuoteNotificationService;
+
+	private int pageSize = 500;
+
+	private int concurrency = 4;
+
+	@Override
+	public boolean isAbortable()
+	{
+		return true;
+	}
+
+	@Override
+	public PerformResult perform(final CronJobModel cronJob)
+	{
+		final long start = System.currentTimeMillis();
+		long lastPk = getLastProcessedPk(cronJob);
+		long events = 0;
+
+		final FlexibleSearchQuery query = createQuotePksQuery();
+		final boolean bulk = getBulkQuoteNotificationService() != null && getBulkQuoteNotificationService().isEnabled();
+		final ExecutorService executor = !bulk && getConcurrency() > 1 ? createExecutor() : null;
+		try
+		{
+			List<PK> page = getQuotePks(query, lastPk);
+			while (!page.isEmpty())
+			{
+				if (LOG.isDebugEnabled())
+				{
+					LOG.debug(String.format("Publishing %s notification for quotes: %s", getQuoteNotificationType(),
+							page.stream().map(PK::getLongValueAsString).collect(Collectors.joining(", "))));
+				}
+				if (bulk)
+				{
+					events += getBulkQuoteNotificationService()
+							.sendNotifications(loadQuotes(page), getQuoteNotificationType()).size();
+				}
+				else
+				{
+					publishEvents(page, cronJob, executor);
+					events += page.size();
+				}
+				lastPk = page.get(page.size() - 1).getLongValue();
+				checkpoint(cronJob, Long.valueOf(lastPk), events, start);
+
+				if (clearAbortRequestedIfNeeded(cronJob))
+				{
+					return new PerformResult(CronJobResult.UNKNOWN, CronJobStatus.ABORTED);
+				}
+				page = page.size() < getPageSize() ? Collections.<PK> emptyList() : getQuotePks(query, lastPk);
+			}
+		}
+		catch (final ExecutionException e)
+		{
+			LOG.error("Failed to publish " + getQuoteNotificationType() + " notifications, next run resumes after quote ["
+					+ lastPk + "]", e.getCause());
+			return new PerformResult(CronJobResult.ERROR, CronJobStatus.ABORTED);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return new PerformResult(CronJobResult.UNKNOWN, CronJobStatus.ABORTED);
+		}
+		finally
+		{
+			if (executor != null)
+			{
+				executor.shutdownNow();
+			}
+		}
+
+		checkpoint(cronJob, null, events, start);
+		return new PerformResult(CronJobResult.SUCCESS, CronJobStatus.FINISHED);
+	}
+
+	/**
+	 * @return the notification type whose event is published by the job
+	 */
+	protected abstract QuoteNotificationType getQuoteNotificationType();
+
+	/**
+	 * @return the restriction of <code>{q.expirationTime}</code> selecting the quotes due for the notification
+	 */
+	protected abstract String getExpirationRestriction();
+
+	/**
+	 * Sets the parameters of the {@link #getExpirationRestriction() restriction}. Called once per run.
+	 */
+	protected abstract void addExpirationParameters(FlexibleSearchQuery query);
+
+	/**
+	 * Publishes the notification event of a quote.
+	 */
+	protected abstract void publishEvent(QuoteModel quoteModel);
+
+	protected FlexibleSearchQuery createQuotePksQuery()
+	{
+		final FlexibleSearchQuery query = new FlexibleSearchQuery(
+				String.format(QUOTE_PKS_QUERY, getExpirationRestriction()));
+		query.addQueryParameter("quoteStates", getSupportedQuoteStatuses());
+		query.addQueryParameter("notificationType", getQuoteNotificationType());
+		addExpirationParameters(query);
+		query.setResultClassList(Collections.singletonList(PK.class));
+		query.setCount(getPageSize());
+		query.setNeedTotal(false);
+		return query;
+	}
+
+	/**
+	 * @return the PKs of the next page of quotes after the given PK, in ascending order
+	 */
+	protected List<PK> getQuotePks(final FlexibleSearchQuery query, final long lastPk)
+	{
+		query.addQueryParameter("lastPk", Long.valueOf(lastPk));
+		final SearchResult<PK> pks = flexibleSearchService.search(query);
+		return pks.getResult();
+	}
+
+	protected List<QuoteModel> loadQuotes(final List<PK> pks)
+	{
+		return pks.stream().map(pk -> modelService.<QuoteModel> get(pk)).collect(Collectors.toList());
+	}
+
+	/**
+	 * Publishes the events of one page, split into one batch per thread.
+	 */
+	protected void publishEvents(final List<PK> quotes, final CronJobModel cronJob, final ExecutorService executor)
+			throws InterruptedException, ExecutionException
+	{
+		if (executor == null || quotes.size() < 2)
+		{
+			loadQuotes(quotes).forEach(this::publishEvent);
+			return;
+		}
+
+		final int batchSize = (quotes.size() + getConcurrency() - 1) / getConcurrency();
+		final Tenant tenant = Registry.getCurrentTenantNoFallback();
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int from = 0; from < quotes.size(); from += batchSize)
+		{
+			final List<PK> batch = quotes.subList(from, Math.min(from + batchSize, quotes.size()));
+			futures.add(executor.submit(
+					() -> executeInSession(tenant, cronJob, () -> loadQuotes(batch).forEach(this::publishEvent))));
+		}
+		for (final Future<?> future : futures)
+		{
+			future.get();
+		}
+	}
+
+	protected ExecutorService createExecutor()
+	{
+		return Executors.newFixedThreadPool(getConcurrency());
+	}
+
+	protected long getLastProcessedPk(final CronJobModel cronJob)
+	{
+		if (cronJob instanceof QuoteNotificationCronJobModel)
+		{
+			final Long lastPk = ((QuoteNotificationCronJobModel) cronJob).getLastProcessedQuotePk();
+			if (lastPk != null)
+			{
+				return lastPk.longValue();
+			}
+		}
+		return 0L;
+	}
+
+	/**
+	 * Stores the cursor and the metrics of the run, a <code>null</code> cursor marks the run as completed.
+	 */
+	protected void checkpoint(final CronJobModel cronJob, final Long lastPk, final long events, final long start)
+	{
+		final long duration = System.currentTimeMillis() - start;
+		if (lastPk == null && LOG.isInfoEnabled())
+		{
+			LOG.info("Published " + events + " " + getQuoteNotificationType() + " notifications in " + duration + " ms");
+		}
+		if (cronJob instanceof QuoteNotificationCronJobModel)
+		{
+			final QuoteNotificationCronJobModel quoteNotificationCronJob = (QuoteNotificationCronJobModel) cronJob;
+			quoteNotificationCronJob.setLastProcessedQuotePk(lastPk);
+			quoteNotificationCronJob.setLastRunEventCount(Long.valueOf(events));
+			quoteNotificationCronJob.setLastRunDuration(Long.valueOf(duration));
+			modelService.save(quoteNotificationCronJob);
+		}
+	}
+
+	protected Set<QuoteState> getSupportedQuoteStatuses()
+	{
+		return supportedQuoteStatuses;
+	}
+
+	@Required
+	public void setSupportedQuoteStatuses(final Set<QuoteState> supportedQuoteStatuses)
+	{
+		this.supportedQuoteStatuses = supportedQuoteStatuses;
+	}
+
+	protected EventService getEventService()
+	{
+		return eventService;
+	}
+
+	@Required
+	public void setEventService(final EventService eventService)
+	{
+		this.eventService = eventService;
+	}
+
+	protected TimeService getTimeService()
+	{
+		return timeService;
+	}
+
+	@Required
+	public void setTimeService(final TimeService timeService)
+	{
+		this.timeService = timeService;
+	}
+
+	protected BulkQuoteNotificationService getBulkQuoteNotificationService()
+	{
+		return bulkQuoteNotificationService;
+	}
+
+	/**
+	 * @param bulkQuoteNotificationService
+	 *           optional service sending the notifications in bulk while it is enabled
+	 */
+	public void setBulkQuoteNotificationService(final BulkQuoteNotificationService bulkQuoteNotificationService)
+	{
+		this.bulkQuoteNotificationService = bulkQuoteNotificationService;
+	}
+
+	protected int getPageSize()
+	{
+		return pageSize;
+	}
+
+	/**
+	 * @param pageSize
+	 *           number of quotes searched at once, processed before the cursor is stored and the job can be aborted
+	 */
+	public void setPageSize(final int pageSize)
+	{
+		this.pageSize = pageSize;
+	}
+
+	protected int getConcurrency()
+	{
+		return concurrency;
+	}
+
+	/**
+	 * @param concurrency
+	 *           number of threads publishing the events of a page, 1 publishes them on the cron job thread
+	 */
+	public void setConcurrency(final int concurrency)
+	{
+		this.concurrency = concurrency;
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.job;
+
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.cronjob.model.CronJobModel;
+import de.hybris.platform.servicelayer.cronjob.AbstractJobPerformable;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.user.UserService;
+
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Base class of the jobs running parts of their work on pool threads. Each part runs in a new session of the user and
+ * language of the cron job, see {@link #executeInSession(Tenant, CronJobModel, Runnable)}.
+ */
+public abstract class AbstractSessionWorkerJobPerformable<T extends CronJobModel> extends AbstractJobPerformable<T>
+{
+	private UserService userService;
+	private CommonI18NService commonI18NService;
+
+	/**
+	 * Runs a task on a pool thread, in a new session of the user and language of the cron job.
+	 *
+	 * @param tenant
+	 *           tenant of the cron job thread, taken with {@link Registry#getCurrentTenantNoFallback()} before the task
+	 *           is submitted
+	 */
+	protected void executeInSession(final Tenant tenant, final CronJobModel cronJob, final Runnable task)
+	{
+		if (tenant != null)
+		{
+			Registry.setCurrentTenant(tenant);
+		}
+		try
+		{
+			final Session session = sessionService.createNewSession();
+			try
+			{
+				if (cronJob.getSessionUser() != null)
+				{
+					getUserService().setCurrentUser(cronJob.getSessionUser());
+				}
+				if (cronJob.getSessionLanguage() != null)
+				{
+					getCommonI18NService().setCurrentLanguage(cronJob.getSessionLanguage());
+				}
+				task.run();
+			}
+			finally
+			{
+				sessionService.closeSession(session);
+			}
+		}
+		finally
+		{
+			Registry.unsetCurrentTenant();
+		}
+	}
+
+	protected UserService getUserService()
+	{
+		return userService;
+	}
+
+	@Required
+	public void setUserService(final UserService userService)
+	{
+		this.userService = userService;
+	}
+
+	protected CommonI18NService getCommonI18NService()
+	{
+		return commonI18NService;
+	}
+
+	@Required
+	public void setCommonI18NService(final CommonI18NService commonI18NService)
+	{
+		this.commonI18NService = commonI18NService;
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.job;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.cronjob.enums.CronJobResult;
+import de.hybris.platform.cronjob.enums.CronJobStatus;
+import de.hybris.platform.cronjob.model.CronJobModel;
+import de.hybris.platform.processing.model.FlexibleSearchRetentionRuleModel;
+import de.hybris.platform.servicelayer.cronjob.PerformResult;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.servicelayer.time.TimeService;
+import org.training.core.model.ChunkedRetentionCronJobModel;
+import org.training.core.retention.ChunkedCleanupAction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Retention job cleaning up the items found by the rule of a {@link ChunkedRetentionCronJobModel} in chunks of
+ * {@link #setChunkSize(int)} items, each chunk in one transaction of the {@link ChunkedCleanupAction}. The chunks of a
+ * page are cleaned up by up to {@link #setWorkers(int)} threads, each in a new session of the user and language of the
+ * cron job.
+ *
+ * The query of the rule has to select the PK of the items only, restrict it to be greater than <code>?lastPk</code>
+ * and order by it; <code>?CALC_RETIREMENT_TIME</code> is set like for the RetentionJob. The cursor is stored after
+ * every page, so an aborted or failed run is resumed by the next run, together with the number of processed items and
+ * the duration of the last run. The rule has to exclude cleaned up items, so chunks of a failed page that were
+ * already cleaned up are not processed again.
+ */
+public class ChunkedRetentionCleanupJobPerformable
+		extends AbstractSessionWorkerJobPerformable<ChunkedRetentionCronJobModel>
+{
+	private static final Logger LOG = Logger.getLogger(ChunkedRetentionCleanupJobPerformable.class);
+
+	private ChunkedCleanupAction cleanupAction;
+	private TimeService timeService;
+	private int chunkSize = 100;
+	private int workers = 4;
+
+	@Override
+	public boolean isAbortable()
+	{
+		return true;
+	}
+
+	@Override
+	public PerformResult perform(final ChunkedRetentionCronJobModel cronJob)
+	{
+		final FlexibleSearchRetentionRuleModel rule = cronJob.getRetentionRule();
+		if (rule == null)
+		{
+			LOG.error("No retention rule set for cron job [" + cronJob.getCode() + "]");
+			return new PerformResult(CronJobResult.ERROR, CronJobStatus.ABORTED);
+		}
+
+		final long start = System.currentTimeMillis();
+		final FlexibleSearchQuery query = createQuery(rule);
+		long lastPk = cronJob.getLastProcessedPk() == null ? 0L : cronJob.getLastProcessedPk().longValue();
+		long processed = 0;
+
+		final ExecutorService executor = getWorkers() > 1 ? createExecutor() : null;
+		try
+		{
+			List<PK> pks = getPks(query, lastPk);
+			while (!pks.isEmpty())
+			{
+				cleanup(cronJob, pks, executor);
+				processed += pks.size();
+				lastPk = pks.get(pks.size() - 1).getLongValue();
+				checkpoint(cronJob, Long.valueOf(lastPk), processed, start);
+
+				if (clearAbortRequestedIfNeeded(cronJob))
+				{
+					return new PerformResult(CronJobResult.UNKNOWN, CronJobStatus.ABORTED);
+				}
+				pks = pks.size() < getPageSize() ? Collections.<PK> emptyList() : getPks(query, lastPk);
+			}
+		}
+		catch (final ExecutionException e)
+		{
+			LOG.error("Failed to clean up the items of rule [" + rule.getCode() + "], next run resumes after item [" + lastPk
+					+ "]", e.getCause());
+			return new PerformResult(CronJobResult.ERROR, CronJobStatus.ABORTED);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return new PerformResult(CronJobResult.UNKNOWN, CronJobStatus.ABORTED);
+		}
+		finally
+		{
+			if (executor != null)
+			{
+				executor.shutdownNow();
+			}
+		}
+
+		checkpoint(cronJob, null, processed, start);
+		return new PerformResult(CronJobResult.SUCCESS, CronJobStatus.FINISHED);
+	}
+
+	/**
+	 * Cleans up the items of one page, split into chunks of {@link #setChunkSize(int)} items.
+	 */
+	protected void cleanup(final CronJobModel cronJob, final List<PK> pks, final ExecutorService executor)
+			throws InterruptedException, ExecutionException
+	{
+		if (executor == null || pks.size() <= getChunkSize())
+		{
+			for (int from = 0; from < pks.size(); from += getChunkSize())
+			{
+				getCleanupAction().cleanupChunk(pks.subList(from, Math.min(from + getChunkSize(), pks.size())));
+			}
+			return;
+		}
+
+		final Tenant tenant = Registry.getCurrentTenantNoFallback();
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int from = 0; from < pks.size(); from += getChunkSize())
+		{
+			final List<PK> chunk = pks.subList(from, Math.min(from + getChunkSize(), pks.size()));
+			futures.add(executor
+					.submit(() -> executeInSession(tenant, cronJob, () -> getCleanupAction().cleanupChunk(chunk))));
+		}
+		for (final Future<?> future : futures)
+		{
+			future.get();
+		}
+	}
+
+	protected ExecutorService createExecutor()
+	{
+		return Executors.newFixedThreadPool(getWorkers());
+	}
+
+	protected FlexibleSearchQuery createQuery(final FlexibleSearchRetentionRuleModel rule)
+	{
+		final long retentionTimeSeconds = rule.getRetentionTimeSeconds() == null ? 0L
+				: rule.getRetentionTimeSeconds().longValue();
+		final FlexibleSearchQuery query = new FlexibleSearchQuery(rule.getSearchQuery());
+		query.addQueryParameter("CALC_RETIREMENT_TIME",
+				new Date(getTimeService().getCurrentTime().getTime() - retentionTimeSeconds * 1000L));
+		query.setResultClassList(Collections.singletonList(PK.class));
+		query.setCount(getPageSize());
+		query.setNeedTotal(false);
+		return query;
+	}
+
+	/**
+	 * @return the PKs of the next page of items after the given PK, in ascending order
+	 */
+	protected List<PK> getPks(final FlexibleSearchQuery query, final long lastPk)
+	{
+		query.addQueryParameter("lastPk", Long.valueOf(lastPk));
+		final SearchResult<PK> pks = flexibleSearchService.search(query);
+		return pks.getResult();
+	}
+
+	/**
+	 * Stores the cursor and the metrics of the run, a <code>null</code> cursor marks the run as completed.
+	 */
+	protected void checkpoint(final ChunkedRetentionCronJobModel cronJob, final Long lastPk, final long processed,
+			final long start)
+	{
+		final long duration = System.currentTimeMillis() - start;
+		if (lastPk == null && LOG.isInfoEnabled())
+		{
+			LOG.info("Cleaned up " + processed + " items of rule [" + cronJob.getRetentionRule().getCode() + "] in " + duration
+					+ " ms (" + (duration == 0 ? processed : processed * 1000 / duration) + " items/s)");
+		}
+		cronJob.setLastProcessedPk(lastPk);
+		cronJob.setLastRunProcessedCount(Long.valueOf(processed));
+		cronJob.setLastRunDuration(Long.valueOf(duration));
+		modelService.save(cronJob);
+	}
+
+	protected int getPageSize()
+	{
+		return getChunkSize() * Math.max(1, getWorkers());
+	}
+
+	protected ChunkedCleanupAction getCleanupAction()
+	{
+		return cleanupAction;
+	}
+
+	@Required
+	public void setCleanupAction(final ChunkedCleanupAction cleanupAction)
+	{
+		this.cleanupAction = cleanupAction;
+	}
+
+	protected TimeService getTimeService()
+	{
+		return timeService;
+	}
+
+	@Required
+	public void setTimeService(final TimeService timeService)
+	{
+		this.timeService = timeService;
+	}
+
+	protected int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * @param chunkSize
+	 *           number of items cleaned up in one transaction
+	 */
+	public void setChunkSize(final int chunkSize)
+	{
+		this.chunkSize = chunkSize;
+	}
+
+	protected int getWorkers()
+	{
+		return workers;
+	}
+
+	/**
+	 * @param workers
+	 *           number of threads cleaning up the chunks of a page, 1 cleans them up on the cron job thread
+	 */
+	public void setWorkers(final int workers)
+	{
+		this.workers = workers;
+	}
+}
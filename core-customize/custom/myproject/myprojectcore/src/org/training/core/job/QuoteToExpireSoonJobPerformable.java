@@ -7,27 +7,15 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
-import java.util.Set;
-import java.util.stream.Collectors;
 
-import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
 
 import de.hybris.platform.commerceservices.enums.QuoteNotificationType;
 import de.hybris.platform.commerceservices.event.QuoteToExpireSoonEvent;
-import de.hybris.platform.commerceservices.order.dao.CommerceQuoteDao;
 import de.hybris.platform.core.enums.QuoteState;
-import de.hybris.platform.core.model.order.AbstractOrderModel;
 import de.hybris.platform.core.model.order.QuoteModel;
-import de.hybris.platform.cronjob.enums.CronJobResult;
-import de.hybris.platform.cronjob.enums.CronJobStatus;
-import de.hybris.platform.cronjob.model.CronJobModel;
 import de.hybris.platform.servicelayer.config.ConfigurationService;
-import de.hybris.platform.servicelayer.cronjob.AbstractJobPerformable;
-import de.hybris.platform.servicelayer.cronjob.PerformResult;
-import de.hybris.platform.servicelayer.event.EventService;
-import de.hybris.platform.servicelayer.search.SearchResult;
-import de.hybris.platform.servicelayer.time.TimeService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 
 
 /**
@@ -35,30 +23,34 @@ import de.hybris.platform.servicelayer.time.TimeService;
  * when to send the notification by specifying the number of days left to quote expiry
  * {@link QuoteToExpireSoonJobPerformable#DAYS_TO_EXPIRE}. A quote qualifies for the notification if it is in
  * {@link QuoteState#BUYER_OFFER} state and expires in DAYS_TO_EXPIRE days from the current date (Set on
- * {@link QuoteModel#EXPIRATIONTIME}).
+ * {@link QuoteModel#EXPIRATIONTIME}). Paging, parallel publishing, abort and resume are handled by
+ * {@link AbstractQuoteNotificationJobPerformable}.
  * 
  * @since 6.4
  */
-public class QuoteToExpireSoonJobPerformable extends AbstractJobPerformable<CronJobModel>
+public class QuoteToExpireSoonJobPerformable extends AbstractQuoteNotificationJobPerformable
 {
-	private static final Logger LOG = Logger.getLogger(QuoteToExpireSoonJobPerformable.class);
-
 	protected static final String DAYS_TO_EXPIRE = "quotetoexpiresoonjob.daystoexpire";
 
 	protected static final int DEFAULT_DAYS_TO_EXPIRE = 3;
 
 	private ConfigurationService configurationService;
 
-	private Set<QuoteState> supportedQuoteStatuses;
-
-	private CommerceQuoteDao commerceQuoteDao;
-
-	private EventService eventService;
+	@Override
+	protected QuoteNotificationType getQuoteNotificationType()
+	{
+		return QuoteNotificationType.EXPIRING_SOON;
+	}
 
-	private TimeService timeService;
+	@Override
+	protected String getExpirationRestriction()
+	{
+		return "{q." + QuoteModel.EXPIRATIONTIME + "} >= ?expiredAfter AND {q." + QuoteModel.EXPIRATIONTIME
+				+ "} <= ?expiredBy";
+	}
 
 	@Override
-	public PerformResult perform(final CronJobModel cronJob)
+	protected void addExpirationParameters(final FlexibleSearchQuery query)
 	{
 		final LocalDateTime currentDateTime = getCurrentDateTime();
 		final Date expiredAfter = toDate(currentDateTime);
@@ -66,18 +58,14 @@ public class QuoteToExpireSoonJobPerformable extends AbstractJobPerformable<Cron
 		final int daysToExpire = getConfigurationService().getConfiguration().getInt(DAYS_TO_EXPIRE, DEFAULT_DAYS_TO_EXPIRE);
 		final Date expiredBy = toDate(currentDateTime.plus(daysToExpire, ChronoUnit.DAYS));
 
-		final SearchResult<QuoteModel> searchResult = getCommerceQuoteDao().findQuotesSoonToExpire(expiredAfter, expiredBy,
-				QuoteNotificationType.EXPIRING_SOON, getSupportedQuoteStatuses());
-
-		if (LOG.isDebugEnabled())
-		{
-			LOG.debug(String.format("Quotes to expire by %s: %s", expiredBy,
-					searchResult.getResult().stream().map(AbstractOrderModel::getCode).collect(Collectors.joining(", "))));
-		}
-
-		searchResult.getResult().stream().forEach(this::publishQuoteToExpireSoonEvent);
+		query.addQueryParameter("expiredAfter", expiredAfter);
+		query.addQueryParameter("expiredBy", expiredBy);
+	}
 
-		return new PerformResult(CronJobResult.SUCCESS, CronJobStatus.FINISHED);
+	@Override
+	protected void publishEvent(final QuoteModel quoteModel)
+	{
+		publishQuoteToExpireSoonEvent(quoteModel);
 	}
 
 	protected void publishQuoteToExpireSoonEvent(final QuoteModel quoteModel)
@@ -98,39 +86,6 @@ public class QuoteToExpireSoonJobPerformable extends AbstractJobPerformable<Cron
 		return LocalDateTime.ofInstant(currentDate.toInstant(), ZoneId.systemDefault());
 	}
 
-	protected Set<QuoteState> getSupportedQuoteStatuses()
-	{
-		return supportedQuoteStatuses;
-	}
-
-	@Required
-	public void setSupportedQuoteStatuses(final Set<QuoteState> supportedQuoteStatuses)
-	{
-		this.supportedQuoteStatuses = supportedQuoteStatuses;
-	}
-
-	protected CommerceQuoteDao getCommerceQuoteDao()
-	{
-		return commerceQuoteDao;
-	}
-
-	@Required
-	public void setCommerceQuoteDao(final CommerceQuoteDao commerceQuoteDao)
-	{
-		this.commerceQuoteDao = commerceQuoteDao;
-	}
-
-	protected EventService getEventService()
-	{
-		return eventService;
-	}
-
-	@Required
-	public void setEventService(final EventService eventService)
-	{
-		this.eventService = eventService;
-	}
-
 	protected ConfigurationService getConfigurationService()
 	{
 		return configurationService;
@@ -141,15 +96,4 @@ public class QuoteToExpireSoonJobPerformable extends AbstractJobPerformable<Cron
 	{
 		this.configurationService = configurationService;
 	}
-
-	protected TimeService getTimeService()
-	{
-		return timeService;
-	}
-
-	@Required
-	public void setTimeService(final TimeService timeService)
-	{
-		this.timeService = timeService;
-	}
 }
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.process;
+
+/**
+ * Generates the codes of the business processes started by the event listeners.
+ */
+public interface ProcessCodeGenerator
+{
+	/**
+	 * Builds a process code from the process name and the codes of the items the process is about, followed by a suffix
+	 * that is unique on this node and across the nodes of the cluster.
+	 *
+	 * @param processName
+	 *           the name of the process, e.g. <code>orderConfirmationEmailProcess</code>
+	 * @param keys
+	 *           the codes of the items the process is about, e.g. the order code
+	 * @return <code>processName-key1-...-keyN-suffix</code>
+	 */
+	String generate(String processName, String... keys);
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.process.impl;
+
+import de.hybris.platform.core.Registry;
+import org.training.core.process.ProcessCodeGenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.InitializingBean;
+
+
+/**
+ * Default implementation of {@link ProcessCodeGenerator}. The suffix is the cluster node id followed by a per node
+ * sequence, both in fixed width base 36, so the codes of one node never collide and codes of different nodes differ in
+ * the node id.
+ *
+ * The sequence is seeded from the clock, each value being at least the current time in milliseconds shifted by
+ * {@link #SEQUENCE_BITS} bits. It therefore keeps increasing across restarts of the node as long as fewer than 1024
+ * codes per millisecond are generated on average, and codes of one node sort by their creation time.
+ */
+public class DefaultProcessCodeGenerator implements ProcessCodeGenerator, InitializingBean
+{
+	/**
+	 * Number of low bits of the sequence available for the codes generated within the same millisecond.
+	 */
+	public static final int SEQUENCE_BITS = 10;
+
+	private static final int RADIX = 36;
+	private static final int NODE_ID_WIDTH = 2;
+	private static final int SEQUENCE_WIDTH = 13;
+	private static final char SEPARATOR = '-';
+	private static final char[] DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+	private final AtomicLong sequence = new AtomicLong();
+	private int nodeId = -1;
+	private char[] encodedNodeId;
+
+	@Override
+	public void afterPropertiesSet()
+	{
+		if (nodeId < 0)
+		{
+			nodeId = Registry.getClusterID();
+		}
+		if (nodeId >= RADIX * RADIX)
+		{
+			throw new IllegalStateException("Node id " + nodeId + " does not fit into " + NODE_ID_WIDTH + " characters");
+		}
+		encodedNodeId = new char[NODE_ID_WIDTH];
+		encode(nodeId, encodedNodeId, 0, NODE_ID_WIDTH);
+	}
+
+	@Override
+	public String generate(final String processName, final String... keys)
+	{
+		int length = processName.length() + 1 + NODE_ID_WIDTH + SEQUENCE_WIDTH;
+		for (final String key : keys)
+		{
+			length += String.valueOf(key).length() + 1;
+		}
+
+		final StringBuilder code = new StringBuilder(length).append(processName).append(SEPARATOR);
+		for (final String key : keys)
+		{
+			code.append(key).append(SEPARATOR);
+		}
+		final char[] suffix = new char[NODE_ID_WIDTH + SEQUENCE_WIDTH];
+		System.arraycopy(encodedNodeId, 0, suffix, 0, NODE_ID_WIDTH);
+		encode(nextSequence(), suffix, NODE_ID_WIDTH, SEQUENCE_WIDTH);
+		return code.append(suffix).toString();
+	}
+
+	protected long nextSequence()
+	{
+		final long floor = currentTimeMillis() << SEQUENCE_BITS;
+		return sequence.updateAndGet(previous -> previous < floor ? floor : previous + 1);
+	}
+
+	protected long currentTimeMillis()
+	{
+		return System.currentTimeMillis();
+	}
+
+	private static void encode(final long value, final char[] target, final int offset, final int width)
+	{
+		long remaining = value;
+		for (int position = offset + width - 1; position >= offset; position--)
+		{
+			target[position] = DIGITS[(int) (remaining % RADIX)];
+			remaining /= RADIX;
+		}
+	}
+
+	/**
+	 * @param nodeId
+	 *           the id of this node (0 to 1295), the cluster id of the node if not set
+	 */
+	public void setNodeId(final int nodeId)
+	{
+		this.nodeId = nodeId;
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.quote;
+
+import de.hybris.platform.commerceservices.enums.QuoteNotificationType;
+import de.hybris.platform.core.model.order.QuoteModel;
+
+import java.util.List;
+
+
+/**
+ * Sends quote notification emails for many quotes at once, without starting a business process per quote.
+ */
+public interface BulkQuoteNotificationService
+{
+	/**
+	 * @return true if the quote notification jobs should send their notifications through this service instead of
+	 *         publishing one event per quote
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Sends the notification email of the given type for every quote and marks the notification as generated on the
+	 * quotes whose email was sent.
+	 *
+	 * @param quotes
+	 *           the quotes due for the notification
+	 * @param notificationType
+	 *           the notification to send
+	 * @return the quotes whose notification was sent
+	 */
+	List<QuoteModel> sendNotifications(List<QuoteModel> quotes, QuoteNotificationType notificationType);
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.quote.impl;
+
+import de.hybris.platform.acceleratorservices.email.EmailService;
+import de.hybris.platform.acceleratorservices.model.cms2.pages.EmailPageModel;
+import de.hybris.platform.acceleratorservices.model.cms2.pages.EmailPageTemplateModel;
+import de.hybris.platform.acceleratorservices.model.email.EmailAddressModel;
+import de.hybris.platform.acceleratorservices.model.email.EmailMessageModel;
+import de.hybris.platform.acceleratorservices.process.email.context.AbstractEmailContext;
+import de.hybris.platform.acceleratorservices.process.email.context.EmailContextFactory;
+import de.hybris.platform.basecommerce.model.site.BaseSiteModel;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.cms2.model.contents.ContentCatalogModel;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.cms2.servicelayer.services.CMSEmailPageService;
+import de.hybris.platform.commerceservices.enums.QuoteNotificationType;
+import de.hybris.platform.commerceservices.model.process.QuoteProcessModel;
+import de.hybris.platform.commons.model.renderer.RendererTemplateModel;
+import de.hybris.platform.commons.renderer.RendererService;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.order.QuoteModel;
+import de.hybris.platform.core.model.user.CustomerModel;
+import de.hybris.platform.servicelayer.config.ConfigurationService;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.SessionExecutionBody;
+import de.hybris.platform.servicelayer.session.SessionService;
+import org.training.core.email.EmailBatchDispatcher;
+import org.training.core.quote.BulkQuoteNotificationService;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Default implementation of {@link BulkQuoteNotificationService}.
+ *
+ * The quotes are grouped by site and email language. Per group the email page and its templates are resolved once.
+ * Every quote gets its own email context from the {@link EmailContextFactory}, i.e. a new instance of the prototype
+ * context bean, built from a transient (never saved) {@link QuoteProcessModel}, before subject and body are rendered.
+ * Contexts are not reused, so nothing of one customer's email can leak into the next one.
+ * The generated messages of a group are sent by the {@link EmailBatchDispatcher} and the notification is marked on all
+ * quotes of the group whose email was sent with a single save. The messages that could not be sent are removed, their
+ * quotes get a new message on the next run.
+ */
+public class DefaultBulkQuoteNotificationService implements BulkQuoteNotificationService
+{
+	private static final Logger LOG = Logger.getLogger(DefaultBulkQuoteNotificationService.class);
+
+	private static final String ENABLED = "myprojectcore.quote.notification.bulk.enabled";
+
+	private Map<QuoteNotificationType, String> frontendTemplateNames;
+	private CMSEmailPageService cmsEmailPageService;
+	private EmailContextFactory<QuoteProcessModel> emailContextFactory;
+	private RendererService rendererService;
+	private EmailService emailService;
+	private EmailBatchDispatcher emailBatchDispatcher;
+	private ModelService modelService;
+	private SessionService sessionService;
+	private CommonI18NService commonI18NService;
+	private ConfigurationService configurationService;
+
+	@Override
+	public boolean isEnabled()
+	{
+		return getConfigurationService().getConfiguration().getBoolean(ENABLED, false);
+	}
+
+	@Override
+	public List<QuoteModel> sendNotifications(final List<QuoteModel> quotes, final QuoteNotificationType notificationType)
+	{
+		final String frontendTemplateName = getFrontendTemplateNames().get(notificationType);
+		if (frontendTemplateName == null)
+		{
+			throw new IllegalArgumentException("No email template configured for quote notification " + notificationType);
+		}
+
+		final List<QuoteModel> notified = new ArrayList<>(quotes.size());
+		for (final Map.Entry<BaseSiteModel, Map<LanguageModel, List<QuoteModel>>> site : groupQuotes(quotes).entrySet())
+		{
+			final EmailPageModel emailPage = getEmailPage(site.getKey(), frontendTemplateName);
+			if (emailPage == null)
+			{
+				LOG.error("No email page for template [" + frontendTemplateName + "] in site [" + site.getKey().getUid()
+						+ "], skipping " + site.getValue().values().stream().mapToInt(List::size).sum() + " quotes");
+				continue;
+			}
+			for (final Map.Entry<LanguageModel, List<QuoteModel>> language : site.getValue().entrySet())
+			{
+				final List<QuoteModel> sent = getSessionService().executeInLocalView(new SessionExecutionBody()
+				{
+					@Override
+					public Object execute()
+					{
+						if (language.getKey() != null)
+						{
+							getCommonI18NService().setCurrentLanguage(language.getKey());
+						}
+						return sendNotifications(language.getValue(), notificationType, emailPage);
+					}
+				});
+				notified.addAll(sent);
+			}
+		}
+		return notified;
+	}
+
+	/**
+	 * Generates, sends and marks the notifications of one site and language group.
+	 */
+	protected List<QuoteModel> sendNotifications(final List<QuoteModel> quotes, final QuoteNotificationType notificationType,
+			final EmailPageModel emailPage)
+	{
+		final EmailPageTemplateModel pageTemplate = (EmailPageTemplateModel) emailPage.getMasterTemplate();
+		final RendererTemplateModel bodyTemplate = pageTemplate.getHtmlTemplate();
+		final RendererTemplateModel subjectTemplate = pageTemplate.getSubject();
+
+		final Map<EmailMessageModel, QuoteModel> messages = new IdentityHashMap<>(quotes.size());
+		final List<EmailMessageModel> generated = new ArrayList<>(quotes.size());
+		for (final QuoteModel quote : quotes)
+		{
+			try
+			{
+				final QuoteProcessModel process = createTransientProcess(quote, notificationType);
+				final AbstractEmailContext<QuoteProcessModel> context = getEmailContextFactory().create(process,
+						emailPage, bodyTemplate);
+				final EmailMessageModel message = createEmailMessage(context, render(subjectTemplate, context),
+						render(bodyTemplate, context));
+				messages.put(message, quote);
+				generated.add(message);
+			}
+			catch (final RuntimeException e)
+			{
+				LOG.error("Failed to generate " + notificationType + " notification for quote [" + quote.getCode() + "]", e);
+			}
+		}
+
+		final List<EmailMessageModel> sent = new ArrayList<>(generated.size());
+		try
+		{
+			sent.addAll(getEmailBatchDispatcher().dispatch(generated));
+		}
+		finally
+		{
+			removeUnsentMessages(generated, sent);
+		}
+
+		final List<QuoteModel> notified = new ArrayList<>(sent.size());
+		for (final EmailMessageModel message : sent)
+		{
+			notified.add(messages.get(message));
+		}
+		markNotificationsAsSent(notified, notificationType);
+		return notified;
+	}
+
+	/**
+	 * Removes the generated messages that were not sent. Unlike the message of an email process they are never sent
+	 * again, the quotes are still not marked as notified and get a new message on the next run.
+	 */
+	protected void removeUnsentMessages(final List<EmailMessageModel> generated, final List<EmailMessageModel> sent)
+	{
+		final Set<EmailMessageModel> sentMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+		sentMessages.addAll(sent);
+		final List<EmailMessageModel> unsent = new ArrayList<>();
+		for (final EmailMessageModel message : generated)
+		{
+			// a failing dispatch may have sent and removed part of the messages already
+			if (!sentMessages.contains(message) && !getModelService().isRemoved(message))
+			{
+				unsent.add(message);
+			}
+		}
+		if (!unsent.isEmpty())
+		{
+			getModelService().removeAll(unsent);
+		}
+	}
+
+	protected QuoteProcessModel createTransientProcess(final QuoteModel quote, final QuoteNotificationType notificationType)
+	{
+		final QuoteProcessModel process = getModelService().create(QuoteProcessModel.class);
+		process.setCode("bulk-" + notificationType.getCode() + "-" + quote.getCode());
+		process.setQuoteCode(quote.getCode());
+		return process;
+	}
+
+	protected String render(final RendererTemplateModel template, final AbstractEmailContext<QuoteProcessModel> context)
+	{
+		final StringWriter writer = new StringWriter();
+		getRendererService().render(template, context, writer);
+		return writer.toString();
+	}
+
+	protected EmailMessageModel createEmailMessage(final AbstractEmailContext<QuoteProcessModel> context, final String subject,
+			final String body)
+	{
+		final EmailAddressModel toAddress = getEmailService().getOrCreateEmailAddressForEmail(context.getToEmail(),
+				context.getToDisplayName());
+		final EmailAddressModel fromAddress = getEmailService().getOrCreateEmailAddressForEmail(context.getFromEmail(),
+				context.getFromDisplayName());
+		return getEmailService().createEmailMessage(Collections.singletonList(toAddress), Collections.emptyList(),
+				Collections.emptyList(), fromAddress, context.getFromEmail(), subject, body, null);
+	}
+
+	/**
+	 * Adds the notification type to the generated notifications of the quotes and saves them together.
+	 */
+	protected void markNotificationsAsSent(final List<QuoteModel> quotes, final QuoteNotificationType notificationType)
+	{
+		if (quotes.isEmpty())
+		{
+			return;
+		}
+		for (final QuoteModel quote : quotes)
+		{
+			final Set<QuoteNotificationType> generatedNotifications = quote.getGeneratedNotifications() == null
+					? new HashSet<>()
+					: new HashSet<>(quote.getGeneratedNotifications());
+			generatedNotifications.add(notificationType);
+			quote.setGeneratedNotifications(generatedNotifications);
+		}
+		getModelService().saveAll(quotes);
+	}
+
+	/**
+	 * @return the quotes per site and email language, i.e. the session language of the quote's customer
+	 */
+	protected Map<BaseSiteModel, Map<LanguageModel, List<QuoteModel>>> groupQuotes(final List<QuoteModel> quotes)
+	{
+		final Map<BaseSiteModel, Map<LanguageModel, List<QuoteModel>>> groups = new LinkedHashMap<>();
+		for (final QuoteModel quote : quotes)
+		{
+			final LanguageModel language = quote.getUser() instanceof CustomerModel
+					? ((CustomerModel) quote.getUser()).getSessionLanguage()
+					: null;
+			groups.computeIfAbsent(quote.getSite(), site -> new LinkedHashMap<>())
+					.computeIfAbsent(language, key -> new ArrayList<>()).add(quote);
+		}
+		return groups;
+	}
+
+	protected EmailPageModel getEmailPage(final BaseSiteModel site, final String frontendTemplateName)
+	{
+		if (!(site instanceof CMSSiteModel) || ((CMSSiteModel) site).getContentCatalogs().isEmpty())
+		{
+			return null;
+		}
+		final ContentCatalogModel contentCatalog = ((CMSSiteModel) site).getContentCatalogs().get(0);
+		final CatalogVersionModel catalogVersion = contentCatalog.getActiveCatalogVersion();
+		return catalogVersion == null ? null
+				: getCmsEmailPageService().getEmailPageForFrontendTemplate(frontendTemplateName, catalogVersion);
+	}
+
+	protected Map<QuoteNotificationType, String> getFrontendTemplateNames()
+	{
+		return frontendTemplateNames;
+	}
+
+	/**
+	 * @param frontendTemplateNames
+	 *           the email template per notification type, the ones used by the quote email processes
+	 */
+	@Required
+	public void setFrontendTemplateNames(final Map<QuoteNotificationType, String> frontendTemplateNames)
+	{
+		this.frontendTemplateNames = frontendTemplateNames;
+	}
+
+	protected CMSEmailPageService getCmsEmailPageService()
+	{
+		return cmsEmailPageService;
+	}
+
+	@Required
+	public void setCmsEmailPageService(final CMSEmailPageService cmsEmailPageService)
+	{
+		this.cmsEmailPageService = cmsEmailPageService;
+	}
+
+	protected EmailContextFactory<QuoteProcessModel> getEmailContextFactory()
+	{
+		return emailContextFactory;
+	}
+
+	@Required
+	public void setEmailContextFactory(final EmailContextFactory<QuoteProcessModel> emailContextFactory)
+	{
+		this.emailContextFactory = emailContextFactory;
+	}
+
+	protected RendererService getRendererService()
+	{
+		return rendererService;
+	}
+
+	@Required
+	public void setRendererService(final RendererService rendererService)
+	{
+		this.rendererService = rendererService;
+	}
+
+	protected EmailService getEmailService()
+	{
+		return emailService;
+	}
+
+	@Required
+	public void setEmailService(final EmailService emailService)
+	{
+		this.emailService = emailService;
+	}
+
+	protected EmailBatchDispatcher getEmailBatchDispatcher()
+	{
+		return emailBatchDispatcher;
+	}
+
+	@Required
+	public void setEmailBatchDispatcher(final EmailBatchDispatcher emailBatchDispatcher)
+	{
+		this.emailBatchDispatcher = emailBatchDispatcher;
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected SessionService getSessionService()
+	{
+		return sessionService;
+	}
+
+	@Required
+	public void setSessionService(final SessionService sessionService)
+	{
+		this.sessionService = sessionService;
+	}
+
+	protected CommonI18NService getCommonI18NService()
+	{
+		return commonI18NService;
+	}
+
+	@Required
+	public void setCommonI18NService(final CommonI18NService commonI18NService)
+	{
+		this.commonI18NService = commonI18NService;
+	}
+
+	protected ConfigurationService getConfigurationService()
+	{
+		return configurationService;
+	}
+
+	@Required
+	public void setConfigurationService(final ConfigurationService configurationService)
+	{
+		this.configurationService = configurationService;
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.renderer.impl;
+
+import de.hybris.platform.commons.enums.RendererTypeEnum;
+import de.hybris.platform.commons.model.renderer.RendererTemplateModel;
+import de.hybris.platform.commons.renderer.impl.DefaultRendererService;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.media.MediaModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.media.MediaService;
+
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.context.Context;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.runtime.RuntimeServices;
+import org.apache.velocity.runtime.RuntimeSingleton;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Renderer service keeping the parsed Velocity templates, so an email does not read the template media and parse the
+ * template again for every message, e.g. for each order confirmation during a sale.
+ *
+ * A parsed template is kept per renderer template and session language, as the template content is localized; it is
+ * parsed again when the template or its content media was modified. The email page templates reference their subject
+ * and body renderer templates, so this is a cache per email page template and language. Templates of other renderers
+ * and contexts that are no Velocity context are rendered by the default service, as is everything while the cache is
+ * not enabled.
+ */
+public class CachingVelocityRendererService extends DefaultRendererService
+{
+	private final ConcurrentMap<TemplateKey, CompiledTemplate> templates = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder compilations = new LongAdder();
+
+	private MediaService mediaService;
+	private CommonI18NService commonI18NService;
+	private boolean enabled;
+
+	@Override
+	public void render(final RendererTemplateModel template, final Object context, final Writer output)
+	{
+		final RuntimeServices runtimeServices = RuntimeSingleton.getRuntimeServices();
+		if (!isEnabled() || !RendererTypeEnum.VELOCITY.equals(template.getRendererType()) || !(context instanceof Context)
+				|| template.getContent() == null || template.getPk() == null || !runtimeServices.isInitialized())
+		{
+			// the default renderer also initializes velocity with the platform settings on first use
+			super.render(template, context, output);
+			return;
+		}
+		getTemplate(runtimeServices, template).merge((Context) context, output);
+	}
+
+	protected Template getTemplate(final RuntimeServices runtimeServices, final RendererTemplateModel template)
+	{
+		final LanguageModel language = getCommonI18NService().getCurrentLanguage();
+		final TemplateKey key = new TemplateKey(template.getPk().getLongValue(), language == null ? null : language.getIsocode());
+		final MediaModel content = template.getContent();
+		final String version = template.getModifiedtime() + "/" + content.getPk() + "/" + content.getModifiedtime();
+
+		final CompiledTemplate cached = templates.get(key);
+		if (cached != null && cached.version.equals(version))
+		{
+			hits.increment();
+			return cached.template;
+		}
+		final Template compiled = compile(runtimeServices, template.getCode(),
+				new String(getMediaService().getDataFromMedia(content), StandardCharsets.UTF_8));
+		compilations.increment();
+		templates.put(key, new CompiledTemplate(compiled, version));
+		return compiled;
+	}
+
+	protected Template compile(final RuntimeServices runtimeServices, final String name, final String script)
+	{
+		try
+		{
+			final SimpleNode node = runtimeServices.parse(new StringReader(script), name);
+			final Template template = new Template();
+			template.setName(name);
+			template.setRuntimeServices(runtimeServices);
+			template.setData(node);
+			template.initDocument();
+			return template;
+		}
+		catch (final ParseException e)
+		{
+			throw new ParseErrorException("Failed to parse renderer template [" + name + "]: " + e.getMessage());
+		}
+	}
+
+	public void clear()
+	{
+		templates.clear();
+	}
+
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	public long getCompilations()
+	{
+		return compilations.sum();
+	}
+
+	protected MediaService getMediaService()
+	{
+		return mediaService;
+	}
+
+	@Required
+	public void setMediaService(final MediaService mediaService)
+	{
+		this.mediaService = mediaService;
+	}
+
+	protected CommonI18NService getCommonI18NService()
+	{
+		return commonI18NService;
+	}
+
+	@Required
+	public void setCommonI18NService(final CommonI18NService commonI18NService)
+	{
+		this.commonI18NService = commonI18NService;
+	}
+
+	protected boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * @param enabled
+	 *           whether parsed templates are kept, off by default
+	 */
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	protected static final class TemplateKey
+	{
+		private final long templatePk;
+		private final String language;
+
+		protected TemplateKey(final long templatePk, final String language)
+		{
+			this.templatePk = templatePk;
+			this.language = language;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof TemplateKey))
+			{
+				return false;
+			}
+			final TemplateKey other = (TemplateKey) obj;
+			return templatePk == other.templatePk && Objects.equals(language, other.language);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(Long.valueOf(templatePk), language);
+		}
+	}
+
+	protected static final class CompiledTemplate
+	{
+		private final Template template;
+		private final String version;
+
+		protected CompiledTemplate(final Template template, final String version)
+		{
+			this.template = template;
+			this.version = version;
+		}
+	}
+}
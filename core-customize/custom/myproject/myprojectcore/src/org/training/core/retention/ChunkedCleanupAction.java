@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.retention;
+
+import de.hybris.platform.core.PK;
+
+import java.util.List;
+
+
+/**
+ * Retention cleanup action able to process the items found by a retention rule in chunks instead of one item at a
+ * time, see ChunkedRetentionCleanupJobPerformable.
+ */
+public interface ChunkedCleanupAction
+{
+	/**
+	 * Cleans up the items of one chunk in a single transaction.
+	 *
+	 * @param pks
+	 *           the PKs of the items found by the retention rule
+	 */
+	void cleanupChunk(List<PK> pks);
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.retention;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.retention.hook.ItemCleanupHook;
+
+import java.util.List;
+
+
+/**
+ * Cleanup hook able to clean up the related objects of a whole chunk of items at once, called once per chunk by a
+ * {@link ChunkedCleanupAction} instead of once per item.
+ */
+public interface ChunkedItemCleanupHook<T extends ItemModel> extends ItemCleanupHook<T>
+{
+	/**
+	 * Cleans up the related objects of all items of the chunk, before the items themselves are loaded.
+	 *
+	 * @param pks
+	 *           the PKs of the items of the chunk
+	 */
+	void cleanupRelatedObjectsOfChunk(List<PK> pks);
+}
@@ -5,17 +5,30 @@ package org.training.core.retention.impl;
 
 import static de.hybris.platform.servicelayer.util.ServicesUtil.validateParameterNotNullStandardMessage;
 
+import de.hybris.platform.core.PK;
 import de.hybris.platform.processing.model.AbstractRetentionRuleModel;
 import de.hybris.platform.retention.ItemToCleanup;
 import de.hybris.platform.retention.impl.AbstractExtensibleRemoveCleanupAction;
 import de.hybris.platform.retention.job.AfterRetentionCleanupJobPerformable;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.ticket.constants.TicketsystemConstants;
 import de.hybris.platform.ticket.enums.CsInterventionType;
 import de.hybris.platform.ticket.enums.CsResolutionType;
 import de.hybris.platform.ticket.model.CsTicketModel;
 import de.hybris.platform.ticket.service.TicketBusinessService;
 import de.hybris.platform.ticket.service.TicketException;
+import de.hybris.platform.tx.Transaction;
+import de.hybris.platform.tx.TransactionBody;
 import de.hybris.platform.util.localization.Localization;
+import org.training.core.retention.ChunkedCleanupAction;
+import org.training.core.ticket.TicketEventEmailQueue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
@@ -24,13 +37,31 @@ import org.springframework.beans.factory.annotation.Required;
 /**
  * Action that is responsible for resolving tickets. Configurations for rules when action should run are presented in
  * cronJobs.impex in ticketsFSStagnationRule
+ *
+ * The closing message is looked up once per session language. As a {@link ChunkedCleanupAction} the tickets of a
+ * chunk are loaded with one query and resolved in one transaction; the closure emails are held back by the
+ * {@link TicketEventEmailQueue} and sent once the transaction has been committed. The closing message of a chunk is in
+ * the language of the session cleaning it up, which is the session language of the cron job for the chunks cleaned up
+ * by the workers of the ChunkedRetentionCleanupJobPerformable.
  */
-public class DefaultCSTicketStagnationAction extends AbstractExtensibleRemoveCleanupAction
+public class DefaultCSTicketStagnationAction extends AbstractExtensibleRemoveCleanupAction implements ChunkedCleanupAction
 {
-	private TicketBusinessService ticketBusinessService;
-
 	private static final Logger LOG = Logger.getLogger(DefaultCSTicketStagnationAction.class.getName());
 
+	private static final String TICKETS_QUERY = "SELECT {" + CsTicketModel.PK + "} FROM {" + CsTicketModel._TYPECODE
+			+ "} WHERE {" + CsTicketModel.PK + "} IN (?pks)";
+
+	private final Map<String, String> closedTicketMessages = new ConcurrentHashMap<>();
+	private final LongAdder resolved = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder notifiedEvents = new LongAdder();
+	private final LongAdder chunkTime = new LongAdder();
+
+	private TicketBusinessService ticketBusinessService;
+	private FlexibleSearchService flexibleSearchService;
+	private CommonI18NService commonI18NService;
+	private TicketEventEmailQueue ticketEventEmailQueue;
+
 	@Override
 	public void cleanup(final AfterRetentionCleanupJobPerformable afterRetentionCleanupJobPerformable,
 			final AbstractRetentionRuleModel abstractRetentionRuleModel, final ItemToCleanup itemToCleanup)
@@ -42,20 +73,104 @@ public class DefaultCSTicketStagnationAction extends AbstractExtensibleRemoveCle
 			throw new IllegalStateException("Not instance of CsTicketModel:" + itemToCleanup.getPk());
 		}
 
-		final CsTicketModel csTicketModel = (CsTicketModel) itemModel;
-		final String localizedEmail = fetchLocalizedClosedTicketMessage();
+		resolveTicket((CsTicketModel) itemModel, getLocalizedClosedTicketMessage());
+	}
+
+	@Override
+	public void cleanupChunk(final List<PK> pks)
+	{
+		validateParameterNotNullStandardMessage("pks", pks);
+		if (pks.isEmpty())
+		{
+			return;
+		}
+
+		final long start = System.nanoTime();
+		final String localizedEmail = getLocalizedClosedTicketMessage();
+		final List<CsTicketModel> tickets = getTickets(pks);
+		if (getTicketEventEmailQueue() != null)
+		{
+			getTicketEventEmailQueue().startQueue();
+		}
+		boolean committed = false;
+		try
+		{
+			Transaction.current().execute(new TransactionBody()
+			{
+				@Override
+				public Object execute()
+				{
+					for (final CsTicketModel ticket : tickets)
+					{
+						resolveTicket(ticket, localizedEmail);
+					}
+					return null;
+				}
+			});
+			committed = true;
+		}
+		catch (final Exception e)
+		{
+			if (e instanceof RuntimeException)
+			{
+				throw (RuntimeException) e;
+			}
+			throw new IllegalStateException("Failed to resolve " + tickets.size() + " tickets", e);
+		}
+		finally
+		{
+			// also on errors, so the queue of the rolled back chunk does not stay open on the worker thread
+			if (!committed && getTicketEventEmailQueue() != null)
+			{
+				getTicketEventEmailQueue().discardQueue();
+			}
+		}
+		if (getTicketEventEmailQueue() != null)
+		{
+			notifiedEvents.add(getTicketEventEmailQueue().flushQueue());
+		}
+		final long duration = System.nanoTime() - start;
+		chunkTime.add(duration);
+
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Resolved chunk of " + tickets.size() + " tickets in " + duration / 1_000_000L + " ms");
+		}
+	}
+
+	protected void resolveTicket(final CsTicketModel csTicketModel, final String localizedEmail)
+	{
 		try
 		{
 			getTicketBusinessService().resolveTicket(csTicketModel, CsInterventionType.TICKETMESSAGE, CsResolutionType.CLOSED,
 					localizedEmail);
+			resolved.increment();
 			LOG.info("Resolving ticket [ " + csTicketModel.getTicketID() + "] and sending closure email");
 		}
 		catch (final TicketException exp)
 		{
+			failed.increment();
 			LOG.error("Error while trying to fetch and close ticket: ", exp);
 		}
 	}
 
+	protected List<CsTicketModel> getTickets(final List<PK> pks)
+	{
+		final FlexibleSearchQuery query = new FlexibleSearchQuery(TICKETS_QUERY);
+		query.addQueryParameter("pks", pks);
+		query.setNeedTotal(false);
+		return getFlexibleSearchService().<CsTicketModel> search(query).getResult();
+	}
+
+	/**
+	 * @return the closing message in the session language, looked up once per language
+	 */
+	protected String getLocalizedClosedTicketMessage()
+	{
+		return closedTicketMessages.computeIfAbsent(getCommonI18NService().getCurrentLanguage().getIsocode(),
+				isocode -> fetchLocalizedClosedTicketMessage());
+	}
+
 	protected String fetchLocalizedClosedTicketMessage()
 	{
 		String localizedClosedTicketMeesage = Localization.getLocalizedString(TicketsystemConstants.SUPPORT_TICKET_STAGNATION_KEY);
@@ -68,6 +183,39 @@ public class DefaultCSTicketStagnationAction extends AbstractExtensibleRemoveCle
 		return localizedClosedTicketMeesage;
 	}
 
+	/**
+	 * @return number of tickets resolved since startup
+	 */
+	public long getResolved()
+	{
+		return resolved.sum();
+	}
+
+	/**
+	 * @return number of tickets that could not be resolved since startup
+	 */
+	public long getFailed()
+	{
+		return failed.sum();
+	}
+
+	/**
+	 * @return number of ticket events whose queued closure emails were sent since startup, an event may send several
+	 *         emails or none depending on its recipients
+	 */
+	public long getNotifiedEvents()
+	{
+		return notifiedEvents.sum();
+	}
+
+	/**
+	 * @return total time spent in chunks since startup in milliseconds
+	 */
+	public long getChunkTime()
+	{
+		return chunkTime.sum() / 1_000_000L;
+	}
+
 	protected TicketBusinessService getTicketBusinessService()
 	{
 		return ticketBusinessService;
@@ -78,4 +226,40 @@ public class DefaultCSTicketStagnationAction extends AbstractExtensibleRemoveCle
 	{
 		this.ticketBusinessService = ticketBusinessService;
 	}
+
+	protected FlexibleSearchService getFlexibleSearchService()
+	{
+		return flexibleSearchService;
+	}
+
+	@Required
+	public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService)
+	{
+		this.flexibleSearchService = flexibleSearchService;
+	}
+
+	protected CommonI18NService getCommonI18NService()
+	{
+		return commonI18NService;
+	}
+
+	@Required
+	public void setCommonI18NService(final CommonI18NService commonI18NService)
+	{
+		this.commonI18NService = commonI18NService;
+	}
+
+	protected TicketEventEmailQueue getTicketEventEmailQueue()
+	{
+		return ticketEventEmailQueue;
+	}
+
+	/**
+	 * @param ticketEventEmailQueue
+	 *           holds back the closure emails of a chunk until its transaction is committed, if set
+	 */
+	public void setTicketEventEmailQueue(final TicketEventEmailQueue ticketEventEmailQueue)
+	{
+		this.ticketEventEmailQueue = ticketEventEmailQueue;
+	}
 }
@@ -5,25 +5,48 @@ package org.training.core.retention.impl;
 
 import static de.hybris.platform.servicelayer.util.ServicesUtil.validateParameterNotNullStandardMessage;
 
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.enums.RetentionState;
 import de.hybris.platform.core.model.user.CustomerModel;
 import de.hybris.platform.processing.model.AbstractRetentionRuleModel;
 import de.hybris.platform.retention.ItemToCleanup;
+import de.hybris.platform.retention.hook.ItemCleanupHook;
 import de.hybris.platform.retention.impl.AbstractExtensibleRemoveCleanupAction;
 import de.hybris.platform.retention.job.AfterRetentionCleanupJobPerformable;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.tx.Transaction;
+import de.hybris.platform.tx.TransactionBody;
+import org.training.core.retention.ChunkedCleanupAction;
+import org.training.core.retention.ChunkedItemCleanupHook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
 
 
 /**
  * Cleanup the customer related objects and set customer retention state to PROCESSED
  *
+ * A chunk of customers is cleaned up in one transaction: the {@link ChunkedItemCleanupHook}s clean up the related
+ * objects of the whole chunk, each with one query and one removal, then the customers are loaded with one query, the
+ * other hooks clean up their related objects per customer and the customers are saved at once.
  */
 public class DefaultCustomerCleanupRelatedObjectsAction extends AbstractExtensibleRemoveCleanupAction
+		implements ChunkedCleanupAction
 {
 	private static final Logger LOG = LoggerFactory.getLogger(DefaultCustomerCleanupRelatedObjectsAction.class);
 
+	private static final String CUSTOMERS_QUERY = "SELECT {" + CustomerModel.PK + "} FROM {" + CustomerModel._TYPECODE
+			+ "} WHERE {" + CustomerModel.PK + "} IN (?pks)";
+
+	private FlexibleSearchService flexibleSearchService;
+	private List<ItemCleanupHook> hooks = Collections.emptyList();
+
 	@Override
 	public void cleanup(final AfterRetentionCleanupJobPerformable retentionJob, final AbstractRetentionRuleModel rule,
 			final ItemToCleanup item)
@@ -52,4 +75,104 @@ public class DefaultCustomerCleanupRelatedObjectsAction extends AbstractExtensib
 		customerModel.setRetentionState(RetentionState.PROCESSED);
 		getModelService().save(customerModel);
 	}
+
+	@Override
+	public void cleanupChunk(final List<PK> pks)
+	{
+		validateParameterNotNullStandardMessage("pks", pks);
+		if (pks.isEmpty())
+		{
+			return;
+		}
+
+		try
+		{
+			Transaction.current().execute(new TransactionBody()
+			{
+				@Override
+				public Object execute()
+				{
+					doCleanupChunk(pks);
+					return null;
+				}
+			});
+		}
+		catch (final RuntimeException e)
+		{
+			throw e;
+		}
+		catch (final Exception e)
+		{
+			throw new IllegalStateException("Failed to clean up " + pks.size() + " customers", e);
+		}
+	}
+
+	protected void doCleanupChunk(final List<PK> pks)
+	{
+		final List<ItemCleanupHook> customerHooks = new ArrayList<>();
+		for (final ItemCleanupHook hook : getHooks())
+		{
+			if (hook instanceof ChunkedItemCleanupHook)
+			{
+				((ChunkedItemCleanupHook<?>) hook).cleanupRelatedObjectsOfChunk(pks);
+			}
+			else
+			{
+				customerHooks.add(hook);
+			}
+		}
+
+		// loaded after the chunk hooks, so the other hooks do not see the related objects removed by them
+		final List<CustomerModel> customers = getCustomers(pks);
+		if (customers.size() < pks.size())
+		{
+			LOG.warn("{} of {} customers to clean up were not found", Integer.valueOf(pks.size() - customers.size()),
+					Integer.valueOf(pks.size()));
+		}
+		for (final CustomerModel customer : customers)
+		{
+			for (final ItemCleanupHook hook : customerHooks)
+			{
+				hook.cleanupRelatedObjects(customer);
+			}
+			customer.setRetentionState(RetentionState.PROCESSED);
+		}
+		getModelService().saveAll(customers);
+
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Cleaned up {} customers and set their retention state to processed", Integer.valueOf(customers.size()));
+		}
+	}
+
+	protected List<CustomerModel> getCustomers(final List<PK> pks)
+	{
+		final FlexibleSearchQuery query = new FlexibleSearchQuery(CUSTOMERS_QUERY);
+		query.addQueryParameter("pks", pks);
+		query.setNeedTotal(false);
+		return getFlexibleSearchService().<CustomerModel> search(query).getResult();
+	}
+
+	protected List<ItemCleanupHook> getHooks()
+	{
+		return hooks;
+	}
+
+	@Override
+	public void setItemCleanupHooks(final List<ItemCleanupHook> itemCleanupHooks)
+	{
+		super.setItemCleanupHooks(itemCleanupHooks);
+		this.hooks = itemCleanupHooks == null ? Collections.<ItemCleanupHook> emptyList() : itemCleanupHooks;
+	}
+
+	protected FlexibleSearchService getFlexibleSearchService()
+	{
+		return flexibleSearchService;
+	}
+
+	@Required
+	public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService)
+	{
+		this.flexibleSearchService = flexibleSearchService;
+	}
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.retention.impl;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import org.training.core.retention.ChunkedItemCleanupHook;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Removes the items of {@link #setTypeCode(String)} referring to the cleaned up items through
+ * {@link #setReferenceAttribute(String)}, searched with one query and removed at once for a whole chunk.
+ */
+public class RelatedItemsChunkedCleanupHook<T extends ItemModel> implements ChunkedItemCleanupHook<T>
+{
+	private static final String RELATED_ITEMS_QUERY = "SELECT {" + ItemModel.PK + "} FROM {%s} WHERE {%s} IN (?pks)";
+
+	private FlexibleSearchService flexibleSearchService;
+	private ModelService modelService;
+	private String typeCode;
+	private String referenceAttribute;
+
+	@Override
+	public void cleanupRelatedObjects(final T item)
+	{
+		cleanupRelatedObjectsOfChunk(Collections.singletonList(item.getPk()));
+	}
+
+	@Override
+	public void cleanupRelatedObjectsOfChunk(final List<PK> pks)
+	{
+		final FlexibleSearchQuery query = new FlexibleSearchQuery(
+				String.format(RELATED_ITEMS_QUERY, getTypeCode(), getReferenceAttribute()));
+		query.addQueryParameter("pks", pks);
+		query.setNeedTotal(false);
+		final List<ItemModel> relatedItems = getFlexibleSearchService().<ItemModel> search(query).getResult();
+		if (!relatedItems.isEmpty())
+		{
+			getModelService().removeAll(relatedItems);
+		}
+	}
+
+	protected FlexibleSearchService getFlexibleSearchService()
+	{
+		return flexibleSearchService;
+	}
+
+	@Required
+	public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService)
+	{
+		this.flexibleSearchService = flexibleSearchService;
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected String getTypeCode()
+	{
+		return typeCode;
+	}
+
+	/**
+	 * @param typeCode
+	 *           type code of the related items
+	 */
+	@Required
+	public void setTypeCode(final String typeCode)
+	{
+		this.typeCode = typeCode;
+	}
+
+	protected String getReferenceAttribute()
+	{
+		return referenceAttribute;
+	}
+
+	/**
+	 * @param referenceAttribute
+	 *           attribute of the related items referring to the cleaned up item
+	 */
+	@Required
+	public void setReferenceAttribute(final String referenceAttribute)
+	{
+		this.referenceAttribute = referenceAttribute;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.setup;
+
+import de.hybris.platform.commerceservices.setup.AbstractSystemSetup;
+import de.hybris.platform.core.initialization.SystemSetupContext;
+import org.training.core.setup.ImpexImportResult.Status;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * System setup importing its impex files through the {@link ImpexImportExecutor}, so files that do not depend on each
+ * other are imported concurrently, and reporting the import time of every file.
+ */
+public abstract class AbstractImpexImportSystemSetup extends AbstractSystemSetup
+{
+	private ImpexImportExecutor impexImportExecutor;
+
+	/**
+	 * Imports the files and their localized variants, see {@link ImpexImportExecutor#importFiles(List)}.
+	 *
+	 * @param context
+	 *           the context provides the selected parameters and values
+	 * @param files
+	 *           classpath locations of the files
+	 */
+	protected void importImpexFiles(final SystemSetupContext context, final List<String> files)
+	{
+		final long start = System.currentTimeMillis();
+		final List<ImpexImportResult> results = getImpexImportExecutor().importFiles(files);
+
+		long importTime = 0;
+		for (final ImpexImportResult result : results)
+		{
+			if (result.getStatus() == Status.IMPORTED)
+			{
+				logInfo(context, "Imported [" + result.getFile() + "] in " + result.getDuration() + " ms");
+			}
+			else
+			{
+				logError(context, "Impex file [" + result.getFile() + "] " + result.getStatus(), null);
+			}
+			importTime += result.getDuration();
+		}
+		logInfo(context, "Imported " + results.size() + " impex files in " + (System.currentTimeMillis() - start)
+				+ " ms, sum of the import times " + importTime + " ms");
+	}
+
+	protected ImpexImportExecutor getImpexImportExecutor()
+	{
+		return impexImportExecutor;
+	}
+
+	@Required
+	public void setImpexImportExecutor(final ImpexImportExecutor impexImportExecutor)
+	{
+		this.impexImportExecutor = impexImportExecutor;
+	}
+}
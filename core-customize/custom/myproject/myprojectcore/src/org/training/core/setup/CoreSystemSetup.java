@@ -3,7 +3,6 @@
  */
 package org.training.core.setup;
 
-import de.hybris.platform.commerceservices.setup.AbstractSystemSetup;
 import de.hybris.platform.core.Registry;
 import de.hybris.platform.core.initialization.SystemSetup;
 import de.hybris.platform.core.initialization.SystemSetup.Process;
@@ -14,14 +13,16 @@ import de.hybris.platform.core.initialization.SystemSetupParameterMethod;
 import org.training.core.constants.MyprojectCoreConstants;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
 /**
- * This class provides hooks into the system's initialization and update processes.
+ * This class provides hooks into the system's initialization and update processes. The impex files declare their
+ * prerequisites, independent files are imported concurrently.
  */
 @SystemSetup(extension = MyprojectCoreConstants.EXTENSIONNAME)
-public class CoreSystemSetup extends AbstractSystemSetup
+public class CoreSystemSetup extends AbstractImpexImportSystemSetup
 {
 	public static final String IMPORT_ACCESS_RIGHTS = "accessRights";
 
@@ -35,13 +36,10 @@ public class CoreSystemSetup extends AbstractSystemSetup
 	@SystemSetup(type = Type.ESSENTIAL, process = Process.ALL)
 	public void createEssentialData(final SystemSetupContext context)
 	{
-		importImpexFile(context, "/myprojectcore/import/common/essential-data.impex");
-		importImpexFile(context, "/myprojectcore/import/common/countries.impex");
-		importImpexFile(context, "/myprojectcore/import/common/delivery-modes.impex");
-
-		importImpexFile(context, "/myprojectcore/import/common/themes.impex");
-		importImpexFile(context, "/myprojectcore/import/common/user-groups.impex");
-		importImpexFile(context, "/myprojectcore/import/common/cronjobs.impex");
+		importImpexFiles(context, Arrays.asList("/myprojectcore/import/common/essential-data.impex",
+				"/myprojectcore/import/common/countries.impex", "/myprojectcore/import/common/delivery-modes.impex",
+				"/myprojectcore/import/common/themes.impex", "/myprojectcore/import/common/user-groups.impex",
+				"/myprojectcore/import/common/cronjobs.impex"));
 	}
 
 	/**
@@ -70,30 +68,36 @@ public class CoreSystemSetup extends AbstractSystemSetup
 		final boolean importAccessRights = getBooleanSystemSetupParameter(context, IMPORT_ACCESS_RIGHTS);
 
 		final List<String> extensionNames = getExtensionNames();
+		final List<String> cockpitFiles = new ArrayList<>();
 
-		processCockpit(context, importAccessRights, extensionNames, "cmsbackoffice",
+		processCockpit(cockpitFiles, importAccessRights, extensionNames, "cmsbackoffice",
 				"/myprojectcore/import/cockpits/cmscockpit/cmscockpit-users.impex",
 				"/myprojectcore/import/cockpits/cmscockpit/cmscockpit-access-rights.impex");
 
-		processCockpit(context, importAccessRights, extensionNames, "productcockpit",
+		processCockpit(cockpitFiles, importAccessRights, extensionNames, "productcockpit",
 				"/myprojectcore/import/cockpits/productcockpit/productcockpit-users.impex",
 				"/myprojectcore/import/cockpits/productcockpit/productcockpit-access-rights.impex",
 				"/myprojectcore/import/cockpits/productcockpit/productcockpit-constraints.impex");
 
-		processCockpit(context, importAccessRights, extensionNames, "customersupportbackoffice",
+		processCockpit(cockpitFiles, importAccessRights, extensionNames, "customersupportbackoffice",
 				"/myprojectcore/import/cockpits/cscockpit/cscockpit-users.impex",
 				"/myprojectcore/import/cockpits/cscockpit/cscockpit-access-rights.impex");
+
+		if (!cockpitFiles.isEmpty())
+		{
+			importImpexFiles(context, cockpitFiles);
+		}
 	}
 
-	protected void processCockpit(final SystemSetupContext context, final boolean importAccessRights,
+	/**
+	 * Adds the files of the cockpit to the files to import, the files of different cockpits are imported concurrently.
+	 */
+	protected void processCockpit(final List<String> cockpitFiles, final boolean importAccessRights,
 			final List<String> extensionNames, final String cockpit, final String... files)
 	{
 		if (importAccessRights && extensionNames.contains(cockpit))
 		{
-			for (final String file : files)
-			{
-				importImpexFile(context, file);
-			}
+			cockpitFiles.addAll(Arrays.asList(files));
 		}
 	}
 
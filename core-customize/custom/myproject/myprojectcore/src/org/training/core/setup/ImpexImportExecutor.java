@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.setup;
+
+import java.util.List;
+
+
+/**
+ * Imports the impex files of a system setup step, running the files that do not depend on each other concurrently.
+ *
+ * A file declares the files it depends on in its leading comment block:
+ *
+ * <pre>
+ * # requires: essential-data.impex, countries.impex
+ * </pre>
+ *
+ * Relative paths are resolved against the directory of the declaring file. Prerequisites that are not part of the
+ * same call are expected to be imported already.
+ */
+public interface ImpexImportExecutor
+{
+	/**
+	 * Imports the files and their localized variants (<code>file_&lt;isocode&gt;.impex</code> for every language). A
+	 * file is imported once the files it requires and their localized variants have been imported; the localized
+	 * variants of a file are imported once the file itself has been imported. Whether files depending on a file that
+	 * failed are imported anyway or skipped depends on the implementation.
+	 *
+	 * @param files
+	 *           classpath locations of the files
+	 * @return the result of every file and localized variant, in the order the imports finished
+	 */
+	List<ImpexImportResult> importFiles(List<String> files);
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.setup;
+
+/**
+ * Outcome of the import of one impex file by an {@link ImpexImportExecutor}.
+ */
+public class ImpexImportResult
+{
+	/**
+	 * Status of an imported file.
+	 */
+	public enum Status
+	{
+		IMPORTED, FAILED, SKIPPED
+	}
+
+	private final String file;
+	private final Status status;
+	private final long duration;
+
+	public ImpexImportResult(final String file, final Status status, final long duration)
+	{
+		this.file = file;
+		this.status = status;
+		this.duration = duration;
+	}
+
+	public String getFile()
+	{
+		return file;
+	}
+
+	public Status getStatus()
+	{
+		return status;
+	}
+
+	/**
+	 * @return duration of the import in milliseconds, 0 for skipped files
+	 */
+	public long getDuration()
+	{
+		return duration;
+	}
+
+	@Override
+	public String toString()
+	{
+		return file + " " + status + " in " + duration + " ms";
+	}
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.setup.impl;
+
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.impex.ImportConfig;
+import de.hybris.platform.servicelayer.impex.ImportResult;
+import de.hybris.platform.servicelayer.impex.ImportService;
+import de.hybris.platform.servicelayer.impex.impl.StreamBasedImpExResource;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.user.UserService;
+import org.training.core.setup.ImpexImportExecutor;
+import org.training.core.setup.ImpexImportResult;
+import org.training.core.setup.ImpexImportResult.Status;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Default implementation of {@link ImpexImportExecutor}. The imports run on up to {@link #setThreads(int)} threads,
+ * each import in its own session of the admin user; with one thread the files are imported on the calling thread in
+ * the given order, prerequisites first.
+ *
+ * The files are imported like by the SetupImpexService of the system setups: with the configured encoding, in the
+ * configured legacy mode and with code execution enabled, as the files switch the locale with
+ * <code>#% impex.setLocale</code>. Like there, a failed file does not stop the files requiring it, unless
+ * {@link #setSkipDependentsOfFailedFiles(boolean)} is set.
+ */
+public class DefaultImpexImportExecutor implements ImpexImportExecutor
+{
+	private static final Logger LOG = Logger.getLogger(DefaultImpexImportExecutor.class);
+
+	private static final String REQUIRES_PREFIX = "# requires:";
+	private static final String IMPEX_EXTENSION = ".impex";
+	private static final String BYTE_ORDER_MARK = "\uFEFF";
+
+	private ImportService importService;
+	private SessionService sessionService;
+	private UserService userService;
+	private CommonI18NService commonI18NService;
+	private int threads = 4;
+	private String fileEncoding = "UTF-8";
+	private boolean legacyMode;
+	private boolean enableCodeExecution = true;
+	private boolean skipDependentsOfFailedFiles;
+
+	@Override
+	public List<ImpexImportResult> importFiles(final List<String> files)
+	{
+		final ExecutorService executor = getThreads() > 1 && files.size() > 1 ? createExecutor() : null;
+		try
+		{
+			final ImportRun run = new ImportRun(files, executor, Registry.getCurrentTenantNoFallback());
+			for (final String file : files)
+			{
+				run.schedule(file, new LinkedHashSet<>());
+			}
+			return run.await();
+		}
+		finally
+		{
+			if (executor != null)
+			{
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	protected ExecutorService createExecutor()
+	{
+		return Executors.newFixedThreadPool(getThreads());
+	}
+
+	/**
+	 * @return the files the given file requires, read from the <code># requires:</code> lines of its leading comment
+	 *         block
+	 */
+	protected List<String> getPrerequisites(final String file)
+	{
+		final List<String> prerequisites = new ArrayList<>();
+		final InputStream stream = getClass().getResourceAsStream(file);
+		if (stream == null)
+		{
+			return prerequisites;
+		}
+
+		try (final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, getFileEncoding())))
+		{
+			String line = reader.readLine();
+			if (line != null && line.startsWith(BYTE_ORDER_MARK))
+			{
+				line = line.substring(BYTE_ORDER_MARK.length());
+			}
+			while (line != null && (line.trim().isEmpty() || line.startsWith("#")))
+			{
+				if (line.startsWith(REQUIRES_PREFIX))
+				{
+					for (final String prerequisite : line.substring(REQUIRES_PREFIX.length()).split(","))
+					{
+						if (!prerequisite.trim().isEmpty())
+						{
+							prerequisites.add(resolve(file, prerequisite.trim()));
+						}
+					}
+				}
+				line = reader.readLine();
+			}
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException("Failed to read the prerequisites of impex file [" + file + "]", e);
+		}
+		return prerequisites;
+	}
+
+	protected String resolve(final String file, final String prerequisite)
+	{
+		return prerequisite.startsWith("/") ? prerequisite : file.substring(0, file.lastIndexOf('/') + 1) + prerequisite;
+	}
+
+	/**
+	 * @return the existing localized variants of the file for the languages of the system, called after the file itself
+	 *         has been imported
+	 */
+	protected List<String> getLocalizedFiles(final String file)
+	{
+		if (!file.endsWith(IMPEX_EXTENSION))
+		{
+			return Collections.emptyList();
+		}
+
+		final String baseName = file.substring(0, file.length() - IMPEX_EXTENSION.length());
+		final List<String> localizedFiles = new ArrayList<>();
+		for (final LanguageModel language : getCommonI18NService().getAllLanguages())
+		{
+			final String localizedFile = baseName + "_" + language.getIsocode() + IMPEX_EXTENSION;
+			if (getClass().getResource(localizedFile) != null)
+			{
+				localizedFiles.add(localizedFile);
+			}
+		}
+		return localizedFiles;
+	}
+
+	/**
+	 * @return whether the file was imported without errors
+	 */
+	protected boolean importFile(final String file)
+	{
+		try (final InputStream stream = getClass().getResourceAsStream(file))
+		{
+			if (stream == null)
+			{
+				LOG.error("Impex file [" + file + "] not found");
+				return false;
+			}
+
+			final ImportResult importResult = getImportService().importData(createImportConfig(stream));
+			if (importResult.isError())
+			{
+				LOG.error("Import of impex file [" + file + "] failed");
+				return false;
+			}
+			return true;
+		}
+		catch (final IOException e)
+		{
+			LOG.error("Failed to read impex file [" + file + "]", e);
+			return false;
+		}
+	}
+
+	protected ImportConfig createImportConfig(final InputStream stream)
+	{
+		final ImportConfig importConfig = new ImportConfig();
+		importConfig.setScript(new StreamBasedImpExResource(stream, getFileEncoding()));
+		importConfig.setLegacyMode(Boolean.valueOf(isLegacyMode()));
+		importConfig.setEnableCodeExecution(Boolean.valueOf(isEnableCodeExecution()));
+		return importConfig;
+	}
+
+	/**
+	 * Runs an import on a pool thread, in a new session of the admin user.
+	 */
+	protected <T> T executeInSession(final Supplier<T> task, final Tenant tenant)
+	{
+		if (tenant != null)
+		{
+			Registry.setCurrentTenant(tenant);
+		}
+		try
+		{
+			final Session session = getSessionService().createNewSession();
+			try
+			{
+				getUserService().setCurrentUser(getUserService().getAdminUser());
+				return task.get();
+			}
+			finally
+			{
+				getSessionService().closeSession(session);
+			}
+		}
+		finally
+		{
+			Registry.unsetCurrentTenant();
+		}
+	}
+
+	/**
+	 * Schedules the files of one {@link #importFiles(List)} call, every file once.
+	 */
+	private final class ImportRun
+	{
+		private final Set<String> files;
+		private final ExecutorService executor;
+		private final Tenant tenant;
+		private final Map<String, CompletableFuture<Boolean>> imports = new HashMap<>();
+		private final List<ImpexImportResult> results = Collections.synchronizedList(new ArrayList<>());
+		private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+		private ImportRun(final List<String> files, final ExecutorService executor, final Tenant tenant)
+		{
+			this.files = new HashSet<>(files);
+			this.executor = executor;
+			this.tenant = tenant;
+		}
+
+		/**
+		 * @return completes with <code>true</code> once the file and its localized variants have been imported without
+		 *         errors
+		 */
+		private CompletableFuture<Boolean> schedule(final String file, final Set<String> path)
+		{
+			final CompletableFuture<Boolean> scheduled = imports.get(file);
+			if (scheduled != null)
+			{
+				return scheduled;
+			}
+			if (!path.add(file))
+			{
+				throw new IllegalStateException("Cyclic impex prerequisites " + path + " -> " + file);
+			}
+
+			final List<CompletableFuture<Boolean>> prerequisites = new ArrayList<>();
+			for (final String prerequisite : getPrerequisites(file))
+			{
+				if (files.contains(prerequisite))
+				{
+					prerequisites.add(schedule(prerequisite, path));
+				}
+			}
+			path.remove(file);
+
+			final CompletableFuture<Boolean> imported = allImported(prerequisites)
+					.thenCompose(ready -> proceed(ready.booleanValue()) ? importWithLocalizedFiles(file) : skip(file));
+			imports.put(file, imported);
+			return imported;
+		}
+
+		private CompletableFuture<Boolean> importWithLocalizedFiles(final String file)
+		{
+			// the localized variants are looked up on the importing thread, which has a session
+			return submit(() -> proceed(importAndRecord(file)) ? getLocalizedFiles(file) : null)
+					.thenCompose(localizedFiles -> {
+						if (localizedFiles == null)
+						{
+							return CompletableFuture.completedFuture(Boolean.FALSE);
+						}
+						final List<CompletableFuture<Boolean>> fileImports = new ArrayList<>();
+						fileImports.add(CompletableFuture.completedFuture(Boolean.valueOf(!failed.contains(file))));
+						for (final String localizedFile : localizedFiles)
+						{
+							fileImports.add(submit(() -> Boolean.valueOf(importAndRecord(localizedFile))));
+						}
+						return allImported(fileImports);
+					});
+		}
+
+		/**
+		 * @return whether the file was imported without errors
+		 */
+		private boolean importAndRecord(final String file)
+		{
+			final long start = System.currentTimeMillis();
+			boolean imported;
+			try
+			{
+				imported = importFile(file);
+			}
+			catch (final RuntimeException e)
+			{
+				LOG.error("Import of impex file [" + file + "] failed", e);
+				imported = false;
+			}
+			final ImpexImportResult result = new ImpexImportResult(file, imported ? Status.IMPORTED : Status.FAILED,
+					System.currentTimeMillis() - start);
+			results.add(result);
+			if (LOG.isDebugEnabled())
+			{
+				LOG.debug("Impex file " + result);
+			}
+			if (!imported)
+			{
+				failed.add(file);
+			}
+			return imported;
+		}
+
+		/**
+		 * @return whether the files depending on an import are imported, after the import failed only if dependents of
+		 *         failed files are not skipped
+		 */
+		private boolean proceed(final boolean imported)
+		{
+			return imported || !isSkipDependentsOfFailedFiles();
+		}
+
+		private CompletableFuture<Boolean> skip(final String file)
+		{
+			results.add(new ImpexImportResult(file, Status.SKIPPED, 0L));
+			return CompletableFuture.completedFuture(Boolean.FALSE);
+		}
+
+		private <T> CompletableFuture<T> submit(final Supplier<T> task)
+		{
+			if (executor == null)
+			{
+				return CompletableFuture.completedFuture(task.get());
+			}
+			return CompletableFuture.supplyAsync(() -> executeInSession(task, tenant), executor);
+		}
+
+		private CompletableFuture<Boolean> allImported(final List<CompletableFuture<Boolean>> futures)
+		{
+			return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(
+					ignored -> Boolean.valueOf(futures.stream().allMatch(future -> future.join().booleanValue())));
+		}
+
+		private List<ImpexImportResult> await()
+		{
+			for (final CompletableFuture<Boolean> future : imports.values())
+			{
+				future.join();
+			}
+			synchronized (results)
+			{
+				return new ArrayList<>(results);
+			}
+		}
+	}
+
+	protected ImportService getImportService()
+	{
+		return importService;
+	}
+
+	@Required
+	public void setImportService(final ImportService importService)
+	{
+		this.importService = importService;
+	}
+
+	protected SessionService getSessionService()
+	{
+		return sessionService;
+	}
+
+	@Required
+	public void setSessionService(final SessionService sessionService)
+	{
+		this.sessionService = sessionService;
+	}
+
+	protected UserService getUserService()
+	{
+		return userService;
+	}
+
+	@Required
+	public void setUserService(final UserService userService)
+	{
+		this.userService = userService;
+	}
+
+	protected CommonI18NService getCommonI18NService()
+	{
+		return commonI18NService;
+	}
+
+	@Required
+	public void setCommonI18NService(final CommonI18NService commonI18NService)
+	{
+		this.commonI18NService = commonI18NService;
+	}
+
+	protected int getThreads()
+	{
+		return threads;
+	}
+
+	/**
+	 * @param threads
+	 *           number of threads importing independent files, 1 imports all files on the calling thread
+	 */
+	public void setThreads(final int threads)
+	{
+		this.threads = threads;
+	}
+
+	protected String getFileEncoding()
+	{
+		return fileEncoding;
+	}
+
+	public void setFileEncoding(final String fileEncoding)
+	{
+		this.fileEncoding = fileEncoding;
+	}
+
+	protected boolean isLegacyMode()
+	{
+		return legacyMode;
+	}
+
+	public void setLegacyMode(final boolean legacyMode)
+	{
+		this.legacyMode = legacyMode;
+	}
+
+	protected boolean isEnableCodeExecution()
+	{
+		return enableCodeExecution;
+	}
+
+	public void setEnableCodeExecution(final boolean enableCodeExecution)
+	{
+		this.enableCodeExecution = enableCodeExecution;
+	}
+
+	protected boolean isSkipDependentsOfFailedFiles()
+	{
+		return skipDependentsOfFailedFiles;
+	}
+
+	/**
+	 * @param skipDependentsOfFailedFiles
+	 *           skip the files requiring a file that failed, instead of importing them anyway like the SetupImpexService
+	 */
+	public void setSkipDependentsOfFailedFiles(final boolean skipDependentsOfFailedFiles)
+	{
+		this.skipDependentsOfFailedFiles = skipDependentsOfFailedFiles;
+	}
+}
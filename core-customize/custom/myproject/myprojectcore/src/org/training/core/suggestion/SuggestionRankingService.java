@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.suggestion;
+
+import de.hybris.platform.catalog.enums.ProductReferenceTypeEnum;
+import de.hybris.platform.core.model.product.ProductModel;
+
+import java.util.List;
+
+
+/**
+ * Keeps precomputed, scored lists of referenced products per source product, used by
+ * {@link SimpleSuggestionService} to answer product based suggestions without sorting at request time.
+ */
+public interface SuggestionRankingService
+{
+	/**
+	 * Returns the referenced products of the given products ordered by descending score. Products that are part of the
+	 * given list are never returned.
+	 *
+	 * @param products
+	 *           the source products
+	 * @param referenceTypes
+	 *           optional referenceTypes, if not empty only targets referenced with one of these types are returned
+	 * @param limit
+	 *           the maximum number of returned products
+	 * @return a list with referenced products, best scored first
+	 */
+	List<ProductModel> getRankedReferences(List<ProductModel> products, List<ProductReferenceTypeEnum> referenceTypes,
+			int limit);
+
+	/**
+	 * Drops the precomputed ranking of the given product, it is rebuilt on next access.
+	 *
+	 * @param product
+	 *           the source product
+	 */
+	void invalidate(ProductModel product);
+
+	/**
+	 * Drops all precomputed rankings.
+	 */
+	void invalidateAll();
+}
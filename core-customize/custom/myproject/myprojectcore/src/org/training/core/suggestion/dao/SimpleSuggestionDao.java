@@ -9,6 +9,8 @@ import de.hybris.platform.core.model.product.ProductModel;
 import de.hybris.platform.core.model.user.UserModel;
 import de.hybris.platform.servicelayer.internal.dao.Dao;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 
@@ -62,4 +64,27 @@ public interface SimpleSuggestionDao extends Dao
 	 */
 	List<ProductModel> findProductsRelatedToProducts(List<ProductModel> products,
 			List<ProductReferenceTypeEnum> referenceTypes, UserModel user, boolean excludePurchased, Integer limit);
+
+	/**
+	 * Returns the products that were bought together with the given product, one row per co-purchased product.
+	 *
+	 * @param product
+	 *           the product whose co-purchases are looked up
+	 * @param since
+	 *           only orders created at or after this date are considered
+	 * @return rows of [{@link de.hybris.platform.core.PK} of the co-purchased product, {@link Long} number of order
+	 *         entries, {@link Date} creation time of the latest order]
+	 */
+	List<List<Object>> findCoPurchasedProducts(ProductModel product, Date since);
+
+	/**
+	 * Returns those of the given products that the user has already ordered.
+	 *
+	 * @param user
+	 *           the user that has placed the orders
+	 * @param products
+	 *           the products to check
+	 * @return the subset of products purchased by the user
+	 */
+	List<ProductModel> findPurchasedProducts(UserModel user, Collection<ProductModel> products);
 }
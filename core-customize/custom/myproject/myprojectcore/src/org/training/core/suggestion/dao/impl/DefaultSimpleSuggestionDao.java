@@ -5,6 +5,7 @@ package org.training.core.suggestion.dao.impl;
 
 import de.hybris.platform.catalog.enums.ProductReferenceTypeEnum;
 import de.hybris.platform.category.model.CategoryModel;
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.model.product.ProductModel;
 import de.hybris.platform.core.model.user.UserModel;
 import de.hybris.platform.servicelayer.internal.dao.AbstractItemDao;
@@ -12,7 +13,13 @@ import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 import de.hybris.platform.servicelayer.search.SearchResult;
 import org.training.core.suggestion.dao.SimpleSuggestionDao;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,15 +31,21 @@ import org.springframework.util.Assert;
  * Default implementation of {@link SimpleSuggestionDao}.
  * 
  * Finds products that are related products that the user has bought.
+ *
+ * Lists of products bound to an <code>IN</code> clause are split into chunks of {@link #setInListChunkSize(int)}, below
+ * the limit of the database on the number of <code>IN</code> list entries.
  */
 public class DefaultSimpleSuggestionDao extends AbstractItemDao implements SimpleSuggestionDao
 {
 	private static final int DEFAULT_LIMIT = 100;
+	private static final int DEFAULT_IN_LIST_CHUNK_SIZE = 1000;
 	private static final String REF_QUERY_PARAM_CATEGORY = "category";
 	private static final String REF_QUERY_PARAM_PRODUCTS = "products";
 	private static final String REF_QUERY_PARAM_USER = "user";
 	private static final String REF_QUERY_PARAM_TYPE = "referenceType";
 	private static final String REF_QUERY_PARAM_TYPES = "referenceTypes";
+	private static final String REF_QUERY_PARAM_PRODUCT = "product";
+	private static final String REF_QUERY_PARAM_SINCE = "since";
 
 	private static final String REF_QUERY_CATEGORY_START = "SELECT {p.PK}"
 			+ " FROM {Product AS p"
@@ -48,6 +61,11 @@ public class DefaultSimpleSuggestionDao extends AbstractItemDao implements Simpl
 			+ " LEFT JOIN ProductReference AS r ON {p.PK}={r.target} }"
 			+ " WHERE {r.source} IN (?products) AND {r.target} NOT IN (?products)";
 
+	private static final String REF_QUERY_PRODUCT_CHUNK_START = "SELECT {p.PK}, COUNT({p.PK})"
+			+ " FROM {Product AS p"
+			+ " LEFT JOIN ProductReference AS r ON {p.PK}={r.target} }"
+			+ " WHERE {r.source} IN (?products)";
+
 	private static final String REF_QUERY_TYPE = " AND {r.referenceType} IN (?referenceType)";
 	private static final String REF_QUERY_TYPES = " AND {r.referenceType} IN (?referenceTypes)";
 	private static final String REF_QUERY_SUB = " AND NOT EXISTS ({{"
@@ -59,6 +77,18 @@ public class DefaultSimpleSuggestionDao extends AbstractItemDao implements Simpl
 	private static final String REF_QUERY_PRODUCT_GROUP = " GROUP BY {p.PK}";
 	private static final String REF_QUERY_PRODUCT_ORDER = " ORDER BY NUM DESC";
 
+	private static final String CO_PURCHASE_QUERY = "SELECT {e2.product}, COUNT({e2.PK}), MAX({o.creationTime})"
+			+ " FROM {OrderEntry AS e1"
+			+ " JOIN Order AS o ON {e1.order}={o.PK}"
+			+ " JOIN OrderEntry AS e2 ON {e2.order}={o.PK} }"
+			+ " WHERE {e1.product}=?product AND {e2.product}<>?product AND {o.creationTime}>=?since"
+			+ " GROUP BY {e2.product}";
+
+	private static final String PURCHASED_QUERY = "SELECT DISTINCT {e.product}"
+			+ " FROM {OrderEntry AS e LEFT JOIN Order AS o ON {e.order}={o.PK} }"
+			+ " WHERE {o.user}=?user AND {e.product} IN (?products)";
+
+	private int inListChunkSize = DEFAULT_IN_LIST_CHUNK_SIZE;
 
 	@Override
 	public List<ProductModel> findProductsRelatedToPurchasedProductsByCategory(final CategoryModel category,
@@ -104,6 +134,11 @@ public class DefaultSimpleSuggestionDao extends AbstractItemDao implements Simpl
 		Assert.notNull(user);
 
 		final int maxResultCount = limit == null ? DEFAULT_LIMIT : limit.intValue();
+		if (products.size() > getInListChunkSize())
+		{
+			return findProductsRelatedToProductsInChunks(products, referenceTypes, user, excludePurchased,
+					maxResultCount);
+		}
 
 		final Map<String, Object> params = new HashMap<String, Object>();
 		final StringBuilder builder = new StringBuilder(REF_QUERY_PRODUCT_START);
@@ -131,6 +166,102 @@ public class DefaultSimpleSuggestionDao extends AbstractItemDao implements Simpl
 		return result.getResult();
 	}
 
+	/**
+	 * Counts the references per target product chunk by chunk of the source products. The targets among the source
+	 * products are left out and the limit is applied once the counts of all chunks are summed up.
+	 */
+	protected List<ProductModel> findProductsRelatedToProductsInChunks(final List<ProductModel> products,
+			final List<ProductReferenceTypeEnum> referenceTypes, final UserModel user, final boolean excludePurchased,
+			final int maxResultCount)
+	{
+		final StringBuilder builder = new StringBuilder(REF_QUERY_PRODUCT_CHUNK_START);
+		if (excludePurchased)
+		{
+			builder.append(REF_QUERY_SUB);
+		}
+		if (CollectionUtils.isNotEmpty(referenceTypes))
+		{
+			builder.append(REF_QUERY_TYPES);
+		}
+		builder.append(REF_QUERY_PRODUCT_GROUP);
+
+		final Map<PK, Long> counts = new LinkedHashMap<PK, Long>();
+		for (int from = 0; from < products.size(); from += getInListChunkSize())
+		{
+			final FlexibleSearchQuery query = new FlexibleSearchQuery(builder.toString());
+			query.addQueryParameter(REF_QUERY_PARAM_USER, user);
+			query.addQueryParameter(REF_QUERY_PARAM_PRODUCTS,
+					products.subList(from, Math.min(from + getInListChunkSize(), products.size())));
+			if (CollectionUtils.isNotEmpty(referenceTypes))
+			{
+				query.addQueryParameter(REF_QUERY_PARAM_TYPES, referenceTypes);
+			}
+			query.setResultClassList(Arrays.asList(PK.class, Long.class));
+			query.setNeedTotal(false);
+
+			final SearchResult<List<Object>> result = getFlexibleSearchService().search(query);
+			for (final List<Object> row : result.getResult())
+			{
+				counts.merge((PK) row.get(0), (Long) row.get(1), Long::sum);
+			}
+		}
+		for (final ProductModel product : products)
+		{
+			counts.remove(product.getPk());
+		}
+
+		final List<Map.Entry<PK, Long>> ranked = new ArrayList<Map.Entry<PK, Long>>(counts.entrySet());
+		ranked.sort(Map.Entry.<PK, Long> comparingByValue().reversed());
+		final List<ProductModel> result = new ArrayList<ProductModel>(Math.min(maxResultCount, ranked.size()));
+		for (final Map.Entry<PK, Long> entry : ranked.subList(0, Math.min(maxResultCount, ranked.size())))
+		{
+			result.add(getModelService().<ProductModel> get(entry.getKey()));
+		}
+		return result;
+	}
+
+	@Override
+	public List<List<Object>> findCoPurchasedProducts(final ProductModel product, final Date since)
+	{
+		Assert.notNull(product);
+		Assert.notNull(since);
+
+		final FlexibleSearchQuery query = new FlexibleSearchQuery(CO_PURCHASE_QUERY);
+		query.addQueryParameter(REF_QUERY_PARAM_PRODUCT, product);
+		query.addQueryParameter(REF_QUERY_PARAM_SINCE, since);
+		query.setResultClassList(Arrays.asList(PK.class, Long.class, Date.class));
+		query.setNeedTotal(false);
+
+		final SearchResult<List<Object>> result = getFlexibleSearchService().search(query);
+		return result.getResult();
+	}
+
+	@Override
+	public List<ProductModel> findPurchasedProducts(final UserModel user, final Collection<ProductModel> products)
+	{
+		Assert.notNull(user);
+
+		if (CollectionUtils.isEmpty(products))
+		{
+			return Collections.emptyList();
+		}
+
+		final List<ProductModel> productList = new ArrayList<ProductModel>(products);
+		final List<ProductModel> purchased = new ArrayList<ProductModel>();
+		for (int from = 0; from < productList.size(); from += getInListChunkSize())
+		{
+			final FlexibleSearchQuery query = new FlexibleSearchQuery(PURCHASED_QUERY);
+			query.addQueryParameter(REF_QUERY_PARAM_USER, user);
+			query.addQueryParameter(REF_QUERY_PARAM_PRODUCTS,
+					productList.subList(from, Math.min(from + getInListChunkSize(), productList.size())));
+			query.setNeedTotal(false);
+
+			final SearchResult<ProductModel> result = getFlexibleSearchService().search(query);
+			purchased.addAll(result.getResult());
+		}
+		return purchased;
+	}
+
 	/**
 	 * @deprecated Since 5.0. Use
 	 *             {@link #findProductsRelatedToPurchasedProductsByCategory(CategoryModel, List, UserModel, boolean, Integer)}
@@ -169,4 +300,18 @@ public class DefaultSimpleSuggestionDao extends AbstractItemDao implements Simpl
 		final SearchResult<ProductModel> result = getFlexibleSearchService().search(query);
 		return result.getResult();
 	}
+
+	protected int getInListChunkSize()
+	{
+		return inListChunkSize;
+	}
+
+	/**
+	 * @param inListChunkSize
+	 *           maximum number of products bound to one <code>IN</code> clause, e.g. 1000 for Oracle
+	 */
+	public void setInListChunkSize(final int inListChunkSize)
+	{
+		this.inListChunkSize = inListChunkSize;
+	}
 }
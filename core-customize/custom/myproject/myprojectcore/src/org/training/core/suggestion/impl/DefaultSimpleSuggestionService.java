@@ -8,20 +8,31 @@ import de.hybris.platform.category.model.CategoryModel;
 import de.hybris.platform.core.model.product.ProductModel;
 import de.hybris.platform.core.model.user.UserModel;
 import org.training.core.suggestion.SimpleSuggestionService;
+import org.training.core.suggestion.SuggestionRankingService;
 import org.training.core.suggestion.dao.SimpleSuggestionDao;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
 
 
 /**
  * Default implementation of {@link SimpleSuggestionService}.
+ *
+ * If a {@link SuggestionRankingService} is configured and the ranking is enabled, product based suggestions are served
+ * from its precomputed rankings instead of the count ordered database query.
  */
 public class DefaultSimpleSuggestionService implements SimpleSuggestionService
 {
+	private static final int DEFAULT_LIMIT = 100;
+
 	private SimpleSuggestionDao simpleSuggestionDao;
+	private SuggestionRankingService suggestionRankingService;
+	private boolean rankingEnabled;
 
 	/**
 	 * @deprecated Since 5.0.
@@ -51,10 +62,32 @@ public class DefaultSimpleSuggestionService implements SimpleSuggestionService
 		{
 			return Collections.emptyList();
 		}
+		if (isRankingEnabled() && getSuggestionRankingService() != null)
+		{
+			return getRankedReferencesForProducts(products, referenceTypes, user, excludePurchased, limit);
+		}
 		return getSimpleSuggestionDao().findProductsRelatedToProducts(products, referenceTypes, user,
 				excludePurchased, limit);
 	}
 
+	protected List<ProductModel> getRankedReferencesForProducts(final List<ProductModel> products,
+			final List<ProductReferenceTypeEnum> referenceTypes, final UserModel user, final boolean excludePurchased,
+			final Integer limit)
+	{
+		final int maxResultCount = limit == null ? DEFAULT_LIMIT : limit.intValue();
+		if (!excludePurchased)
+		{
+			return getSuggestionRankingService().getRankedReferences(products, referenceTypes, maxResultCount);
+		}
+
+		// purchased products are filtered afterwards, so take every ranked candidate
+		final List<ProductModel> candidates = getSuggestionRankingService().getRankedReferences(products, referenceTypes,
+				Integer.MAX_VALUE);
+		final Set<ProductModel> purchased = new HashSet<>(getSimpleSuggestionDao().findPurchasedProducts(user, candidates));
+		return candidates.stream().filter(product -> !purchased.contains(product)).limit(maxResultCount)
+				.collect(Collectors.toList());
+	}
+
 	protected SimpleSuggestionDao getSimpleSuggestionDao()
 	{
 		return simpleSuggestionDao;
@@ -64,4 +97,29 @@ public class DefaultSimpleSuggestionService implements SimpleSuggestionService
 	{
 		this.simpleSuggestionDao = simpleSuggestionDao;
 	}
+
+	protected SuggestionRankingService getSuggestionRankingService()
+	{
+		return suggestionRankingService;
+	}
+
+	public void setSuggestionRankingService(final SuggestionRankingService suggestionRankingService)
+	{
+		this.suggestionRankingService = suggestionRankingService;
+	}
+
+	protected boolean isRankingEnabled()
+	{
+		return rankingEnabled;
+	}
+
+	/**
+	 * @param rankingEnabled
+	 *           whether product based suggestions are served from the {@link SuggestionRankingService}, the ranked
+	 *           results differ in order from the count ordered database query
+	 */
+	public void setRankingEnabled(final boolean rankingEnabled)
+	{
+		this.rankingEnabled = rankingEnabled;
+	}
 }
@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.suggestion.impl;
+
+import de.hybris.platform.basecommerce.enums.InStockStatus;
+import de.hybris.platform.catalog.enums.ProductReferenceTypeEnum;
+import de.hybris.platform.catalog.model.ProductReferenceModel;
+import de.hybris.platform.catalog.references.ProductReferenceService;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.servicelayer.config.ConfigurationService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.time.TimeService;
+import de.hybris.platform.stock.StockService;
+import org.training.core.suggestion.SuggestionRankingService;
+import org.training.core.suggestion.dao.SimpleSuggestionDao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Default implementation of {@link SuggestionRankingService}.
+ *
+ * The score of a referenced product is the sum of the weights of all references pointing to it, plus the co-purchase
+ * frequency with the source product, decayed exponentially according to the age of the latest co-purchase. The result
+ * is multiplied with a penalty factor if the referenced product is out of stock. All references of a source product
+ * are kept in score order, so filtering by reference type and excluded products happens before the limit is applied.
+ * The lists are rebuilt lazily once they are older than the configured time to live; at most the configured number of
+ * source products is kept, the least recently used ones are dropped first.
+ */
+public class DefaultSuggestionRankingService implements SuggestionRankingService
+{
+	private static final Logger LOG = Logger.getLogger(DefaultSuggestionRankingService.class);
+
+	protected static final String MAX_CACHED_PRODUCTS = "myprojectcore.suggestion.ranking.maxCachedProducts";
+	protected static final String TIME_TO_LIVE_SECONDS = "myprojectcore.suggestion.ranking.ttlSeconds";
+	protected static final String CO_PURCHASE_WINDOW_DAYS = "myprojectcore.suggestion.ranking.coPurchaseWindowDays";
+	protected static final String CO_PURCHASE_HALF_LIFE_DAYS = "myprojectcore.suggestion.ranking.coPurchaseHalfLifeDays";
+	protected static final String CO_PURCHASE_WEIGHT = "myprojectcore.suggestion.ranking.coPurchaseWeight";
+	protected static final String OUT_OF_STOCK_FACTOR = "myprojectcore.suggestion.ranking.outOfStockFactor";
+	protected static final String DEFAULT_REFERENCE_TYPE_WEIGHT = "myprojectcore.suggestion.ranking.defaultReferenceTypeWeight";
+
+	protected static final int DEFAULT_MAX_CACHED_PRODUCTS = 10000;
+	protected static final long DEFAULT_TIME_TO_LIVE_SECONDS = 3600L;
+	protected static final int DEFAULT_CO_PURCHASE_WINDOW_DAYS = 180;
+	protected static final double DEFAULT_CO_PURCHASE_HALF_LIFE_DAYS = 30D;
+	protected static final double DEFAULT_CO_PURCHASE_WEIGHT = 1D;
+	protected static final double DEFAULT_OUT_OF_STOCK_FACTOR = 0.25D;
+	protected static final double DEFAULT_TYPE_WEIGHT = 1D;
+
+	private static final Comparator<RankedReference> BY_SCORE = Comparator.comparingDouble(RankedReference::getScore);
+
+	private final Map<PK, RankedReferences> rankings = Collections.synchronizedMap(new LinkedHashMap<PK, RankedReferences>(
+			16, 0.75F, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<PK, RankedReferences> eldest)
+		{
+			return size() > getMaxCachedProducts();
+		}
+	});
+
+	private SimpleSuggestionDao simpleSuggestionDao;
+	private ProductReferenceService productReferenceService;
+	private StockService stockService;
+	private ModelService modelService;
+	private TimeService timeService;
+	private ConfigurationService configurationService;
+	private Map<String, Double> referenceTypeWeights = Collections.emptyMap();
+
+	@Override
+	public List<ProductModel> getRankedReferences(final List<ProductModel> products,
+			final List<ProductReferenceTypeEnum> referenceTypes, final int limit)
+	{
+		if (CollectionUtils.isEmpty(products) || limit <= 0)
+		{
+			return Collections.emptyList();
+		}
+
+		final Set<PK> sources = new HashSet<>();
+		products.forEach(product -> sources.add(product.getPk()));
+
+		final List<PK> targets = products.size() == 1 ? collectTargets(products.get(0), referenceTypes, sources, limit)
+				: mergeTargets(products, referenceTypes, sources, limit);
+
+		final List<ProductModel> result = new ArrayList<>(targets.size());
+		targets.forEach(pk -> result.add(getModelService().get(pk)));
+		return result;
+	}
+
+	@Override
+	public void invalidate(final ProductModel product)
+	{
+		rankings.remove(product.getPk());
+	}
+
+	@Override
+	public void invalidateAll()
+	{
+		rankings.clear();
+	}
+
+	/**
+	 * A single source product: its precomputed list already is in score order.
+	 */
+	protected List<PK> collectTargets(final ProductModel product, final List<ProductReferenceTypeEnum> referenceTypes,
+			final Set<PK> excluded, final int limit)
+	{
+		final List<PK> targets = new ArrayList<>();
+		for (final RankedReference reference : getRanking(product).getReferences())
+		{
+			if (targets.size() >= limit)
+			{
+				break;
+			}
+			if (isEligible(reference, referenceTypes, excluded))
+			{
+				targets.add(reference.getTarget());
+			}
+		}
+		return targets;
+	}
+
+	/**
+	 * Several source products: the scores of eligible targets referenced by more than one source are summed up.
+	 */
+	protected List<PK> mergeTargets(final List<ProductModel> products, final List<ProductReferenceTypeEnum> referenceTypes,
+			final Set<PK> excluded, final int limit)
+	{
+		final Map<PK, Double> scores = new HashMap<>();
+		for (final ProductModel product : products)
+		{
+			for (final RankedReference reference : getRanking(product).getReferences())
+			{
+				if (isEligible(reference, referenceTypes, excluded))
+				{
+					scores.merge(reference.getTarget(), Double.valueOf(reference.getScore()), Double::sum);
+				}
+			}
+		}
+
+		final List<Map.Entry<PK, Double>> entries = new ArrayList<>(scores.entrySet());
+		entries.sort(Map.Entry.<PK, Double> comparingByValue().reversed());
+
+		final List<PK> targets = new ArrayList<>(Math.min(limit, entries.size()));
+		for (int i = 0; i < entries.size() && i < limit; i++)
+		{
+			targets.add(entries.get(i).getKey());
+		}
+		return targets;
+	}
+
+	protected boolean isEligible(final RankedReference reference, final List<ProductReferenceTypeEnum> referenceTypes,
+			final Set<PK> excluded)
+	{
+		if (excluded.contains(reference.getTarget()))
+		{
+			return false;
+		}
+		return CollectionUtils.isEmpty(referenceTypes) || CollectionUtils.containsAny(reference.getTypes(), referenceTypes);
+	}
+
+	protected RankedReferences getRanking(final ProductModel product)
+	{
+		final long now = getTimeService().getCurrentTime().getTime();
+		final long timeToLive = TimeUnit.SECONDS.toMillis(
+				getConfigurationService().getConfiguration().getLong(TIME_TO_LIVE_SECONDS, DEFAULT_TIME_TO_LIVE_SECONDS));
+
+		RankedReferences ranking = rankings.get(product.getPk());
+		if (ranking == null || now - ranking.getCreationTime() > timeToLive)
+		{
+			ranking = computeRanking(product, now);
+			rankings.put(product.getPk(), ranking);
+		}
+		return ranking;
+	}
+
+	protected RankedReferences computeRanking(final ProductModel product, final long now)
+	{
+		final Map<PK, RankedReference> candidates = new HashMap<>();
+		final Map<PK, ProductModel> targets = new HashMap<>();
+		for (final ProductReferenceModel reference : getProductReferenceService().getProductReferencesForSourceProduct(product,
+				null, false))
+		{
+			final ProductModel target = reference.getTarget();
+			if (target == null || target.getPk().equals(product.getPk()))
+			{
+				continue;
+			}
+			final RankedReference candidate = candidates.computeIfAbsent(target.getPk(), RankedReference::new);
+			candidate.addReference(reference.getReferenceType(), getReferenceTypeWeight(reference.getReferenceType()));
+			targets.put(target.getPk(), target);
+		}
+
+		if (candidates.isEmpty())
+		{
+			return new RankedReferences(Collections.emptyList(), now);
+		}
+
+		addCoPurchaseFrequencies(product, candidates, now);
+
+		final double coPurchaseWeight = getConfigurationService().getConfiguration().getDouble(CO_PURCHASE_WEIGHT,
+				DEFAULT_CO_PURCHASE_WEIGHT);
+		final double outOfStockFactor = getConfigurationService().getConfiguration().getDouble(OUT_OF_STOCK_FACTOR,
+				DEFAULT_OUT_OF_STOCK_FACTOR);
+		final List<RankedReference> ranked = new ArrayList<>(candidates.values());
+		for (final RankedReference candidate : ranked)
+		{
+			final double stockFactor = isAvailable(targets.get(candidate.getTarget())) ? 1D : outOfStockFactor;
+			candidate.computeScore(coPurchaseWeight, stockFactor);
+		}
+		ranked.sort(BY_SCORE.reversed());
+
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Ranked " + ranked.size() + " references for product " + product.getCode());
+		}
+		return new RankedReferences(Collections.unmodifiableList(ranked), now);
+	}
+
+	protected void addCoPurchaseFrequencies(final ProductModel product, final Map<PK, RankedReference> candidates,
+			final long now)
+	{
+		final int windowDays = getConfigurationService().getConfiguration().getInt(CO_PURCHASE_WINDOW_DAYS,
+				DEFAULT_CO_PURCHASE_WINDOW_DAYS);
+		final double halfLife = TimeUnit.DAYS.toMillis(1) * getConfigurationService().getConfiguration()
+				.getDouble(CO_PURCHASE_HALF_LIFE_DAYS, DEFAULT_CO_PURCHASE_HALF_LIFE_DAYS);
+		final Date since = new Date(now - TimeUnit.DAYS.toMillis(windowDays));
+
+		for (final List<Object> row : getSimpleSuggestionDao().findCoPurchasedProducts(product, since))
+		{
+			final RankedReference candidate = candidates.get((PK) row.get(0));
+			if (candidate != null)
+			{
+				final long age = Math.max(0L, now - ((Date) row.get(2)).getTime());
+				candidate.addCoPurchase(((Long) row.get(1)).longValue() * Math.pow(0.5D, age / halfLife));
+			}
+		}
+	}
+
+	/**
+	 * A product without any stock level is not stock managed and therefore treated as available.
+	 */
+	protected boolean isAvailable(final ProductModel product)
+	{
+		final Collection<StockLevelModel> stockLevels = getStockService().getAllStockLevels(product);
+		if (CollectionUtils.isEmpty(stockLevels))
+		{
+			return true;
+		}
+		for (final StockLevelModel stockLevel : stockLevels)
+		{
+			if (InStockStatus.FORCEINSTOCK.equals(stockLevel.getInStockStatus())
+					|| (!InStockStatus.FORCEOUTOFSTOCK.equals(stockLevel.getInStockStatus())
+							&& stockLevel.getAvailable() - stockLevel.getReserved() > 0))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	protected int getMaxCachedProducts()
+	{
+		return getConfigurationService().getConfiguration().getInt(MAX_CACHED_PRODUCTS, DEFAULT_MAX_CACHED_PRODUCTS);
+	}
+
+	protected double getReferenceTypeWeight(final ProductReferenceTypeEnum referenceType)
+	{
+		final Double weight = referenceType == null ? null : getReferenceTypeWeights().get(referenceType.getCode());
+		return weight != null ? weight.doubleValue()
+				: getConfigurationService().getConfiguration().getDouble(DEFAULT_REFERENCE_TYPE_WEIGHT, DEFAULT_TYPE_WEIGHT);
+	}
+
+	/**
+	 * Scored reference target of a single source product.
+	 */
+	protected static class RankedReference
+	{
+		private final PK target;
+		private final Set<ProductReferenceTypeEnum> types = new HashSet<>();
+		private double referenceScore;
+		private double coPurchaseFrequency;
+		private double score;
+
+		public RankedReference(final PK target)
+		{
+			this.target = target;
+		}
+
+		protected void addReference(final ProductReferenceTypeEnum type, final double weight)
+		{
+			if (type != null)
+			{
+				types.add(type);
+			}
+			referenceScore += weight;
+		}
+
+		protected void addCoPurchase(final double decayedFrequency)
+		{
+			coPurchaseFrequency += decayedFrequency;
+		}
+
+		protected void computeScore(final double coPurchaseWeight, final double stockFactor)
+		{
+			score = (referenceScore + coPurchaseWeight * coPurchaseFrequency) * stockFactor;
+		}
+
+		public PK getTarget()
+		{
+			return target;
+		}
+
+		public Set<ProductReferenceTypeEnum> getTypes()
+		{
+			return types;
+		}
+
+		public double getScore()
+		{
+			return score;
+		}
+	}
+
+	/**
+	 * References of a source product, best first.
+	 */
+	protected static class RankedReferences
+	{
+		private final List<RankedReference> references;
+		private final long creationTime;
+
+		public RankedReferences(final List<RankedReference> references, final long creationTime)
+		{
+			this.references = references;
+			this.creationTime = creationTime;
+		}
+
+		public List<RankedReference> getReferences()
+		{
+			return references;
+		}
+
+		public long getCreationTime()
+		{
+			return creationTime;
+		}
+	}
+
+	protected SimpleSuggestionDao getSimpleSuggestionDao()
+	{
+		return simpleSuggestionDao;
+	}
+
+	@Required
+	public void setSimpleSuggestionDao(final SimpleSuggestionDao simpleSuggestionDao)
+	{
+		this.simpleSuggestionDao = simpleSuggestionDao;
+	}
+
+	protected ProductReferenceService getProductReferenceService()
+	{
+		return productReferenceService;
+	}
+
+	@Required
+	public void setProductReferenceService(final ProductReferenceService productReferenceService)
+	{
+		this.productReferenceService = productReferenceService;
+	}
+
+	protected StockService getStockService()
+	{
+		return stockService;
+	}
+
+	@Required
+	public void setStockService(final StockService stockService)
+	{
+		this.stockService = stockService;
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected TimeService getTimeService()
+	{
+		return timeService;
+	}
+
+	@Required
+	public void setTimeService(final TimeService timeService)
+	{
+		this.timeService = timeService;
+	}
+
+	protected ConfigurationService getConfigurationService()
+	{
+		return configurationService;
+	}
+
+	@Required
+	public void setConfigurationService(final ConfigurationService configurationService)
+	{
+		this.configurationService = configurationService;
+	}
+
+	protected Map<String, Double> getReferenceTypeWeights()
+	{
+		return referenceTypeWeights;
+	}
+
+	public void setReferenceTypeWeights(final Map<String, Double> referenceTypeWeights)
+	{
+		this.referenceTypeWeights = referenceTypeWeights;
+	}
+}
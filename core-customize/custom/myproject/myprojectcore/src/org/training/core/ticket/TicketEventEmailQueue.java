@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.ticket;
+
+/**
+ * Holds back the emails of ticket events created by the current thread, so they can be sent after the transaction
+ * creating the events has been committed.
+ */
+public interface TicketEventEmailQueue
+{
+	/**
+	 * Queues the emails of the ticket events created by the current thread from now on.
+	 */
+	void startQueue();
+
+	/**
+	 * Sends the queued emails and stops queueing.
+	 *
+	 * @return number of events whose emails were sent without error
+	 */
+	int flushQueue();
+
+	/**
+	 * Drops the queued emails and stops queueing, e.g. when the transaction creating the events was rolled back.
+	 *
+	 * @return number of events whose emails were dropped
+	 */
+	int discardQueue();
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.ticket.impl;
+
+import de.hybris.platform.ticket.events.model.CsTicketEventModel;
+import de.hybris.platform.ticket.model.CsTicketModel;
+import de.hybris.platform.ticket.strategies.impl.DefaultTicketEventEmailStrategy;
+import org.training.core.ticket.TicketEventEmailQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * {@link DefaultTicketEventEmailStrategy} that sends the emails of a ticket event right away, unless the current thread
+ * has started a queue; then the events are kept until the queue is flushed or discarded.
+ */
+public class QueuingTicketEventEmailStrategy extends DefaultTicketEventEmailStrategy implements TicketEventEmailQueue
+{
+	private static final Logger LOG = Logger.getLogger(QueuingTicketEventEmailStrategy.class);
+
+	private final ThreadLocal<List<QueuedEvent>> queue = new ThreadLocal<>();
+
+	@Override
+	public void sendEmailsForEvent(final CsTicketModel ticket, final CsTicketEventModel event)
+	{
+		final List<QueuedEvent> queuedEvents = queue.get();
+		if (queuedEvents == null)
+		{
+			sendEmails(ticket, event);
+		}
+		else
+		{
+			queuedEvents.add(new QueuedEvent(ticket, event));
+		}
+	}
+
+	@Override
+	public void startQueue()
+	{
+		if (queue.get() == null)
+		{
+			queue.set(new ArrayList<>());
+		}
+	}
+
+	@Override
+	public int flushQueue()
+	{
+		final List<QueuedEvent> queuedEvents = queue.get();
+		if (queuedEvents == null)
+		{
+			return 0;
+		}
+		try
+		{
+			int sent = 0;
+			for (final QueuedEvent queuedEvent : queuedEvents)
+			{
+				try
+				{
+					sendEmails(queuedEvent.ticket, queuedEvent.event);
+					sent++;
+				}
+				catch (final RuntimeException e)
+				{
+					LOG.error("Failed to send the emails for an event of ticket [" + queuedEvent.ticket.getTicketID()
+							+ "]", e);
+				}
+			}
+			return sent;
+		}
+		finally
+		{
+			// the queue is closed even if an error escapes, so the pooled thread does not keep queueing
+			queue.remove();
+		}
+	}
+
+	@Override
+	public int discardQueue()
+	{
+		final List<QueuedEvent> queuedEvents = queue.get();
+		try
+		{
+			return queuedEvents == null ? 0 : queuedEvents.size();
+		}
+		finally
+		{
+			queue.remove();
+		}
+	}
+
+	/**
+	 * Sends the emails of the event with the {@link DefaultTicketEventEmailStrategy}.
+	 */
+	protected void sendEmails(final CsTicketModel ticket, final CsTicketEventModel event)
+	{
+		super.sendEmailsForEvent(ticket, event);
+	}
+
+	private static final class QueuedEvent
+	{
+		private final CsTicketModel ticket;
+		private final CsTicketEventModel event;
+
+		private QueuedEvent(final CsTicketModel ticket, final CsTicketEventModel event)
+		{
+			this.ticket = ticket;
+			this.event = event;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.email.impl;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Minimal SMTP server on a local port accepting every message, counting connections and messages. Optional delays
+ * simulate the connection set up (greeting, TLS, authentication) and the per message latency of a real mail server.
+ */
+public class LocalSmtpStub implements Closeable
+{
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		final Thread thread = new Thread(runnable, "smtp-stub");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicInteger connections = new AtomicInteger();
+	private final AtomicInteger messages = new AtomicInteger();
+	private final long connectDelayMillis;
+	private final long messageDelayMillis;
+
+	public LocalSmtpStub(final long connectDelayMillis, final long messageDelayMillis) throws IOException
+	{
+		this.connectDelayMillis = connectDelayMillis;
+		this.messageDelayMillis = messageDelayMillis;
+		serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		executor.execute(this::accept);
+	}
+
+	public int getPort()
+	{
+		return serverSocket.getLocalPort();
+	}
+
+	public int getConnections()
+	{
+		return connections.get();
+	}
+
+	public int getMessages()
+	{
+		return messages.get();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+
+	private void accept()
+	{
+		while (!serverSocket.isClosed())
+		{
+			try
+			{
+				final Socket socket = serverSocket.accept();
+				connections.incrementAndGet();
+				executor.execute(() -> handle(socket));
+			}
+			catch (final IOException e)
+			{
+				// closed
+			}
+		}
+	}
+
+	private void handle(final Socket socket)
+	{
+		try (Socket client = socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+				Writer out = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII))
+		{
+			sleep(connectDelayMillis);
+			reply(out, "220 localhost stub");
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				final String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+				if ("EHLO".equals(command) || "HELO".equals(command))
+				{
+					reply(out, "250 localhost");
+				}
+				else if ("DATA".equals(command))
+				{
+					reply(out, "354 end with .");
+					while ((line = in.readLine()) != null && !".".equals(line))
+					{
+						// message content is not kept
+					}
+					sleep(messageDelayMillis);
+					messages.incrementAndGet();
+					reply(out, "250 queued");
+				}
+				else if ("QUIT".equals(command))
+				{
+					reply(out, "221 bye");
+					return;
+				}
+				else
+				{
+					// MAIL, RCPT, RSET, NOOP
+					reply(out, "250 ok");
+				}
+			}
+		}
+		catch (final IOException e)
+		{
+			// client went away
+		}
+	}
+
+	private static void reply(final Writer out, final String reply) throws IOException
+	{
+		out.write(reply);
+		out.write("\r\n");
+		out.flush();
+	}
+
+	private static void sleep(final long millis)
+	{
+		if (millis > 0)
+		{
+			try
+			{
+				TimeUnit.MILLISECONDS.sleep(millis);
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
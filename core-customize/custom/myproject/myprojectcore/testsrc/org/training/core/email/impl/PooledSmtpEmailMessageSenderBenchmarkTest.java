@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.email.impl;
+
+import static org.mockito.Mockito.mock;
+
+import de.hybris.bootstrap.annotations.PerformanceTest;
+import de.hybris.platform.acceleratorservices.model.email.EmailMessageModel;
+import de.hybris.platform.servicelayer.config.ConfigurationService;
+import de.hybris.platform.servicelayer.media.MediaService;
+import de.hybris.platform.servicelayer.model.ModelService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Sends an order confirmation storm to a local SMTP stub with realistic connection and message latencies, once with
+ * a new connection per message as the platform EmailService does and once over the connection pool, and reports the
+ * throughput of both.
+ */
+@PerformanceTest
+public class PooledSmtpEmailMessageSenderBenchmarkTest
+{
+	private static final Logger LOG = Logger.getLogger(PooledSmtpEmailMessageSenderBenchmarkTest.class);
+
+	private static final int MESSAGES = 1000;
+	private static final long CONNECT_DELAY_MILLIS = 20L;
+	private static final long MESSAGE_DELAY_MILLIS = 2L;
+
+	@Test
+	public void shouldSendFasterOverPooledConnections() throws IOException
+	{
+		final double perMessage = measure("connection per message", 1, 1);
+		final double pooled = measure("pooled connections", 4, 100);
+
+		LOG.info(String.format("Pooled sending is %.1f times faster", Double.valueOf(pooled / perMessage)));
+		Assert.assertTrue(pooled > perMessage);
+	}
+
+	private double measure(final String label, final int poolSize, final int maxMessagesPerConnection) throws IOException
+	{
+		try (LocalSmtpStub smtpStub = new LocalSmtpStub(CONNECT_DELAY_MILLIS, MESSAGE_DELAY_MILLIS))
+		{
+			final PooledSmtpEmailMessageSender sender = PooledSmtpEmailMessageSenderTest.createSender(
+					mock(ConfigurationService.class), mock(MediaService.class), mock(ModelService.class), smtpStub.getPort(),
+					poolSize, maxMessagesPerConnection);
+			final List<EmailMessageModel> messages = PooledSmtpEmailMessageSenderTest.createMessages(MESSAGES);
+
+			final long started = System.nanoTime();
+			final int sent = sender.sendAll(messages).size();
+			final double seconds = (System.nanoTime() - started) / (double) TimeUnit.SECONDS.toNanos(1);
+			sender.destroy();
+
+			final double throughput = sent / seconds;
+			LOG.info(String.format("%s: %d messages in %.2fs, %.0f messages/s, %d SMTP connections", label,
+					Integer.valueOf(sent), Double.valueOf(seconds), Double.valueOf(throughput),
+					Integer.valueOf(smtpStub.getConnections())));
+			Assert.assertEquals(MESSAGES, sent);
+			return throughput;
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.email.impl;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.acceleratorservices.model.email.EmailAddressModel;
+import de.hybris.platform.acceleratorservices.model.email.EmailMessageModel;
+import de.hybris.platform.servicelayer.config.ConfigurationService;
+import de.hybris.platform.servicelayer.media.MediaService;
+import de.hybris.platform.servicelayer.model.ModelService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class PooledSmtpEmailMessageSenderTest
+{
+	@Mock
+	private ConfigurationService configurationService;
+	@Mock
+	private MediaService mediaService;
+	@Mock
+	private ModelService modelService;
+
+	private LocalSmtpStub smtpStub;
+	private PooledSmtpEmailMessageSender sender;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		smtpStub = new LocalSmtpStub(0L, 0L);
+		sender = createSender(configurationService, mediaService, modelService, smtpStub.getPort(), 2, 5);
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		sender.destroy();
+		smtpStub.close();
+	}
+
+	@Test
+	public void shouldReuseConnectionsAndMarkMessagesAsSent()
+	{
+		final List<EmailMessageModel> messages = createMessages(20);
+
+		final List<EmailMessageModel> sent = sender.sendAll(messages);
+
+		Assert.assertEquals(messages, sent);
+		Assert.assertEquals(20, smtpStub.getMessages());
+		// two pooled connections, each reopened after five messages
+		Assert.assertEquals(4, smtpStub.getConnections());
+		Assert.assertEquals(4, sender.getConnectionsOpened());
+		for (final EmailMessageModel message : sent)
+		{
+			Assert.assertEquals(Boolean.TRUE, message.getSent());
+			Assert.assertNotNull(message.getSentDate());
+			Assert.assertNotNull(message.getSentMessageID());
+		}
+		verify(modelService).saveAll(sent);
+	}
+
+	@Test
+	public void shouldSendSingleMessage()
+	{
+		Assert.assertTrue(sender.send(createMessages(1).get(0)));
+		Assert.assertTrue(sender.send(createMessages(1).get(0)));
+
+		Assert.assertEquals(2, smtpStub.getMessages());
+		Assert.assertTrue(smtpStub.getConnections() <= 2);
+	}
+
+	@Test
+	public void shouldNotMarkMessagesWhenServerIsDown() throws IOException
+	{
+		smtpStub.close();
+
+		final List<EmailMessageModel> sent = sender.sendAll(createMessages(3));
+
+		Assert.assertTrue(sent.isEmpty());
+		Assert.assertEquals(3, sender.getFailed());
+		verify(modelService).saveAll(Collections.<EmailMessageModel> emptyList());
+	}
+
+	@Test
+	public void shouldSendOtherMessagesWhenOneCanNotBeBuilt()
+	{
+		final List<EmailMessageModel> messages = createMessages(3);
+		messages.get(1).setFromAddress(null);
+
+		final List<EmailMessageModel> sent = sender.sendAll(messages);
+
+		Assert.assertEquals(Arrays.asList(messages.get(0), messages.get(2)), sent);
+		Assert.assertEquals(2, smtpStub.getMessages());
+		Assert.assertEquals(1, sender.getFailed());
+		Assert.assertFalse(Boolean.TRUE.equals(messages.get(1).getSent()));
+	}
+
+	@Test
+	public void shouldNotSendWhenSendingIsDisabled()
+	{
+		configurationService.getConfiguration().setProperty(PooledSmtpEmailMessageSender.SEND_ENABLED, "false");
+		final List<EmailMessageModel> messages = createMessages(2);
+
+		final List<EmailMessageModel> sent = sender.sendAll(messages);
+
+		Assert.assertEquals(messages, sent);
+		Assert.assertEquals(0, smtpStub.getMessages());
+		Assert.assertFalse(Boolean.TRUE.equals(messages.get(0).getSent()));
+	}
+
+	static PooledSmtpEmailMessageSender createSender(final ConfigurationService configurationService,
+			final MediaService mediaService, final ModelService modelService, final int port, final int poolSize,
+			final int maxMessagesPerConnection)
+	{
+		final BaseConfiguration configuration = new BaseConfiguration();
+		configuration.setProperty(PooledSmtpEmailMessageSender.SMTP_SERVER, "127.0.0.1");
+		configuration.setProperty(PooledSmtpEmailMessageSender.SMTP_PORT, String.valueOf(port));
+		given(configurationService.getConfiguration()).willReturn(configuration);
+
+		final PooledSmtpEmailMessageSender sender = new PooledSmtpEmailMessageSender();
+		sender.setConfigurationService(configurationService);
+		sender.setMediaService(mediaService);
+		sender.setModelService(modelService);
+		sender.setEnabled(true);
+		sender.setPoolSize(poolSize);
+		sender.setMaxMessagesPerConnection(maxMessagesPerConnection);
+		sender.setSocketTimeoutMillis(5000);
+		sender.afterPropertiesSet();
+		return sender;
+	}
+
+	static List<EmailMessageModel> createMessages(final int count)
+	{
+		final List<EmailMessageModel> messages = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			final EmailMessageModel message = new EmailMessageModel();
+			message.setFromAddress(createAddress("shop@example.com", "Shop"));
+			message.setToAddresses(Collections.singletonList(createAddress("customer" + i + "@example.com", "Customer " + i)));
+			message.setSubject("Order confirmation " + i);
+			message.setBody("<html><body>Thank you for your order " + i + "</body></html>");
+			messages.add(message);
+		}
+		return messages;
+	}
+
+	private static EmailAddressModel createAddress(final String emailAddress, final String displayName)
+	{
+		final EmailAddressModel address = new EmailAddressModel();
+		address.setEmailAddress(emailAddress);
+		address.setDisplayName(displayName);
+		return address;
+	}
+}
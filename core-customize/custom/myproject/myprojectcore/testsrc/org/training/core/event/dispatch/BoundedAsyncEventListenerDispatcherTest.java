@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.event.dispatch;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.basecommerce.model.site.BaseSiteModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.site.BaseSiteService;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+@UnitTest
+public class BoundedAsyncEventListenerDispatcherTest
+{
+	@Mock
+	private SessionService sessionService;
+	@Mock
+	private UserService userService;
+	@Mock
+	private CommonI18NService commonI18NService;
+	@Mock
+	private BaseSiteService baseSiteService;
+	@Mock
+	private ModelService modelService;
+
+	private BoundedAsyncEventListenerDispatcher dispatcher;
+	private boolean transactionRunning;
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		if (dispatcher != null)
+		{
+			dispatcher.destroy();
+		}
+	}
+
+	@Test
+	public void shouldRunTasksOfSameKeyInDispatchOrder() throws InterruptedException
+	{
+		createDispatcher(4, 100, RejectionPolicy.BLOCK);
+		final List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch done = new CountDownLatch(50);
+
+		for (int i = 0; i < 50; i++)
+		{
+			final Integer sequence = Integer.valueOf(i);
+			dispatcher.dispatch("order-1", () -> {
+				handled.add(sequence);
+				done.countDown();
+			});
+		}
+
+		Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 50; i++)
+		{
+			Assert.assertEquals(i, handled.get(i).intValue());
+		}
+		awaitCompleted(50);
+		Assert.assertEquals(50, dispatcher.getSubmitted());
+	}
+
+	@Test
+	public void shouldRunInlineWhenTransactionIsRunning()
+	{
+		createDispatcher(1, 10, RejectionPolicy.BLOCK);
+		transactionRunning = true;
+		final Thread[] handledBy = new Thread[1];
+
+		dispatcher.dispatch("order-1", () -> handledBy[0] = Thread.currentThread());
+
+		Assert.assertSame(Thread.currentThread(), handledBy[0]);
+		Assert.assertEquals(1, dispatcher.getInTransactionRuns());
+		Assert.assertEquals(0, dispatcher.getSubmitted());
+	}
+
+	@Test
+	public void shouldRunInlineWhenAsyncIsSwitchedOff()
+	{
+		createDispatcher(1, 10, RejectionPolicy.BLOCK);
+		dispatcher.setAsync(false);
+		final Thread[] handledBy = new Thread[1];
+
+		dispatcher.dispatch("order-1", () -> handledBy[0] = Thread.currentThread());
+
+		Assert.assertSame(Thread.currentThread(), handledBy[0]);
+		Assert.assertEquals(0, dispatcher.getSubmitted());
+	}
+
+	@Test
+	public void shouldRunOnCallerWhenLaneIsFull() throws InterruptedException
+	{
+		createDispatcher(1, 1, RejectionPolicy.CALLER_RUNS);
+		final CountDownLatch release = fillLane();
+		final Thread[] handledBy = new Thread[1];
+
+		dispatcher.dispatch("order-3", () -> handledBy[0] = Thread.currentThread());
+		release.countDown();
+
+		Assert.assertSame(Thread.currentThread(), handledBy[0]);
+		Assert.assertEquals(1, dispatcher.getCallerRuns());
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void shouldAbortWhenLaneIsFull() throws InterruptedException
+	{
+		createDispatcher(1, 1, RejectionPolicy.ABORT);
+		final CountDownLatch release = fillLane();
+		try
+		{
+			dispatcher.dispatch("order-3", () -> {
+				// never run
+			});
+		}
+		finally
+		{
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void shouldBlockUntilLaneHasRoom() throws InterruptedException
+	{
+		createDispatcher(1, 1, RejectionPolicy.BLOCK);
+		final CountDownLatch release = fillLane();
+		final CountDownLatch handled = new CountDownLatch(1);
+
+		final Thread publisher = new Thread(() -> dispatcher.dispatch("order-3", handled::countDown));
+		publisher.start();
+		Thread.sleep(100);
+		Assert.assertTrue(publisher.isAlive());
+
+		release.countDown();
+		publisher.join(5000);
+		Assert.assertTrue(handled.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, dispatcher.getBlocked());
+	}
+
+	@Test
+	public void shouldCountFailedTasks() throws InterruptedException
+	{
+		createDispatcher(1, 10, RejectionPolicy.BLOCK);
+
+		dispatcher.dispatch("order-1", () -> {
+			throw new IllegalStateException("test");
+		});
+		dispatcher.dispatch("order-1", () -> {
+			// succeeds
+		});
+		awaitCompleted(1);
+
+		Assert.assertEquals(1, dispatcher.getFailed());
+		Assert.assertEquals(1, dispatcher.getCompleted());
+	}
+
+	@Test
+	public void shouldRunTaskInSessionOfPublisher() throws InterruptedException
+	{
+		final UserModel user = mock(UserModel.class);
+		given(user.getPk()).willReturn(PK.fromLong(1));
+		final LanguageModel language = mock(LanguageModel.class);
+		given(language.getPk()).willReturn(PK.fromLong(2));
+		final BaseSiteModel site = mock(BaseSiteModel.class);
+		given(site.getPk()).willReturn(PK.fromLong(3));
+		given(userService.getCurrentUser()).willReturn(user);
+		given(commonI18NService.getCurrentLanguage()).willReturn(language);
+		given(baseSiteService.getCurrentBaseSite()).willReturn(site);
+		given(modelService.get(PK.fromLong(1))).willReturn(user);
+		given(modelService.get(PK.fromLong(2))).willReturn(language);
+		given(modelService.get(PK.fromLong(3))).willReturn(site);
+		final Session session = mock(Session.class);
+		given(sessionService.createNewSession()).willReturn(session);
+		createDispatcher(1, 10, RejectionPolicy.BLOCK);
+
+		dispatcher.dispatch("order-1", () -> {
+			// runs on the lane
+		});
+		awaitCompleted(1);
+
+		verify(userService).setCurrentUser(user);
+		verify(commonI18NService).setCurrentLanguage(language);
+		verify(baseSiteService).setCurrentBaseSite(site, true);
+		verify(sessionService).closeSession(session);
+	}
+
+	@Test
+	public void shouldExposeMetricsThroughJmx() throws Exception
+	{
+		createDispatcher(1, 10, RejectionPolicy.BLOCK);
+		dispatcher.dispatch("order-1", () -> {
+			// succeeds
+		});
+		awaitCompleted(1);
+
+		final ObjectName objectName = new ObjectName("org.training.core:type=EventListenerDispatcher,name="
+				+ ObjectName.quote("test") + ",*");
+		final ObjectName registered = ManagementFactory.getPlatformMBeanServer().queryNames(objectName, null).iterator()
+				.next();
+		Assert.assertEquals(Long.valueOf(1),
+				ManagementFactory.getPlatformMBeanServer().getAttribute(registered, "Completed"));
+
+		dispatcher.destroy();
+		dispatcher = null;
+		Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(registered));
+	}
+
+	/**
+	 * Occupies the single lane with a running task and a queued one, the returned latch releases the running task.
+	 */
+	private CountDownLatch fillLane() throws InterruptedException
+	{
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		dispatcher.dispatch("order-1", () -> {
+			started.countDown();
+			try
+			{
+				release.await();
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+		Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+		dispatcher.dispatch("order-2", () -> {
+			// waits in the queue
+		});
+		return release;
+	}
+
+	private void awaitCompleted(final long count) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (dispatcher.getCompleted() < count && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(10);
+		}
+	}
+
+	private void createDispatcher(final int lanes, final int queueCapacity, final RejectionPolicy rejectionPolicy)
+	{
+		dispatcher = new BoundedAsyncEventListenerDispatcher()
+		{
+			@Override
+			protected boolean isTransactionRunning()
+			{
+				return transactionRunning;
+			}
+		};
+		dispatcher.setName("test");
+		dispatcher.setLanes(lanes);
+		dispatcher.setQueueCapacity(queueCapacity);
+		dispatcher.setRejectionPolicy(rejectionPolicy);
+		dispatcher.setShutdownTimeoutSeconds(5);
+		dispatcher.setSessionService(sessionService);
+		dispatcher.setUserService(userService);
+		dispatcher.setCommonI18NService(commonI18NService);
+		dispatcher.setBaseSiteService(baseSiteService);
+		dispatcher.setModelService(modelService);
+		dispatcher.afterPropertiesSet();
+	}
+}
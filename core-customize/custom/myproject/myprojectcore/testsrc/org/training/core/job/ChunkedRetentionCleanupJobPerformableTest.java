@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.job;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.cronjob.enums.CronJobResult;
+import de.hybris.platform.cronjob.enums.CronJobStatus;
+import de.hybris.platform.processing.model.FlexibleSearchRetentionRuleModel;
+import de.hybris.platform.servicelayer.cronjob.PerformResult;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.impl.SearchResultImpl;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.time.TimeService;
+import de.hybris.platform.servicelayer.user.UserService;
+import org.training.core.model.ChunkedRetentionCronJobModel;
+import org.training.core.retention.ChunkedCleanupAction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+@RunWith(MockitoJUnitRunner.class)
+@UnitTest
+public class ChunkedRetentionCleanupJobPerformableTest
+{
+	@Mock
+	private FlexibleSearchService flexibleSearchService;
+
+	@Mock
+	private ModelService modelService;
+
+	@Mock
+	private TimeService timeService;
+
+	@Mock
+	private SessionService sessionService;
+
+	@Mock
+	private UserService userService;
+
+	@Mock
+	private CommonI18NService commonI18NService;
+
+	@Mock
+	private ChunkedCleanupAction cleanupAction;
+
+	@InjectMocks
+	private final ChunkedRetentionCleanupJobPerformable job = new ChunkedRetentionCleanupJobPerformable();
+
+	private final List<PK> pks = new ArrayList<>();
+	private final Set<PK> cleanedUp = ConcurrentHashMap.newKeySet();
+	private final Date currentDate = new Date(1_000_000_000L);
+	private ChunkedRetentionCronJobModel cronJob;
+
+	@Before
+	public void setUp()
+	{
+		final FlexibleSearchRetentionRuleModel rule = new FlexibleSearchRetentionRuleModel();
+		rule.setCode("testRule");
+		rule.setSearchQuery("SELECT {pk} FROM {Customer} WHERE {pk} > ?lastPk ORDER BY {pk}");
+		rule.setRetentionTimeSeconds(Long.valueOf(100L));
+		cronJob = new ChunkedRetentionCronJobModel();
+		cronJob.setRetentionRule(rule);
+
+		doReturn(currentDate).when(timeService).getCurrentTime();
+
+		// Serve the PKs after the lastPk parameter in pages of the query count
+		doAnswer(invocation -> {
+			final FlexibleSearchQuery query = (FlexibleSearchQuery) invocation.getArguments()[0];
+			final long lastPk = ((Long) query.getQueryParameters().get("lastPk")).longValue();
+			final List<PK> page = new ArrayList<>();
+			for (final PK pk : pks)
+			{
+				if (pk.getLongValue() > lastPk && page.size() < query.getCount())
+				{
+					page.add(pk);
+				}
+			}
+			return new SearchResultImpl<>(page, page.size(), query.getCount(), 0);
+		}).when(flexibleSearchService).search(any(FlexibleSearchQuery.class));
+
+		doAnswer(invocation -> {
+			cleanedUp.addAll((List<PK>) invocation.getArguments()[0]);
+			return null;
+		}).when(cleanupAction).cleanupChunk(anyListOf(PK.class));
+	}
+
+	@Test
+	public void shouldCleanUpAllItemsInChunksOnWorkers()
+	{
+		addPks(1, 25);
+		job.setChunkSize(3);
+		job.setWorkers(2);
+
+		final PerformResult result = job.perform(cronJob);
+
+		Assert.assertEquals(CronJobResult.SUCCESS, result.getResult());
+		Assert.assertEquals(25, cleanedUp.size());
+		// 25 items in chunks of 3
+		verify(cleanupAction, times(9)).cleanupChunk(anyListOf(PK.class));
+		Assert.assertNull(cronJob.getLastProcessedPk());
+		Assert.assertEquals(Long.valueOf(25L), cronJob.getLastRunProcessedCount());
+	}
+
+	@Test
+	public void shouldCleanUpChunksOnWorkersInSessionOfCronJob()
+	{
+		addPks(1, 6);
+		job.setChunkSize(3);
+		job.setWorkers(2);
+		final UserModel user = new UserModel();
+		final LanguageModel language = new LanguageModel();
+		cronJob.setSessionUser(user);
+		cronJob.setSessionLanguage(language);
+		final Session session = mock(Session.class);
+		doReturn(session).when(sessionService).createNewSession();
+
+		job.perform(cronJob);
+
+		verify(sessionService, times(2)).createNewSession();
+		verify(userService, times(2)).setCurrentUser(user);
+		verify(commonI18NService, times(2)).setCurrentLanguage(language);
+		verify(sessionService, times(2)).closeSession(session);
+	}
+
+	@Test
+	public void shouldSetRetirementTimeOfRule()
+	{
+		addPks(1, 1);
+
+		job.perform(cronJob);
+
+		final FlexibleSearchQuery query = captureQuery();
+		Assert.assertEquals(new Date(currentDate.getTime() - 100_000L),
+				query.getQueryParameters().get("CALC_RETIREMENT_TIME"));
+		Assert.assertEquals(Collections.singletonList(PK.class), query.getResultClassList());
+	}
+
+	@Test
+	public void shouldResumeAfterLastProcessedPk()
+	{
+		addPks(1, 10);
+		cronJob.setLastProcessedPk(Long.valueOf(6L));
+		job.setWorkers(1);
+
+		job.perform(cronJob);
+
+		Assert.assertEquals(4, cleanedUp.size());
+		Assert.assertFalse(cleanedUp.contains(PK.fromLong(6L)));
+		Assert.assertTrue(cleanedUp.contains(PK.fromLong(7L)));
+	}
+
+	@Test
+	public void shouldKeepCursorOfLastCompletedPageWhenChunkFails()
+	{
+		addPks(1, 8);
+		job.setChunkSize(2);
+		job.setWorkers(2);
+		// second chunk of the second page
+		doThrow(new IllegalStateException("test")).when(cleanupAction).cleanupChunk(pks.subList(4, 6));
+
+		final PerformResult result = job.perform(cronJob);
+
+		Assert.assertEquals(CronJobResult.ERROR, result.getResult());
+		Assert.assertEquals(CronJobStatus.ABORTED, result.getStatus());
+		Assert.assertEquals(Long.valueOf(4L), cronJob.getLastProcessedPk());
+	}
+
+	@Test
+	public void shouldFailWithoutRule()
+	{
+		cronJob.setRetentionRule(null);
+
+		final PerformResult result = job.perform(cronJob);
+
+		Assert.assertEquals(CronJobResult.ERROR, result.getResult());
+	}
+
+	private void addPks(final long from, final long to)
+	{
+		for (long pk = from; pk <= to; pk++)
+		{
+			pks.add(PK.fromLong(pk));
+		}
+	}
+
+	private FlexibleSearchQuery captureQuery()
+	{
+		final ArgumentCaptor<FlexibleSearchQuery> query = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(query.capture());
+		return query.getValue();
+	}
+}
@@ -6,33 +6,47 @@ package org.training.core.job;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anySet;
 import static org.mockito.Matchers.argThat;
-import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.training.core.model.QuoteNotificationCronJobModel;
 
 import de.hybris.bootstrap.annotations.UnitTest;
 import de.hybris.platform.commerceservices.enums.QuoteNotificationType;
-import de.hybris.platform.commerceservices.order.dao.CommerceQuoteDao;
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.enums.QuoteState;
 import de.hybris.platform.core.model.order.QuoteModel;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.cronjob.enums.CronJobResult;
+import de.hybris.platform.cronjob.enums.CronJobStatus;
 import de.hybris.platform.cronjob.model.CronJobModel;
+import de.hybris.platform.servicelayer.cronjob.PerformResult;
 import de.hybris.platform.servicelayer.event.EventService;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
 import de.hybris.platform.servicelayer.model.ModelService;
-import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.impl.SearchResultImpl;
+import de.hybris.platform.servicelayer.session.SessionService;
 import de.hybris.platform.servicelayer.time.TimeService;
+import de.hybris.platform.servicelayer.user.UserService;
 
 
 @RunWith(MockitoJUnitRunner.class)
@@ -43,7 +57,7 @@ public class QuoteExpiredJobPerformableTest
 	protected Set<QuoteState> supportedQuoteStatuses;
 
 	@Mock
-	protected CommerceQuoteDao commerceQuoteDao;
+	private FlexibleSearchService flexibleSearchService;
 
 	@Mock
 	private EventService eventService;
@@ -54,41 +68,122 @@ public class QuoteExpiredJobPerformableTest
 	@Mock
 	private TimeService timeService;
 
+	@Mock
+	private SessionService sessionService;
+
+	@Mock
+	private UserService userService;
+
+	@Mock
+	private CommonI18NService commonI18NService;
+
 	@Spy
 	@InjectMocks
 	private final QuoteExpiredJobPerformable job = new QuoteExpiredJobPerformable();
 
+	private final List<QuoteModel> quotes = new ArrayList<>();
+
+	private final Date currentDate = new GregorianCalendar(2017, 1, 25, 18, 0, 0).getTime();
+
+	@Before
+	public void setUp()
+	{
+		doReturn(currentDate).when(timeService).getCurrentTime();
+
+		doAnswer(invocation -> {
+			final FlexibleSearchQuery query = (FlexibleSearchQuery) invocation.getArguments()[0];
+			final long lastPk = ((Long) query.getQueryParameters().get("lastPk")).longValue();
+			final List<PK> pks = quotes.stream().map(QuoteModel::getPk).filter(pk -> pk.getLongValue() > lastPk).sorted()
+					.limit(query.getCount()).collect(Collectors.toList());
+			return new SearchResultImpl<>(pks, pks.size(), query.getCount(), 0);
+		}).when(flexibleSearchService).search(any(FlexibleSearchQuery.class));
+	}
+
 	@Test
 	public void testPerform()
 	{
 		final Date date1 = new GregorianCalendar(2017, 1, 25, 10, 0, 0).getTime();
-		final Date date2 = new GregorianCalendar(2017, 1, 25, 18, 0, 0).getTime(); // current date
+		quotes.add(buildQuoteModel(1L, date1));
+		quotes.add(buildQuoteModel(2L, currentDate));
+
+		final PerformResult result = job.perform(mock(CronJobModel.class));
+
+		Assert.assertEquals(CronJobResult.SUCCESS, result.getResult());
+		final ArgumentCaptor<FlexibleSearchQuery> query = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(query.capture());
+		Assert.assertEquals(currentDate, query.getValue().getQueryParameters().get("currentDate"));
+		Assert.assertEquals(QuoteNotificationType.EXPIRED,
+				query.getValue().getQueryParameters().get("notificationType"));
+		Assert.assertSame(supportedQuoteStatuses, query.getValue().getQueryParameters().get("quoteStates"));
+
+		quotes.stream()
+				.forEach(quoteModel -> verify(eventService).publishEvent(argThat(hasProperty("quote", sameInstance(quoteModel)))));
+	}
+
+	@Test
+	public void testPerformPagesByPk()
+	{
+		for (long pk = 5; pk >= 1; pk--)
+		{
+			quotes.add(buildQuoteModel(pk, currentDate));
+		}
+		job.setPageSize(2);
+		final UserModel user = mock(UserModel.class);
+		final QuoteNotificationCronJobModel cronJob = new QuoteNotificationCronJobModel();
+		cronJob.setSessionUser(user);
+
+		final PerformResult result = job.perform(cronJob);
+
+		Assert.assertEquals(CronJobResult.SUCCESS, result.getResult());
+		// one search per page of two quotes, the last page is not full
+		verify(flexibleSearchService, times(3)).search(any(FlexibleSearchQuery.class));
+		// the pages of two quotes are published by two threads, the last page on the job thread
+		verify(sessionService, times(4)).createNewSession();
+		verify(userService, times(4)).setCurrentUser(user);
+		quotes.stream()
+				.forEach(quoteModel -> verify(eventService).publishEvent(argThat(hasProperty("quote", sameInstance(quoteModel)))));
+		Assert.assertNull(cronJob.getLastProcessedQuotePk());
+		Assert.assertEquals(Long.valueOf(5L), cronJob.getLastRunEventCount());
+	}
 
-		// Mock current date time
-		doReturn(date2).when(timeService).getCurrentTime();
+	@Test
+	public void testPerformResumesAfterAbort()
+	{
+		quotes.addAll(Arrays.asList(buildQuoteModel(1L, currentDate), buildQuoteModel(2L, currentDate),
+				buildQuoteModel(3L, currentDate)));
+		job.setPageSize(2);
+		final QuoteNotificationCronJobModel cronJob = new QuoteNotificationCronJobModel();
+		cronJob.setRequestAbort(Boolean.TRUE);
 
-		// Mock search results
-		final SearchResult<QuoteModel> searchResult = mock(SearchResult.class);
-		final QuoteModel quote1 = buildQuoteModel(date1);
-		final QuoteModel quote2 = buildQuoteModel(date2);
-		doReturn(Arrays.asList(quote1, quote2)).when(searchResult).getResult();
-		doReturn(searchResult).when(commerceQuoteDao).findQuotesExpired(eq(date2), any(QuoteNotificationType.class), anySet());
+		PerformResult result = job.perform(cronJob);
 
-		// Mock cron job
-		final CronJobModel cronJob = mock(CronJobModel.class);
+		Assert.assertEquals(CronJobStatus.ABORTED, result.getStatus());
+		Assert.assertEquals(Long.valueOf(2L), cronJob.getLastProcessedQuotePk());
+		verify(eventService, times(2)).publishEvent(any());
 
-		job.perform(cronJob);
+		result = job.perform(cronJob);
 
-		verify(commerceQuoteDao).findQuotesExpired(eq(date2), eq(QuoteNotificationType.EXPIRED), eq(supportedQuoteStatuses));
+		Assert.assertEquals(CronJobStatus.FINISHED, result.getStatus());
+		Assert.assertNull(cronJob.getLastProcessedQuotePk());
+		verify(eventService, times(3)).publishEvent(any());
+		verify(eventService).publishEvent(argThat(hasProperty("quote", sameInstance(quotes.get(2)))));
+	}
 
-		searchResult.getResult().stream()
-				.forEach(quoteModel -> verify(eventService).publishEvent(argThat(hasProperty("quote", sameInstance(quoteModel)))));
+	@Test
+	public void testPerformWithoutQuotes()
+	{
+		final PerformResult result = job.perform(mock(CronJobModel.class));
+
+		Assert.assertEquals(CronJobResult.SUCCESS, result.getResult());
+		verify(eventService, never()).publishEvent(any());
 	}
 
-	private QuoteModel buildQuoteModel(final Date expiryTime)
+	private QuoteModel buildQuoteModel(final long pk, final Date expiryTime)
 	{
 		final QuoteModel quoteModel = mock(QuoteModel.class);
+		doReturn(PK.fromLong(pk)).when(quoteModel).getPk();
 		doReturn(expiryTime).when(quoteModel).getExpirationTime();
+		doReturn(quoteModel).when(modelService).get(PK.fromLong(pk));
 		return quoteModel;
 	}
 }
@@ -8,19 +8,21 @@ import static org.training.core.job.QuoteToExpireSoonJobPerformable.DEFAULT_DAYS
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anySet;
 import static org.mockito.Matchers.argThat;
-import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.util.Arrays;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.configuration.Configuration;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -28,15 +30,20 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import de.hybris.bootstrap.annotations.UnitTest;
 import de.hybris.platform.commerceservices.enums.QuoteNotificationType;
-import de.hybris.platform.commerceservices.order.dao.CommerceQuoteDao;
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.enums.QuoteState;
 import de.hybris.platform.core.model.order.QuoteModel;
 import de.hybris.platform.cronjob.model.CronJobModel;
 import de.hybris.platform.servicelayer.config.ConfigurationService;
 import de.hybris.platform.servicelayer.event.EventService;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
 import de.hybris.platform.servicelayer.model.ModelService;
-import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.impl.SearchResultImpl;
+import de.hybris.platform.servicelayer.session.SessionService;
 import de.hybris.platform.servicelayer.time.TimeService;
+import de.hybris.platform.servicelayer.user.UserService;
 
 
 @RunWith(MockitoJUnitRunner.class)
@@ -47,7 +54,16 @@ public class QuoteToExpireSoonJobPerformableTest
 	protected Set<QuoteState> supportedQuoteStatuses;
 
 	@Mock
-	protected CommerceQuoteDao commerceQuoteDao;
+	protected FlexibleSearchService flexibleSearchService;
+
+	@Mock
+	private SessionService sessionService;
+
+	@Mock
+	private UserService userService;
+
+	@Mock
+	private CommonI18NService commonI18NService;
 
 	@Mock
 	private EventService eventService;
@@ -77,14 +93,15 @@ public class QuoteToExpireSoonJobPerformableTest
 		doReturn(date2).when(timeService).getCurrentTime();
 
 		// Mock search results
-		final SearchResult<QuoteModel> searchResult = mock(SearchResult.class);
-		final QuoteModel quote1 = buildQuoteModel(date1);
-		final QuoteModel quote2 = buildQuoteModel(date2);
-		final QuoteModel quote3 = buildQuoteModel(date3);
-		final QuoteModel quote4 = buildQuoteModel(date4);
-		doReturn(Arrays.asList(quote1, quote2, quote3, quote4)).when(searchResult).getResult();
-		doReturn(searchResult).when(commerceQuoteDao).findQuotesSoonToExpire(eq(date2), eq(date4), any(QuoteNotificationType.class),
-				anySet());
+		final List<QuoteModel> quotes = Arrays.asList(buildQuoteModel(1L, date1), buildQuoteModel(2L, date2),
+				buildQuoteModel(3L, date3), buildQuoteModel(4L, date4));
+		doAnswer(invocation -> {
+			final FlexibleSearchQuery query = (FlexibleSearchQuery) invocation.getArguments()[0];
+			final long lastPk = ((Long) query.getQueryParameters().get("lastPk")).longValue();
+			final List<PK> pks = quotes.stream().map(QuoteModel::getPk).filter(pk -> pk.getLongValue() > lastPk).sorted()
+					.limit(query.getCount()).collect(Collectors.toList());
+			return new SearchResultImpl<>(pks, pks.size(), query.getCount(), 0);
+		}).when(flexibleSearchService).search(any(FlexibleSearchQuery.class));
 
 		// Mock cron job
 		final CronJobModel cronJob = mock(CronJobModel.class);
@@ -94,17 +111,24 @@ public class QuoteToExpireSoonJobPerformableTest
 
 		job.perform(cronJob);
 
-		verify(commerceQuoteDao).findQuotesSoonToExpire(eq(date2), eq(date4), eq(QuoteNotificationType.EXPIRING_SOON),
-				eq(supportedQuoteStatuses));
+		final ArgumentCaptor<FlexibleSearchQuery> query = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(query.capture());
+		Assert.assertEquals(date2, query.getValue().getQueryParameters().get("expiredAfter"));
+		Assert.assertEquals(date4, query.getValue().getQueryParameters().get("expiredBy"));
+		Assert.assertEquals(QuoteNotificationType.EXPIRING_SOON,
+				query.getValue().getQueryParameters().get("notificationType"));
+		Assert.assertSame(supportedQuoteStatuses, query.getValue().getQueryParameters().get("quoteStates"));
 
-		searchResult.getResult().stream()
+		quotes.stream()
 				.forEach(quoteModel -> verify(eventService).publishEvent(argThat(hasProperty("quote", sameInstance(quoteModel)))));
 	}
 
-	private QuoteModel buildQuoteModel(final Date expiryTime)
+	private QuoteModel buildQuoteModel(final long pk, final Date expiryTime)
 	{
 		final QuoteModel quoteModel = mock(QuoteModel.class);
+		doReturn(PK.fromLong(pk)).when(quoteModel).getPk();
 		doReturn(expiryTime).when(quoteModel).getExpirationTime();
+		doReturn(quoteModel).when(modelService).get(PK.fromLong(pk));
 		return quoteModel;
 	}
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.process.impl;
+
+import de.hybris.bootstrap.annotations.PerformanceTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Measures the throughput of {@link DefaultProcessCodeGenerator} with several threads generating codes at once.
+ */
+@PerformanceTest
+public class DefaultProcessCodeGeneratorBenchmarkTest
+{
+	private static final Logger LOG = Logger.getLogger(DefaultProcessCodeGeneratorBenchmarkTest.class);
+
+	private static final int THREADS = 8;
+	private static final int CODES_PER_THREAD = 250000;
+	private static final double MIN_CODES_PER_SECOND = 100000D;
+
+	@Test
+	public void shouldGenerateCodesFastEnough() throws InterruptedException
+	{
+		final DefaultProcessCodeGenerator generator = new DefaultProcessCodeGenerator();
+		generator.setNodeId(0);
+		generator.afterPropertiesSet();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(THREADS);
+
+		for (int thread = 0; thread < THREADS; thread++)
+		{
+			new Thread(() -> {
+				try
+				{
+					start.await();
+					for (int i = 0; i < CODES_PER_THREAD; i++)
+					{
+						generator.generate("orderConfirmationEmailProcess", "00001000");
+					}
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				finally
+				{
+					done.countDown();
+				}
+			}).start();
+		}
+		final long started = System.nanoTime();
+		start.countDown();
+		Assert.assertTrue(done.await(120, TimeUnit.SECONDS));
+		final double seconds = (System.nanoTime() - started) / (double) TimeUnit.SECONDS.toNanos(1);
+
+		final double codesPerSecond = THREADS * CODES_PER_THREAD / seconds;
+		LOG.info(String.format("Generated %.0f codes per second with %d threads", Double.valueOf(codesPerSecond),
+				Integer.valueOf(THREADS)));
+		Assert.assertTrue("Generated " + codesPerSecond + " codes per second", codesPerSecond >= MIN_CODES_PER_SECOND);
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.process.impl;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+@UnitTest
+public class DefaultProcessCodeGeneratorTest
+{
+	private static final int THREADS = 8;
+	private static final int CODES_PER_THREAD = 50000;
+
+	private DefaultProcessCodeGenerator processCodeGenerator;
+	private long now;
+
+	@Before
+	public void setUp()
+	{
+		now = 1_500_000_000_000L;
+		processCodeGenerator = new DefaultProcessCodeGenerator()
+		{
+			@Override
+			protected long currentTimeMillis()
+			{
+				return now;
+			}
+		};
+		processCodeGenerator.setNodeId(37);
+		processCodeGenerator.afterPropertiesSet();
+	}
+
+	@Test
+	public void shouldAppendFixedWidthNodeIdAndSequence()
+	{
+		final String code = processCodeGenerator.generate("quoteExpired", "q1", "store");
+
+		Assert.assertTrue(code, code.startsWith("quoteExpired-q1-store-11"));
+		Assert.assertEquals("quoteExpired-q1-store-".length() + 15, code.length());
+	}
+
+	@Test
+	public void shouldKeepIncreasingWithinOneMillisecondAndWhenClockGoesBack()
+	{
+		final String first = processCodeGenerator.generate("process", "order");
+		final String second = processCodeGenerator.generate("process", "order");
+		now -= 1000;
+		final String third = processCodeGenerator.generate("process", "order");
+
+		Assert.assertTrue(first.compareTo(second) < 0);
+		Assert.assertTrue(second.compareTo(third) < 0);
+	}
+
+	@Test
+	public void shouldDifferBetweenNodes()
+	{
+		final DefaultProcessCodeGenerator otherNode = new DefaultProcessCodeGenerator()
+		{
+			@Override
+			protected long currentTimeMillis()
+			{
+				return now;
+			}
+		};
+		otherNode.setNodeId(1);
+		otherNode.afterPropertiesSet();
+
+		Assert.assertNotEquals(processCodeGenerator.generate("process", "order"), otherNode.generate("process", "order"));
+	}
+
+	@Test
+	public void shouldGenerateUniqueCodesConcurrently() throws InterruptedException
+	{
+		final DefaultProcessCodeGenerator generator = new DefaultProcessCodeGenerator();
+		generator.setNodeId(0);
+		generator.afterPropertiesSet();
+		final Set<String> codes = ConcurrentHashMap.newKeySet(THREADS * CODES_PER_THREAD * 2);
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(THREADS);
+
+		for (int thread = 0; thread < THREADS; thread++)
+		{
+			new Thread(() -> {
+				try
+				{
+					start.await();
+					for (int i = 0; i < CODES_PER_THREAD; i++)
+					{
+						codes.add(generator.generate("orderConfirmationEmailProcess", "00001000"));
+					}
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				finally
+				{
+					done.countDown();
+				}
+			}).start();
+		}
+		start.countDown();
+		Assert.assertTrue(done.await(60, TimeUnit.SECONDS));
+
+		Assert.assertEquals(THREADS * CODES_PER_THREAD, codes.size());
+	}
+}
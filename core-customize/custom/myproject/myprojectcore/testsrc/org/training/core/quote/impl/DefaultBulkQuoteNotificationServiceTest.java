@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.quote.impl;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.acceleratorservices.email.EmailService;
+import de.hybris.platform.acceleratorservices.model.cms2.pages.EmailPageModel;
+import de.hybris.platform.acceleratorservices.model.cms2.pages.EmailPageTemplateModel;
+import de.hybris.platform.acceleratorservices.model.email.EmailMessageModel;
+import de.hybris.platform.acceleratorservices.process.email.context.AbstractEmailContext;
+import de.hybris.platform.acceleratorservices.process.email.context.EmailContextFactory;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.cms2.model.contents.ContentCatalogModel;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.cms2.servicelayer.services.CMSEmailPageService;
+import de.hybris.platform.commerceservices.enums.QuoteNotificationType;
+import de.hybris.platform.commerceservices.model.process.QuoteProcessModel;
+import de.hybris.platform.commons.model.renderer.RendererTemplateModel;
+import de.hybris.platform.commons.renderer.RendererService;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.order.QuoteModel;
+import de.hybris.platform.core.model.user.CustomerModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.SessionExecutionBody;
+import de.hybris.platform.servicelayer.session.SessionService;
+import org.training.core.email.EmailBatchDispatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+/**
+ * JUnit test suite for {@link DefaultBulkQuoteNotificationService}
+ */
+@UnitTest
+public class DefaultBulkQuoteNotificationServiceTest
+{
+	private static final String TEMPLATE = "QuoteExpiredEmailTemplate";
+
+	@Mock
+	private CMSEmailPageService cmsEmailPageService;
+	@Mock
+	private EmailContextFactory<QuoteProcessModel> emailContextFactory;
+	@Mock
+	private RendererService rendererService;
+	@Mock
+	private EmailService emailService;
+	@Mock
+	private EmailBatchDispatcher emailBatchDispatcher;
+	@Mock
+	private ModelService modelService;
+	@Mock
+	private SessionService sessionService;
+	@Mock
+	private CommonI18NService commonI18NService;
+	@Mock
+	private AbstractEmailContext<QuoteProcessModel> emailContext;
+
+	private DefaultBulkQuoteNotificationService bulkQuoteNotificationService;
+	private final List<EmailMessageModel> failedMessages = new ArrayList<>();
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+		bulkQuoteNotificationService = new DefaultBulkQuoteNotificationService();
+		bulkQuoteNotificationService.setFrontendTemplateNames(Collections.singletonMap(QuoteNotificationType.EXPIRED, TEMPLATE));
+		bulkQuoteNotificationService.setCmsEmailPageService(cmsEmailPageService);
+		bulkQuoteNotificationService.setEmailContextFactory(emailContextFactory);
+		bulkQuoteNotificationService.setRendererService(rendererService);
+		bulkQuoteNotificationService.setEmailService(emailService);
+		bulkQuoteNotificationService.setEmailBatchDispatcher(emailBatchDispatcher);
+		bulkQuoteNotificationService.setModelService(modelService);
+		bulkQuoteNotificationService.setSessionService(sessionService);
+		bulkQuoteNotificationService.setCommonI18NService(commonI18NService);
+
+		given(sessionService.executeInLocalView(any(SessionExecutionBody.class)))
+				.willAnswer(invocation -> ((SessionExecutionBody) invocation.getArguments()[0]).execute());
+		given(modelService.create(QuoteProcessModel.class)).willAnswer(invocation -> new QuoteProcessModel());
+		given(emailContextFactory.create(any(QuoteProcessModel.class), any(EmailPageModel.class), any(RendererTemplateModel.class)))
+				.willReturn(emailContext);
+		given(emailService.createEmailMessage(any(), any(), any(), any(), any(), any(), any(), any()))
+				.willAnswer(invocation -> mock(EmailMessageModel.class));
+		given(emailBatchDispatcher.dispatch(any())).willAnswer(invocation -> {
+			final List<EmailMessageModel> sent = new ArrayList<>((List<EmailMessageModel>) invocation.getArguments()[0]);
+			sent.removeAll(failedMessages);
+			return sent;
+		});
+	}
+
+	@Test
+	public void shouldCreateContextPerQuote()
+	{
+		final CMSSiteModel site1 = createSite();
+		final CMSSiteModel site2 = createSite();
+		final LanguageModel english = new LanguageModel();
+		final LanguageModel german = new LanguageModel();
+		final QuoteModel quote1 = createQuote("q1", site1, english);
+		final QuoteModel quote2 = createQuote("q2", site1, german);
+		final QuoteModel quote3 = createQuote("q3", site1, english);
+		final QuoteModel quote4 = createQuote("q4", site2, english);
+
+		final List<QuoteModel> result = bulkQuoteNotificationService
+				.sendNotifications(Arrays.asList(quote1, quote2, quote3, quote4), QuoteNotificationType.EXPIRED);
+
+		Assert.assertEquals(Arrays.asList(quote1, quote3, quote2, quote4), result);
+		verify(emailContextFactory, times(4)).create(any(QuoteProcessModel.class), any(EmailPageModel.class),
+				any(RendererTemplateModel.class));
+		verify(emailContext, never()).init(any(QuoteProcessModel.class), any(EmailPageModel.class));
+		verify(emailBatchDispatcher, times(3)).dispatch(any());
+		verify(commonI18NService).setCurrentLanguage(german);
+		verify(quote1).setGeneratedNotifications(Collections.singleton(QuoteNotificationType.EXPIRED));
+	}
+
+	@Test
+	public void shouldMarkOnlySentQuotesWithOneSave()
+	{
+		final CMSSiteModel site = createSite();
+		final LanguageModel english = new LanguageModel();
+		final QuoteModel quote1 = createQuote("q1", site, english);
+		final QuoteModel quote2 = createQuote("q2", site, english);
+		given(emailService.createEmailMessage(any(), any(), any(), any(), any(), any(), any(), any())).willAnswer(invocation -> {
+			final EmailMessageModel message = mock(EmailMessageModel.class);
+			if (failedMessages.isEmpty())
+			{
+				failedMessages.add(message);
+			}
+			return message;
+		});
+
+		final List<QuoteModel> result = bulkQuoteNotificationService.sendNotifications(Arrays.asList(quote1, quote2),
+				QuoteNotificationType.EXPIRED);
+
+		Assert.assertEquals(Collections.singletonList(quote2), result);
+		final ArgumentCaptor<Collection> saved = ArgumentCaptor.forClass(Collection.class);
+		verify(modelService, times(1)).saveAll(saved.capture());
+		Assert.assertEquals(Collections.singletonList(quote2), new ArrayList<>(saved.getValue()));
+		verify(quote1, never()).setGeneratedNotifications(any());
+		verify(modelService).removeAll(failedMessages);
+	}
+
+	@Test
+	public void shouldRemoveUnsentMessagesWhenDispatchFails()
+	{
+		final CMSSiteModel site = createSite();
+		final LanguageModel english = new LanguageModel();
+		final EmailMessageModel sentMessage = mock(EmailMessageModel.class);
+		final EmailMessageModel unsentMessage = mock(EmailMessageModel.class);
+		given(emailService.createEmailMessage(any(), any(), any(), any(), any(), any(), any(), any()))
+				.willReturn(sentMessage, unsentMessage);
+		given(Boolean.valueOf(modelService.isRemoved(sentMessage))).willReturn(Boolean.TRUE);
+		final IllegalStateException failure = new IllegalStateException("test");
+		given(emailBatchDispatcher.dispatch(any())).willThrow(failure);
+
+		try
+		{
+			bulkQuoteNotificationService.sendNotifications(
+					Arrays.asList(createQuote("q1", site, english), createQuote("q2", site, english)),
+					QuoteNotificationType.EXPIRED);
+			Assert.fail("Expected the failure of the dispatch to be rethrown");
+		}
+		catch (final IllegalStateException e)
+		{
+			Assert.assertSame(failure, e);
+		}
+
+		verify(modelService).removeAll(Collections.singletonList(unsentMessage));
+		verify(modelService, never()).saveAll(any(Collection.class));
+	}
+
+	@Test
+	public void shouldSkipSitesWithoutEmailPage()
+	{
+		final CMSSiteModel site = createSite();
+		given(cmsEmailPageService.getEmailPageForFrontendTemplate(eq(TEMPLATE), any(CatalogVersionModel.class))).willReturn(null);
+
+		final List<QuoteModel> result = bulkQuoteNotificationService
+				.sendNotifications(Collections.singletonList(createQuote("q1", site, null)), QuoteNotificationType.EXPIRED);
+
+		Assert.assertTrue(result.isEmpty());
+		verify(emailBatchDispatcher, never()).dispatch(any());
+	}
+
+	private CMSSiteModel createSite()
+	{
+		final CatalogVersionModel catalogVersion = mock(CatalogVersionModel.class);
+		final ContentCatalogModel contentCatalog = mock(ContentCatalogModel.class);
+		given(contentCatalog.getActiveCatalogVersion()).willReturn(catalogVersion);
+		final CMSSiteModel site = mock(CMSSiteModel.class);
+		given(site.getContentCatalogs()).willReturn(Collections.singletonList(contentCatalog));
+
+		final EmailPageTemplateModel pageTemplate = mock(EmailPageTemplateModel.class);
+		given(pageTemplate.getHtmlTemplate()).willReturn(mock(RendererTemplateModel.class));
+		given(pageTemplate.getSubject()).willReturn(mock(RendererTemplateModel.class));
+		final EmailPageModel emailPage = mock(EmailPageModel.class);
+		given(emailPage.getMasterTemplate()).willReturn(pageTemplate);
+		given(cmsEmailPageService.getEmailPageForFrontendTemplate(TEMPLATE, catalogVersion)).willReturn(emailPage);
+		return site;
+	}
+
+	private QuoteModel createQuote(final String code, final CMSSiteModel site, final LanguageModel language)
+	{
+		final CustomerModel customer = mock(CustomerModel.class);
+		given(customer.getSessionLanguage()).willReturn(language);
+		final QuoteModel quote = mock(QuoteModel.class);
+		given(quote.getCode()).willReturn(code);
+		given(quote.getSite()).willReturn(site);
+		given(quote.getUser()).willReturn(customer);
+		given(quote.getGeneratedNotifications()).willReturn(Collections.emptySet());
+		return quote;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.renderer.impl;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.commons.enums.RendererTypeEnum;
+import de.hybris.platform.commons.model.renderer.RendererTemplateModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.media.MediaModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.media.MediaService;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.runtime.RuntimeSingleton;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class CachingVelocityRendererServiceTest
+{
+	@Mock
+	private MediaService mediaService;
+	@Mock
+	private CommonI18NService commonI18NService;
+	@Mock
+	private RendererTemplateModel template;
+	@Mock
+	private MediaModel content;
+	@Mock
+	private LanguageModel english;
+	@Mock
+	private LanguageModel german;
+
+	private CachingVelocityRendererService rendererService;
+
+	@BeforeClass
+	public static void initVelocity() throws Exception
+	{
+		RuntimeSingleton.init();
+	}
+
+	@Before
+	public void setUp()
+	{
+		rendererService = new CachingVelocityRendererService();
+		rendererService.setMediaService(mediaService);
+		rendererService.setCommonI18NService(commonI18NService);
+		rendererService.setEnabled(true);
+
+		given(template.getPk()).willReturn(PK.fromLong(1L));
+		given(template.getCode()).willReturn("orderConfirmationBody");
+		given(template.getRendererType()).willReturn(RendererTypeEnum.VELOCITY);
+		given(template.getModifiedtime()).willReturn(new Date(1000L));
+		given(template.getContent()).willReturn(content);
+		given(content.getPk()).willReturn(PK.fromLong(2L));
+		given(content.getModifiedtime()).willReturn(new Date(1000L));
+		given(english.getIsocode()).willReturn("en");
+		given(german.getIsocode()).willReturn("de");
+		given(commonI18NService.getCurrentLanguage()).willReturn(english);
+		given(mediaService.getDataFromMedia(content)).willReturn(script("Hello $name"));
+	}
+
+	@Test
+	public void shouldParseTemplateOnce()
+	{
+		Assert.assertEquals("Hello Jane", render("Jane"));
+		Assert.assertEquals("Hello John", render("John"));
+
+		Assert.assertEquals(1, rendererService.getCompilations());
+		Assert.assertEquals(1, rendererService.getHits());
+		verify(mediaService, times(1)).getDataFromMedia(content);
+	}
+
+	@Test
+	public void shouldParseAgainWhenContentWasModified()
+	{
+		render("Jane");
+		given(content.getModifiedtime()).willReturn(new Date(2000L));
+		given(mediaService.getDataFromMedia(content)).willReturn(script("Dear $name"));
+
+		Assert.assertEquals("Dear Jane", render("Jane"));
+		Assert.assertEquals(2, rendererService.getCompilations());
+		Assert.assertEquals(0, rendererService.getHits());
+	}
+
+	@Test
+	public void shouldParseAgainWhenContentMediaWasReplaced()
+	{
+		render("Jane");
+		given(content.getPk()).willReturn(PK.fromLong(3L));
+
+		render("Jane");
+
+		Assert.assertEquals(2, rendererService.getCompilations());
+	}
+
+	@Test
+	public void shouldKeepTemplatePerLanguage()
+	{
+		render("Jane");
+		given(commonI18NService.getCurrentLanguage()).willReturn(german);
+		render("Jane");
+		render("Jane");
+
+		Assert.assertEquals(2, rendererService.getCompilations());
+		Assert.assertEquals(1, rendererService.getHits());
+	}
+
+	@Test
+	public void shouldParseAgainAfterClear()
+	{
+		render("Jane");
+		rendererService.clear();
+		render("Jane");
+
+		Assert.assertEquals(2, rendererService.getCompilations());
+		Assert.assertEquals(0, rendererService.getHits());
+	}
+
+	private String render(final String name)
+	{
+		final VelocityContext context = new VelocityContext();
+		context.put("name", name);
+		final StringWriter output = new StringWriter();
+		rendererService.render(template, context, output);
+		return output.toString();
+	}
+
+	private static byte[] script(final String script)
+	{
+		return script.getBytes(StandardCharsets.UTF_8);
+	}
+}
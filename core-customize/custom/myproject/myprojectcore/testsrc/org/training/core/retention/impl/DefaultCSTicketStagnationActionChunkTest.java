@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.retention.impl;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.IntegrationTest;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.servicelayer.ServicelayerTest;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.impl.SearchResultImpl;
+import de.hybris.platform.ticket.enums.CsInterventionType;
+import de.hybris.platform.ticket.enums.CsResolutionType;
+import de.hybris.platform.ticket.model.CsTicketModel;
+import de.hybris.platform.ticket.service.TicketBusinessService;
+import de.hybris.platform.ticket.service.TicketException;
+import de.hybris.platform.tx.Transaction;
+import org.training.core.ticket.TicketEventEmailQueue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+/**
+ * Resolves chunks of tickets with {@link DefaultCSTicketStagnationAction#cleanupChunk(List)} in real transactions, with
+ * the services and the email queue mocked.
+ */
+@IntegrationTest
+public class DefaultCSTicketStagnationActionChunkTest extends ServicelayerTest
+{
+	private static final List<PK> PKS = Arrays.asList(PK.fromLong(1L), PK.fromLong(2L));
+
+	@Mock
+	private ModelService modelService;
+	@Mock
+	private TicketBusinessService ticketBusinessService;
+	@Mock
+	private FlexibleSearchService flexibleSearchService;
+	@Mock
+	private CommonI18NService commonI18NService;
+	@Mock
+	private TicketEventEmailQueue ticketEventEmailQueue;
+	@Mock
+	private LanguageModel english;
+	@Mock
+	private CsTicketModel ticket1;
+	@Mock
+	private CsTicketModel ticket2;
+
+	private final List<Boolean> transactionRunningOnFlush = new ArrayList<>();
+	private DefaultCSTicketStagnationAction cleanupAction;
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+		cleanupAction = new DefaultCSTicketStagnationAction();
+		cleanupAction.setModelService(modelService);
+		cleanupAction.setTicketBusinessService(ticketBusinessService);
+		cleanupAction.setFlexibleSearchService(flexibleSearchService);
+		cleanupAction.setCommonI18NService(commonI18NService);
+		cleanupAction.setTicketEventEmailQueue(ticketEventEmailQueue);
+
+		given(english.getIsocode()).willReturn("en");
+		given(commonI18NService.getCurrentLanguage()).willReturn(english);
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class)))
+				.willReturn(new SearchResultImpl<Object>(Arrays.<Object> asList(ticket1, ticket2), 2, -1, 0));
+		doAnswer(invocation -> {
+			transactionRunningOnFlush.add(Boolean.valueOf(Transaction.current().isRunning()));
+			return Integer.valueOf(2);
+		}).when(ticketEventEmailQueue).flushQueue();
+	}
+
+	@Test
+	public void shouldSendQueuedEmailsAfterCommit() throws TicketException
+	{
+		cleanupAction.cleanupChunk(PKS);
+
+		final InOrder inOrder = inOrder(ticketEventEmailQueue, ticketBusinessService);
+		inOrder.verify(ticketEventEmailQueue).startQueue();
+		inOrder.verify(ticketBusinessService).resolveTicket(eq(ticket1), eq(CsInterventionType.TICKETMESSAGE),
+				eq(CsResolutionType.CLOSED), anyString());
+		inOrder.verify(ticketBusinessService).resolveTicket(eq(ticket2), eq(CsInterventionType.TICKETMESSAGE),
+				eq(CsResolutionType.CLOSED), anyString());
+		inOrder.verify(ticketEventEmailQueue).flushQueue();
+		verify(ticketEventEmailQueue, never()).discardQueue();
+		Assert.assertEquals(Arrays.asList(Boolean.FALSE), transactionRunningOnFlush);
+		Assert.assertEquals(2, cleanupAction.getResolved());
+		Assert.assertEquals(2, cleanupAction.getNotifiedEvents());
+	}
+
+	@Test
+	public void shouldCommitChunkWhenSingleTicketCannotBeResolved() throws TicketException
+	{
+		doThrow(new TicketException("test")).when(ticketBusinessService).resolveTicket(eq(ticket1),
+				any(CsInterventionType.class), any(CsResolutionType.class), anyString());
+
+		cleanupAction.cleanupChunk(PKS);
+
+		verify(ticketEventEmailQueue).flushQueue();
+		verify(ticketEventEmailQueue, never()).discardQueue();
+		Assert.assertEquals(1, cleanupAction.getResolved());
+		Assert.assertEquals(1, cleanupAction.getFailed());
+	}
+
+	@Test
+	public void shouldDiscardQueuedEmailsWhenChunkIsRolledBack() throws TicketException
+	{
+		final IllegalStateException failure = new IllegalStateException("test");
+		doThrow(failure).when(ticketBusinessService).resolveTicket(eq(ticket2), any(CsInterventionType.class),
+				any(CsResolutionType.class), anyString());
+
+		try
+		{
+			cleanupAction.cleanupChunk(PKS);
+			Assert.fail("Expected the failure of the chunk to be rethrown");
+		}
+		catch (final IllegalStateException e)
+		{
+			Assert.assertSame(failure, e);
+		}
+
+		verify(ticketEventEmailQueue).startQueue();
+		verify(ticketEventEmailQueue).discardQueue();
+		verify(ticketEventEmailQueue, never()).flushQueue();
+		Assert.assertEquals(0, cleanupAction.getNotifiedEvents());
+	}
+
+	@Test
+	public void shouldDiscardQueuedEmailsWhenErrorRollsBackChunk() throws TicketException
+	{
+		final AssertionError failure = new AssertionError("test");
+		doThrow(failure).when(ticketBusinessService).resolveTicket(eq(ticket2), any(CsInterventionType.class),
+				any(CsResolutionType.class), anyString());
+
+		try
+		{
+			cleanupAction.cleanupChunk(PKS);
+			Assert.fail("Expected the error of the chunk to be rethrown");
+		}
+		catch (final AssertionError e)
+		{
+			Assert.assertSame(failure, e);
+		}
+
+		verify(ticketEventEmailQueue).startQueue();
+		verify(ticketEventEmailQueue).discardQueue();
+		verify(ticketEventEmailQueue, never()).flushQueue();
+	}
+
+	@Test
+	public void shouldSkipEmptyChunk()
+	{
+		cleanupAction.cleanupChunk(new ArrayList<PK>());
+
+		verify(ticketEventEmailQueue, never()).startQueue();
+		verify(flexibleSearchService, never()).search(any(FlexibleSearchQuery.class));
+	}
+}
@@ -4,9 +4,11 @@
 package org.training.core.retention.impl;
 
 import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.c2l.LanguageModel;
 import de.hybris.platform.processing.model.FlexibleSearchRetentionRuleModel;
 import de.hybris.platform.retention.ItemToCleanup;
 import de.hybris.platform.retention.job.AfterRetentionCleanupJobPerformable;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.ticket.enums.CsInterventionType;
 import de.hybris.platform.ticket.enums.CsResolutionType;
@@ -18,23 +20,33 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.refEq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class DefaultCSTicketStagnationActionTest
 {
+    @Spy
     @InjectMocks
     private final DefaultCSTicketStagnationAction cleanupAction = new DefaultCSTicketStagnationAction();
     @Mock
     private ModelService modelService;
     @Mock
     private TicketBusinessService ticketBusinessService;
+    @Mock
+    private CommonI18NService commonI18NService;
+    @Mock
+    private LanguageModel english;
+    @Mock
+    private LanguageModel german;
 
     private FlexibleSearchRetentionRuleModel rule;
     private ItemToCleanup item;
@@ -49,6 +61,11 @@ public class DefaultCSTicketStagnationActionTest
         rule = new FlexibleSearchRetentionRuleModel();
         item = mock(ItemToCleanup.class);
         retentionJob = new AfterRetentionCleanupJobPerformable();
+
+        given(english.getIsocode()).willReturn("en");
+        given(german.getIsocode()).willReturn("de");
+        given(commonI18NService.getCurrentLanguage()).willReturn(english);
+        doReturn("closed").when(cleanupAction).fetchLocalizedClosedTicketMessage();
     }
 
     @Test
@@ -63,4 +80,19 @@ public class DefaultCSTicketStagnationActionTest
             eq(CsResolutionType.CLOSED),
             any());
     }
+
+    @Test
+    public void shouldLookUpClosingMessageOncePerLanguage() throws TicketException
+    {
+        given(modelService.get(any(PK.class))).willReturn(mock(CsTicketModel.class));
+
+        cleanupAction.cleanup(retentionJob, rule, item);
+        cleanupAction.cleanup(retentionJob, rule, item);
+        given(commonI18NService.getCurrentLanguage()).willReturn(german);
+        cleanupAction.cleanup(retentionJob, rule, item);
+
+        verify(cleanupAction, times(2)).fetchLocalizedClosedTicketMessage();
+        verify(ticketBusinessService, times(3)).resolveTicket(any(CsTicketModel.class), eq(CsInterventionType.TICKETMESSAGE),
+            eq(CsResolutionType.CLOSED), eq("closed"));
+    }
 }
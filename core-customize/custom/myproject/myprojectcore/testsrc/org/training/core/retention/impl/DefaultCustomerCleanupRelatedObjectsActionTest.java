@@ -5,7 +5,10 @@ package org.training.core.retention.impl;
 
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import de.hybris.bootstrap.annotations.UnitTest;
@@ -18,12 +21,19 @@ import de.hybris.platform.retention.ItemToCleanup;
 import de.hybris.platform.retention.hook.ItemCleanupHook;
 import de.hybris.platform.retention.job.AfterRetentionCleanupJobPerformable;
 import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.impl.SearchResultImpl;
+import org.training.core.retention.ChunkedItemCleanupHook;
 import org.training.core.retention.impl.DefaultCustomerCleanupRelatedObjectsAction;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -41,7 +51,11 @@ public class DefaultCustomerCleanupRelatedObjectsActionTest
 	@Mock
 	private ItemCleanupHook customerCleanupHook;
 	@Mock
+	private ChunkedItemCleanupHook chunkedCleanupHook;
+	@Mock
 	private ModelService modelService;
+	@Mock
+	private FlexibleSearchService flexibleSearchService;
 
 	private FlexibleSearchRetentionRuleModel rule;
 	private ItemToCleanup item;
@@ -77,4 +91,43 @@ public class DefaultCustomerCleanupRelatedObjectsActionTest
 		given(modelService.get(any(PK.class))).willReturn(addressModel);
 		cleanupAction.cleanup(retentionJob, rule, item);
 	}
+
+	@Test
+	public void shouldInvokeHooksForChunkAndSaveCustomersAtOnce()
+	{
+		final List<PK> pks = Arrays.asList(PK.fromLong(1L), PK.fromLong(2L));
+		final CustomerModel customer1 = mock(CustomerModel.class);
+		final CustomerModel customer2 = mock(CustomerModel.class);
+		final List<CustomerModel> customers = Arrays.asList(customer1, customer2);
+		doReturn(new SearchResultImpl<>(customers, 2, -1, 0)).when(flexibleSearchService)
+				.search(any(FlexibleSearchQuery.class));
+
+		cleanupAction.doCleanupChunk(pks);
+
+		verify(customerCleanupHook).cleanupRelatedObjects(customer1);
+		verify(customerCleanupHook).cleanupRelatedObjects(customer2);
+		verify(customer1).setRetentionState(RetentionState.PROCESSED);
+		verify(customer2).setRetentionState(RetentionState.PROCESSED);
+		verify(modelService).saveAll(customers);
+	}
+
+	@Test
+	public void shouldInvokeChunkedHooksOnceForChunkBeforeLoadingCustomers()
+	{
+		cleanupAction.setItemCleanupHooks(Arrays.asList(customerCleanupHook, chunkedCleanupHook));
+		final List<PK> pks = Arrays.asList(PK.fromLong(1L), PK.fromLong(2L));
+		final CustomerModel customer1 = mock(CustomerModel.class);
+		final CustomerModel customer2 = mock(CustomerModel.class);
+		doReturn(new SearchResultImpl<>(Arrays.asList(customer1, customer2), 2, -1, 0)).when(flexibleSearchService)
+				.search(any(FlexibleSearchQuery.class));
+
+		cleanupAction.doCleanupChunk(pks);
+
+		final InOrder inOrder = inOrder(chunkedCleanupHook, flexibleSearchService);
+		inOrder.verify(chunkedCleanupHook).cleanupRelatedObjectsOfChunk(pks);
+		inOrder.verify(flexibleSearchService).search(any(FlexibleSearchQuery.class));
+		verify(chunkedCleanupHook, never()).cleanupRelatedObjects(any(CustomerModel.class));
+		verify(customerCleanupHook).cleanupRelatedObjects(customer1);
+		verify(customerCleanupHook).cleanupRelatedObjects(customer2);
+	}
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.retention.impl;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.user.AddressModel;
+import de.hybris.platform.core.model.user.CustomerModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.impl.SearchResultImpl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+/**
+ * JUnit test suite for {@link RelatedItemsChunkedCleanupHook}
+ */
+@UnitTest
+public class RelatedItemsChunkedCleanupHookTest
+{
+	@Mock
+	private FlexibleSearchService flexibleSearchService;
+	@Mock
+	private ModelService modelService;
+
+	private final RelatedItemsChunkedCleanupHook<CustomerModel> hook = new RelatedItemsChunkedCleanupHook<>();
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+		hook.setFlexibleSearchService(flexibleSearchService);
+		hook.setModelService(modelService);
+		hook.setTypeCode("Address");
+		hook.setReferenceAttribute("owner");
+	}
+
+	@Test
+	public void shouldRemoveRelatedItemsOfChunkAtOnce()
+	{
+		final List<PK> pks = Arrays.asList(PK.fromLong(1L), PK.fromLong(2L));
+		final List<AddressModel> addresses = Arrays.asList(new AddressModel(), new AddressModel());
+		doReturn(new SearchResultImpl<>(addresses, 2, -1, 0)).when(flexibleSearchService)
+				.search(any(FlexibleSearchQuery.class));
+
+		hook.cleanupRelatedObjectsOfChunk(pks);
+
+		final ArgumentCaptor<FlexibleSearchQuery> query = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(query.capture());
+		Assert.assertEquals("SELECT {pk} FROM {Address} WHERE {owner} IN (?pks)", query.getValue().getQuery());
+		Assert.assertEquals(pks, query.getValue().getQueryParameters().get("pks"));
+		verify(modelService).removeAll(addresses);
+	}
+
+	@Test
+	public void shouldRemoveRelatedItemsOfSingleItem()
+	{
+		final CustomerModel customer = mock(CustomerModel.class);
+		doReturn(PK.fromLong(1L)).when(customer).getPk();
+		doReturn(new SearchResultImpl<>(Collections.emptyList(), 0, -1, 0)).when(flexibleSearchService)
+				.search(any(FlexibleSearchQuery.class));
+
+		hook.cleanupRelatedObjects(customer);
+
+		final ArgumentCaptor<FlexibleSearchQuery> query = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService).search(query.capture());
+		Assert.assertEquals(Collections.singletonList(PK.fromLong(1L)),
+				query.getValue().getQueryParameters().get("pks"));
+		verify(modelService, never()).removeAll(anyCollection());
+	}
+}
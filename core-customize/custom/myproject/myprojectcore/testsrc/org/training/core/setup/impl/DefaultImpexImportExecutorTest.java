@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.setup.impl;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.Tenant;
+import org.training.core.setup.ImpexImportResult;
+import org.training.core.setup.ImpexImportResult.Status;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+@UnitTest
+public class DefaultImpexImportExecutorTest
+{
+	private static final String ESSENTIAL = "/test/essential-data.impex";
+	private static final String COUNTRIES = "/test/countries.impex";
+	private static final String DELIVERY_MODES = "/test/delivery-modes.impex";
+	private static final String THEMES = "/test/themes.impex";
+
+	private final Map<String, List<String>> prerequisites = new HashMap<>();
+	private final Map<String, List<String>> localizedFiles = new HashMap<>();
+	private final Set<String> failing = new HashSet<>();
+	private final List<String> imported = new CopyOnWriteArrayList<>();
+	private final Set<String> importThreads = ConcurrentHashMap.newKeySet();
+
+	private DefaultImpexImportExecutor executor;
+
+	@Before
+	public void setUp()
+	{
+		prerequisites.put(COUNTRIES, Collections.singletonList(ESSENTIAL));
+		prerequisites.put(DELIVERY_MODES, Arrays.asList(ESSENTIAL, COUNTRIES));
+		localizedFiles.put(ESSENTIAL, Arrays.asList("/test/essential-data_de.impex", "/test/essential-data_en.impex"));
+		localizedFiles.put(COUNTRIES, Arrays.asList("/test/countries_de.impex", "/test/countries_en.impex"));
+
+		executor = new DefaultImpexImportExecutor()
+		{
+			@Override
+			protected List<String> getPrerequisites(final String file)
+			{
+				return prerequisites.getOrDefault(file, Collections.emptyList());
+			}
+
+			@Override
+			protected List<String> getLocalizedFiles(final String file)
+			{
+				return localizedFiles.getOrDefault(file, Collections.emptyList());
+			}
+
+			@Override
+			protected boolean importFile(final String file)
+			{
+				importThreads.add(Thread.currentThread().getName());
+				try
+				{
+					Thread.sleep(20);
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				imported.add(file);
+				return !failing.contains(file);
+			}
+
+			@Override
+			protected <T> T executeInSession(final Supplier<T> task, final Tenant tenant)
+			{
+				return task.get();
+			}
+		};
+		executor.setThreads(4);
+	}
+
+	@Test
+	public void shouldImportPrerequisitesAndTheirLocalizedFilesFirst()
+	{
+		final List<ImpexImportResult> results = executor
+				.importFiles(Arrays.asList(ESSENTIAL, COUNTRIES, DELIVERY_MODES, THEMES));
+
+		Assert.assertEquals(8, results.size());
+		for (final ImpexImportResult result : results)
+		{
+			Assert.assertEquals(Status.IMPORTED, result.getStatus());
+		}
+		assertImportedBefore(ESSENTIAL, "/test/essential-data_de.impex");
+		assertImportedBefore("/test/essential-data_en.impex", COUNTRIES);
+		assertImportedBefore("/test/essential-data_de.impex", COUNTRIES);
+		assertImportedBefore("/test/countries_de.impex", DELIVERY_MODES);
+		assertImportedBefore("/test/countries_en.impex", DELIVERY_MODES);
+		Assert.assertTrue(importThreads.size() > 1);
+	}
+
+	@Test
+	public void shouldImportInGivenOrderOnCallingThreadWithOneThread()
+	{
+		executor.setThreads(1);
+
+		executor.importFiles(Arrays.asList(THEMES, DELIVERY_MODES, COUNTRIES, ESSENTIAL));
+
+		Assert.assertEquals(Arrays.asList(THEMES, ESSENTIAL, "/test/essential-data_de.impex",
+				"/test/essential-data_en.impex", COUNTRIES, "/test/countries_de.impex", "/test/countries_en.impex",
+				DELIVERY_MODES), imported);
+		Assert.assertEquals(Collections.singleton(Thread.currentThread().getName()), importThreads);
+	}
+
+	@Test
+	public void shouldImportFilesRequiringFailedFileByDefault()
+	{
+		failing.add(COUNTRIES);
+
+		final List<ImpexImportResult> results = executor
+				.importFiles(Arrays.asList(ESSENTIAL, COUNTRIES, DELIVERY_MODES, THEMES));
+
+		Assert.assertEquals(8, results.size());
+		Assert.assertEquals(Status.FAILED, getResult(results, COUNTRIES).getStatus());
+		Assert.assertEquals(Status.IMPORTED, getResult(results, "/test/countries_de.impex").getStatus());
+		Assert.assertEquals(Status.IMPORTED, getResult(results, DELIVERY_MODES).getStatus());
+		assertImportedBefore("/test/countries_en.impex", DELIVERY_MODES);
+	}
+
+	@Test
+	public void shouldSkipFilesRequiringFailedFileIfConfigured()
+	{
+		executor.setSkipDependentsOfFailedFiles(true);
+		failing.add("/test/countries_en.impex");
+
+		final List<ImpexImportResult> results = executor
+				.importFiles(Arrays.asList(ESSENTIAL, COUNTRIES, DELIVERY_MODES, THEMES));
+
+		Assert.assertEquals(Status.FAILED, getResult(results, "/test/countries_en.impex").getStatus());
+		Assert.assertEquals(Status.SKIPPED, getResult(results, DELIVERY_MODES).getStatus());
+		Assert.assertEquals(Status.IMPORTED, getResult(results, THEMES).getStatus());
+		Assert.assertFalse(imported.contains(DELIVERY_MODES));
+	}
+
+	@Test
+	public void shouldIgnorePrerequisitesOutsideTheCall()
+	{
+		final List<ImpexImportResult> results = executor.importFiles(Collections.singletonList(DELIVERY_MODES));
+
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(Collections.singletonList(DELIVERY_MODES), imported);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldRejectCyclicPrerequisites()
+	{
+		prerequisites.put(ESSENTIAL, Collections.singletonList(DELIVERY_MODES));
+
+		executor.importFiles(Arrays.asList(ESSENTIAL, COUNTRIES, DELIVERY_MODES));
+	}
+
+	private void assertImportedBefore(final String first, final String second)
+	{
+		Assert.assertTrue(first + " before " + second, imported.indexOf(first) < imported.indexOf(second));
+	}
+
+	private ImpexImportResult getResult(final List<ImpexImportResult> results, final String file)
+	{
+		return results.stream().filter(result -> result.getFile().equals(file)).findFirst()
+				.orElseThrow(() -> new AssertionError("No result for " + file));
+	}
+}
@@ -5,8 +5,10 @@ package org.training.core.suggestion.impl;
 
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 import de.hybris.bootstrap.annotations.UnitTest;
+import org.training.core.suggestion.SuggestionRankingService;
 import org.training.core.suggestion.dao.impl.DefaultSimpleSuggestionDao;
 import de.hybris.platform.catalog.enums.ProductReferenceTypeEnum;
 import de.hybris.platform.category.model.CategoryModel;
@@ -33,6 +35,8 @@ public class DefaultSimpleSuggestionServiceTest
 {
 	@Mock
 	private DefaultSimpleSuggestionDao simpleSuggestionDao;
+	@Mock
+	private SuggestionRankingService suggestionRankingService;
 	private DefaultSimpleSuggestionService defaultSimpleSuggestionService;
 
 	@Before
@@ -41,6 +45,7 @@ public class DefaultSimpleSuggestionServiceTest
 		MockitoAnnotations.initMocks(this);
 		defaultSimpleSuggestionService = new DefaultSimpleSuggestionService();
 		defaultSimpleSuggestionService.setSimpleSuggestionDao(simpleSuggestionDao);
+		defaultSimpleSuggestionService.setSuggestionRankingService(suggestionRankingService);
 	}
 
 	@Test
@@ -60,4 +65,32 @@ public class DefaultSimpleSuggestionServiceTest
 				excludePurchased, limit);
 		Assert.assertEquals(result, actual);
 	}
+
+	@Test
+	public void testGetReferencesForProductsUsesQueryWhileRankingIsDisabled()
+	{
+		final UserModel user = mock(UserModel.class);
+		final List<ProductModel> products = Collections.singletonList(mock(ProductModel.class));
+		final List<ProductReferenceTypeEnum> types = Collections.singletonList(ProductReferenceTypeEnum.FOLLOWUP);
+		final List<ProductModel> result = Collections.singletonList(mock(ProductModel.class));
+		given(simpleSuggestionDao.findProductsRelatedToProducts(products, types, user, false, NumberUtils.INTEGER_ONE))
+				.willReturn(result);
+
+		Assert.assertEquals(result,
+				defaultSimpleSuggestionService.getReferencesForProducts(products, types, user, false, NumberUtils.INTEGER_ONE));
+		verifyZeroInteractions(suggestionRankingService);
+	}
+
+	@Test
+	public void testGetReferencesForProductsUsesRankingWhenEnabled()
+	{
+		final UserModel user = mock(UserModel.class);
+		final List<ProductModel> products = Collections.singletonList(mock(ProductModel.class));
+		final List<ProductModel> result = Collections.singletonList(mock(ProductModel.class));
+		given(suggestionRankingService.getRankedReferences(products, null, 1)).willReturn(result);
+		defaultSimpleSuggestionService.setRankingEnabled(true);
+
+		Assert.assertEquals(result,
+				defaultSimpleSuggestionService.getReferencesForProducts(products, null, user, false, NumberUtils.INTEGER_ONE));
+	}
 }
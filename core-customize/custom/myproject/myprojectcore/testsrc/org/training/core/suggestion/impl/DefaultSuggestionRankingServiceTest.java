@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.suggestion.impl;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.catalog.enums.ProductReferenceTypeEnum;
+import de.hybris.platform.catalog.model.ProductReferenceModel;
+import de.hybris.platform.catalog.references.ProductReferenceService;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.servicelayer.config.ConfigurationService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.time.TimeService;
+import de.hybris.platform.stock.StockService;
+import org.training.core.suggestion.dao.SimpleSuggestionDao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+/**
+ * JUnit test suite for {@link DefaultSuggestionRankingService}
+ */
+@UnitTest
+public class DefaultSuggestionRankingServiceTest
+{
+	private static final long NOW = 1_600_000_000_000L;
+
+	@Mock
+	private SimpleSuggestionDao simpleSuggestionDao;
+	@Mock
+	private ProductReferenceService productReferenceService;
+	@Mock
+	private StockService stockService;
+	@Mock
+	private ModelService modelService;
+	@Mock
+	private TimeService timeService;
+	@Mock
+	private ConfigurationService configurationService;
+
+	private DefaultSuggestionRankingService rankingService;
+	private ProductModel source;
+	private ProductModel accessory;
+	private ProductModel similar;
+	private ProductModel followUp;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		MockitoAnnotations.initMocks(this);
+		rankingService = new DefaultSuggestionRankingService();
+		rankingService.setSimpleSuggestionDao(simpleSuggestionDao);
+		rankingService.setProductReferenceService(productReferenceService);
+		rankingService.setStockService(stockService);
+		rankingService.setModelService(modelService);
+		rankingService.setTimeService(timeService);
+		rankingService.setConfigurationService(configurationService);
+		rankingService.setReferenceTypeWeights(Collections.singletonMap(ProductReferenceTypeEnum.ACCESSORIES.getCode(),
+				Double.valueOf(3D)));
+
+		given(configurationService.getConfiguration()).willReturn(new BaseConfiguration());
+		given(timeService.getCurrentTime()).willReturn(new Date(NOW));
+		given(simpleSuggestionDao.findCoPurchasedProducts(any(ProductModel.class), any(Date.class)))
+				.willReturn(Collections.emptyList());
+
+		source = createProduct(1L);
+		accessory = createProduct(2L);
+		similar = createProduct(3L);
+		followUp = createProduct(4L);
+	}
+
+	@Test
+	public void testRanksByReferenceTypeWeight()
+	{
+		givenReferences(source, reference(similar, ProductReferenceTypeEnum.SIMILAR),
+				reference(accessory, ProductReferenceTypeEnum.ACCESSORIES));
+
+		final List<ProductModel> result = rankingService.getRankedReferences(Collections.singletonList(source), null, 10);
+
+		Assert.assertEquals(Arrays.asList(accessory, similar), result);
+	}
+
+	@Test
+	public void testRecentCoPurchasesOutweighOldOnes()
+	{
+		givenReferences(source, reference(similar, ProductReferenceTypeEnum.SIMILAR),
+				reference(followUp, ProductReferenceTypeEnum.FOLLOWUP));
+		final List<List<Object>> coPurchases = Arrays.asList(row(similar, 2, daysAgo(120)),
+				row(followUp, 1, daysAgo(1)));
+		given(simpleSuggestionDao.findCoPurchasedProducts(eq(source), any(Date.class))).willReturn(coPurchases);
+
+		final List<ProductModel> result = rankingService.getRankedReferences(Collections.singletonList(source), null, 10);
+
+		Assert.assertEquals(Arrays.asList(followUp, similar), result);
+	}
+
+	@Test
+	public void testOutOfStockProductsArePenalized()
+	{
+		givenReferences(source, reference(accessory, ProductReferenceTypeEnum.ACCESSORIES),
+				reference(similar, ProductReferenceTypeEnum.SIMILAR));
+		final StockLevelModel stockLevel = mock(StockLevelModel.class);
+		given(Integer.valueOf(stockLevel.getAvailable())).willReturn(Integer.valueOf(0));
+		given(Integer.valueOf(stockLevel.getReserved())).willReturn(Integer.valueOf(0));
+		given(stockService.getAllStockLevels(accessory)).willReturn(Collections.singletonList(stockLevel));
+
+		final List<ProductModel> result = rankingService.getRankedReferences(Collections.singletonList(source), null, 10);
+
+		Assert.assertEquals(Arrays.asList(similar, accessory), result);
+	}
+
+	@Test
+	public void testFiltersByReferenceTypeAndLimit()
+	{
+		givenReferences(source, reference(accessory, ProductReferenceTypeEnum.ACCESSORIES),
+				reference(similar, ProductReferenceTypeEnum.SIMILAR), reference(followUp, ProductReferenceTypeEnum.SIMILAR));
+
+		Assert.assertEquals(Collections.singletonList(accessory), rankingService.getRankedReferences(
+				Collections.singletonList(source), Collections.singletonList(ProductReferenceTypeEnum.ACCESSORIES), 10));
+		Assert.assertEquals(1, rankingService
+				.getRankedReferences(Collections.singletonList(source), Collections.singletonList(ProductReferenceTypeEnum.SIMILAR), 1)
+				.size());
+	}
+
+	@Test
+	public void testMergesRankingsAndExcludesSources()
+	{
+		givenReferences(source, reference(accessory, ProductReferenceTypeEnum.ACCESSORIES),
+				reference(similar, ProductReferenceTypeEnum.SIMILAR));
+		givenReferences(followUp, reference(similar, ProductReferenceTypeEnum.SIMILAR),
+				reference(similar, ProductReferenceTypeEnum.SIMILAR), reference(similar, ProductReferenceTypeEnum.SIMILAR),
+				reference(source, ProductReferenceTypeEnum.FOLLOWUP));
+
+		final List<ProductModel> result = rankingService.getRankedReferences(Arrays.asList(source, followUp), null, 10);
+
+		Assert.assertEquals(Arrays.asList(similar, accessory), result);
+	}
+
+	@Test
+	public void testReusesPrecomputedRankingUntilExpired()
+	{
+		givenReferences(source, reference(accessory, ProductReferenceTypeEnum.ACCESSORIES));
+
+		rankingService.getRankedReferences(Collections.singletonList(source), null, 10);
+		rankingService.getRankedReferences(Collections.singletonList(source), null, 10);
+		verify(productReferenceService, times(1)).getProductReferencesForSourceProduct(source, null, false);
+
+		given(timeService.getCurrentTime()).willReturn(new Date(NOW + TimeUnit.HOURS.toMillis(2)));
+		rankingService.getRankedReferences(Collections.singletonList(source), null, 10);
+		verify(productReferenceService, times(2)).getProductReferencesForSourceProduct(source, null, false);
+	}
+
+	@Test
+	public void testFiltersBeforeLimitingTheRanking()
+	{
+		final List<ProductReferenceModel> references = new ArrayList<>();
+		for (long pk = 10L; pk < 40L; pk++)
+		{
+			references.add(reference(createProduct(pk), ProductReferenceTypeEnum.ACCESSORIES));
+		}
+		references.add(reference(similar, ProductReferenceTypeEnum.SIMILAR));
+		givenReferences(source, references.toArray(new ProductReferenceModel[references.size()]));
+
+		Assert.assertEquals(Collections.singletonList(similar), rankingService.getRankedReferences(
+				Collections.singletonList(source), Collections.singletonList(ProductReferenceTypeEnum.SIMILAR), 10));
+		Assert.assertEquals(31, rankingService.getRankedReferences(Collections.singletonList(source), null, 100).size());
+	}
+
+	@Test
+	public void testDropsLeastRecentlyUsedRankings()
+	{
+		final BaseConfiguration configuration = new BaseConfiguration();
+		configuration.setProperty(DefaultSuggestionRankingService.MAX_CACHED_PRODUCTS, Integer.valueOf(1));
+		given(configurationService.getConfiguration()).willReturn(configuration);
+		givenReferences(source, reference(accessory, ProductReferenceTypeEnum.ACCESSORIES));
+		givenReferences(followUp, reference(similar, ProductReferenceTypeEnum.SIMILAR));
+
+		rankingService.getRankedReferences(Collections.singletonList(source), null, 10);
+		rankingService.getRankedReferences(Collections.singletonList(followUp), null, 10);
+		rankingService.getRankedReferences(Collections.singletonList(source), null, 10);
+
+		verify(productReferenceService, times(2)).getProductReferencesForSourceProduct(source, null, false);
+	}
+
+	private ProductModel createProduct(final long pk)
+	{
+		final ProductModel product = mock(ProductModel.class);
+		given(product.getPk()).willReturn(PK.fromLong(pk));
+		given(modelService.get(PK.fromLong(pk))).willReturn(product);
+		return product;
+	}
+
+	private ProductReferenceModel reference(final ProductModel target, final ProductReferenceTypeEnum type)
+	{
+		final ProductReferenceModel reference = mock(ProductReferenceModel.class);
+		given(reference.getTarget()).willReturn(target);
+		given(reference.getReferenceType()).willReturn(type);
+		return reference;
+	}
+
+	private void givenReferences(final ProductModel product, final ProductReferenceModel... references)
+	{
+		given(productReferenceService.getProductReferencesForSourceProduct(product, null, false))
+				.willReturn(Arrays.asList(references));
+	}
+
+	private List<Object> row(final ProductModel product, final long count, final Date latest)
+	{
+		return new ArrayList<>(Arrays.asList(product.getPk(), Long.valueOf(count), latest));
+	}
+
+	private Date daysAgo(final int days)
+	{
+		return new Date(NOW - TimeUnit.DAYS.toMillis(days));
+	}
+}
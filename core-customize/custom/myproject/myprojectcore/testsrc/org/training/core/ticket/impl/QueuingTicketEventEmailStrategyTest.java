@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.core.ticket.impl;
+
+import static org.mockito.Mockito.mock;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.ticket.events.model.CsTicketEventModel;
+import de.hybris.platform.ticket.model.CsTicketModel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * JUnit test suite for {@link QueuingTicketEventEmailStrategy}
+ */
+@UnitTest
+public class QueuingTicketEventEmailStrategyTest
+{
+	private final List<CsTicketEventModel> sentEvents = new CopyOnWriteArrayList<>();
+	private final List<CsTicketEventModel> failingEvents = new CopyOnWriteArrayList<>();
+	private final List<CsTicketEventModel> erroringEvents = new CopyOnWriteArrayList<>();
+	private QueuingTicketEventEmailStrategy strategy;
+	private CsTicketModel ticket;
+
+	@Before
+	public void setUp()
+	{
+		strategy = new QueuingTicketEventEmailStrategy()
+		{
+			@Override
+			protected void sendEmails(final CsTicketModel csTicket, final CsTicketEventModel event)
+			{
+				if (failingEvents.contains(event))
+				{
+					throw new IllegalStateException("test");
+				}
+				if (erroringEvents.contains(event))
+				{
+					throw new AssertionError("test");
+				}
+				sentEvents.add(event);
+			}
+		};
+		ticket = mock(CsTicketModel.class);
+	}
+
+	@Test
+	public void shouldSendRightAwayWithoutQueue()
+	{
+		final CsTicketEventModel event = mock(CsTicketEventModel.class);
+
+		strategy.sendEmailsForEvent(ticket, event);
+
+		Assert.assertEquals(Collections.singletonList(event), sentEvents);
+		Assert.assertEquals(0, strategy.flushQueue());
+	}
+
+	@Test
+	public void shouldHoldBackEventsUntilFlushed()
+	{
+		final CsTicketEventModel event1 = mock(CsTicketEventModel.class);
+		final CsTicketEventModel event2 = mock(CsTicketEventModel.class);
+		strategy.startQueue();
+
+		strategy.sendEmailsForEvent(ticket, event1);
+		strategy.sendEmailsForEvent(ticket, event2);
+		Assert.assertTrue(sentEvents.isEmpty());
+
+		Assert.assertEquals(2, strategy.flushQueue());
+		Assert.assertEquals(Arrays.asList(event1, event2), sentEvents);
+
+		// queueing stops with the flush
+		final CsTicketEventModel event3 = mock(CsTicketEventModel.class);
+		strategy.sendEmailsForEvent(ticket, event3);
+		Assert.assertEquals(Arrays.asList(event1, event2, event3), sentEvents);
+	}
+
+	@Test
+	public void shouldDropEventsWhenDiscarded()
+	{
+		strategy.startQueue();
+		strategy.sendEmailsForEvent(ticket, mock(CsTicketEventModel.class));
+		strategy.sendEmailsForEvent(ticket, mock(CsTicketEventModel.class));
+
+		Assert.assertEquals(2, strategy.discardQueue());
+		Assert.assertEquals(0, strategy.flushQueue());
+		Assert.assertTrue(sentEvents.isEmpty());
+	}
+
+	@Test
+	public void shouldCountOnlySentEventsAndContinueAfterFailure()
+	{
+		final CsTicketEventModel failing = mock(CsTicketEventModel.class);
+		final CsTicketEventModel event = mock(CsTicketEventModel.class);
+		failingEvents.add(failing);
+		strategy.startQueue();
+		strategy.sendEmailsForEvent(ticket, failing);
+		strategy.sendEmailsForEvent(ticket, event);
+
+		Assert.assertEquals(1, strategy.flushQueue());
+		Assert.assertEquals(Collections.singletonList(event), sentEvents);
+	}
+
+	@Test
+	public void shouldCloseQueueWhenErrorEscapesFlush()
+	{
+		final CsTicketEventModel erroring = mock(CsTicketEventModel.class);
+		erroringEvents.add(erroring);
+		strategy.startQueue();
+		strategy.sendEmailsForEvent(ticket, erroring);
+
+		try
+		{
+			strategy.flushQueue();
+			Assert.fail("Expected the error to escape the flush");
+		}
+		catch (final AssertionError e)
+		{
+			Assert.assertEquals("test", e.getMessage());
+		}
+
+		final CsTicketEventModel event = mock(CsTicketEventModel.class);
+		strategy.sendEmailsForEvent(ticket, event);
+		Assert.assertEquals(Collections.singletonList(event), sentEvents);
+	}
+
+	@Test
+	public void shouldQueuePerThread() throws InterruptedException
+	{
+		strategy.startQueue();
+		final CsTicketEventModel event = mock(CsTicketEventModel.class);
+
+		final Thread other = new Thread(() -> strategy.sendEmailsForEvent(ticket, event));
+		other.start();
+		other.join();
+
+		Assert.assertEquals(Collections.singletonList(event), sentEvents);
+		Assert.assertEquals(0, strategy.flushQueue());
+	}
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.facades.order;
+
+import de.hybris.platform.commercefacades.order.data.OrderData;
+import de.hybris.platform.core.model.order.OrderModel;
+
+
+/**
+ * Keeps converted orders for a short time, so the emails sent for one order, e.g. the order confirmation and the
+ * delivery notification of a single consignment order, do not convert it again.
+ *
+ * The returned data is shared and must be treated as read only.
+ */
+public interface OrderDataCache
+{
+	/**
+	 * Returns the converted order for the current session language and currency, converting it if this version of the
+	 * order was not converted yet.
+	 *
+	 * @param order
+	 *           the order
+	 * @return the converted order
+	 */
+	OrderData getOrderData(OrderModel order);
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.facades.order.impl;
+
+import de.hybris.platform.commercefacades.order.data.OrderData;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.core.model.c2l.CurrencyModel;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.ordersplitting.model.ConsignmentEntryModel;
+import de.hybris.platform.ordersplitting.model.ConsignmentModel;
+import de.hybris.platform.payment.model.PaymentTransactionEntryModel;
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+import de.hybris.platform.servicelayer.dto.converter.Converter;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import org.training.facades.order.OrderDataCache;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Default implementation of {@link OrderDataCache}.
+ *
+ * Entries are keyed by the order PK, a version of the order and the session language and currency, so a changed order
+ * or an email in another language is converted again. The version is a hash over the modification times of the order,
+ * its consignments and payment transactions and their entries, as the converted order shows them and saving them does
+ * not touch the order. Entries expire after {@link #setTimeToLiveSeconds(long)}; when {@link #setMaxEntries(int)} is
+ * reached the expired entries are dropped and, if that is not enough, the cache is cleared.
+ *
+ * The time spent converting is measured, the time saved is estimated as the mean conversion time per hit. The counters
+ * are registered in the platform MBean server as
+ * <code>org.training.facades:type=OrderDataCache,tenant=&lt;tenant id&gt;</code>.
+ */
+public class DefaultOrderDataCache implements OrderDataCache, OrderDataCacheMXBean, InitializingBean, DisposableBean
+{
+	private static final Logger LOG = Logger.getLogger(DefaultOrderDataCache.class);
+
+	private final ConcurrentMap<CacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder convertNanos = new LongAdder();
+
+	private Converter<OrderModel, OrderData> orderConverter;
+	private CommonI18NService commonI18NService;
+	private long timeToLiveSeconds = 600L;
+	private int maxEntries = 1000;
+	private ObjectName objectName;
+
+	@Override
+	public void afterPropertiesSet()
+	{
+		final Tenant tenant = Registry.getCurrentTenantNoFallback();
+		try
+		{
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			objectName = new ObjectName("org.training.facades:type=OrderDataCache"
+					+ (tenant == null ? "" : ",tenant=" + ObjectName.quote(tenant.getTenantID())));
+			if (server.isRegistered(objectName))
+			{
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(this, objectName);
+		}
+		catch (final JMException e)
+		{
+			LOG.warn("Order data cache metrics are not available through JMX", e);
+			objectName = null;
+		}
+	}
+
+	@Override
+	public void destroy() throws JMException
+	{
+		if (objectName != null && ManagementFactory.getPlatformMBeanServer().isRegistered(objectName))
+		{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+	}
+
+	@Override
+	public OrderData getOrderData(final OrderModel order)
+	{
+		final CacheKey key = createKey(order);
+		final long now = System.currentTimeMillis();
+		final CacheEntry entry = key == null ? null : entries.get(key);
+		if (entry != null && entry.expiresAt > now)
+		{
+			hits.increment();
+			if (LOG.isDebugEnabled())
+			{
+				LOG.debug("Reused converted order " + order.getCode() + ", saved about " + getMeanConvertMillis() + "ms");
+			}
+			return entry.orderData;
+		}
+
+		final long started = System.nanoTime();
+		final OrderData orderData = getOrderConverter().convert(order);
+		convertNanos.add(System.nanoTime() - started);
+		misses.increment();
+
+		if (key != null)
+		{
+			if (entries.size() >= getMaxEntries())
+			{
+				evict(now);
+			}
+			entries.put(key, new CacheEntry(orderData, now + TimeUnit.SECONDS.toMillis(getTimeToLiveSeconds())));
+		}
+		return orderData;
+	}
+
+	/**
+	 * @return the key of the order, <code>null</code> for orders that are not saved yet
+	 */
+	protected CacheKey createKey(final OrderModel order)
+	{
+		if (order.getPk() == null)
+		{
+			return null;
+		}
+		final LanguageModel language = getCommonI18NService().getCurrentLanguage();
+		final CurrencyModel currency = getCommonI18NService().getCurrentCurrency();
+		return new CacheKey(order.getPk().getLongValue(), getVersion(order),
+				language == null ? null : language.getIsocode(), currency == null ? null : currency.getIsocode());
+	}
+
+	/**
+	 * @return a hash over the modification times of the order and of the consignments and payment transactions shown
+	 *         with it, changes when one of them is saved, added or removed
+	 */
+	protected long getVersion(final OrderModel order)
+	{
+		long version = modifiedTime(order);
+		for (final ConsignmentModel consignment : nullSafe(order.getConsignments()))
+		{
+			version = 31 * version + modifiedTime(consignment);
+			for (final ConsignmentEntryModel entry : nullSafe(consignment.getConsignmentEntries()))
+			{
+				version = 31 * version + modifiedTime(entry);
+			}
+		}
+		for (final PaymentTransactionModel transaction : nullSafe(order.getPaymentTransactions()))
+		{
+			version = 31 * version + modifiedTime(transaction);
+			for (final PaymentTransactionEntryModel entry : nullSafe(transaction.getEntries()))
+			{
+				version = 31 * version + modifiedTime(entry);
+			}
+		}
+		return version;
+	}
+
+	private static long modifiedTime(final ItemModel item)
+	{
+		return item.getModifiedtime() == null ? 0L : item.getModifiedtime().getTime();
+	}
+
+	private static <T> Collection<T> nullSafe(final Collection<T> items)
+	{
+		return items == null ? Collections.<T> emptyList() : items;
+	}
+
+	protected void evict(final long now)
+	{
+		for (final Iterator<Map.Entry<CacheKey, CacheEntry>> it = entries.entrySet().iterator(); it.hasNext();)
+		{
+			if (it.next().getValue().expiresAt <= now)
+			{
+				it.remove();
+			}
+		}
+		if (entries.size() >= getMaxEntries())
+		{
+			entries.clear();
+		}
+	}
+
+	@Override
+	public void clear()
+	{
+		entries.clear();
+	}
+
+	@Override
+	public int getSize()
+	{
+		return entries.size();
+	}
+
+	@Override
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	@Override
+	public long getMisses()
+	{
+		return misses.sum();
+	}
+
+	@Override
+	public double getMeanConvertMillis()
+	{
+		final long converted = misses.sum();
+		return converted == 0 ? 0D : convertNanos.sum() / (double) converted / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public double getMeanSavedMillis()
+	{
+		final long requested = hits.sum() + misses.sum();
+		return requested == 0 ? 0D : hits.sum() * getMeanConvertMillis() / requested;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Order data cache: hits=" + getHits() + ", misses=" + getMisses() + ", meanConvert=" + getMeanConvertMillis()
+				+ "ms, meanSaved=" + getMeanSavedMillis() + "ms";
+	}
+
+	protected Converter<OrderModel, OrderData> getOrderConverter()
+	{
+		return orderConverter;
+	}
+
+	@Required
+	public void setOrderConverter(final Converter<OrderModel, OrderData> orderConverter)
+	{
+		this.orderConverter = orderConverter;
+	}
+
+	protected CommonI18NService getCommonI18NService()
+	{
+		return commonI18NService;
+	}
+
+	@Required
+	public void setCommonI18NService(final CommonI18NService commonI18NService)
+	{
+		this.commonI18NService = commonI18NService;
+	}
+
+	protected long getTimeToLiveSeconds()
+	{
+		return timeToLiveSeconds;
+	}
+
+	/**
+	 * @param timeToLiveSeconds
+	 *           how long a converted order is reused
+	 */
+	public void setTimeToLiveSeconds(final long timeToLiveSeconds)
+	{
+		this.timeToLiveSeconds = timeToLiveSeconds;
+	}
+
+	protected int getMaxEntries()
+	{
+		return maxEntries;
+	}
+
+	public void setMaxEntries(final int maxEntries)
+	{
+		this.maxEntries = maxEntries;
+	}
+
+	protected static final class CacheKey
+	{
+		private final long orderPk;
+		private final long version;
+		private final String language;
+		private final String currency;
+
+		protected CacheKey(final long orderPk, final long version, final String language, final String currency)
+		{
+			this.orderPk = orderPk;
+			this.version = version;
+			this.language = language;
+			this.currency = currency;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof CacheKey))
+			{
+				return false;
+			}
+			final CacheKey other = (CacheKey) obj;
+			return orderPk == other.orderPk && version == other.version && Objects.equals(language, other.language)
+					&& Objects.equals(currency, other.currency);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(Long.valueOf(orderPk), Long.valueOf(version), language, currency);
+		}
+	}
+
+	protected static final class CacheEntry
+	{
+		private final OrderData orderData;
+		private final long expiresAt;
+
+		protected CacheEntry(final OrderData orderData, final long expiresAt)
+		{
+			this.orderData = orderData;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
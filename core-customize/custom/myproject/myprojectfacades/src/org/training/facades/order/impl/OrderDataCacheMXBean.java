@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.facades.order.impl;
+
+/**
+ * JMX view of the {@link DefaultOrderDataCache}.
+ */
+public interface OrderDataCacheMXBean
+{
+	/**
+	 * @return number of cached converted orders, including expired ones not evicted yet
+	 */
+	int getSize();
+
+	/**
+	 * @return number of requests answered from the cache
+	 */
+	long getHits();
+
+	/**
+	 * @return number of requests that converted the order
+	 */
+	long getMisses();
+
+	/**
+	 * @return mean time of a conversion
+	 */
+	double getMeanConvertMillis();
+
+	/**
+	 * @return the estimated conversion time saved per requested order
+	 */
+	double getMeanSavedMillis();
+
+	/**
+	 * Drops all cached orders.
+	 */
+	void clear();
+}
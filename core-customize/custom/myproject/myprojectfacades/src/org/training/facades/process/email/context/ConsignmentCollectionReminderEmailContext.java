@@ -16,6 +16,7 @@ import de.hybris.platform.core.model.user.CustomerModel;
 import de.hybris.platform.ordersplitting.model.ConsignmentModel;
 import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
 import de.hybris.platform.servicelayer.dto.converter.Converter;
+import org.training.facades.order.OrderDataCache;
 import de.hybris.platform.servicelayer.i18n.FormatFactory;
 
 import java.text.DateFormat;
@@ -40,7 +41,8 @@ public class ConsignmentCollectionReminderEmailContext extends AbstractEmailCont
 	private String orderGuid;
 	private String pickUpDate;
 	private boolean guest;
-	private Converter<OrderModel, OrderData> orderConverter;
+	private OrderDataCache orderDataCache;
+	private OrderModel orderModel;
 	private OrderData orderData;
 
 	@Override
@@ -54,13 +56,22 @@ public class ConsignmentCollectionReminderEmailContext extends AbstractEmailCont
 		final DateFormat dateFormat = getFormatFactory().createDateTimeFormat(DateFormat.MEDIUM, -1);
 		pickUpDate = dateFormat.format(DateUtils.addHours(consignmentProcessModel.getConsignment().getShippingDate(),
 				getCustomerServiceUncollectedConsignmentStrategy().getTimeThreshold().intValue()));
-		orderData = getOrderConverter().convert((OrderModel) consignmentProcessModel.getConsignment().getOrder());
+		initOrder((OrderModel) consignmentProcessModel.getConsignment().getOrder());
 		if (LOG.isDebugEnabled())
 		{
 			LOG.debug("Initialized with order code " + orderCode);
 		}
 	}
 
+	/**
+	 * Keeps the order for {@link #getOrder()}, which converts it on first access.
+	 */
+	protected void initOrder(final OrderModel order)
+	{
+		orderModel = order;
+		orderData = null;
+	}
+
 	@Override
 	protected BaseSiteModel getSite(final ConsignmentProcessModel consignmentProcessModel)
 	{
@@ -145,19 +156,26 @@ public class ConsignmentCollectionReminderEmailContext extends AbstractEmailCont
 		this.formatFactory = formatFactory;
 	}
 
-	protected Converter<OrderModel, OrderData> getOrderConverter()
+	protected OrderDataCache getOrderDataCache()
 	{
-		return orderConverter;
+		return orderDataCache;
 	}
 
 	@Required
-	public void setOrderConverter(final Converter<OrderModel, OrderData> orderConverter)
+	public void setOrderDataCache(final OrderDataCache orderDataCache)
 	{
-		this.orderConverter = orderConverter;
+		this.orderDataCache = orderDataCache;
 	}
 
+	/**
+	 * @return the converted order, converted on first use only, as not every template shows it
+	 */
 	public OrderData getOrder()
 	{
+		if (orderData == null && orderModel != null)
+		{
+			orderData = getOrderDataCache().getOrderData(orderModel);
+		}
 		return orderData;
 	}
 }
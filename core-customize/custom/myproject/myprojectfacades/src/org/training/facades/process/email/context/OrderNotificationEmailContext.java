@@ -12,7 +12,7 @@ import de.hybris.platform.core.model.c2l.LanguageModel;
 import de.hybris.platform.core.model.order.OrderModel;
 import de.hybris.platform.core.model.user.CustomerModel;
 import de.hybris.platform.orderprocessing.model.OrderProcessModel;
-import de.hybris.platform.servicelayer.dto.converter.Converter;
+import org.training.facades.order.OrderDataCache;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,7 +26,8 @@ import org.springframework.beans.factory.annotation.Required;
  */
 public class OrderNotificationEmailContext extends AbstractEmailContext<OrderProcessModel>
 {
-	private Converter<OrderModel, OrderData> orderConverter;
+	private OrderDataCache orderDataCache;
+	private OrderModel orderModel;
 	private OrderData orderData;
 	private List<CouponData> giftCoupons;
 
@@ -34,12 +35,19 @@ public class OrderNotificationEmailContext extends AbstractEmailContext<OrderPro
 	public void init(final OrderProcessModel orderProcessModel, final EmailPageModel emailPageModel)
 	{
 		super.init(orderProcessModel, emailPageModel);
-		orderData = getOrderConverter().convert(orderProcessModel.getOrder());
+		initOrder(orderProcessModel.getOrder());
+	}
 
-		giftCoupons = orderData.getAppliedOrderPromotions().stream()
-				.filter(x -> CollectionUtils.isNotEmpty(x.getGiveAwayCouponCodes())).flatMap(p -> p.getGiveAwayCouponCodes().stream())
-				.collect(Collectors.toList());
+	/**
+	 * Keeps the order for {@link #getOrder()}, which converts it on first access.
+	 */
+	protected void initOrder(final OrderModel order)
+	{
+		orderModel = order;
+		orderData = null;
+		giftCoupons = null;
 	}
+
 	@Override
 	protected BaseSiteModel getSite(final OrderProcessModel orderProcessModel)
 	{
@@ -52,19 +60,26 @@ public class OrderNotificationEmailContext extends AbstractEmailContext<OrderPro
 		return (CustomerModel) orderProcessModel.getOrder().getUser();
 	}
 
-	protected Converter<OrderModel, OrderData> getOrderConverter()
+	protected OrderDataCache getOrderDataCache()
 	{
-		return orderConverter;
+		return orderDataCache;
 	}
 
 	@Required
-	public void setOrderConverter(final Converter<OrderModel, OrderData> orderConverter)
+	public void setOrderDataCache(final OrderDataCache orderDataCache)
 	{
-		this.orderConverter = orderConverter;
+		this.orderDataCache = orderDataCache;
 	}
 
+	/**
+	 * @return the converted order, converted on first use only, as not every template shows it
+	 */
 	public OrderData getOrder()
 	{
+		if (orderData == null && orderModel != null)
+		{
+			orderData = getOrderDataCache().getOrderData(orderModel);
+		}
 		return orderData;
 	}
 
@@ -76,6 +91,12 @@ public class OrderNotificationEmailContext extends AbstractEmailContext<OrderPro
 
 	public List<CouponData> getCoupons()
 	{
+		if (giftCoupons == null && getOrder() != null)
+		{
+			giftCoupons = getOrder().getAppliedOrderPromotions().stream()
+					.filter(x -> CollectionUtils.isNotEmpty(x.getGiveAwayCouponCodes()))
+					.flatMap(p -> p.getGiveAwayCouponCodes().stream()).collect(Collectors.toList());
+		}
 		return giftCoupons;
 	}
 }
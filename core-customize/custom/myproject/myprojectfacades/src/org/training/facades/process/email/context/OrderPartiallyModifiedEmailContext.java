@@ -18,6 +18,7 @@ import de.hybris.platform.core.model.order.OrderModel;
 import de.hybris.platform.core.model.user.CustomerModel;
 import de.hybris.platform.ordermodify.model.OrderEntryModificationRecordEntryModel;
 import de.hybris.platform.servicelayer.dto.converter.Converter;
+import org.training.facades.order.OrderDataCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,8 +32,9 @@ import org.springframework.beans.factory.annotation.Required;
 public class OrderPartiallyModifiedEmailContext extends AbstractEmailContext<OrderModificationProcessModel>
 {
 	private Converter<AbstractOrderEntryModel, OrderEntryData> orderEntryConverter;
-	private Converter<OrderModel, OrderData> orderConverter;
+	private OrderDataCache orderDataCache;
 	private PriceDataFactory priceDataFactory;
+	private OrderModel orderModel;
 	private OrderData orderData;
 	private String orderCode;
 	private String orderGuid;
@@ -45,7 +47,7 @@ public class OrderPartiallyModifiedEmailContext extends AbstractEmailContext<Ord
 	public void init(final OrderModificationProcessModel orderProcessModel, final EmailPageModel emailPageModel)
 	{
 		super.init(orderProcessModel, emailPageModel);
-		orderData = getOrderConverter().convert(orderProcessModel.getOrder());
+		initOrder(orderProcessModel.getOrder());
 		orderCode = orderProcessModel.getOrder().getCode();
 		orderGuid = orderProcessModel.getOrder().getGuid();
 		guest = CustomerType.GUEST.equals(getCustomer(orderProcessModel).getType());
@@ -53,6 +55,15 @@ public class OrderPartiallyModifiedEmailContext extends AbstractEmailContext<Ord
 		fillModifiedEntries(orderProcessModel);
 	}
 
+	/**
+	 * Keeps the order for {@link #getOrder()}, which converts it on first access.
+	 */
+	protected void initOrder(final OrderModel order)
+	{
+		orderModel = order;
+		orderData = null;
+	}
+
 	protected void fillModifiedEntries(final OrderModificationProcessModel orderProcessModel)
 	{
 		modifiedEntries = new ArrayList<OrderEntryData>();
@@ -101,19 +112,26 @@ public class OrderPartiallyModifiedEmailContext extends AbstractEmailContext<Ord
 		return (CustomerModel) orderProcessModel.getOrder().getUser();
 	}
 
-	protected Converter<OrderModel, OrderData> getOrderConverter()
+	protected OrderDataCache getOrderDataCache()
 	{
-		return orderConverter;
+		return orderDataCache;
 	}
 
 	@Required
-	public void setOrderConverter(final Converter<OrderModel, OrderData> orderConverter)
+	public void setOrderDataCache(final OrderDataCache orderDataCache)
 	{
-		this.orderConverter = orderConverter;
+		this.orderDataCache = orderDataCache;
 	}
 
+	/**
+	 * @return the converted order, converted on first use only, as not every template shows it
+	 */
 	public OrderData getOrder()
 	{
+		if (orderData == null && orderModel != null)
+		{
+			orderData = getOrderDataCache().getOrderData(orderModel);
+		}
 		return orderData;
 	}
 
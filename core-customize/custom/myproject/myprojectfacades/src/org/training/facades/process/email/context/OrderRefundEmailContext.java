@@ -13,7 +13,7 @@ import de.hybris.platform.core.model.c2l.LanguageModel;
 import de.hybris.platform.core.model.order.OrderModel;
 import de.hybris.platform.core.model.user.CustomerModel;
 import de.hybris.platform.orderprocessing.model.OrderProcessModel;
-import de.hybris.platform.servicelayer.dto.converter.Converter;
+import org.training.facades.order.OrderDataCache;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -23,7 +23,8 @@ import org.springframework.beans.factory.annotation.Required;
  */
 public class OrderRefundEmailContext extends AbstractEmailContext<OrderProcessModel>
 {
-	private Converter<OrderModel, OrderData> orderConverter;
+	private OrderDataCache orderDataCache;
+	private OrderModel orderModel;
 	private OrderData orderData;
 	private String orderCode;
 	private String orderGuid;
@@ -35,13 +36,21 @@ public class OrderRefundEmailContext extends AbstractEmailContext<OrderProcessMo
 	public void init(final OrderProcessModel orderProcessModel, final EmailPageModel emailPageModel)
 	{
 		super.init(orderProcessModel, emailPageModel);
-		orderData = getOrderConverter().convert(orderProcessModel.getOrder());
+		initOrder(orderProcessModel.getOrder());
 		orderCode = orderProcessModel.getOrder().getCode();
 		orderGuid = orderProcessModel.getOrder().getGuid();
 		guest = CustomerType.GUEST.equals(getCustomer(orderProcessModel).getType());
 		storeName = orderProcessModel.getOrder().getStore().getName();
-		orderData = getOrderConverter().convert(orderProcessModel.getOrder());
-		refundAmount = orderData.getTotalPrice();
+	}
+
+	/**
+	 * Keeps the order for {@link #getOrder()}, which converts it on first access.
+	 */
+	protected void initOrder(final OrderModel order)
+	{
+		orderModel = order;
+		orderData = null;
+		refundAmount = null;
 	}
 
 	@Override
@@ -56,19 +65,26 @@ public class OrderRefundEmailContext extends AbstractEmailContext<OrderProcessMo
 		return (CustomerModel) orderProcessModel.getOrder().getUser();
 	}
 
-	protected Converter<OrderModel, OrderData> getOrderConverter()
+	protected OrderDataCache getOrderDataCache()
 	{
-		return orderConverter;
+		return orderDataCache;
 	}
 
 	@Required
-	public void setOrderConverter(final Converter<OrderModel, OrderData> orderConverter)
+	public void setOrderDataCache(final OrderDataCache orderDataCache)
 	{
-		this.orderConverter = orderConverter;
+		this.orderDataCache = orderDataCache;
 	}
 
+	/**
+	 * @return the converted order, converted on first use only, as not every template shows it
+	 */
 	public OrderData getOrder()
 	{
+		if (orderData == null && orderModel != null)
+		{
+			orderData = getOrderDataCache().getOrderData(orderModel);
+		}
 		return orderData;
 	}
 
@@ -80,7 +96,7 @@ public class OrderRefundEmailContext extends AbstractEmailContext<OrderProcessMo
 
 	public OrderData getOrderData()
 	{
-		return orderData;
+		return getOrder();
 	}
 
 	public void setOrderData(final OrderData orderData)
@@ -130,6 +146,10 @@ public class OrderRefundEmailContext extends AbstractEmailContext<OrderProcessMo
 
 	public PriceData getRefundAmount()
 	{
+		if (refundAmount == null && getOrder() != null)
+		{
+			refundAmount = getOrder().getTotalPrice();
+		}
 		return refundAmount;
 	}
 }
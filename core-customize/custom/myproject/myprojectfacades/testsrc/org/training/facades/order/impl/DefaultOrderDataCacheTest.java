@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.facades.order.impl;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.commercefacades.order.data.OrderData;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.c2l.CurrencyModel;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.ordersplitting.model.ConsignmentModel;
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+import de.hybris.platform.servicelayer.dto.converter.Converter;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+/**
+ * Unit test for {@link DefaultOrderDataCache}.
+ */
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultOrderDataCacheTest
+{
+	@Mock
+	private Converter<OrderModel, OrderData> orderConverter;
+	@Mock
+	private CommonI18NService commonI18NService;
+	@Mock
+	private OrderModel order;
+	@Mock
+	private LanguageModel english;
+	@Mock
+	private LanguageModel german;
+	@Mock
+	private CurrencyModel currency;
+	@Mock
+	private ConsignmentModel consignment;
+	@Mock
+	private PaymentTransactionModel transaction;
+
+	private DefaultOrderDataCache orderDataCache;
+
+	@Before
+	public void setUp()
+	{
+		orderDataCache = new DefaultOrderDataCache();
+		orderDataCache.setOrderConverter(orderConverter);
+		orderDataCache.setCommonI18NService(commonI18NService);
+
+		given(order.getPk()).willReturn(PK.fromLong(1L));
+		given(order.getModifiedtime()).willReturn(new Date(1000L));
+		given(english.getIsocode()).willReturn("en");
+		given(german.getIsocode()).willReturn("de");
+		given(currency.getIsocode()).willReturn("USD");
+		given(commonI18NService.getCurrentLanguage()).willReturn(english);
+		given(commonI18NService.getCurrentCurrency()).willReturn(currency);
+		given(orderConverter.convert(order)).willAnswer(invocation -> new OrderData());
+		given(consignment.getModifiedtime()).willReturn(new Date(1000L));
+		given(order.getConsignments()).willReturn(Collections.singleton(consignment));
+		given(transaction.getModifiedtime()).willReturn(new Date(1000L));
+		given(order.getPaymentTransactions()).willReturn(Collections.singletonList(transaction));
+	}
+
+	@Test
+	public void shouldConvertOrderOnceForSameVersion()
+	{
+		final OrderData first = orderDataCache.getOrderData(order);
+		final OrderData second = orderDataCache.getOrderData(order);
+
+		Assert.assertSame(first, second);
+		verify(orderConverter, times(1)).convert(order);
+		Assert.assertEquals(1, orderDataCache.getHits());
+		Assert.assertEquals(1, orderDataCache.getMisses());
+	}
+
+	@Test
+	public void shouldConvertAgainWhenOrderWasModified()
+	{
+		final OrderData first = orderDataCache.getOrderData(order);
+		given(order.getModifiedtime()).willReturn(new Date(2000L));
+
+		Assert.assertNotSame(first, orderDataCache.getOrderData(order));
+		verify(orderConverter, times(2)).convert(order);
+	}
+
+	@Test
+	public void shouldConvertAgainWhenConsignmentWasModified()
+	{
+		final OrderData first = orderDataCache.getOrderData(order);
+		given(consignment.getModifiedtime()).willReturn(new Date(2000L));
+
+		Assert.assertNotSame(first, orderDataCache.getOrderData(order));
+		verify(orderConverter, times(2)).convert(order);
+	}
+
+	@Test
+	public void shouldConvertAgainWhenPaymentTransactionWasAdded()
+	{
+		final OrderData first = orderDataCache.getOrderData(order);
+		final PaymentTransactionModel refund = mock(PaymentTransactionModel.class);
+		given(refund.getModifiedtime()).willReturn(new Date(1000L));
+		given(order.getPaymentTransactions()).willReturn(Arrays.asList(transaction, refund));
+
+		Assert.assertNotSame(first, orderDataCache.getOrderData(order));
+		verify(orderConverter, times(2)).convert(order);
+	}
+
+	@Test
+	public void shouldConvertAgainForOtherLanguage()
+	{
+		final OrderData first = orderDataCache.getOrderData(order);
+		given(commonI18NService.getCurrentLanguage()).willReturn(german);
+
+		Assert.assertNotSame(first, orderDataCache.getOrderData(order));
+		verify(orderConverter, times(2)).convert(order);
+	}
+
+	@Test
+	public void shouldNotKeepExpiredEntries()
+	{
+		orderDataCache.setTimeToLiveSeconds(0L);
+
+		orderDataCache.getOrderData(order);
+		orderDataCache.getOrderData(order);
+
+		verify(orderConverter, times(2)).convert(order);
+		Assert.assertEquals(0, orderDataCache.getHits());
+	}
+
+	@Test
+	public void shouldNotCacheUnsavedOrders()
+	{
+		given(order.getPk()).willReturn(null);
+
+		orderDataCache.getOrderData(order);
+		orderDataCache.getOrderData(order);
+
+		verify(orderConverter, times(2)).convert(order);
+	}
+
+	@Test
+	public void shouldExposeMetricsThroughJmx() throws Exception
+	{
+		orderDataCache.afterPropertiesSet();
+		try
+		{
+			orderDataCache.getOrderData(order);
+			orderDataCache.getOrderData(order);
+
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName pattern = new ObjectName("org.training.facades:type=OrderDataCache,*");
+			final ObjectName registered = server.queryNames(pattern, null).iterator().next();
+			Assert.assertEquals(Long.valueOf(1), server.getAttribute(registered, "Hits"));
+			Assert.assertEquals(Long.valueOf(1), server.getAttribute(registered, "Misses"));
+			Assert.assertEquals(Integer.valueOf(1), server.getAttribute(registered, "Size"));
+		}
+		finally
+		{
+			orderDataCache.destroy();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.facades.process.email.context;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.commercefacades.coupon.data.CouponData;
+import de.hybris.platform.commercefacades.order.data.OrderData;
+import de.hybris.platform.commercefacades.product.data.PromotionResultData;
+import de.hybris.platform.core.model.order.OrderModel;
+import org.training.facades.order.OrderDataCache;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+/**
+ * Unit test for the lazy order conversion of {@link OrderNotificationEmailContext}.
+ */
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class OrderNotificationEmailContextTest
+{
+	@Mock
+	private OrderDataCache orderDataCache;
+	@Mock
+	private OrderModel order;
+
+	private OrderNotificationEmailContext context;
+	private OrderData orderData;
+
+	@Before
+	public void setUp()
+	{
+		context = new OrderNotificationEmailContext();
+		context.setOrderDataCache(orderDataCache);
+
+		final CouponData coupon = new CouponData();
+		final PromotionResultData giveAway = new PromotionResultData();
+		giveAway.setGiveAwayCouponCodes(Collections.singletonList(coupon));
+		final PromotionResultData discount = new PromotionResultData();
+		orderData = new OrderData();
+		orderData.setAppliedOrderPromotions(Arrays.asList(giveAway, discount));
+		given(orderDataCache.getOrderData(order)).willReturn(orderData);
+	}
+
+	@Test
+	public void shouldNotConvertOrderUntilTemplateUsesIt()
+	{
+		context.initOrder(order);
+
+		verify(orderDataCache, never()).getOrderData(any(OrderModel.class));
+	}
+
+	@Test
+	public void shouldConvertOrderOnceForOrderAndCoupons()
+	{
+		context.initOrder(order);
+
+		Assert.assertSame(orderData, context.getOrder());
+		Assert.assertEquals(1, context.getCoupons().size());
+		Assert.assertSame(orderData, context.getOrder());
+		verify(orderDataCache, times(1)).getOrderData(order);
+	}
+
+	@Test
+	public void shouldForgetConvertedOrderOnInit()
+	{
+		final OrderModel otherOrder = mock(OrderModel.class);
+		final OrderData otherOrderData = new OrderData();
+		otherOrderData.setAppliedOrderPromotions(Collections.emptyList());
+		given(orderDataCache.getOrderData(otherOrder)).willReturn(otherOrderData);
+		context.initOrder(order);
+		context.getCoupons();
+
+		context.initOrder(otherOrder);
+
+		Assert.assertSame(otherOrderData, context.getOrder());
+		Assert.assertTrue(context.getCoupons().isEmpty());
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.facades.process.email.context;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.commercefacades.order.data.OrderData;
+import de.hybris.platform.commercefacades.product.data.PriceData;
+import de.hybris.platform.core.model.order.OrderModel;
+import org.training.facades.order.OrderDataCache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+/**
+ * Unit test for the lazy order conversion of {@link OrderRefundEmailContext}.
+ */
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class OrderRefundEmailContextTest
+{
+	@Mock
+	private OrderDataCache orderDataCache;
+	@Mock
+	private OrderModel order;
+
+	private OrderRefundEmailContext context;
+	private OrderData orderData;
+	private PriceData totalPrice;
+
+	@Before
+	public void setUp()
+	{
+		context = new OrderRefundEmailContext();
+		context.setOrderDataCache(orderDataCache);
+
+		totalPrice = new PriceData();
+		orderData = new OrderData();
+		orderData.setTotalPrice(totalPrice);
+		given(orderDataCache.getOrderData(order)).willReturn(orderData);
+	}
+
+	@Test
+	public void shouldNotConvertOrderUntilTemplateUsesIt()
+	{
+		context.initOrder(order);
+
+		verify(orderDataCache, never()).getOrderData(any(OrderModel.class));
+	}
+
+	@Test
+	public void shouldConvertOrderOnceForOrderDataAndRefundAmount()
+	{
+		context.initOrder(order);
+
+		Assert.assertSame(totalPrice, context.getRefundAmount());
+		Assert.assertSame(orderData, context.getOrderData());
+		Assert.assertSame(orderData, context.getOrder());
+		verify(orderDataCache, times(1)).getOrderData(order);
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess;
+
+import de.hybris.platform.processengine.model.BusinessProcessModel;
+
+import java.util.Collection;
+import java.util.Map;
+
+
+/**
+ * Triggers many business process events at once. The events are processed in chunks, each chunk in one transaction,
+ * so the state updates of a chunk are written together and the tasks woken up by its events are scheduled together.
+ */
+public interface ProcessEventBatchService
+{
+	/**
+	 * Triggers the given events.
+	 *
+	 * @param eventNames
+	 *           the names of the events, e.g. <code>process code + "_" + event</code>
+	 */
+	void triggerEvents(Collection<String> eventNames);
+
+	/**
+	 * Saves the given processes and triggers the event paired with each of them.
+	 *
+	 * @param processEvents
+	 *           the event name per process, the processes may carry unsaved state updates
+	 */
+	void saveAndTriggerEvents(Map<? extends BusinessProcessModel, String> processEvents);
+}
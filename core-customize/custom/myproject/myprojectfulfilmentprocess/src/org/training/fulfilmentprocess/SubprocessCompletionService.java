@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess;
+
+import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
+
+
+/**
+ * Counts the ended consignment subprocesses on their order process, so the order process can decide whether all
+ * subprocesses are done without loading them.
+ */
+public interface SubprocessCompletionService
+{
+	/**
+	 * Marks the subprocess as done and increments the completed subprocess count of its parent process. A subprocess
+	 * that is already done is not counted again.
+	 *
+	 * @param process
+	 *           the ended consignment subprocess
+	 * @return the number of completed subprocesses of the parent process
+	 */
+	int markCompleted(ConsignmentProcessModel process);
+}
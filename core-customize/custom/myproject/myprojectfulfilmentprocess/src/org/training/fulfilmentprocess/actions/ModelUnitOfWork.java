@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.actions;
+
+import de.hybris.platform.servicelayer.model.ModelService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Collects the models changed by an action and saves them with a single {@link ModelService#saveAll(Collection)} at
+ * the end of the action, instead of one save (and one transaction) per model.
+ *
+ * A unit of work is meant to live for one action execution and is not thread safe.
+ */
+public class ModelUnitOfWork
+{
+	private final ModelService modelService;
+	private final List<Object> models = new ArrayList<Object>();
+	private final Set<Object> registered = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+	public ModelUnitOfWork(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	/**
+	 * Registers models to be saved on {@link #flush()}, registering a model twice has no effect.
+	 */
+	public ModelUnitOfWork register(final Object... models)
+	{
+		for (final Object model : models)
+		{
+			if (model != null && registered.add(model))
+			{
+				this.models.add(model);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Registers all given models to be saved on {@link #flush()}.
+	 */
+	public ModelUnitOfWork registerAll(final Collection<?> models)
+	{
+		if (models != null)
+		{
+			register(models.toArray());
+		}
+		return this;
+	}
+
+	/**
+	 * Saves all registered models at once, does nothing if no model is registered.
+	 */
+	public void flush()
+	{
+		if (!models.isEmpty())
+		{
+			modelService.saveAll(new ArrayList<Object>(models));
+			models.clear();
+			registered.clear();
+		}
+	}
+
+	public boolean isEmpty()
+	{
+		return models.isEmpty();
+	}
+}
@@ -5,12 +5,18 @@ package org.training.fulfilmentprocess.actions.consignment;
 
 import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
 import de.hybris.platform.processengine.action.AbstractProceduralAction;
+import de.hybris.platform.task.RetryLaterException;
 import de.hybris.platform.warehouse.Process2WarehouseAdapter;
+import org.training.fulfilmentprocess.warehouse.BoundedProcess2WarehouseAdapter;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
 
 
+/**
+ * Sends the consignment to the warehouse. A {@link BoundedProcess2WarehouseAdapter} that is full refuses the
+ * consignment; the action is then retried later instead of blocking the process engine thread.
+ */
 public class SendConsignmentToWarehouseAction extends AbstractProceduralAction<ConsignmentProcessModel>
 {
 	private static final Logger LOG = Logger.getLogger(SendConsignmentToWarehouseAction.class);
@@ -18,9 +24,24 @@ public class SendConsignmentToWarehouseAction extends AbstractProceduralAction<C
 	private Process2WarehouseAdapter process2WarehouseAdapter;
 
 	@Override
-	public void executeAction(final ConsignmentProcessModel process)
+	public void executeAction(final ConsignmentProcessModel process) throws RetryLaterException
 	{
-		getProcess2WarehouseAdapter().prepareConsignment(process.getConsignment());
+		final Process2WarehouseAdapter warehouse = getProcess2WarehouseAdapter();
+		if (warehouse instanceof BoundedProcess2WarehouseAdapter)
+		{
+			final BoundedProcess2WarehouseAdapter adapter = (BoundedProcess2WarehouseAdapter) warehouse;
+			if (!adapter.offerConsignment(process.getConsignment()))
+			{
+				final RetryLaterException retry = new RetryLaterException(
+						"Warehouse is full, retrying consignment [" + process.getConsignment().getCode() + "] later");
+				retry.setDelay(adapter.getRetryDelayMillis());
+				throw retry;
+			}
+		}
+		else
+		{
+			warehouse.prepareConsignment(process.getConsignment());
+		}
 		process.setWaitingForConsignment(true);
 		getModelService().save(process);
 		LOG.info("Setting waitForConsignment to true");
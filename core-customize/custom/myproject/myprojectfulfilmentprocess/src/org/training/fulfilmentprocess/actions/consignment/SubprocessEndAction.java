@@ -6,6 +6,7 @@ package org.training.fulfilmentprocess.actions.consignment;
 import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
 import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.processengine.action.AbstractProceduralAction;
+import org.training.fulfilmentprocess.SubprocessCompletionService;
 import org.training.fulfilmentprocess.constants.MyprojectFulfilmentProcessConstants;
 
 import org.apache.log4j.Logger;
@@ -22,6 +23,7 @@ public class SubprocessEndAction extends AbstractProceduralAction<ConsignmentPro
 	private static final String PROCESS_MSG = "Process: ";
 
 	private BusinessProcessService businessProcessService;
+	private SubprocessCompletionService subprocessCompletionService;
 
 	protected BusinessProcessService getBusinessProcessService()
 	{
@@ -34,6 +36,17 @@ public class SubprocessEndAction extends AbstractProceduralAction<ConsignmentPro
 		this.businessProcessService = businessProcessService;
 	}
 
+	protected SubprocessCompletionService getSubprocessCompletionService()
+	{
+		return subprocessCompletionService;
+	}
+
+	@Required
+	public void setSubprocessCompletionService(final SubprocessCompletionService subprocessCompletionService)
+	{
+		this.subprocessCompletionService = subprocessCompletionService;
+	}
+
 	@Override
 	public void executeAction(final ConsignmentProcessModel process)
 	{
@@ -49,10 +62,9 @@ public class SubprocessEndAction extends AbstractProceduralAction<ConsignmentPro
 			// can't help it
 		}
 
-		process.setDone(true);
-
-		save(process);
-		LOG.info(PROCESS_MSG + process.getCode() + " wrote DONE marker");
+		final int completed = getSubprocessCompletionService().markCompleted(process);
+		LOG.info(PROCESS_MSG + process.getCode() + " wrote DONE marker, " + completed + " subprocesses of "
+				+ process.getParentProcess().getCode() + " completed");
 
 		getBusinessProcessService().triggerEvent(
 				process.getParentProcess().getCode() + "_"
@@ -8,6 +8,7 @@ import de.hybris.platform.orderhistory.model.OrderHistoryEntryModel;
 import de.hybris.platform.orderprocessing.model.OrderProcessModel;
 import de.hybris.platform.processengine.action.AbstractAction;
 import de.hybris.platform.servicelayer.time.TimeService;
+import org.training.fulfilmentprocess.actions.ModelUnitOfWork;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -36,6 +37,14 @@ public abstract class AbstractOrderAction<T extends OrderProcessModel> extends A
 		return historyEntry;
 	}
 
+	/**
+	 * @return a new {@link ModelUnitOfWork} collecting the models to save at the end of the action
+	 */
+	protected ModelUnitOfWork createUnitOfWork()
+	{
+		return new ModelUnitOfWork(modelService);
+	}
+
 	protected TimeService getTimeService()
 	{
 		return timeService;
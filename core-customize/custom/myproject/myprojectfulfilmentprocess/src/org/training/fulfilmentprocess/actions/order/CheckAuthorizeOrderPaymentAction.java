@@ -20,9 +20,26 @@ import de.hybris.platform.processengine.action.AbstractSimpleDecisionAction;
  * be implemented here, or in a separate action, if the process flow differs.
  */
 public class CheckAuthorizeOrderPaymentAction extends AbstractSimpleDecisionAction<OrderProcessModel>
+		implements FusibleOrderAction
 {
 	@Override
 	public Transition executeAction(final OrderProcessModel process)
+	{
+		final Transition transition = checkAuthorization(process);
+		if (Transition.OK.equals(transition) && OrderStatus.PAYMENT_AUTHORIZED.equals(process.getOrder().getStatus()))
+		{
+			modelService.save(process.getOrder());
+		}
+		return transition;
+	}
+
+	@Override
+	public String executeWithoutSave(final OrderProcessModel process)
+	{
+		return checkAuthorization(process).toString();
+	}
+
+	protected Transition checkAuthorization(final OrderProcessModel process)
 	{
 		final OrderModel order = process.getOrder();
 
@@ -34,7 +51,7 @@ public class CheckAuthorizeOrderPaymentAction extends AbstractSimpleDecisionActi
 			}
 			else
 			{
-				return assignStatusForOrder(order);
+				return findAuthorization(order);
 			}
 		}
 		return Transition.NOK;
@@ -42,11 +59,12 @@ public class CheckAuthorizeOrderPaymentAction extends AbstractSimpleDecisionActi
 
 	/**
 	 * Sets the status for given order in case on of its {@link PaymentTransactionEntryModel} matches proper
-	 * {@link PaymentTransactionType} and {@link TransactionStatus}.
+	 * {@link PaymentTransactionType} and {@link TransactionStatus}, without saving the order.
 	 * @param order {@link OrderModel}
 	 * @return {@link Transition}
-	 */
-	protected Transition assignStatusForOrder(final OrderModel order) {
+	 */
+	protected Transition findAuthorization(final OrderModel order)
+	{
 		for (final PaymentTransactionModel transaction : order.getPaymentTransactions())
 		{
 			for (final PaymentTransactionEntryModel entry : transaction.getEntries())
@@ -55,7 +73,6 @@ public class CheckAuthorizeOrderPaymentAction extends AbstractSimpleDecisionActi
 						&& TransactionStatus.ACCEPTED.name().equals(entry.getTransactionStatus()))
 				{
 					order.setStatus(OrderStatus.PAYMENT_AUTHORIZED);
-					modelService.save(order);
 					return Transition.OK;
 				}
 			}
@@ -20,7 +20,7 @@ import org.springframework.beans.factory.annotation.Required;
  * order (a typical case), it is recommended to use the OrderProcess as a parentClass instead of the plain
  * BusinessProcess.
  */
-public class CheckOrderAction extends AbstractSimpleDecisionAction<OrderProcessModel>
+public class CheckOrderAction extends AbstractSimpleDecisionAction<OrderProcessModel> implements FusibleOrderAction
 {
 	private static final Logger LOG = Logger.getLogger(CheckOrderAction.class);
 
@@ -29,6 +29,22 @@ public class CheckOrderAction extends AbstractSimpleDecisionAction<OrderProcessM
 
 	@Override
 	public Transition executeAction(final OrderProcessModel process)
+	{
+		final Transition transition = checkOrder(process);
+		if (process.getOrder() != null)
+		{
+			getModelService().save(process.getOrder());
+		}
+		return transition;
+	}
+
+	@Override
+	public String executeWithoutSave(final OrderProcessModel process)
+	{
+		return checkOrder(process).toString();
+	}
+
+	protected Transition checkOrder(final OrderProcessModel process)
 	{
 		final OrderModel order = process.getOrder();
 
@@ -40,12 +56,12 @@ public class CheckOrderAction extends AbstractSimpleDecisionAction<OrderProcessM
 
 		if (getCheckOrderService().check(order))
 		{
-			setOrderStatus(order, OrderStatus.CHECKED_VALID);
+			order.setStatus(OrderStatus.CHECKED_VALID);
 			return Transition.OK;
 		}
 		else
 		{
-			setOrderStatus(order, OrderStatus.CHECKED_INVALID);
+			order.setStatus(OrderStatus.CHECKED_INVALID);
 			return Transition.NOK;
 		}
 	}
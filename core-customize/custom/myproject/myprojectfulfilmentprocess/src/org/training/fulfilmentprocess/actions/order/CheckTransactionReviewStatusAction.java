@@ -28,7 +28,7 @@ import java.util.Set;
 /**
  * This action check if authorization has review status
  */
-public class CheckTransactionReviewStatusAction extends AbstractAction<OrderProcessModel>
+public class CheckTransactionReviewStatusAction extends AbstractAction<OrderProcessModel> implements FusibleOrderAction
 {
 	private TicketBusinessService ticketBusinessService;
 
@@ -55,10 +55,24 @@ public class CheckTransactionReviewStatusAction extends AbstractAction<OrderProc
 
 	@Override
 	public final String execute(final OrderProcessModel process) throws RetryLaterException, Exception
+	{
+		final Transition transition = executeAction(process);
+		if (process.getOrder() != null)
+		{
+			getModelService().save(process.getOrder());
+		}
+		return transition.toString();
+	}
+
+	@Override
+	public String executeWithoutSave(final OrderProcessModel process)
 	{
 		return executeAction(process).toString();
 	}
 
+	/**
+	 * Checks the payment transactions of the order, the changed order is not saved.
+	 */
 	protected Transition executeAction(final OrderProcessModel process)
 	{
 		Transition result;
@@ -81,50 +95,62 @@ public class CheckTransactionReviewStatusAction extends AbstractAction<OrderProc
 
 	protected Transition checkPaymentTransaction(final PaymentTransactionModel transaction, final OrderModel orderModel)
 	{
-		final List<PaymentTransactionEntryModel> transactionEntries = transaction.getEntries();
-		for (int index = transactionEntries.size() - 1; index >= 0; index--)
+		final PaymentTransactionEntryModel decision = findLatestDecision(transaction);
+		if (decision == null)
 		{
-			final PaymentTransactionEntryModel entry = transactionEntries.get(index);
+			return Transition.OK;
+		}
 
-			if (isReviewDecision(entry))
+		if (isReviewDecision(decision))
+		{
+			if (isReviewAccepted(decision))
 			{
-				if (isReviewAccepted(entry))
-				{
-					orderModel.setStatus(OrderStatus.PAYMENT_AUTHORIZED);
-					getModelService().save(orderModel);
-					return Transition.OK;
-				}
-				else
-				{
-					orderModel.setStatus(OrderStatus.PAYMENT_NOT_AUTHORIZED);
-					getModelService().save(orderModel);
-					return Transition.NOK;
-				}
+				orderModel.setStatus(OrderStatus.PAYMENT_AUTHORIZED);
+				return Transition.OK;
 			}
-			else if (isAuthorization(entry))
+			else
 			{
-				if (isAuthorizationInReview(entry))
-				{
-					final String ticketTitle = Localization.getLocalizedString("message.ticket.orderinreview.title");
-					final String ticketMessage = Localization.getLocalizedString("message.ticket.orderinreview.content",
-							new Object[] { orderModel.getCode() });
-					createTicket(ticketTitle, ticketMessage, orderModel, CsTicketCategory.FRAUD, CsTicketPriority.HIGH);
-
-					orderModel.setStatus(OrderStatus.SUSPENDED);
-					getModelService().save(orderModel);
-					return Transition.WAIT;
-				}
-				else
-				{
-					return Transition.OK;
-				}
+				orderModel.setStatus(OrderStatus.PAYMENT_NOT_AUTHORIZED);
+				return Transition.NOK;
 			}
+		}
+		else if (isAuthorizationInReview(decision))
+		{
+			final String ticketTitle = Localization.getLocalizedString("message.ticket.orderinreview.title");
+			final String ticketMessage = Localization.getLocalizedString("message.ticket.orderinreview.content",
+					new Object[] { orderModel.getCode() });
+			createTicket(ticketTitle, ticketMessage, orderModel, CsTicketCategory.FRAUD, CsTicketPriority.HIGH);
 
-			// Continue onto next entry
+			orderModel.setStatus(OrderStatus.SUSPENDED);
+			return Transition.WAIT;
 		}
 		return Transition.OK;
 	}
 
+	/**
+	 * Returns the latest authorization or review decision entry of the transaction. It is maintained by the
+	 * {@link org.training.fulfilmentprocess.interceptors.PaymentTransactionDecisionPrepareInterceptor}; transactions
+	 * whose entries were created before are scanned backwards.
+	 */
+	protected PaymentTransactionEntryModel findLatestDecision(final PaymentTransactionModel transaction)
+	{
+		if (transaction.getLatestDecisionEntry() != null)
+		{
+			return transaction.getLatestDecisionEntry();
+		}
+
+		final List<PaymentTransactionEntryModel> transactionEntries = transaction.getEntries();
+		for (int index = transactionEntries.size() - 1; index >= 0; index--)
+		{
+			final PaymentTransactionEntryModel entry = transactionEntries.get(index);
+			if (isReviewDecision(entry) || isAuthorization(entry))
+			{
+				return entry;
+			}
+		}
+		return null;
+	}
+
 	protected CsTicketModel createTicket(final String subject, final String description, final OrderModel order,
 			final CsTicketCategory category, final CsTicketPriority priority)
 	{
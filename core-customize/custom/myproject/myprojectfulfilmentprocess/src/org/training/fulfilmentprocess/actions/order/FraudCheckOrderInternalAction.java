@@ -6,32 +6,30 @@ package org.training.fulfilmentprocess.actions.order;
 import de.hybris.platform.basecommerce.enums.FraudStatus;
 import de.hybris.platform.core.enums.OrderStatus;
 import de.hybris.platform.core.model.order.OrderModel;
-import de.hybris.platform.fraud.FraudService;
 import de.hybris.platform.fraud.impl.FraudServiceResponse;
 import de.hybris.platform.fraud.model.FraudReportModel;
 import de.hybris.platform.orderhistory.model.OrderHistoryEntryModel;
 import de.hybris.platform.orderprocessing.model.OrderProcessModel;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
-import de.hybris.platform.util.Config;
-import org.training.fulfilmentprocess.constants.MyprojectFulfilmentProcessConstants;
+import org.training.fulfilmentprocess.fraud.FraudScoringEngine;
 
 import org.springframework.beans.factory.annotation.Required;
 
 
 public class FraudCheckOrderInternalAction extends AbstractFraudCheckAction<OrderProcessModel>
 {
-	private FraudService fraudService;
+	private FraudScoringEngine fraudScoringEngine;
 	private String providerName;
 
-	protected FraudService getFraudService()
+	protected FraudScoringEngine getFraudScoringEngine()
 	{
-		return fraudService;
+		return fraudScoringEngine;
 	}
 
 	@Required
-	public void setFraudService(final FraudService fraudService)
+	public void setFraudScoringEngine(final FraudScoringEngine fraudScoringEngine)
 	{
-		this.fraudService = fraudService;
+		this.fraudScoringEngine = fraudScoringEngine;
 	}
 
 	protected String getProviderName()
@@ -50,27 +48,21 @@ public class FraudCheckOrderInternalAction extends AbstractFraudCheckAction<Orde
 		ServicesUtil.validateParameterNotNull(process, "Process can not be null");
 		ServicesUtil.validateParameterNotNull(process.getOrder(), "Order can not be null");
 
-		//get the fraud-detection configuration
-		final double scoreLimit = Double.parseDouble(Config.getParameter(MyprojectFulfilmentProcessConstants.EXTENSIONNAME + ".fraud.scoreLimit"));
-		final double scoreTolerance = Double.parseDouble(Config.getParameter(MyprojectFulfilmentProcessConstants.EXTENSIONNAME + ".fraud.scoreTolerance"));
-
 		final OrderModel order = process.getOrder();
-		final FraudServiceResponse response = getFraudService().recognizeOrderSymptoms(getProviderName(), order);
+		final FraudServiceResponse response = getFraudScoringEngine().recognizeOrderSymptoms(order);
 
-		final double score = response.getScore();
-		if (score < scoreLimit)
+		final FraudStatus status = getFraudScoringEngine().getConfiguration().evaluate(response.getScore());
+		if (FraudStatus.OK.equals(status))
 		{
 			final FraudReportModel fraudReport = createFraudReport(providerName, response, order, FraudStatus.OK);
 			final OrderHistoryEntryModel historyEntry = createHistoryLog(providerName, order, FraudStatus.OK, null);
 			order.setFraudulent(Boolean.FALSE);
 			order.setPotentiallyFraudulent(Boolean.FALSE);
 			order.setStatus(OrderStatus.FRAUD_CHECKED);
-			modelService.save(fraudReport);
-			modelService.save(historyEntry);
-			modelService.save(order);
+			createUnitOfWork().register(fraudReport, historyEntry, order).flush();
 			return Transition.OK;
 		}
-		else if (score < scoreLimit + scoreTolerance)
+		else if (FraudStatus.CHECK.equals(status))
 		{
 			final FraudReportModel fraudReport = createFraudReport(providerName, response, order, FraudStatus.CHECK);
 			final OrderHistoryEntryModel historyEntry = createHistoryLog(providerName, order, FraudStatus.CHECK,
@@ -78,9 +70,7 @@ public class FraudCheckOrderInternalAction extends AbstractFraudCheckAction<Orde
 			order.setFraudulent(Boolean.FALSE);
 			order.setPotentiallyFraudulent(Boolean.TRUE);
 			order.setStatus(OrderStatus.FRAUD_CHECKED);
-			modelService.save(fraudReport);
-			modelService.save(historyEntry);
-			modelService.save(order);
+			createUnitOfWork().register(fraudReport, historyEntry, order).flush();
 			return Transition.POTENTIAL;
 		}
 		else
@@ -91,9 +81,7 @@ public class FraudCheckOrderInternalAction extends AbstractFraudCheckAction<Orde
 			order.setFraudulent(Boolean.TRUE);
 			order.setPotentiallyFraudulent(Boolean.FALSE);
 			order.setStatus(OrderStatus.FRAUD_CHECKED);
-			modelService.save(fraudReport);
-			modelService.save(historyEntry);
-			modelService.save(order);
+			createUnitOfWork().register(fraudReport, historyEntry, order).flush();
 			return Transition.FRAUD;
 		}
 	}
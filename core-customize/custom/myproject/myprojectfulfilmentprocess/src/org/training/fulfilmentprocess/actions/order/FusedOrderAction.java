@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.actions.order;
+
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+import de.hybris.platform.processengine.action.AbstractAction;
+import de.hybris.platform.task.RetryLaterException;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Runs several synchronous order actions in one process task and saves the order once at the end, instead of
+ * persisting a task and the order for every step.
+ *
+ * The steps run in the order of {@link #setActions(Map)} as long as they return <code>OK</code>. The first other
+ * transition ends the fused action with the transition <code>&lt;step id&gt;_&lt;transition&gt;</code>, e.g.
+ * <code>checkTransactionReviewStatus_WAIT</code>, so the process definition can route it to the node the single step
+ * would have been routed to.
+ */
+public class FusedOrderAction extends AbstractAction<OrderProcessModel>
+{
+	private static final Logger LOG = Logger.getLogger(FusedOrderAction.class);
+
+	public static final String OK = "OK";
+
+	private Map<String, FusibleOrderAction> actions;
+
+	@Override
+	public String execute(final OrderProcessModel process) throws RetryLaterException, Exception
+	{
+		String transition = OK;
+		for (final Map.Entry<String, FusibleOrderAction> action : getActions().entrySet())
+		{
+			final String result = action.getValue().executeWithoutSave(process);
+			if (!OK.equals(result))
+			{
+				transition = action.getKey() + "_" + result;
+				break;
+			}
+		}
+		if (process.getOrder() != null)
+		{
+			getModelService().save(process.getOrder());
+		}
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Process: " + process.getCode() + " left fused action with transition " + transition);
+		}
+		return transition;
+	}
+
+	@Override
+	public Set<String> getTransitions()
+	{
+		final Set<String> transitions = new HashSet<String>();
+		transitions.add(OK);
+		for (final Map.Entry<String, FusibleOrderAction> action : getActions().entrySet())
+		{
+			for (final String transition : action.getValue().getTransitions())
+			{
+				if (!OK.equals(transition))
+				{
+					transitions.add(action.getKey() + "_" + transition);
+				}
+			}
+		}
+		return transitions;
+	}
+
+	protected Map<String, FusibleOrderAction> getActions()
+	{
+		return actions;
+	}
+
+	/**
+	 * @param actions
+	 *           the steps by id, in execution order
+	 */
+	@Required
+	public void setActions(final Map<String, FusibleOrderAction> actions)
+	{
+		this.actions = actions;
+	}
+}
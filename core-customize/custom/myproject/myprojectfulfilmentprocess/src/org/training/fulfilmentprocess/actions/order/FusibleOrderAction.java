@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.actions.order;
+
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+import de.hybris.platform.task.RetryLaterException;
+
+import java.util.Set;
+
+
+/**
+ * Synchronous order action that can run as a step of a {@link FusedOrderAction}: it changes the order of the process
+ * but leaves saving it to the caller.
+ */
+public interface FusibleOrderAction
+{
+	/**
+	 * Executes the action without saving the order of the process.
+	 *
+	 * @param process
+	 *           the order process
+	 * @return the name of the transition
+	 */
+	String executeWithoutSave(OrderProcessModel process) throws RetryLaterException, Exception;
+
+	/**
+	 * @return the transitions the action can return
+	 */
+	Set<String> getTransitions();
+}
@@ -8,7 +8,7 @@ import de.hybris.platform.orderprocessing.model.OrderProcessModel;
 import de.hybris.platform.processengine.action.AbstractSimpleDecisionAction;
 
 
-public class ReserveOrderAmountAction extends AbstractSimpleDecisionAction<OrderProcessModel>
+public class ReserveOrderAmountAction extends AbstractSimpleDecisionAction<OrderProcessModel> implements FusibleOrderAction
 {
 	@Override
 	public Transition executeAction(final OrderProcessModel process)
@@ -16,4 +16,11 @@ public class ReserveOrderAmountAction extends AbstractSimpleDecisionAction<Order
 		setOrderStatus(process.getOrder(), OrderStatus.PAYMENT_AMOUNT_RESERVED);
 		return Transition.OK;
 	}
+
+	@Override
+	public String executeWithoutSave(final OrderProcessModel process)
+	{
+		process.getOrder().setStatus(OrderStatus.PAYMENT_AMOUNT_RESERVED);
+		return Transition.OK.toString();
+	}
 }
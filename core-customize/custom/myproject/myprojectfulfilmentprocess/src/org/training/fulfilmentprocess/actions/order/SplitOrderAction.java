@@ -53,6 +53,10 @@ public class SplitOrderAction extends AbstractProceduralAction<OrderProcessModel
 			LOG.debug("Splitting order into " + consignments.size() + " consignments.");
 		}
 
+		// register the subprocesses before starting them, so no completion can be counted against a stale total
+		process.setExpectedSubprocessCount(process.getExpectedSubprocessCount() + consignments.size());
+		save(process);
+
 		int index = 0;
 		for (final ConsignmentModel consignment : consignments)
 		{
@@ -12,11 +12,12 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.log4j.Logger;
 
 import java.util.Collection;
-import java.util.Optional;
 
 
 /**
- *
+ * Continues the order process once all of its consignment subprocesses have ended. The ended subprocesses are counted
+ * on the order process by {@link org.training.fulfilmentprocess.SubprocessCompletionService}, so every wake up reads
+ * two counters instead of loading all subprocesses.
  */
 public class SubprocessesCompletedAction extends AbstractSimpleDecisionAction<OrderProcessModel>
 {
@@ -28,39 +29,65 @@ public class SubprocessesCompletedAction extends AbstractSimpleDecisionAction<Or
 	public Transition executeAction(final OrderProcessModel process)
 	{
 		LOG.info(PROCESS_MSG + process.getCode() + " in step " + getClass());
-		LOG.info(PROCESS_MSG + process.getCode() + " is checking for  " + process.getConsignmentProcesses().size()
-				+ " subprocess results");
 
-		final OrderModel order = process.getOrder();
-		final Collection<ConsignmentProcessModel> consignmentProcesses = process.getConsignmentProcesses();
-
-		if (CollectionUtils.isNotEmpty(consignmentProcesses))
+		final int expected = process.getExpectedSubprocessCount();
+		if (expected == 0 && CollectionUtils.isNotEmpty(process.getConsignmentProcesses()))
 		{
-			final Optional<ConsignmentProcessModel> atleastOneConsProcessNotDone = consignmentProcesses.stream()
-					.filter(consProcess -> !consProcess.isDone())
-					.findFirst();
-			final boolean allConsProcessNotDone = consignmentProcesses.stream().allMatch(consProcess -> !consProcess.isDone());
+			// split before the completion counter existed
+			return checkConsignmentProcesses(process);
+		}
 
-			if (allConsProcessNotDone)
-			{
-				LOG.info(PROCESS_MSG + process.getCode() + " found all subprocesses incomplete");
-				order.setDeliveryStatus(DeliveryStatus.NOTSHIPPED);
-				save(order);
-				return Transition.NOK;
-			}
-			else if (atleastOneConsProcessNotDone.isPresent())
+		final int completed = process.getCompletedSubprocessCount();
+		LOG.info(PROCESS_MSG + process.getCode() + " has " + completed + " of " + expected + " subprocesses completed");
+		return decide(process, completed, expected);
+	}
+
+	protected Transition checkConsignmentProcesses(final OrderProcessModel process)
+	{
+		final Collection<ConsignmentProcessModel> consignmentProcesses = process.getConsignmentProcesses();
+		int completed = 0;
+		for (final ConsignmentProcessModel consignmentProcess : consignmentProcesses)
+		{
+			if (consignmentProcess.isDone())
 			{
-				LOG.info(PROCESS_MSG + process.getCode() + " found subprocess " + atleastOneConsProcessNotDone.get().getCode()
-						+ " incomplete -> wait again!");
-				order.setDeliveryStatus(DeliveryStatus.PARTSHIPPED);
-				save(order);
-				return Transition.NOK;
+				completed++;
 			}
 		}
+		return decide(process, completed, consignmentProcesses.size());
+	}
 
-		LOG.info(PROCESS_MSG + process.getCode() + " found all subprocesses complete");
-		order.setDeliveryStatus(DeliveryStatus.SHIPPED);
-		save(order);
-		return Transition.OK;
+	protected Transition decide(final OrderProcessModel process, final int completed, final int expected)
+	{
+		final OrderModel order = process.getOrder();
+		if (completed >= expected)
+		{
+			LOG.info(PROCESS_MSG + process.getCode() + " found all subprocesses complete");
+			updateDeliveryStatus(order, DeliveryStatus.SHIPPED);
+			return Transition.OK;
+		}
+		else if (completed == 0)
+		{
+			LOG.info(PROCESS_MSG + process.getCode() + " found all subprocesses incomplete");
+			updateDeliveryStatus(order, DeliveryStatus.NOTSHIPPED);
+		}
+		else
+		{
+			LOG.info(PROCESS_MSG + process.getCode() + " found " + (expected - completed) + " subprocesses incomplete -> wait again!");
+			updateDeliveryStatus(order, DeliveryStatus.PARTSHIPPED);
+		}
+		return Transition.NOK;
+	}
+
+	/**
+	 * Saves the order only if its delivery status changes, re-checks while waiting for further subprocesses do not
+	 * write the order again.
+	 */
+	protected void updateDeliveryStatus(final OrderModel order, final DeliveryStatus deliveryStatus)
+	{
+		if (!deliveryStatus.equals(order.getDeliveryStatus()))
+		{
+			order.setDeliveryStatus(deliveryStatus);
+			save(order);
+		}
 	}
 }
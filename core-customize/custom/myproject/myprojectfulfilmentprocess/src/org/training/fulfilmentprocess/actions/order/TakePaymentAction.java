@@ -7,63 +7,73 @@ import de.hybris.platform.core.enums.OrderStatus;
 import de.hybris.platform.core.model.order.OrderModel;
 import de.hybris.platform.core.model.order.payment.CreditCardPaymentInfoModel;
 import de.hybris.platform.orderprocessing.model.OrderProcessModel;
-import de.hybris.platform.payment.PaymentService;
-import de.hybris.platform.payment.dto.TransactionStatus;
-import de.hybris.platform.payment.model.PaymentTransactionEntryModel;
 import de.hybris.platform.payment.model.PaymentTransactionModel;
 import de.hybris.platform.processengine.action.AbstractSimpleDecisionAction;
+import org.training.fulfilmentprocess.payment.PaymentCaptureOrchestrator;
+import org.training.fulfilmentprocess.payment.PaymentCaptureResult;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
 
 
 /**
- * The TakePayment step captures the payment transaction.
+ * The TakePayment step captures the payment transactions. The credit card transactions of a split tender order are
+ * captured together by the {@link PaymentCaptureOrchestrator}.
  */
 public class TakePaymentAction extends AbstractSimpleDecisionAction<OrderProcessModel>
 {
 	private static final Logger LOG = Logger.getLogger(TakePaymentAction.class);
 
-	private PaymentService paymentService;
+	private PaymentCaptureOrchestrator paymentCaptureOrchestrator;
 
 	@Override
 	public Transition executeAction(final OrderProcessModel process)
 	{
 		final OrderModel order = process.getOrder();
 
+		final List<PaymentTransactionModel> transactions = new ArrayList<>();
 		for (final PaymentTransactionModel txn : order.getPaymentTransactions())
 		{
 			if (txn.getInfo() instanceof CreditCardPaymentInfoModel)
 			{
-				final PaymentTransactionEntryModel txnEntry = getPaymentService().capture(txn);
+				transactions.add(txn);
+			}
+		}
+		if (transactions.isEmpty())
+		{
+			return Transition.OK;
+		}
 
-				if (TransactionStatus.ACCEPTED.name().equals(txnEntry.getTransactionStatus()))
-				{
-					if (LOG.isDebugEnabled())
-					{
-						LOG.debug("The payment transaction has been captured. Order: " + order.getCode() + ". Txn: " + txn.getCode());
-					}
-					setOrderStatus(order, OrderStatus.PAYMENT_CAPTURED);
-				}
-				else
-				{
-					LOG.error("The payment transaction capture has failed. Order: " + order.getCode() + ". Txn: " + txn.getCode());
-					setOrderStatus(order, OrderStatus.PAYMENT_NOT_CAPTURED);
-					return Transition.NOK;
-				}
+		final PaymentCaptureResult result = getPaymentCaptureOrchestrator().capture(transactions);
+		if (result.isSuccessful())
+		{
+			if (LOG.isDebugEnabled())
+			{
+				LOG.debug("The payment transactions have been captured. Order: " + order.getCode() + ". Txns: "
+						+ transactions.size());
 			}
+			setOrderStatus(order, OrderStatus.PAYMENT_CAPTURED);
+			return Transition.OK;
 		}
-		return Transition.OK;
+
+		LOG.error("The payment transaction capture has failed. Order: " + order.getCode() + ". Failed txns: "
+				+ result.getFailed().size() + ", timed out txns: " + result.getTimedOut().size() + ", voided captures: "
+				+ result.getVoided().size());
+		setOrderStatus(order, OrderStatus.PAYMENT_NOT_CAPTURED);
+		return Transition.NOK;
 	}
 
-	protected PaymentService getPaymentService()
+	protected PaymentCaptureOrchestrator getPaymentCaptureOrchestrator()
 	{
-		return paymentService;
+		return paymentCaptureOrchestrator;
 	}
 
 	@Required
-	public void setPaymentService(final PaymentService paymentService)
+	public void setPaymentCaptureOrchestrator(final PaymentCaptureOrchestrator paymentCaptureOrchestrator)
 	{
-		this.paymentService = paymentService;
+		this.paymentCaptureOrchestrator = paymentCaptureOrchestrator;
 	}
 }
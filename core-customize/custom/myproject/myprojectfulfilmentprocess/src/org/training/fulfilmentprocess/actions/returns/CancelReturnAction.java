@@ -7,6 +7,7 @@ import de.hybris.platform.basecommerce.enums.ReturnStatus;
 import de.hybris.platform.processengine.action.AbstractProceduralAction;
 import de.hybris.platform.returns.model.ReturnProcessModel;
 import de.hybris.platform.returns.model.ReturnRequestModel;
+import org.training.fulfilmentprocess.actions.ModelUnitOfWork;
 import org.apache.log4j.Logger;
 
 
@@ -26,10 +27,11 @@ public class CancelReturnAction extends AbstractProceduralAction<ReturnProcessMo
 
 		final ReturnRequestModel returnRequest = process.getReturnRequest();
 		returnRequest.setStatus(ReturnStatus.CANCELED);
+		final ModelUnitOfWork unitOfWork = new ModelUnitOfWork(getModelService());
 		returnRequest.getReturnEntries().forEach(entry -> {
 			entry.setStatus(ReturnStatus.CANCELED);
-			getModelService().save(entry);
+			unitOfWork.register(entry);
 		});
-		getModelService().save(returnRequest);
+		unitOfWork.register(returnRequest).flush();
 	}
 }
@@ -7,6 +7,7 @@ import de.hybris.platform.basecommerce.enums.ReturnStatus;
 import de.hybris.platform.processengine.action.AbstractSimpleDecisionAction;
 import de.hybris.platform.returns.model.ReturnProcessModel;
 import de.hybris.platform.returns.model.ReturnRequestModel;
+import org.training.fulfilmentprocess.actions.ModelUnitOfWork;
 import org.apache.log4j.Logger;
 
 
@@ -28,11 +29,12 @@ public class CaptureRefundAction extends AbstractSimpleDecisionAction<ReturnProc
 
 		final ReturnStatus returnStatus = ReturnStatus.PAYMENT_REVERSED;
 		returnRequest.setStatus(returnStatus);
+		final ModelUnitOfWork unitOfWork = new ModelUnitOfWork(getModelService());
 		returnRequest.getReturnEntries().stream().forEach(entry -> {
 			entry.setStatus(returnStatus);
-			getModelService().save(entry);
+			unitOfWork.register(entry);
 		});
-		getModelService().save(returnRequest);
+		unitOfWork.register(returnRequest).flush();
 
 		return Transition.OK;
 	}
@@ -7,6 +7,7 @@ import de.hybris.platform.basecommerce.enums.ReturnStatus;
 import de.hybris.platform.processengine.action.AbstractProceduralAction;
 import de.hybris.platform.returns.model.ReturnProcessModel;
 import de.hybris.platform.returns.model.ReturnRequestModel;
+import org.training.fulfilmentprocess.actions.ModelUnitOfWork;
 import org.apache.log4j.Logger;
 
 
@@ -26,10 +27,11 @@ public class InventoryUpdateAction extends AbstractProceduralAction<ReturnProces
 
 		final ReturnRequestModel returnRequest = process.getReturnRequest();
 		returnRequest.setStatus(ReturnStatus.COMPLETED);
+		final ModelUnitOfWork unitOfWork = new ModelUnitOfWork(getModelService());
 		returnRequest.getReturnEntries().stream().forEach(entry -> {
 			entry.setStatus(ReturnStatus.COMPLETED);
-			getModelService().save(entry);
+			unitOfWork.register(entry);
 		});
-		getModelService().save(returnRequest);
+		unitOfWork.register(returnRequest).flush();
 	}
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.dao;
+
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import de.hybris.platform.servicelayer.internal.dao.Dao;
+
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * Dao to load the stock levels of many products at once, used by the order splitting strategies.
+ */
+public interface BulkStockLevelDao extends Dao
+{
+	/**
+	 * Returns the stock levels of all given products in all given warehouses.
+	 *
+	 * @param productCodes
+	 *           the codes of the products
+	 * @param warehouses
+	 *           the warehouses
+	 * @return the stock levels, in no particular order
+	 */
+	List<StockLevelModel> findStockLevels(Collection<String> productCodes, Collection<WarehouseModel> warehouses);
+}
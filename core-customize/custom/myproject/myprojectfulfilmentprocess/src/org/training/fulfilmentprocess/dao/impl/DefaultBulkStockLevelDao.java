@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.dao.impl;
+
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import de.hybris.platform.servicelayer.internal.dao.AbstractItemDao;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import org.training.fulfilmentprocess.dao.BulkStockLevelDao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.collections.CollectionUtils;
+
+
+/**
+ * Default implementation of {@link BulkStockLevelDao}.
+ *
+ * Product codes are queried in chunks to keep the IN clause below the limits of all supported databases.
+ */
+public class DefaultBulkStockLevelDao extends AbstractItemDao implements BulkStockLevelDao
+{
+	private static final int PRODUCT_CODES_PER_QUERY = 500;
+
+	private static final String STOCK_LEVELS_QUERY = "SELECT {" + StockLevelModel.PK + "} FROM {" + StockLevelModel._TYPECODE
+			+ "} WHERE {" + StockLevelModel.PRODUCTCODE + "} IN (?productCodes) AND {" + StockLevelModel.WAREHOUSE
+			+ "} IN (?warehouses)";
+
+	@Override
+	public List<StockLevelModel> findStockLevels(final Collection<String> productCodes,
+			final Collection<WarehouseModel> warehouses)
+	{
+		if (CollectionUtils.isEmpty(productCodes) || CollectionUtils.isEmpty(warehouses))
+		{
+			return Collections.emptyList();
+		}
+
+		final List<String> codes = new ArrayList<String>(productCodes);
+		final List<StockLevelModel> stockLevels = new ArrayList<StockLevelModel>();
+		for (int from = 0; from < codes.size(); from += PRODUCT_CODES_PER_QUERY)
+		{
+			final FlexibleSearchQuery query = new FlexibleSearchQuery(STOCK_LEVELS_QUERY);
+			query.addQueryParameter("productCodes", codes.subList(from, Math.min(from + PRODUCT_CODES_PER_QUERY, codes.size())));
+			query.addQueryParameter("warehouses", warehouses);
+			query.setNeedTotal(false);
+			stockLevels.addAll(getFlexibleSearchService().<StockLevelModel> search(query).getResult());
+		}
+		return stockLevels;
+	}
+}
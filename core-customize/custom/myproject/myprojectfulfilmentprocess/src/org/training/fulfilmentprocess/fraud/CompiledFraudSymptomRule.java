@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud;
+
+import de.hybris.platform.fraud.impl.FraudSymptom;
+
+
+/**
+ * Fraud symptom rule with compiled parameters, see {@link FraudSymptomRule#compile}.
+ */
+public interface CompiledFraudSymptomRule
+{
+	/**
+	 * @param order
+	 *           the order to check
+	 * @return the symptom, or <code>null</code> if the order does not show it
+	 */
+	FraudSymptom evaluate(FraudOrderData order);
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud;
+
+import de.hybris.platform.basecommerce.enums.FraudStatus;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Immutable score limits of the fraud check: scores below the limit are OK, scores below limit + tolerance need a
+ * manual check and all other scores are fraud. Together with the compiled symptom rules it forms the snapshot of the
+ * fraud check configuration that is swapped as a whole on a configuration change.
+ */
+public class FraudCheckConfiguration
+{
+	private final double scoreLimit;
+	private final double scoreTolerance;
+	private final List<CompiledFraudSymptomRule> rules;
+
+	public FraudCheckConfiguration(final double scoreLimit, final double scoreTolerance)
+	{
+		this(scoreLimit, scoreTolerance, Collections.<CompiledFraudSymptomRule> emptyList());
+	}
+
+	public FraudCheckConfiguration(final double scoreLimit, final double scoreTolerance,
+			final List<CompiledFraudSymptomRule> rules)
+	{
+		this.scoreLimit = scoreLimit;
+		this.scoreTolerance = scoreTolerance;
+		this.rules = Collections.unmodifiableList(rules);
+	}
+
+	/**
+	 * @return the fraud status for the given score
+	 */
+	public FraudStatus evaluate(final double score)
+	{
+		if (score < scoreLimit)
+		{
+			return FraudStatus.OK;
+		}
+		else if (score < scoreLimit + scoreTolerance)
+		{
+			return FraudStatus.CHECK;
+		}
+		return FraudStatus.FRAUD;
+	}
+
+	public double getScoreLimit()
+	{
+		return scoreLimit;
+	}
+
+	public double getScoreTolerance()
+	{
+		return scoreTolerance;
+	}
+
+	/**
+	 * @return the compiled symptom rules, in the order of the configured rules
+	 */
+	public List<CompiledFraudSymptomRule> getRules()
+	{
+		return rules;
+	}
+}
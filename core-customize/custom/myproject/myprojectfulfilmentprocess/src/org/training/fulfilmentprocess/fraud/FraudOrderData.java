@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud;
+
+/**
+ * Immutable extract of the order attributes the fraud symptom rules look at. It is taken on the thread checking the
+ * order, so the rules evaluated by the pool threads never touch the order model.
+ */
+public class FraudOrderData
+{
+	private final String code;
+	private final double totalPrice;
+	private final String customerUid;
+	private final int customerOrderCount;
+	private final String deliveryCountry;
+	private final String paymentCountry;
+
+	/**
+	 * @param code
+	 *           code of the order
+	 * @param totalPrice
+	 *           total price of the order
+	 * @param customerUid
+	 *           uid of the customer, the email address for registered customers
+	 * @param customerOrderCount
+	 *           number of orders of the customer including this one
+	 * @param deliveryCountry
+	 *           iso code of the delivery country, may be <code>null</code>
+	 * @param paymentCountry
+	 *           iso code of the payment address country, may be <code>null</code>
+	 */
+	public FraudOrderData(final String code, final double totalPrice, final String customerUid,
+			final int customerOrderCount, final String deliveryCountry, final String paymentCountry)
+	{
+		this.code = code;
+		this.totalPrice = totalPrice;
+		this.customerUid = customerUid;
+		this.customerOrderCount = customerOrderCount;
+		this.deliveryCountry = deliveryCountry;
+		this.paymentCountry = paymentCountry;
+	}
+
+	public String getCode()
+	{
+		return code;
+	}
+
+	public double getTotalPrice()
+	{
+		return totalPrice;
+	}
+
+	public String getCustomerUid()
+	{
+		return customerUid;
+	}
+
+	public int getCustomerOrderCount()
+	{
+		return customerOrderCount;
+	}
+
+	public String getDeliveryCountry()
+	{
+		return deliveryCountry;
+	}
+
+	public String getPaymentCountry()
+	{
+		return paymentCountry;
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud;
+
+import de.hybris.platform.core.model.order.AbstractOrderModel;
+import de.hybris.platform.fraud.impl.FraudServiceResponse;
+
+import java.util.Map;
+
+
+/**
+ * In-process fraud scoring used by the internal fraud check of the order process.
+ */
+public interface FraudScoringEngine
+{
+	/**
+	 * Evaluates all fraud symptoms of the order.
+	 *
+	 * @param order
+	 *           the order to check
+	 * @return the recognized symptoms and the total score
+	 */
+	FraudServiceResponse recognizeOrderSymptoms(AbstractOrderModel order);
+
+	/**
+	 * @return the current score limits, reloaded when the configuration changes
+	 */
+	FraudCheckConfiguration getConfiguration();
+
+	/**
+	 * @return the latency metrics per symptom rule name, or per provider name without rules
+	 */
+	Map<String, FraudSymptomMetrics> getSymptomMetrics();
+}
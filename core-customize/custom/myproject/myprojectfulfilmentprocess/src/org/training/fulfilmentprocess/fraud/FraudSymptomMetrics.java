@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Thread safe latency metrics of one fraud symptom detection.
+ */
+public class FraudSymptomMetrics
+{
+	private final LongAdder evaluations = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public void recordEvaluation(final long nanos)
+	{
+		evaluations.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	public void recordTimeout()
+	{
+		timeouts.increment();
+	}
+
+	public void recordFailure()
+	{
+		failures.increment();
+	}
+
+	public long getEvaluations()
+	{
+		return evaluations.sum();
+	}
+
+	public long getTimeouts()
+	{
+		return timeouts.sum();
+	}
+
+	public long getFailures()
+	{
+		return failures.sum();
+	}
+
+	public double getAverageMillis()
+	{
+		final long count = evaluations.sum();
+		return count == 0 ? 0D : totalNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	public double getMaxMillis()
+	{
+		return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "evaluations=" + getEvaluations() + ", timeouts=" + getTimeouts() + ", failures=" + getFailures() + ", avgMs="
+				+ getAverageMillis() + ", maxMs=" + getMaxMillis();
+	}
+}
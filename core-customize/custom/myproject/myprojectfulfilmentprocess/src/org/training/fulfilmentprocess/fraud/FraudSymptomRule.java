@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud;
+
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Fraud symptom rule of the {@link FraudScoringEngine}. Its parameters are compiled once per configuration change into
+ * a {@link CompiledFraudSymptomRule}, so evaluating an order does not read or parse any configuration.
+ */
+public interface FraudSymptomRule
+{
+	/**
+	 * @return the name of the rule, used as the symptom name and to key its metrics
+	 */
+	String getName();
+
+	/**
+	 * Compiles the parameters of the rule.
+	 *
+	 * @param configuration
+	 *           the current configuration
+	 * @return the immutable rule, safe to be evaluated by many threads
+	 */
+	CompiledFraudSymptomRule compile(Configuration configuration);
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud.impl;
+
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.model.c2l.CountryModel;
+import de.hybris.platform.core.model.order.AbstractOrderModel;
+import de.hybris.platform.core.model.user.AddressModel;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.fraud.FraudService;
+import de.hybris.platform.fraud.impl.FraudServiceResponse;
+import de.hybris.platform.fraud.impl.FraudSymptom;
+import de.hybris.platform.servicelayer.config.ConfigurationService;
+import de.hybris.platform.util.config.ConfigIntf;
+import org.training.fulfilmentprocess.constants.MyprojectFulfilmentProcessConstants;
+import org.training.fulfilmentprocess.fraud.CompiledFraudSymptomRule;
+import org.training.fulfilmentprocess.fraud.FraudCheckConfiguration;
+import org.training.fulfilmentprocess.fraud.FraudOrderData;
+import org.training.fulfilmentprocess.fraud.FraudScoringEngine;
+import org.training.fulfilmentprocess.fraud.FraudSymptomMetrics;
+import org.training.fulfilmentprocess.fraud.FraudSymptomRule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Default {@link FraudScoringEngine}.
+ *
+ * The score limits and the parameters of the {@link FraudSymptomRule}s are read and compiled once and recompiled by a
+ * configuration change listener, instead of being parsed for every order. The compiled rules are evaluated in parallel
+ * against a {@link FraudOrderData} taken from the order on the calling thread, and must finish within
+ * {@link #setTimeBudgetMillis(long)}; rules exceeding the budget are skipped and counted as timeouts. The metrics are
+ * kept per rule bean name. Without configured rules the symptoms are recognized by the {@link FraudService} provider.
+ */
+public class DefaultFraudScoringEngine implements FraudScoringEngine, InitializingBean, DisposableBean
+{
+	private static final Logger LOG = Logger.getLogger(DefaultFraudScoringEngine.class);
+
+	private static final String CONFIG_PREFIX = MyprojectFulfilmentProcessConstants.EXTENSIONNAME + ".fraud.";
+	private static final String SCORE_LIMIT = CONFIG_PREFIX + "scoreLimit";
+	private static final String SCORE_TOLERANCE = CONFIG_PREFIX + "scoreTolerance";
+
+	private FraudService fraudService;
+	private String providerName;
+	private ConfigurationService configurationService;
+	private List<FraudSymptomRule> symptomDetections = Collections.emptyList();
+	private long timeBudgetMillis = 200;
+	private int poolSize = 8;
+
+	private volatile FraudCheckConfiguration configuration;
+	private final Map<String, FraudSymptomMetrics> symptomMetrics = new ConcurrentHashMap<>();
+	private ExecutorService executor;
+	private ConfigIntf.ConfigChangeListener configChangeListener;
+
+	@Override
+	public void afterPropertiesSet()
+	{
+		reloadConfiguration();
+		configChangeListener = (key, value) -> {
+			if (key != null && key.startsWith(CONFIG_PREFIX))
+			{
+				try
+				{
+					reloadConfiguration();
+				}
+				catch (final RuntimeException e)
+				{
+					LOG.error("Invalid fraud check configuration, keeping the previous one", e);
+				}
+			}
+		};
+		registerConfigChangeListener(configChangeListener);
+
+		if (!getSymptomDetections().isEmpty())
+		{
+			final AtomicInteger threadCount = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(getPoolSize(), runnable -> {
+				final Thread thread = new Thread(runnable, "fraud-symptom-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	@Override
+	public void destroy()
+	{
+		if (configChangeListener != null)
+		{
+			unregisterConfigChangeListener(configChangeListener);
+		}
+		if (executor != null)
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	protected void registerConfigChangeListener(final ConfigIntf.ConfigChangeListener listener)
+	{
+		Registry.getCurrentTenant().getConfig().registerConfigChangeListener(listener);
+	}
+
+	protected void unregisterConfigChangeListener(final ConfigIntf.ConfigChangeListener listener)
+	{
+		Registry.getCurrentTenant().getConfig().unregisterConfigChangeListener(listener);
+	}
+
+	protected void reloadConfiguration()
+	{
+		final Configuration config = getConfigurationService().getConfiguration();
+		final List<CompiledFraudSymptomRule> rules = new ArrayList<>(getSymptomDetections().size());
+		for (final FraudSymptomRule rule : getSymptomDetections())
+		{
+			rules.add(rule.compile(config));
+		}
+		configuration = new FraudCheckConfiguration(config.getDouble(SCORE_LIMIT, 500D),
+				config.getDouble(SCORE_TOLERANCE, 50D), rules);
+		if (LOG.isInfoEnabled())
+		{
+			LOG.info("Fraud check score limit " + configuration.getScoreLimit() + ", tolerance " + configuration.getScoreTolerance());
+		}
+	}
+
+	@Override
+	public FraudCheckConfiguration getConfiguration()
+	{
+		return configuration;
+	}
+
+	@Override
+	public Map<String, FraudSymptomMetrics> getSymptomMetrics()
+	{
+		return Collections.unmodifiableMap(symptomMetrics);
+	}
+
+	@Override
+	public FraudServiceResponse recognizeOrderSymptoms(final AbstractOrderModel order)
+	{
+		if (executor == null)
+		{
+			final long start = System.nanoTime();
+			final FraudServiceResponse response = getFraudService().recognizeOrderSymptoms(getProviderName(), order);
+			getMetrics(getProviderName()).recordEvaluation(System.nanoTime() - start);
+			return response;
+		}
+
+		final FraudOrderData orderData = createOrderData(order);
+		final List<CompiledFraudSymptomRule> rules = getConfiguration().getRules();
+		final List<Callable<FraudSymptom>> tasks = new ArrayList<>(rules.size());
+		for (int i = 0; i < rules.size(); i++)
+		{
+			final CompiledFraudSymptomRule rule = rules.get(i);
+			final FraudSymptomMetrics metrics = getMetrics(getSymptomDetections().get(i).getName());
+			tasks.add(() -> {
+				final long start = System.nanoTime();
+				final FraudSymptom symptom = rule.evaluate(orderData);
+				metrics.recordEvaluation(System.nanoTime() - start);
+				return symptom;
+			});
+		}
+
+		final FraudServiceResponse response = new FraudServiceResponse(getProviderName());
+		try
+		{
+			final List<Future<FraudSymptom>> futures = executor.invokeAll(tasks, getTimeBudgetMillis(),
+					TimeUnit.MILLISECONDS);
+			for (int i = 0; i < futures.size(); i++)
+			{
+				addSymptom(response, futures.get(i), getSymptomDetections().get(i).getName(), orderData);
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted while checking order [" + orderData.getCode() + "] for fraud symptoms");
+		}
+		return response;
+	}
+
+	/**
+	 * Extracts the attributes the rules look at, on the calling thread.
+	 */
+	protected FraudOrderData createOrderData(final AbstractOrderModel order)
+	{
+		final UserModel user = order.getUser();
+		final double totalPrice = order.getTotalPrice() == null ? 0D : order.getTotalPrice().doubleValue();
+		final int orderCount = user == null || user.getOrders() == null ? 0 : user.getOrders().size();
+		return new FraudOrderData(order.getCode(), totalPrice, user == null ? null : user.getUid(), orderCount,
+				getCountry(order.getDeliveryAddress()), getCountry(order.getPaymentAddress()));
+	}
+
+	protected String getCountry(final AddressModel address)
+	{
+		final CountryModel country = address == null ? null : address.getCountry();
+		return country == null ? null : country.getIsocode();
+	}
+
+	protected void addSymptom(final FraudServiceResponse response, final Future<FraudSymptom> future,
+			final String symptomName, final FraudOrderData order) throws InterruptedException
+	{
+		try
+		{
+			final FraudSymptom symptom = future.get();
+			if (symptom != null)
+			{
+				response.addSymptom(symptom);
+			}
+		}
+		catch (final CancellationException e)
+		{
+			getMetrics(symptomName).recordTimeout();
+			LOG.warn("Fraud symptom " + symptomName + " exceeded the time budget for order [" + order.getCode() + "]");
+		}
+		catch (final ExecutionException e)
+		{
+			getMetrics(symptomName).recordFailure();
+			LOG.error("Fraud symptom " + symptomName + " failed for order [" + order.getCode() + "]", e.getCause());
+		}
+	}
+
+	protected FraudSymptomMetrics getMetrics(final String symptomName)
+	{
+		return symptomMetrics.computeIfAbsent(symptomName, name -> new FraudSymptomMetrics());
+	}
+
+	protected FraudService getFraudService()
+	{
+		return fraudService;
+	}
+
+	@Required
+	public void setFraudService(final FraudService fraudService)
+	{
+		this.fraudService = fraudService;
+	}
+
+	protected String getProviderName()
+	{
+		return providerName;
+	}
+
+	@Required
+	public void setProviderName(final String providerName)
+	{
+		this.providerName = providerName;
+	}
+
+	protected ConfigurationService getConfigurationService()
+	{
+		return configurationService;
+	}
+
+	@Required
+	public void setConfigurationService(final ConfigurationService configurationService)
+	{
+		this.configurationService = configurationService;
+	}
+
+	protected List<FraudSymptomRule> getSymptomDetections()
+	{
+		return symptomDetections;
+	}
+
+	/**
+	 * @param symptomDetections
+	 *           the symptom rules evaluated in parallel, if empty the fraud service provider is used
+	 */
+	public void setSymptomDetections(final List<FraudSymptomRule> symptomDetections)
+	{
+		this.symptomDetections = symptomDetections;
+	}
+
+	protected long getTimeBudgetMillis()
+	{
+		return timeBudgetMillis;
+	}
+
+	/**
+	 * @param timeBudgetMillis
+	 *           time all symptom detections of an order must finish in
+	 */
+	public void setTimeBudgetMillis(final long timeBudgetMillis)
+	{
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+
+	protected int getPoolSize()
+	{
+		return poolSize;
+	}
+
+	public void setPoolSize(final int poolSize)
+	{
+		this.poolSize = poolSize;
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud.rules;
+
+import org.training.fulfilmentprocess.constants.MyprojectFulfilmentProcessConstants;
+import org.training.fulfilmentprocess.fraud.FraudSymptomRule;
+
+import org.apache.commons.configuration.Configuration;
+import org.springframework.beans.factory.BeanNameAware;
+
+
+/**
+ * Base of the fraud symptom rules. The rule is named after its bean and reads its parameters from
+ * <code>myprojectfulfilmentprocess.fraud.&lt;bean name&gt;.&lt;parameter&gt;</code>.
+ */
+public abstract class AbstractFraudSymptomRule implements FraudSymptomRule, BeanNameAware
+{
+	private static final String CONFIG_PREFIX = MyprojectFulfilmentProcessConstants.EXTENSIONNAME + ".fraud.";
+
+	private String name;
+
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+
+	@Override
+	public void setBeanName(final String name)
+	{
+		this.name = name;
+	}
+
+	protected double getScore(final Configuration configuration)
+	{
+		return configuration.getDouble(getKey("score"));
+	}
+
+	protected String getKey(final String parameter)
+	{
+		return CONFIG_PREFIX + getName() + "." + parameter;
+	}
+}
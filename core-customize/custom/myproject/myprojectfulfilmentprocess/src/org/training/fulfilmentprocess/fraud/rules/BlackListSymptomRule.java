@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud.rules;
+
+import de.hybris.platform.fraud.impl.FraudSymptom;
+import org.training.fulfilmentprocess.fraud.CompiledFraudSymptomRule;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang.StringUtils;
+
+
+/**
+ * Customers on the comma separated <code>entries</code> parameter score <code>score</code>. An entry is either an
+ * email address or a domain starting with <code>@</code>; the list is compiled into hash sets once per configuration
+ * change.
+ */
+public class BlackListSymptomRule extends AbstractFraudSymptomRule
+{
+	@Override
+	public CompiledFraudSymptomRule compile(final Configuration configuration)
+	{
+		final Set<String> emails = new HashSet<>();
+		final Set<String> domains = new HashSet<>();
+		// joined again, the configuration may or may not split list values
+		final String entries = StringUtils.join(configuration.getStringArray(getKey("entries")), ',');
+		for (final String entry : StringUtils.split(entries, ','))
+		{
+			final String trimmed = entry.trim().toLowerCase(Locale.ROOT);
+			if (trimmed.startsWith("@"))
+			{
+				domains.add(trimmed.substring(1));
+			}
+			else if (!trimmed.isEmpty())
+			{
+				emails.add(trimmed);
+			}
+		}
+		return compile(getName(), getScore(configuration), Collections.unmodifiableSet(emails),
+				Collections.unmodifiableSet(domains));
+	}
+
+	protected CompiledFraudSymptomRule compile(final String name, final double score, final Set<String> emails,
+			final Set<String> domains)
+	{
+		if (emails.isEmpty() && domains.isEmpty())
+		{
+			return order -> null;
+		}
+		return order -> {
+			if (order.getCustomerUid() == null)
+			{
+				return null;
+			}
+			final String uid = order.getCustomerUid().toLowerCase(Locale.ROOT);
+			return emails.contains(uid) || domains.contains(StringUtils.substringAfterLast(uid, "@"))
+					? new FraudSymptom(name, score) : null;
+		};
+	}
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud.rules;
+
+import de.hybris.platform.fraud.impl.FraudSymptom;
+import org.training.fulfilmentprocess.fraud.CompiledFraudSymptomRule;
+
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Orders delivered to another country than the one of their payment address score <code>score</code>.
+ */
+public class DifferentAddressesSymptomRule extends AbstractFraudSymptomRule
+{
+	@Override
+	public CompiledFraudSymptomRule compile(final Configuration configuration)
+	{
+		final String name = getName();
+		final double score = getScore(configuration);
+		return order -> order.getDeliveryCountry() != null && order.getPaymentCountry() != null
+				&& !order.getDeliveryCountry().equals(order.getPaymentCountry()) ? new FraudSymptom(name, score) : null;
+	}
+}
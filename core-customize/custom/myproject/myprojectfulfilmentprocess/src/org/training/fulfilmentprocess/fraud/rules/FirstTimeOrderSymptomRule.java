@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud.rules;
+
+import de.hybris.platform.fraud.impl.FraudSymptom;
+import org.training.fulfilmentprocess.fraud.CompiledFraudSymptomRule;
+
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * The first order of a customer scores <code>score</code>.
+ */
+public class FirstTimeOrderSymptomRule extends AbstractFraudSymptomRule
+{
+	@Override
+	public CompiledFraudSymptomRule compile(final Configuration configuration)
+	{
+		final String name = getName();
+		final double score = getScore(configuration);
+		return order -> order.getCustomerOrderCount() <= 1 ? new FraudSymptom(name, score) : null;
+	}
+}
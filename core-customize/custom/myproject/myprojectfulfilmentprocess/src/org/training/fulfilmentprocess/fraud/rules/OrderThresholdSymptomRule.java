@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.fraud.rules;
+
+import de.hybris.platform.fraud.impl.FraudSymptom;
+import org.training.fulfilmentprocess.fraud.CompiledFraudSymptomRule;
+
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Orders with a total price above the <code>limit</code> parameter score <code>score</code>.
+ */
+public class OrderThresholdSymptomRule extends AbstractFraudSymptomRule
+{
+	@Override
+	public CompiledFraudSymptomRule compile(final Configuration configuration)
+	{
+		final String name = getName();
+		final double limit = configuration.getDouble(getKey("limit"));
+		final double score = getScore(configuration);
+		return order -> order.getTotalPrice() > limit ? new FraudSymptom(name, score) : null;
+	}
+}
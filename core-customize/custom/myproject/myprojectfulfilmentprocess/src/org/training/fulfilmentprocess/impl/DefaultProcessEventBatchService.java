@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.impl;
+
+import de.hybris.platform.processengine.BusinessProcessService;
+import de.hybris.platform.processengine.model.BusinessProcessModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.tx.Transaction;
+import org.training.fulfilmentprocess.ProcessEventBatchService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Default implementation of {@link ProcessEventBatchService}.
+ */
+public class DefaultProcessEventBatchService implements ProcessEventBatchService
+{
+	private static final Logger LOG = Logger.getLogger(DefaultProcessEventBatchService.class);
+
+	private ModelService modelService;
+	private BusinessProcessService businessProcessService;
+	private int chunkSize = 100;
+
+	@Override
+	public void triggerEvents(final Collection<String> eventNames)
+	{
+		final List<String> events = new ArrayList<String>(eventNames);
+		for (int from = 0; from < events.size(); from += getChunkSize())
+		{
+			executeChunk(Collections.<BusinessProcessModel> emptyList(),
+					events.subList(from, Math.min(from + getChunkSize(), events.size())));
+		}
+	}
+
+	@Override
+	public void saveAndTriggerEvents(final Map<? extends BusinessProcessModel, String> processEvents)
+	{
+		final List<BusinessProcessModel> processes = new ArrayList<BusinessProcessModel>(getChunkSize());
+		final List<String> events = new ArrayList<String>(getChunkSize());
+		for (final Map.Entry<? extends BusinessProcessModel, String> processEvent : processEvents.entrySet())
+		{
+			processes.add(processEvent.getKey());
+			events.add(processEvent.getValue());
+			if (processes.size() == getChunkSize())
+			{
+				executeChunk(processes, events);
+				processes.clear();
+				events.clear();
+			}
+		}
+		if (!processes.isEmpty())
+		{
+			executeChunk(processes, events);
+		}
+	}
+
+	/**
+	 * Saves the processes and triggers the events of one chunk in a single transaction.
+	 */
+	protected void executeChunk(final Collection<BusinessProcessModel> processes, final Collection<String> events)
+	{
+		final Transaction tx = Transaction.current();
+		tx.begin();
+		boolean success = false;
+		try
+		{
+			if (!processes.isEmpty())
+			{
+				getModelService().saveAll(processes);
+			}
+			for (final String event : events)
+			{
+				getBusinessProcessService().triggerEvent(event);
+			}
+			success = true;
+		}
+		finally
+		{
+			if (success)
+			{
+				tx.commit();
+			}
+			else
+			{
+				tx.rollback();
+			}
+		}
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Triggered " + events.size() + " process events in one transaction");
+		}
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected BusinessProcessService getBusinessProcessService()
+	{
+		return businessProcessService;
+	}
+
+	@Required
+	public void setBusinessProcessService(final BusinessProcessService businessProcessService)
+	{
+		this.businessProcessService = businessProcessService;
+	}
+
+	protected int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * @param chunkSize
+	 *           number of events triggered in one transaction
+	 */
+	public void setChunkSize(final int chunkSize)
+	{
+		this.chunkSize = chunkSize;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.impl;
+
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.tx.Transaction;
+import de.hybris.platform.tx.TransactionBody;
+import org.training.fulfilmentprocess.SubprocessCompletionService;
+
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Default implementation of {@link SubprocessCompletionService}. The parent process row is locked while the count is
+ * incremented, so subprocesses ending at the same time on different nodes do not lose updates.
+ */
+public class DefaultSubprocessCompletionService implements SubprocessCompletionService
+{
+	private ModelService modelService;
+
+	@Override
+	public int markCompleted(final ConsignmentProcessModel process)
+	{
+		try
+		{
+			return ((Integer) Transaction.current().execute(new TransactionBody()
+			{
+				@Override
+				public Object execute()
+				{
+					return Integer.valueOf(incrementCompleted(process));
+				}
+			})).intValue();
+		}
+		catch (final RuntimeException e)
+		{
+			throw e;
+		}
+		catch (final Exception e)
+		{
+			throw new IllegalStateException("Failed to mark subprocess " + process.getCode() + " as completed", e);
+		}
+	}
+
+	protected int incrementCompleted(final ConsignmentProcessModel process)
+	{
+		final OrderProcessModel parent = process.getParentProcess();
+		getModelService().lock(parent.getPk());
+		getModelService().refresh(parent);
+		getModelService().refresh(process);
+		if (process.isDone())
+		{
+			return parent.getCompletedSubprocessCount();
+		}
+
+		process.setDone(true);
+		parent.setCompletedSubprocessCount(parent.getCompletedSubprocessCount() + 1);
+		getModelService().saveAll(process, parent);
+		return parent.getCompletedSubprocessCount();
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+}
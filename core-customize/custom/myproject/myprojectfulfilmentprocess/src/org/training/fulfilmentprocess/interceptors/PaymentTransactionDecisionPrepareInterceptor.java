@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.interceptors;
+
+import de.hybris.platform.payment.enums.PaymentTransactionType;
+import de.hybris.platform.payment.model.PaymentTransactionEntryModel;
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+import de.hybris.platform.servicelayer.interceptor.InterceptorContext;
+import de.hybris.platform.servicelayer.interceptor.PersistenceOperation;
+import de.hybris.platform.servicelayer.interceptor.PrepareInterceptor;
+
+
+/**
+ * Points {@link PaymentTransactionModel#getLatestDecisionEntry()} to every new authorization or review decision entry,
+ * so the latest decision of a transaction can be read without walking its entry history.
+ */
+public class PaymentTransactionDecisionPrepareInterceptor implements PrepareInterceptor<PaymentTransactionEntryModel>
+{
+	@Override
+	public void onPrepare(final PaymentTransactionEntryModel entry, final InterceptorContext ctx)
+	{
+		final PaymentTransactionModel transaction = entry.getPaymentTransaction();
+		if (transaction != null && ctx.isNew(entry) && isDecision(entry))
+		{
+			transaction.setLatestDecisionEntry(entry);
+			ctx.registerElementFor(transaction, PersistenceOperation.SAVE);
+		}
+	}
+
+	protected boolean isDecision(final PaymentTransactionEntryModel entry)
+	{
+		return PaymentTransactionType.AUTHORIZATION.equals(entry.getType())
+				|| PaymentTransactionType.REVIEW_DECISION.equals(entry.getType());
+	}
+}
@@ -0,0 +1,12 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.jalo;
+
+/**
+ * Cron job of the fraud order clean up, keeps the cursor and the metrics of the last run.
+ */
+public class CleanUpFraudOrderCronJob extends GeneratedCleanUpFraudOrderCronJob
+{
+	// Deliberately empty class
+}
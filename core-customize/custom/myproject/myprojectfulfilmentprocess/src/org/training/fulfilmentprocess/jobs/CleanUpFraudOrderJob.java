@@ -3,18 +3,30 @@
  */
 package org.training.fulfilmentprocess.jobs;
 
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
 import de.hybris.platform.cronjob.enums.CronJobResult;
 import de.hybris.platform.cronjob.enums.CronJobStatus;
 import de.hybris.platform.cronjob.model.CronJobModel;
-import de.hybris.platform.processengine.BusinessProcessService;
 import de.hybris.platform.processengine.model.BusinessProcessModel;
+import de.hybris.platform.processengine.model.ProcessTaskModel;
 import de.hybris.platform.servicelayer.cronjob.AbstractJobPerformable;
 import de.hybris.platform.servicelayer.cronjob.PerformResult;
 import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 import de.hybris.platform.servicelayer.search.SearchResult;
+import org.training.fulfilmentprocess.ProcessEventBatchService;
 import org.training.fulfilmentprocess.constants.MyprojectFulfilmentProcessConstants;
+import org.training.fulfilmentprocess.model.CleanUpFraudOrderCronJobModel;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
@@ -22,52 +34,236 @@ import org.springframework.beans.factory.annotation.Required;
 
 /**
  * CronJob periodically send CleanUpEvent for <b>order-process</b> processes which are in action <b>waitForCleanUp</b>
+ *
+ * The processes are paged by PK with a keyset cursor over the (action, process) index of ProcessTask, so the job never
+ * holds more than one page in memory. The events of a page are triggered by up to {@link #setConcurrency(int)} threads.
+ * The job can be aborted between pages; for a {@link CleanUpFraudOrderCronJobModel} the cursor is stored after every
+ * page, so the next run resumes after the last processed process even if the node died during the run, together with
+ * the number of events and the duration of the run.
  */
 public class CleanUpFraudOrderJob extends AbstractJobPerformable<CronJobModel>
 {
-	@SuppressWarnings("unused")
 	private static final Logger LOG = Logger.getLogger(CleanUpFraudOrderJob.class);
-	private BusinessProcessService businessProcessService;
 
-	protected BusinessProcessService getBusinessProcessService()
+	private static final String PROCESS_CURRENT_ACTION = "waitForCleanUp";
+	private static final String EVENT_NAME_SUFFIX = "_CleanUpEvent";
+
+	private static final String WAITING_PROCESSES_QUERY = "SELECT DISTINCT {pt." + ProcessTaskModel.PROCESS + "} FROM {"
+			+ ProcessTaskModel._TYPECODE + " AS pt} WHERE {pt." + ProcessTaskModel.ACTION + "} = ?processCurrentAction AND {pt."
+			+ ProcessTaskModel.PROCESS + "} > ?lastPk ORDER BY {pt." + ProcessTaskModel.PROCESS + "}";
+
+	private static final String PROCESS_CODES_QUERY = "SELECT {" + BusinessProcessModel.CODE + "} FROM {"
+			+ BusinessProcessModel._TYPECODE + "} WHERE {" + BusinessProcessModel.PK + "} IN (?pks) AND {"
+			+ BusinessProcessModel.PROCESSDEFINITIONNAME + "} = ?processDefinitionName";
+
+	private ProcessEventBatchService processEventBatchService;
+	private int pageSize = 1000;
+	private int concurrency = 4;
+
+	protected ProcessEventBatchService getProcessEventBatchService()
 	{
-		return businessProcessService;
+		return processEventBatchService;
 	}
 
 	@Required
-	public void setBusinessProcessService(final BusinessProcessService businessProcessService)
+	public void setProcessEventBatchService(final ProcessEventBatchService processEventBatchService)
+	{
+		this.processEventBatchService = processEventBatchService;
+	}
+
+	@Override
+	public boolean isAbortable()
 	{
-		this.businessProcessService = businessProcessService;
+		return true;
 	}
 
 	@Override
 	public PerformResult perform(final CronJobModel cronJob)
 	{
 		final String processDefinitionName = MyprojectFulfilmentProcessConstants.ORDER_PROCESS_NAME;
-		final String processCurrentAction = "waitForCleanUp";
-		final List<BusinessProcessModel> processes = getAllProcessByDefinitionAndCurrentAction(processDefinitionName,
-				processCurrentAction);
+		final long start = System.currentTimeMillis();
+		long lastPk = getLastProcessedPk(cronJob);
+		long events = 0;
 
-		final String eventNameSuffix = "_CleanUpEvent";
-		for (final BusinessProcessModel bpm : processes)
+		final ExecutorService executor = getConcurrency() > 1 ? createExecutor() : null;
+		try
 		{
-			//${process.code}_CleanUpEvent
-			final String eventName = bpm.getCode() + eventNameSuffix;
-			businessProcessService.triggerEvent(eventName);
+			List<Long> processPks = getWaitingProcessPks(PROCESS_CURRENT_ACTION, lastPk);
+			while (!processPks.isEmpty())
+			{
+				final List<String> processCodes = getProcessCodes(processPks, processDefinitionName);
+				triggerCleanUpEvents(processCodes, executor);
+				events += processCodes.size();
+				lastPk = processPks.get(processPks.size() - 1).longValue();
+				checkpoint(cronJob, Long.valueOf(lastPk), events, start);
+
+				if (clearAbortRequestedIfNeeded(cronJob))
+				{
+					return new PerformResult(CronJobResult.UNKNOWN, CronJobStatus.ABORTED);
+				}
+				processPks = processPks.size() < getPageSize() ? Collections.<Long> emptyList()
+						: getWaitingProcessPks(PROCESS_CURRENT_ACTION, lastPk);
+			}
+		}
+		catch (final ExecutionException e)
+		{
+			LOG.error("Failed to send clean up events, next run resumes after process [" + lastPk + "]", e.getCause());
+			return new PerformResult(CronJobResult.ERROR, CronJobStatus.ABORTED);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return new PerformResult(CronJobResult.UNKNOWN, CronJobStatus.ABORTED);
+		}
+		finally
+		{
+			if (executor != null)
+			{
+				executor.shutdownNow();
+			}
 		}
+
+		if (LOG.isInfoEnabled())
+		{
+			final long duration = System.currentTimeMillis() - start;
+			LOG.info("Sent " + events + " clean up events in " + duration + " ms ("
+					+ (duration == 0 ? events : events * 1000 / duration) + " events/s)");
+		}
+		checkpoint(cronJob, null, events, start);
 		return new PerformResult(CronJobResult.SUCCESS, CronJobStatus.FINISHED);
 	}
 
-	protected List<BusinessProcessModel> getAllProcessByDefinitionAndCurrentAction(final String processDefinitionName,
-			final String processCurrentAction)
+	/**
+	 * Triggers the clean up events of one page, split into one batch per thread.
+	 */
+	protected void triggerCleanUpEvents(final List<String> processCodes, final ExecutorService executor)
+			throws InterruptedException, ExecutionException
 	{
-		final String query = "select {bp.PK} " + "from {BusinessProcess AS bp  JOIN ProcessTask AS pt ON {bp.pk} = {pt.process} } "
-				+ "WHERE {bp.processDefinitionName} = ?processDefinitionName and {pt.action} = ?processCurrentAction";
+		if (executor == null || processCodes.size() < 2)
+		{
+			triggerCleanUpEvents(processCodes);
+			return;
+		}
 
-		final FlexibleSearchQuery searchQuery = new FlexibleSearchQuery(query);
-		searchQuery.addQueryParameter("processDefinitionName", processDefinitionName);
+		final int batchSize = (processCodes.size() + getConcurrency() - 1) / getConcurrency();
+		final Tenant tenant = Registry.getCurrentTenant();
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int from = 0; from < processCodes.size(); from += batchSize)
+		{
+			final List<String> batch = processCodes.subList(from, Math.min(from + batchSize, processCodes.size()));
+			futures.add(executor.submit(() -> {
+				Registry.setCurrentTenant(tenant);
+				try
+				{
+					triggerCleanUpEvents(batch);
+				}
+				finally
+				{
+					Registry.unsetCurrentTenant();
+				}
+			}));
+		}
+		for (final Future<?> future : futures)
+		{
+			future.get();
+		}
+	}
+
+	protected void triggerCleanUpEvents(final List<String> processCodes)
+	{
+		final List<String> eventNames = new ArrayList<>(processCodes.size());
+		for (final String processCode : processCodes)
+		{
+			//${process.code}_CleanUpEvent
+			eventNames.add(processCode + EVENT_NAME_SUFFIX);
+		}
+		getProcessEventBatchService().triggerEvents(eventNames);
+	}
+
+	protected ExecutorService createExecutor()
+	{
+		return Executors.newFixedThreadPool(getConcurrency());
+	}
+
+	/**
+	 * @return the PKs of the next page of processes waiting in the given action, in ascending order
+	 */
+	protected List<Long> getWaitingProcessPks(final String processCurrentAction, final long lastPk)
+	{
+		final FlexibleSearchQuery searchQuery = new FlexibleSearchQuery(WAITING_PROCESSES_QUERY);
 		searchQuery.addQueryParameter("processCurrentAction", processCurrentAction);
-		final SearchResult<BusinessProcessModel> processes = flexibleSearchService.search(searchQuery);
-		return processes.getResult();
+		searchQuery.addQueryParameter("lastPk", Long.valueOf(lastPk));
+		searchQuery.setResultClassList(Collections.singletonList(Long.class));
+		searchQuery.setCount(getPageSize());
+		searchQuery.setNeedTotal(false);
+		final SearchResult<Long> processPks = flexibleSearchService.search(searchQuery);
+		return processPks.getResult();
+	}
+
+	protected List<String> getProcessCodes(final List<Long> processPks, final String processDefinitionName)
+	{
+		final FlexibleSearchQuery searchQuery = new FlexibleSearchQuery(PROCESS_CODES_QUERY);
+		searchQuery.addQueryParameter("pks", processPks);
+		searchQuery.addQueryParameter("processDefinitionName", processDefinitionName);
+		searchQuery.setResultClassList(Arrays.asList(String.class));
+		searchQuery.setNeedTotal(false);
+		final SearchResult<String> processCodes = flexibleSearchService.search(searchQuery);
+		return processCodes.getResult();
+	}
+
+	protected long getLastProcessedPk(final CronJobModel cronJob)
+	{
+		if (cronJob instanceof CleanUpFraudOrderCronJobModel)
+		{
+			final Long lastPk = ((CleanUpFraudOrderCronJobModel) cronJob).getLastProcessedProcessPk();
+			if (lastPk != null)
+			{
+				return lastPk.longValue();
+			}
+		}
+		return 0L;
+	}
+
+	/**
+	 * Stores the cursor and the metrics of the run, a <code>null</code> cursor marks the run as completed.
+	 */
+	protected void checkpoint(final CronJobModel cronJob, final Long lastPk, final long events, final long start)
+	{
+		if (cronJob instanceof CleanUpFraudOrderCronJobModel)
+		{
+			final CleanUpFraudOrderCronJobModel cleanUpCronJob = (CleanUpFraudOrderCronJobModel) cronJob;
+			cleanUpCronJob.setLastProcessedProcessPk(lastPk);
+			cleanUpCronJob.setLastRunEventCount(Long.valueOf(events));
+			cleanUpCronJob.setLastRunDuration(Long.valueOf(System.currentTimeMillis() - start));
+			modelService.save(cleanUpCronJob);
+		}
+	}
+
+	protected int getPageSize()
+	{
+		return pageSize;
+	}
+
+	/**
+	 * @param pageSize
+	 *           number of waiting processes loaded at once
+	 */
+	public void setPageSize(final int pageSize)
+	{
+		this.pageSize = pageSize;
+	}
+
+	protected int getConcurrency()
+	{
+		return concurrency;
+	}
+
+	/**
+	 * @param concurrency
+	 *           number of threads triggering the events of a page, 1 triggers them on the cron job thread
+	 */
+	public void setConcurrency(final int concurrency)
+	{
+		this.concurrency = concurrency;
 	}
 }
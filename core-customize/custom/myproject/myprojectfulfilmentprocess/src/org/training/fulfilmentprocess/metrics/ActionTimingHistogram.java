@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock free timing histogram of one process action with fixed, roughly logarithmic buckets, plus counters of the
+ * transitions taken, the retries requested and the exceptions thrown.
+ */
+public class ActionTimingHistogram
+{
+	/**
+	 * Upper bounds of the buckets in milliseconds, the last bucket is unbounded.
+	 */
+	static final long[] BUCKET_BOUNDS_MILLIS =
+	{ 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000 };
+
+	private final String actionId;
+	private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder exceptions = new LongAdder();
+	private final Map<String, LongAdder> transitions = new ConcurrentHashMap<>();
+
+	public ActionTimingHistogram(final String actionId)
+	{
+		this.actionId = actionId;
+		for (int i = 0; i < buckets.length; i++)
+		{
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	public void recordTransition(final long nanos, final String transition)
+	{
+		record(nanos);
+		transitions.computeIfAbsent(String.valueOf(transition), key -> new LongAdder()).increment();
+	}
+
+	public void recordRetry(final long nanos)
+	{
+		record(nanos);
+		retries.increment();
+	}
+
+	public void recordException(final long nanos)
+	{
+		record(nanos);
+		exceptions.increment();
+	}
+
+	protected void record(final long nanos)
+	{
+		final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+		int bucket = 0;
+		while (bucket < BUCKET_BOUNDS_MILLIS.length && millis >= BUCKET_BOUNDS_MILLIS[bucket])
+		{
+			bucket++;
+		}
+		buckets[bucket].increment();
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	/**
+	 * @return the upper bound in milliseconds of the bucket containing the given percentile, -1 for the unbounded
+	 *         bucket and 0 if nothing has been recorded
+	 */
+	protected long percentileMillis(final long[] counts, final long total, final double percentile)
+	{
+		if (total == 0)
+		{
+			return 0;
+		}
+		final long rank = (long) Math.ceil(percentile / 100D * total);
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			cumulative += counts[i];
+			if (cumulative >= rank)
+			{
+				return i < BUCKET_BOUNDS_MILLIS.length ? BUCKET_BOUNDS_MILLIS[i] : -1;
+			}
+		}
+		return -1;
+	}
+
+	public ActionTimingSnapshot snapshot()
+	{
+		final long[] counts = new long[buckets.length];
+		long total = 0;
+		for (int i = 0; i < buckets.length; i++)
+		{
+			counts[i] = buckets[i].sum();
+			total += counts[i];
+		}
+		final Map<String, Long> transitionCounts = new TreeMap<>();
+		for (final Map.Entry<String, LongAdder> transition : transitions.entrySet())
+		{
+			transitionCounts.put(transition.getKey(), Long.valueOf(transition.getValue().sum()));
+		}
+		final long executions = count.sum();
+		return new ActionTimingSnapshot(actionId, executions,
+				executions == 0 ? 0D : totalNanos.sum() / (double) executions / TimeUnit.MILLISECONDS.toNanos(1),
+				maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1), percentileMillis(counts, total, 50),
+				percentileMillis(counts, total, 95), percentileMillis(counts, total, 99), retries.sum(), exceptions.sum(),
+				transitionCounts);
+	}
+
+	/**
+	 * Discards the recorded timings in place, so the interceptor holding this histogram keeps recording into it. Timings
+	 * recorded while resetting may be partly kept.
+	 */
+	public void reset()
+	{
+		for (final LongAdder bucket : buckets)
+		{
+			bucket.reset();
+		}
+		count.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		retries.reset();
+		exceptions.reset();
+		transitions.clear();
+	}
+
+	public String getActionId()
+	{
+		return actionId;
+	}
+}
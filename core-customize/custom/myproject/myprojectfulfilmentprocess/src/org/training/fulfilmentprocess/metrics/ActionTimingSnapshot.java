@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.Collections;
+import java.util.Map;
+
+
+/**
+ * Immutable view of an {@link ActionTimingHistogram}, exposed as composite data through JMX. The percentiles are the
+ * upper bounds of the histogram buckets they fall into.
+ */
+public class ActionTimingSnapshot
+{
+	private final String actionId;
+	private final long count;
+	private final double meanMillis;
+	private final double maxMillis;
+	private final long p50Millis;
+	private final long p95Millis;
+	private final long p99Millis;
+	private final long retries;
+	private final long exceptions;
+	private final Map<String, Long> transitions;
+
+	@ConstructorProperties(
+	{ "actionId", "count", "meanMillis", "maxMillis", "p50Millis", "p95Millis", "p99Millis", "retries", "exceptions",
+			"transitions" })
+	public ActionTimingSnapshot(final String actionId, final long count, final double meanMillis, final double maxMillis,
+			final long p50Millis, final long p95Millis, final long p99Millis, final long retries, final long exceptions,
+			final Map<String, Long> transitions)
+	{
+		this.actionId = actionId;
+		this.count = count;
+		this.meanMillis = meanMillis;
+		this.maxMillis = maxMillis;
+		this.p50Millis = p50Millis;
+		this.p95Millis = p95Millis;
+		this.p99Millis = p99Millis;
+		this.retries = retries;
+		this.exceptions = exceptions;
+		this.transitions = Collections.unmodifiableMap(transitions);
+	}
+
+	public String getActionId()
+	{
+		return actionId;
+	}
+
+	public long getCount()
+	{
+		return count;
+	}
+
+	public double getMeanMillis()
+	{
+		return meanMillis;
+	}
+
+	public double getMaxMillis()
+	{
+		return maxMillis;
+	}
+
+	public long getP50Millis()
+	{
+		return p50Millis;
+	}
+
+	public long getP95Millis()
+	{
+		return p95Millis;
+	}
+
+	public long getP99Millis()
+	{
+		return p99Millis;
+	}
+
+	public long getRetries()
+	{
+		return retries;
+	}
+
+	public long getExceptions()
+	{
+		return exceptions;
+	}
+
+	public Map<String, Long> getTransitions()
+	{
+		return transitions;
+	}
+
+	@Override
+	public String toString()
+	{
+		return actionId + ": count=" + count + ", mean=" + String.format("%.1f", Double.valueOf(meanMillis)) + "ms, p50<="
+				+ p50Millis + "ms, p95<=" + p95Millis + "ms, p99<=" + p99Millis + "ms, max="
+				+ String.format("%.1f", Double.valueOf(maxMillis)) + "ms, retries=" + retries + ", exceptions=" + exceptions
+				+ ", transitions=" + transitions;
+	}
+}
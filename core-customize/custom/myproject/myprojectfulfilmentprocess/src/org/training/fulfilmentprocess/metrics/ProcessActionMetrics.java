@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.metrics;
+
+import de.hybris.platform.core.Registry;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+
+/**
+ * In-memory registry of the {@link ActionTimingHistogram}s of the process actions, registered in the platform MBean
+ * server as <code>org.training.fulfilmentprocess:type=ProcessActionMetrics,tenant=&lt;tenant id&gt;</code>.
+ */
+public class ProcessActionMetrics implements ProcessActionMetricsMXBean, InitializingBean, DisposableBean
+{
+	private static final Logger LOG = Logger.getLogger(ProcessActionMetrics.class);
+
+	private final Map<String, ActionTimingHistogram> histograms = new ConcurrentHashMap<>();
+	private ObjectName objectName;
+
+	@Override
+	public void afterPropertiesSet()
+	{
+		try
+		{
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			objectName = new ObjectName("org.training.fulfilmentprocess:type=ProcessActionMetrics,tenant="
+					+ ObjectName.quote(Registry.getCurrentTenant().getTenantID()));
+			if (server.isRegistered(objectName))
+			{
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(this, objectName);
+		}
+		catch (final JMException e)
+		{
+			LOG.warn("Process action metrics are not available through JMX", e);
+			objectName = null;
+		}
+	}
+
+	@Override
+	public void destroy() throws JMException
+	{
+		if (objectName != null && ManagementFactory.getPlatformMBeanServer().isRegistered(objectName))
+		{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+	}
+
+	/**
+	 * @return the histogram of the action, created on first use
+	 */
+	public ActionTimingHistogram getHistogram(final String actionId)
+	{
+		return histograms.computeIfAbsent(actionId, ActionTimingHistogram::new);
+	}
+
+	@Override
+	public List<ActionTimingSnapshot> getActionTimings()
+	{
+		final List<ActionTimingSnapshot> snapshots = new ArrayList<>(histograms.size());
+		for (final ActionTimingHistogram histogram : histograms.values())
+		{
+			final ActionTimingSnapshot snapshot = histogram.snapshot();
+			if (snapshot.getCount() > 0)
+			{
+				snapshots.add(snapshot);
+			}
+		}
+		snapshots.sort((first, second) -> first.getActionId().compareTo(second.getActionId()));
+		return snapshots;
+	}
+
+	/**
+	 * Resets the histograms in place, the timing interceptors hold on to them.
+	 */
+	@Override
+	public void reset()
+	{
+		histograms.values().forEach(ActionTimingHistogram::reset);
+	}
+}
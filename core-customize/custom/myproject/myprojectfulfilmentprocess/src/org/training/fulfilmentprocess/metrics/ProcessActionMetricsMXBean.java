@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.metrics;
+
+import java.util.List;
+
+
+/**
+ * JMX view of the {@link ProcessActionMetrics}.
+ */
+public interface ProcessActionMetricsMXBean
+{
+	/**
+	 * @return the timings of all process actions executed since the last reset, ordered by action id
+	 */
+	List<ActionTimingSnapshot> getActionTimings();
+
+	/**
+	 * Discards all recorded timings.
+	 */
+	void reset();
+}
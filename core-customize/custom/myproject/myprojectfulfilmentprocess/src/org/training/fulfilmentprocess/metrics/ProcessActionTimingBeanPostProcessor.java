@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.metrics;
+
+import de.hybris.platform.processengine.spring.Action;
+import de.hybris.platform.task.RetryLaterException;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+
+
+/**
+ * Wraps the process action beans of the fulfilment processes, i.e. all {@link Action}s in
+ * {@link #setActionPackage(String)}, into a proxy recording the execution time, the transition taken, retries and
+ * exceptions of every <code>execute</code> call under the bean id in the {@link ProcessActionMetrics}.
+ *
+ * The proxy implements the interfaces of the action, so the process engine and other beans referencing the action by
+ * one of its interfaces are not affected.
+ */
+public class ProcessActionTimingBeanPostProcessor implements BeanPostProcessor
+{
+	private static final String EXECUTE = "execute";
+
+	private ProcessActionMetrics processActionMetrics;
+	private String actionPackage;
+
+	@Override
+	public Object postProcessBeforeInitialization(final Object bean, final String beanName)
+	{
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(final Object bean, final String beanName)
+	{
+		if (!(bean instanceof Action) || !bean.getClass().getName().startsWith(getActionPackage() + "."))
+		{
+			return bean;
+		}
+		final ProxyFactory proxyFactory = new ProxyFactory(bean);
+		proxyFactory.setInterfaces(ClassUtils.getAllInterfaces(bean));
+		proxyFactory.addAdvice(new TimingInterceptor(getProcessActionMetrics().getHistogram(beanName)));
+		return proxyFactory.getProxy(bean.getClass().getClassLoader());
+	}
+
+	protected static class TimingInterceptor implements MethodInterceptor
+	{
+		private final ActionTimingHistogram histogram;
+
+		public TimingInterceptor(final ActionTimingHistogram histogram)
+		{
+			this.histogram = histogram;
+		}
+
+		@Override
+		public Object invoke(final MethodInvocation invocation) throws Throwable
+		{
+			if (!EXECUTE.equals(invocation.getMethod().getName()) || invocation.getArguments().length != 1)
+			{
+				return invocation.proceed();
+			}
+
+			final long start = System.nanoTime();
+			try
+			{
+				final Object transition = invocation.proceed();
+				histogram.recordTransition(System.nanoTime() - start, String.valueOf(transition));
+				return transition;
+			}
+			catch (final RetryLaterException e)
+			{
+				histogram.recordRetry(System.nanoTime() - start);
+				throw e;
+			}
+			catch (final Throwable e)
+			{
+				histogram.recordException(System.nanoTime() - start);
+				throw e;
+			}
+		}
+	}
+
+	protected ProcessActionMetrics getProcessActionMetrics()
+	{
+		return processActionMetrics;
+	}
+
+	@Required
+	public void setProcessActionMetrics(final ProcessActionMetrics processActionMetrics)
+	{
+		this.processActionMetrics = processActionMetrics;
+	}
+
+	protected String getActionPackage()
+	{
+		return actionPackage;
+	}
+
+	/**
+	 * @param actionPackage
+	 *           the package whose action beans are timed, including sub packages
+	 */
+	@Required
+	public void setActionPackage(final String actionPackage)
+	{
+		this.actionPackage = actionPackage;
+	}
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.payment;
+
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+
+import java.util.Collection;
+
+
+/**
+ * Captures the payment transactions of an order, e.g. of a split tender order, as one unit: either all transactions
+ * are captured or the captured ones are voided again.
+ */
+public interface PaymentCaptureOrchestrator
+{
+	/**
+	 * Captures the given transactions. Transactions that already have an accepted capture are not captured again.
+	 *
+	 * @param transactions
+	 *           the independent transactions to capture
+	 * @return the aggregated result, if it is not successful the captured transactions have been voided
+	 */
+	PaymentCaptureResult capture(Collection<PaymentTransactionModel> transactions);
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.payment;
+
+import de.hybris.platform.payment.model.PaymentTransactionEntryModel;
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Outcome of capturing the transactions of an order.
+ */
+public class PaymentCaptureResult
+{
+	private final List<PaymentTransactionEntryModel> captured = new ArrayList<>();
+	private final List<PaymentTransactionModel> failed = new ArrayList<>();
+	private final List<PaymentTransactionModel> timedOut = new ArrayList<>();
+	private final List<PaymentTransactionEntryModel> voided = new ArrayList<>();
+
+	public void addCaptured(final PaymentTransactionEntryModel entry)
+	{
+		captured.add(entry);
+	}
+
+	public void addFailed(final PaymentTransactionModel transaction)
+	{
+		failed.add(transaction);
+	}
+
+	public void addTimedOut(final PaymentTransactionModel transaction)
+	{
+		timedOut.add(transaction);
+	}
+
+	public void addVoided(final PaymentTransactionEntryModel entry)
+	{
+		voided.add(entry);
+	}
+
+	/**
+	 * @return <code>true</code> if all transactions have been captured
+	 */
+	public boolean isSuccessful()
+	{
+		return failed.isEmpty() && timedOut.isEmpty();
+	}
+
+	/**
+	 * @return the accepted capture entries, including the ones voided afterwards
+	 */
+	public List<PaymentTransactionEntryModel> getCaptured()
+	{
+		return Collections.unmodifiableList(captured);
+	}
+
+	/**
+	 * @return the transactions whose capture has been rejected or has failed
+	 */
+	public List<PaymentTransactionModel> getFailed()
+	{
+		return Collections.unmodifiableList(failed);
+	}
+
+	/**
+	 * @return the transactions whose capture did not answer in time
+	 */
+	public List<PaymentTransactionModel> getTimedOut()
+	{
+		return Collections.unmodifiableList(timedOut);
+	}
+
+	/**
+	 * @return the void entries of the compensated captures
+	 */
+	public List<PaymentTransactionEntryModel> getVoided()
+	{
+		return Collections.unmodifiableList(voided);
+	}
+}
@@ -0,0 +1,562 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.payment.impl;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.payment.PaymentService;
+import de.hybris.platform.payment.dto.TransactionStatus;
+import de.hybris.platform.payment.enums.PaymentTransactionType;
+import de.hybris.platform.payment.model.PaymentTransactionEntryModel;
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.tx.Transaction;
+import de.hybris.platform.tx.TransactionBody;
+import org.training.fulfilmentprocess.payment.PaymentCaptureOrchestrator;
+import org.training.fulfilmentprocess.payment.PaymentCaptureResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Default implementation of {@link PaymentCaptureOrchestrator}.
+ *
+ * All transactions are captured concurrently through the {@link PaymentService}, so a split tender order waits for
+ * the slowest payment provider instead of the sum of all of them. Each capture has to answer within
+ * {@link #setCaptureTimeoutMillis(long)}. If any capture is rejected, fails or times out, the accepted captures are
+ * voided; a timed out capture that is accepted later is voided as soon as it answers.
+ *
+ * Captures are keyed by an idempotency key derived from the transaction, so a capture still running is joined instead
+ * of being sent a second time, and transactions with an accepted capture entry that has not been voided are not
+ * captured again when the process step is retried. Before a persisted transaction is captured, the key is claimed on
+ * the transaction under a row lock, see {@link PaymentTransactionModel#getCaptureRequestKey()}: a capture claimed on
+ * another cluster node fails instead of being sent again, until it has answered or the claim has expired after the
+ * capture timeout. Once every caller waiting for a capture has timed out, the capture is abandoned: its claim is
+ * released, it is voided if accepted late and a retry sends a new capture instead of joining it.
+ *
+ * The workers load the transactions by PK in their own session, the caller's models are not shared across threads.
+ */
+public class DefaultPaymentCaptureOrchestrator implements PaymentCaptureOrchestrator, InitializingBean, DisposableBean
+{
+	private static final Logger LOG = Logger.getLogger(DefaultPaymentCaptureOrchestrator.class);
+
+	private PaymentService paymentService;
+	private ModelService modelService;
+	private SessionService sessionService;
+	private int poolSize = 8;
+	private long captureTimeoutMillis = 30000;
+
+	private ExecutorService executor;
+	private final Map<String, InFlightCapture> inFlightCaptures = new ConcurrentHashMap<>();
+
+	@Override
+	public void afterPropertiesSet()
+	{
+		final AtomicInteger threadCount = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(getPoolSize(), runnable -> {
+			final Thread thread = new Thread(runnable, "payment-capture-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void destroy()
+	{
+		executor.shutdown();
+	}
+
+	@Override
+	public PaymentCaptureResult capture(final Collection<PaymentTransactionModel> transactions)
+	{
+		final PaymentCaptureResult result = new PaymentCaptureResult();
+		final Map<PaymentTransactionModel, InFlightCapture> captures = new LinkedHashMap<>();
+		for (final PaymentTransactionModel transaction : transactions)
+		{
+			final PaymentTransactionEntryModel accepted = findAcceptedCapture(transaction);
+			if (accepted != null)
+			{
+				result.addCaptured(accepted);
+			}
+			else
+			{
+				captures.put(transaction, startCapture(transaction));
+			}
+		}
+
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getCaptureTimeoutMillis());
+		for (final Map.Entry<PaymentTransactionModel, InFlightCapture> capture : captures.entrySet())
+		{
+			awaitCapture(capture.getKey(), capture.getValue(), deadline, result);
+		}
+
+		if (!result.isSuccessful())
+		{
+			compensate(result);
+		}
+		return result;
+	}
+
+	protected void awaitCapture(final PaymentTransactionModel transaction, final InFlightCapture capture,
+			final long deadline, final PaymentCaptureResult result)
+	{
+		try
+		{
+			final long remaining = Math.max(0L, deadline - System.nanoTime());
+			final PaymentTransactionEntryModel entry = capture.getFuture().get(remaining, TimeUnit.NANOSECONDS);
+			if (isAccepted(entry))
+			{
+				result.addCaptured(resolve(entry));
+			}
+			else
+			{
+				LOG.error("The payment transaction capture has been rejected. Txn: " + transaction.getCode());
+				result.addFailed(transaction);
+			}
+		}
+		catch (final TimeoutException e)
+		{
+			LOG.error("The payment transaction capture timed out after " + getCaptureTimeoutMillis() + " ms. Txn: "
+					+ transaction.getCode());
+			result.addTimedOut(transaction);
+			abandon(transaction, capture);
+		}
+		catch (final ExecutionException e)
+		{
+			LOG.error("The payment transaction capture has failed. Txn: " + transaction.getCode(), e.getCause());
+			result.addFailed(transaction);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			result.addTimedOut(transaction);
+			abandon(transaction, capture);
+		}
+	}
+
+	/**
+	 * Gives up waiting for the capture. If no other caller is waiting for it any more, the capture is removed from the
+	 * running captures, so a retry sends a new one, and it is voided if the provider accepts it late.
+	 */
+	protected void abandon(final PaymentTransactionModel transaction, final InFlightCapture capture)
+	{
+		if (!capture.leave())
+		{
+			return;
+		}
+		final String idempotencyKey = getIdempotencyKey(transaction);
+		if (idempotencyKey != null)
+		{
+			inFlightCaptures.remove(idempotencyKey, capture);
+		}
+		final String requestKey = capture.getRequestKey();
+		if (requestKey != null)
+		{
+			try
+			{
+				releaseCapture(transaction.getPk(), requestKey);
+			}
+			catch (final RuntimeException e)
+			{
+				LOG.warn("Releasing the capture of txn " + transaction.getCode() + " has failed, it expires after "
+						+ getCaptureTimeoutMillis() + " ms", e);
+			}
+		}
+		// the provider may still accept it, such a late capture must not stay on the customer's card
+		final String code = transaction.getCode();
+		capture.getFuture().thenAccept(entry -> {
+			if (isAccepted(entry))
+			{
+				LOG.warn("Voiding late capture of txn " + code);
+				voidCapture(entry);
+			}
+		});
+	}
+
+	/**
+	 * Voids the accepted captures of a partially failed capture.
+	 */
+	protected void compensate(final PaymentCaptureResult result)
+	{
+		for (final PaymentTransactionEntryModel captured : result.getCaptured())
+		{
+			final PaymentTransactionEntryModel voided = voidCapture(captured);
+			if (voided != null)
+			{
+				result.addVoided(voided);
+			}
+		}
+	}
+
+	protected PaymentTransactionEntryModel voidCapture(final PaymentTransactionEntryModel captured)
+	{
+		try
+		{
+			final PaymentTransactionEntryModel voided = getPaymentService().cancel(captured);
+			if (voided == null || !isAccepted(voided))
+			{
+				LOG.error("Voiding the capture " + captured.getCode() + " has been rejected, manual refund required");
+			}
+			return voided;
+		}
+		catch (final RuntimeException e)
+		{
+			LOG.error("Voiding the capture " + captured.getCode() + " has failed, manual refund required", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Starts the capture of the transaction, or joins the capture of the transaction which is still running and not
+	 * abandoned.
+	 */
+	protected InFlightCapture startCapture(final PaymentTransactionModel transaction)
+	{
+		final InFlightCapture capture = new InFlightCapture();
+		final String idempotencyKey = getIdempotencyKey(transaction);
+		if (idempotencyKey != null)
+		{
+			InFlightCapture running;
+			while ((running = inFlightCaptures.putIfAbsent(idempotencyKey, capture)) != null)
+			{
+				if (running.join())
+				{
+					LOG.info("Joining the running capture of txn " + transaction.getCode());
+					return running;
+				}
+				// abandoned by all of its callers and going to be voided, replaced by a new capture
+				inFlightCaptures.remove(idempotencyKey, running);
+			}
+		}
+
+		final Tenant tenant = Registry.getCurrentTenantNoFallback();
+		final PK pk = transaction.getPk();
+		executor.execute(() -> {
+			if (tenant != null)
+			{
+				Registry.setCurrentTenant(tenant);
+			}
+			final Session session = tenant == null ? null : getSessionService().createNewSession();
+			try
+			{
+				// not yet persisted transactions can only be captured as they are
+				capture.getFuture().complete(pk == null ? getPaymentService().capture(transaction)
+						: captureClaimed(pk, idempotencyKey, capture));
+			}
+			catch (final RuntimeException e)
+			{
+				capture.getFuture().completeExceptionally(e);
+			}
+			finally
+			{
+				if (idempotencyKey != null)
+				{
+					inFlightCaptures.remove(idempotencyKey, capture);
+				}
+				if (session != null)
+				{
+					getSessionService().closeSession(session);
+				}
+				Registry.unsetCurrentTenant();
+			}
+		});
+		return capture;
+	}
+
+	/**
+	 * Claims the capture of the persisted transaction and sends it, unless the transaction has been captured meanwhile.
+	 * The claim is released once the capture has answered.
+	 */
+	protected PaymentTransactionEntryModel captureClaimed(final PK pk, final String idempotencyKey,
+			final InFlightCapture capture)
+	{
+		final String requestKey = idempotencyKey + "_" + UUID.randomUUID();
+		final PaymentTransactionEntryModel accepted = claimCapture(pk, requestKey);
+		if (accepted != null)
+		{
+			LOG.info("The payment transaction has been captured already, capture " + accepted.getCode());
+			return accepted;
+		}
+		capture.setRequestKey(requestKey);
+		try
+		{
+			return getPaymentService().capture(getModelService().<PaymentTransactionModel> get(pk));
+		}
+		finally
+		{
+			releaseCapture(pk, requestKey);
+		}
+	}
+
+	/**
+	 * Sets the request key on the transaction under a row lock.
+	 *
+	 * @return the accepted capture entry if the transaction has been captured meanwhile, <code>null</code> if the
+	 *         capture has been claimed
+	 * @throws IllegalStateException
+	 *            if a capture of the transaction is claimed and not yet expired
+	 */
+	protected PaymentTransactionEntryModel claimCapture(final PK pk, final String requestKey)
+	{
+		return (PaymentTransactionEntryModel) executeInTransaction(new TransactionBody()
+		{
+			@Override
+			public Object execute()
+			{
+				final PaymentTransactionModel transaction = lockTransaction(pk);
+				final PaymentTransactionEntryModel accepted = findAcceptedCapture(transaction);
+				if (accepted != null)
+				{
+					return accepted;
+				}
+				if (isClaimed(transaction))
+				{
+					throw new IllegalStateException("The capture of txn " + transaction.getCode() + " is being sent as "
+							+ transaction.getCaptureRequestKey());
+				}
+				transaction.setCaptureRequestKey(requestKey);
+				transaction.setCaptureRequestTime(new Date());
+				getModelService().save(transaction);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Clears the request key on the transaction, unless it has been claimed by another capture since.
+	 */
+	protected void releaseCapture(final PK pk, final String requestKey)
+	{
+		executeInTransaction(new TransactionBody()
+		{
+			@Override
+			public Object execute()
+			{
+				final PaymentTransactionModel transaction = lockTransaction(pk);
+				if (requestKey.equals(transaction.getCaptureRequestKey()))
+				{
+					transaction.setCaptureRequestKey(null);
+					transaction.setCaptureRequestTime(null);
+					getModelService().save(transaction);
+				}
+				return null;
+			}
+		});
+	}
+
+	protected PaymentTransactionModel lockTransaction(final PK pk)
+	{
+		getModelService().lock(pk);
+		final PaymentTransactionModel transaction = getModelService().get(pk);
+		getModelService().refresh(transaction);
+		return transaction;
+	}
+
+	protected boolean isClaimed(final PaymentTransactionModel transaction)
+	{
+		final Date requestTime = transaction.getCaptureRequestTime();
+		return transaction.getCaptureRequestKey() != null && requestTime != null
+				&& requestTime.getTime() + getCaptureTimeoutMillis() > System.currentTimeMillis();
+	}
+
+	protected Object executeInTransaction(final TransactionBody body)
+	{
+		try
+		{
+			return Transaction.current().execute(body);
+		}
+		catch (final RuntimeException e)
+		{
+			throw e;
+		}
+		catch (final Exception e)
+		{
+			throw new IllegalStateException("Failed to update the capture request", e);
+		}
+	}
+
+	/**
+	 * @return the capture entry answered by a worker, loaded again in the caller's session
+	 */
+	protected PaymentTransactionEntryModel resolve(final PaymentTransactionEntryModel entry)
+	{
+		return entry.getPk() == null ? entry : getModelService().<PaymentTransactionEntryModel> get(entry.getPk());
+	}
+
+	/**
+	 * @return the key identifying the capture of the transaction, <code>null</code> for transactions not yet persisted
+	 */
+	protected String getIdempotencyKey(final PaymentTransactionModel transaction)
+	{
+		return transaction.getPk() == null ? null
+				: transaction.getPk().toString() + "_" + PaymentTransactionType.CAPTURE.getCode();
+	}
+
+	/**
+	 * @return the last accepted capture entry, <code>null</code> if there is none or it has been voided by a later
+	 *         accepted cancel entry
+	 */
+	protected PaymentTransactionEntryModel findAcceptedCapture(final PaymentTransactionModel transaction)
+	{
+		final List<PaymentTransactionEntryModel> entries = transaction.getEntries() == null
+				? new ArrayList<PaymentTransactionEntryModel>()
+				: transaction.getEntries();
+		PaymentTransactionEntryModel accepted = null;
+		for (final PaymentTransactionEntryModel entry : entries)
+		{
+			if (!isAccepted(entry))
+			{
+				continue;
+			}
+			if (PaymentTransactionType.CAPTURE.equals(entry.getType()))
+			{
+				accepted = entry;
+			}
+			else if (PaymentTransactionType.CANCEL.equals(entry.getType()))
+			{
+				accepted = null;
+			}
+		}
+		return accepted;
+	}
+
+	protected boolean isAccepted(final PaymentTransactionEntryModel entry)
+	{
+		return entry != null && TransactionStatus.ACCEPTED.name().equals(entry.getTransactionStatus());
+	}
+
+	protected PaymentService getPaymentService()
+	{
+		return paymentService;
+	}
+
+	@Required
+	public void setPaymentService(final PaymentService paymentService)
+	{
+		this.paymentService = paymentService;
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected SessionService getSessionService()
+	{
+		return sessionService;
+	}
+
+	@Required
+	public void setSessionService(final SessionService sessionService)
+	{
+		this.sessionService = sessionService;
+	}
+
+	protected int getPoolSize()
+	{
+		return poolSize;
+	}
+
+	public void setPoolSize(final int poolSize)
+	{
+		this.poolSize = poolSize;
+	}
+
+	protected long getCaptureTimeoutMillis()
+	{
+		return captureTimeoutMillis;
+	}
+
+	/**
+	 * @param captureTimeoutMillis
+	 *           time the payment provider has to answer a capture
+	 */
+	public void setCaptureTimeoutMillis(final long captureTimeoutMillis)
+	{
+		this.captureTimeoutMillis = captureTimeoutMillis;
+	}
+
+	/**
+	 * A running capture and the number of callers waiting for it. Joining and abandoning are decided on the same
+	 * counter, so a capture is either joined or voided, never both.
+	 */
+	protected static class InFlightCapture
+	{
+		private final CompletableFuture<PaymentTransactionEntryModel> future = new CompletableFuture<>();
+		private final AtomicInteger waiting = new AtomicInteger(1);
+		private volatile String requestKey;
+
+		public CompletableFuture<PaymentTransactionEntryModel> getFuture()
+		{
+			return future;
+		}
+
+		/**
+		 * @return the key the capture has been claimed with, <code>null</code> until it is sent
+		 */
+		public String getRequestKey()
+		{
+			return requestKey;
+		}
+
+		protected void setRequestKey(final String requestKey)
+		{
+			this.requestKey = requestKey;
+		}
+
+		/**
+		 * @return <code>false</code> if all callers gave up on the capture already
+		 */
+		protected boolean join()
+		{
+			int current;
+			do
+			{
+				current = waiting.get();
+				if (current == 0)
+				{
+					return false;
+				}
+			}
+			while (!waiting.compareAndSet(current, current + 1));
+			return true;
+		}
+
+		/**
+		 * @return <code>true</code> if the last waiting caller gave up on the capture
+		 */
+		protected boolean leave()
+		{
+			return waiting.decrementAndGet() == 0;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.strategy;
+
+import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+
+
+/**
+ * Cost model used to decide which warehouses fulfil an order.
+ */
+public interface WarehouseCostStrategy
+{
+	/**
+	 * Returns the fixed cost of shipping one consignment from the given warehouse.
+	 *
+	 * @param warehouse
+	 *           the warehouse
+	 * @return the cost of a consignment
+	 */
+	double getConsignmentCost(WarehouseModel warehouse);
+
+	/**
+	 * Returns the cost of fulfilling the given order entry from the given warehouse.
+	 *
+	 * @param orderEntry
+	 *           the order entry
+	 * @param warehouse
+	 *           the warehouse
+	 * @param availability
+	 *           the available stock of the entry's product in the warehouse, {@link Long#MAX_VALUE} if not limited
+	 * @return the cost of the entry
+	 */
+	double getEntryCost(AbstractOrderEntryModel orderEntry, WarehouseModel warehouse, long availability);
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.strategy.impl;
+
+import de.hybris.platform.core.model.c2l.CountryModel;
+import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
+import de.hybris.platform.core.model.user.AddressModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import de.hybris.platform.storelocator.model.PointOfServiceModel;
+import org.training.fulfilmentprocess.strategy.WarehouseCostStrategy;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+
+/**
+ * Cost model combining a fixed shipping cost per consignment, the distance between warehouse and delivery location
+ * and the stock depth of the product in the warehouse.
+ *
+ * The distance is approximated on country level: an entry delivered to a country in which the warehouse has no point
+ * of service costs {@link #setDistanceWeight(double)}. The stock depth cost is the ordered quantity relative to the
+ * available stock, so warehouses with deeper stock are preferred and load spreads across warehouses as stock drains.
+ */
+public class DefaultWarehouseCostStrategy implements WarehouseCostStrategy
+{
+	private double consignmentCost = 100D;
+	private double distanceWeight = 10D;
+	private double stockDepthWeight = 1D;
+	private Map<String, Double> shippingCosts = Collections.emptyMap();
+
+	@Override
+	public double getConsignmentCost(final WarehouseModel warehouse)
+	{
+		final Double shippingCost = getShippingCosts().get(warehouse.getCode());
+		return getConsignmentCost() + (shippingCost == null ? 0D : shippingCost.doubleValue());
+	}
+
+	@Override
+	public double getEntryCost(final AbstractOrderEntryModel orderEntry, final WarehouseModel warehouse, final long availability)
+	{
+		double cost = isSameCountry(getDeliveryCountry(orderEntry), warehouse) ? 0D : getDistanceWeight();
+		if (availability != WarehouseAvailabilityMatrix.UNLIMITED && availability > 0)
+		{
+			cost += getStockDepthWeight() * orderEntry.getQuantity().doubleValue() / availability;
+		}
+		return cost;
+	}
+
+	protected CountryModel getDeliveryCountry(final AbstractOrderEntryModel orderEntry)
+	{
+		AddressModel address = orderEntry.getDeliveryAddress();
+		if (address == null && orderEntry.getDeliveryPointOfService() != null)
+		{
+			address = orderEntry.getDeliveryPointOfService().getAddress();
+		}
+		if (address == null)
+		{
+			address = orderEntry.getOrder().getDeliveryAddress();
+		}
+		return address == null ? null : address.getCountry();
+	}
+
+	/**
+	 * Unknown locations are treated as near, so they do not penalise any warehouse.
+	 */
+	protected boolean isSameCountry(final CountryModel country, final WarehouseModel warehouse)
+	{
+		final Collection<PointOfServiceModel> pointsOfService = warehouse.getPointsOfServices();
+		if (country == null || pointsOfService == null || pointsOfService.isEmpty())
+		{
+			return true;
+		}
+		for (final PointOfServiceModel pointOfService : pointsOfService)
+		{
+			if (pointOfService.getAddress() == null || country.equals(pointOfService.getAddress().getCountry()))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	protected double getConsignmentCost()
+	{
+		return consignmentCost;
+	}
+
+	public void setConsignmentCost(final double consignmentCost)
+	{
+		this.consignmentCost = consignmentCost;
+	}
+
+	protected double getDistanceWeight()
+	{
+		return distanceWeight;
+	}
+
+	public void setDistanceWeight(final double distanceWeight)
+	{
+		this.distanceWeight = distanceWeight;
+	}
+
+	protected double getStockDepthWeight()
+	{
+		return stockDepthWeight;
+	}
+
+	public void setStockDepthWeight(final double stockDepthWeight)
+	{
+		this.stockDepthWeight = stockDepthWeight;
+	}
+
+	protected Map<String, Double> getShippingCosts()
+	{
+		return shippingCosts;
+	}
+
+	/**
+	 * @param shippingCosts
+	 *           additional consignment cost per warehouse code
+	 */
+	public void setShippingCosts(final Map<String, Double> shippingCosts)
+	{
+		this.shippingCosts = shippingCosts;
+	}
+}
@@ -4,25 +4,80 @@
 package org.training.fulfilmentprocess.strategy.impl;
 
 import de.hybris.platform.commerceservices.stock.CommerceStockService;
+import de.hybris.platform.commerceservices.stock.strategies.CommerceAvailabilityCalculationStrategy;
+import de.hybris.platform.commerceservices.strategies.WarehouseSelectionStrategy;
 import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
 import de.hybris.platform.ordersplitting.model.ConsignmentModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
 import de.hybris.platform.ordersplitting.strategy.AbstractSplittingStrategy;
+import de.hybris.platform.ordersplitting.strategy.impl.OrderEntryGroup;
+import de.hybris.platform.store.BaseStoreModel;
+import de.hybris.platform.storelocator.model.PointOfServiceModel;
+import org.training.fulfilmentprocess.dao.BulkStockLevelDao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Required;
 
 
+/**
+ * Splits the entries by whether their stock covers the ordered quantity.
+ *
+ * The stock of all entries is resolved up front with a single bulk stock level lookup: the warehouses are taken from
+ * the delivery point of service or, for shipped entries, from the base store (resolved once per store), and the
+ * availability is calculated with the same {@link CommerceAvailabilityCalculationStrategy} the
+ * {@link CommerceStockService} uses. Entries not covered by the prefetch fall back to the {@link CommerceStockService}.
+ */
 public class SplitByAvailableCount extends AbstractSplittingStrategy
 {
+	private final ThreadLocal<Map<AbstractOrderEntryModel, Long>> prefetchedStock = new ThreadLocal<>();
+
 	private CommerceStockService commerceStockService;
+	private BulkStockLevelDao bulkStockLevelDao;
+	private CommerceAvailabilityCalculationStrategy commerceAvailabilityCalculationStrategy;
+	private WarehouseSelectionStrategy warehouseSelectionStrategy;
+
+	@Override
+	public List<OrderEntryGroup> perform(final List<OrderEntryGroup> orderEntryGroup)
+	{
+		if (getBulkStockLevelDao() == null)
+		{
+			return super.perform(orderEntryGroup);
+		}
+		prefetchedStock.set(prefetchStock(orderEntryGroup));
+		try
+		{
+			return super.perform(orderEntryGroup);
+		}
+		finally
+		{
+			prefetchedStock.remove();
+		}
+	}
 
 	@Override
 	public Object getGroupingObject(final AbstractOrderEntryModel orderEntry)
 	{
+		final Map<AbstractOrderEntryModel, Long> stocks = prefetchedStock.get();
+		if (stocks != null && stocks.containsKey(orderEntry))
+		{
+			return isSufficient(stocks.get(orderEntry), orderEntry);
+		}
+
 		if (orderEntry.getDeliveryPointOfService() != null)
 		{
 			final Long stock = getCommerceStockService().getStockLevelForProductAndPointOfService(orderEntry.getProduct(),
 					orderEntry.getDeliveryPointOfService());
-			return Boolean.valueOf(stock == null || stock.longValue() >= orderEntry.getQuantity().longValue());
+			return isSufficient(stock, orderEntry);
 		}
 		else
 		{
@@ -32,10 +87,78 @@ public class SplitByAvailableCount extends AbstractSplittingStrategy
 			stock = getCommerceStockService().getStockLevelForProductAndBaseStore(orderEntry.getProduct(),
 					orderEntry.getOrder().getStore());
 			}
-			return Boolean.valueOf(stock == null || stock.longValue() >= orderEntry.getQuantity().longValue());
+			return isSufficient(stock, orderEntry);
 		}
 	}
 
+	protected Boolean isSufficient(final Long stock, final AbstractOrderEntryModel orderEntry)
+	{
+		return Boolean.valueOf(stock == null || stock.longValue() >= orderEntry.getQuantity().longValue());
+	}
+
+	/**
+	 * Resolves the stock of all entries of the given groups with one bulk stock level lookup.
+	 *
+	 * @return the stock per entry, <code>null</code> values stand for unlimited stock
+	 */
+	protected Map<AbstractOrderEntryModel, Long> prefetchStock(final List<OrderEntryGroup> orderEntryGroups)
+	{
+		final Map<BaseStoreModel, Collection<WarehouseModel>> storeWarehouses = new HashMap<>();
+		final Map<AbstractOrderEntryModel, Collection<WarehouseModel>> entryWarehouses = new IdentityHashMap<>();
+		final Set<String> productCodes = new LinkedHashSet<>();
+		final Set<WarehouseModel> warehouses = new LinkedHashSet<>();
+		final Map<AbstractOrderEntryModel, Long> stocks = new IdentityHashMap<>();
+
+		for (final OrderEntryGroup group : orderEntryGroups)
+		{
+			for (final AbstractOrderEntryModel entry : group)
+			{
+				final PointOfServiceModel pointOfService = entry.getDeliveryPointOfService();
+				final BaseStoreModel store = entry.getOrder().getStore();
+				final Collection<WarehouseModel> candidates;
+				if (pointOfService != null)
+				{
+					candidates = pointOfService.getWarehouses();
+				}
+				else if (store != null)
+				{
+					candidates = storeWarehouses.computeIfAbsent(store, getWarehouseSelectionStrategy()::getWarehousesForBaseStore);
+				}
+				else
+				{
+					stocks.put(entry, Long.valueOf(0));
+					continue;
+				}
+				entryWarehouses.put(entry, candidates == null ? Collections.<WarehouseModel> emptyList() : candidates);
+				productCodes.add(entry.getProduct().getCode());
+				if (candidates != null)
+				{
+					warehouses.addAll(candidates);
+				}
+			}
+		}
+
+		final Map<String, Map<WarehouseModel, List<StockLevelModel>>> stockLevels = new HashMap<>();
+		for (final StockLevelModel stockLevel : getBulkStockLevelDao().findStockLevels(productCodes, warehouses))
+		{
+			stockLevels.computeIfAbsent(stockLevel.getProductCode(), code -> new HashMap<>())
+					.computeIfAbsent(stockLevel.getWarehouse(), warehouse -> new ArrayList<>()).add(stockLevel);
+		}
+
+		for (final Map.Entry<AbstractOrderEntryModel, Collection<WarehouseModel>> entry : entryWarehouses.entrySet())
+		{
+			final Map<WarehouseModel, List<StockLevelModel>> productStockLevels = stockLevels
+					.getOrDefault(entry.getKey().getProduct().getCode(), Collections.<WarehouseModel, List<StockLevelModel>> emptyMap());
+			final List<StockLevelModel> levels = new ArrayList<>();
+			for (final WarehouseModel warehouse : entry.getValue())
+			{
+				levels.addAll(productStockLevels.getOrDefault(warehouse, Collections.<StockLevelModel> emptyList()));
+			}
+			stocks.put(entry.getKey(), getCommerceAvailabilityCalculationStrategy().calculateAvailability(levels));
+		}
+		return stocks;
+	}
+
 	@Override
 	public void afterSplitting(final Object groupingObject, final ConsignmentModel createdOne)
 	{
@@ -52,4 +175,41 @@ public class SplitByAvailableCount extends AbstractSplittingStrategy
 	{
 		this.commerceStockService = commerceStockService;
 	}
+
+	protected BulkStockLevelDao getBulkStockLevelDao()
+	{
+		return bulkStockLevelDao;
+	}
+
+	/**
+	 * @param bulkStockLevelDao
+	 *           optional, without it the stock is resolved per entry through the {@link CommerceStockService}
+	 */
+	public void setBulkStockLevelDao(final BulkStockLevelDao bulkStockLevelDao)
+	{
+		this.bulkStockLevelDao = bulkStockLevelDao;
+	}
+
+	protected CommerceAvailabilityCalculationStrategy getCommerceAvailabilityCalculationStrategy()
+	{
+		return commerceAvailabilityCalculationStrategy;
+	}
+
+	@Required
+	public void setCommerceAvailabilityCalculationStrategy(
+			final CommerceAvailabilityCalculationStrategy commerceAvailabilityCalculationStrategy)
+	{
+		this.commerceAvailabilityCalculationStrategy = commerceAvailabilityCalculationStrategy;
+	}
+
+	protected WarehouseSelectionStrategy getWarehouseSelectionStrategy()
+	{
+		return warehouseSelectionStrategy;
+	}
+
+	@Required
+	public void setWarehouseSelectionStrategy(final WarehouseSelectionStrategy warehouseSelectionStrategy)
+	{
+		this.warehouseSelectionStrategy = warehouseSelectionStrategy;
+	}
 }
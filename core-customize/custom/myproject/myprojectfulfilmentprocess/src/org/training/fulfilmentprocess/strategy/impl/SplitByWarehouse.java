@@ -6,16 +6,22 @@ package org.training.fulfilmentprocess.strategy.impl;
 import de.hybris.platform.commerceservices.stock.strategies.CommerceAvailabilityCalculationStrategy;
 import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
 import de.hybris.platform.ordersplitting.model.ConsignmentModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
 import de.hybris.platform.ordersplitting.model.WarehouseModel;
 import de.hybris.platform.ordersplitting.strategy.SplittingStrategy;
 import de.hybris.platform.ordersplitting.strategy.impl.OrderEntryGroup;
-import de.hybris.platform.stock.StockService;
+import org.training.fulfilmentprocess.dao.BulkStockLevelDao;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Required;
 
@@ -23,10 +29,96 @@ import org.springframework.beans.factory.annotation.Required;
 public class SplitByWarehouse implements SplittingStrategy
 {
 	private static final String WAREHOUSE_LIST_NAME = "WAREHOUSE_LIST";
-	private StockService stockService;
+	private BulkStockLevelDao bulkStockLevelDao;
 	private CommerceAvailabilityCalculationStrategy commerceAvailabilityCalculationStrategy;
+	private WarehouseAssignmentSolver warehouseAssignmentSolver;
 
 	protected List<OrderEntryGroup> splitForWarehouses(final OrderEntryGroup orderEntryList)
+	{
+		//stock of all products in all candidate warehouses, loaded once for the whole group
+		final WarehouseAvailabilityMatrix availabilityMatrix = createAvailabilityMatrix(orderEntryList);
+
+		if (getWarehouseAssignmentSolver() != null)
+		{
+			return splitWithSolver(orderEntryList, availabilityMatrix);
+		}
+		return splitGreedy(orderEntryList, availabilityMatrix);
+	}
+
+	/**
+	 * Splits the entries with the {@link WarehouseAssignmentSolver}: every resulting group is bound to exactly one
+	 * warehouse and the number of groups is minimal.
+	 *
+	 * @param orderEntryList
+	 *           the order entries
+	 * @param availabilityMatrix
+	 *           the stock of the entries' products in their candidate warehouses
+	 *
+	 * @return the entry groups, entries that no warehouse can serve are grouped last
+	 */
+	protected List<OrderEntryGroup> splitWithSolver(final OrderEntryGroup orderEntryList,
+			final WarehouseAvailabilityMatrix availabilityMatrix)
+	{
+		final List<OrderEntryGroup> result = new ArrayList<OrderEntryGroup>();
+
+		final Map<WarehouseModel, Integer> warehouseIndex = new LinkedHashMap<WarehouseModel, Integer>();
+		final List<AbstractOrderEntryModel> entries = new ArrayList<AbstractOrderEntryModel>();
+		final List<BitSet> capabilities = new ArrayList<BitSet>();
+
+		// list of entries that can't be performed by any warehouse
+		final OrderEntryGroup emptyOrderEntryList = orderEntryList.getEmpty();
+
+		for (final AbstractOrderEntryModel orderEntry : sortOrderEntryBeforeWarehouseSplitting(orderEntryList))
+		{
+			final List<WarehouseModel> possibleWarehouses = getPossibleWarehouses(orderEntry, availabilityMatrix);
+			if (possibleWarehouses.isEmpty())
+			{
+				emptyOrderEntryList.add(orderEntry);
+				continue;
+			}
+			final BitSet capability = new BitSet();
+			for (final WarehouseModel warehouse : possibleWarehouses)
+			{
+				capability.set(warehouseIndex.computeIfAbsent(warehouse, key -> Integer.valueOf(warehouseIndex.size())).intValue());
+			}
+			entries.add(orderEntry);
+			capabilities.add(capability);
+		}
+
+		if (!entries.isEmpty())
+		{
+			final Map<WarehouseModel, List<AbstractOrderEntryModel>> assignment = getWarehouseAssignmentSolver().assign(entries,
+					capabilities, new ArrayList<WarehouseModel>(warehouseIndex.keySet()), availabilityMatrix);
+			assignment.forEach((warehouse, warehouseEntries) -> {
+				final OrderEntryGroup group = orderEntryList.getEmpty();
+				group.addAll(warehouseEntries);
+				group.setParameter(WAREHOUSE_LIST_NAME, Collections.singletonList(warehouse));
+				result.add(group);
+			});
+		}
+
+		//entries for which warehouse can't be chosen
+		if (!emptyOrderEntryList.isEmpty())
+		{
+			result.add(emptyOrderEntryList);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Splits the entries by intersecting the possible warehouses of consecutive entries. Used if no
+	 * {@link WarehouseAssignmentSolver} is configured.
+	 *
+	 * @param orderEntryList
+	 *           the order entries
+	 * @param availabilityMatrix
+	 *           the stock of the entries' products in their candidate warehouses
+	 *
+	 * @return the entry groups, entries that no warehouse can serve are grouped last
+	 */
+	protected List<OrderEntryGroup> splitGreedy(final OrderEntryGroup orderEntryList,
+			final WarehouseAvailabilityMatrix availabilityMatrix)
 	{
 		final List<OrderEntryGroup> result = new ArrayList<OrderEntryGroup>();
 
@@ -51,7 +143,7 @@ public class SplitByWarehouse implements SplittingStrategy
 
 
 			tmpWarehouseResult = prepareWarehouses(todoEntryList, workingOrderEntryList, emptyOrderEntryList,
-					tmpWarehouseResult, tmpOrderEntryResult);
+					tmpWarehouseResult, tmpOrderEntryResult, availabilityMatrix);
 
 			if (!tmpOrderEntryResult.isEmpty())
 			{
@@ -78,12 +170,13 @@ public class SplitByWarehouse implements SplittingStrategy
 
 	protected List<WarehouseModel> prepareWarehouses(final OrderEntryGroup todoEntryList,
 			OrderEntryGroup workingOrderEntryList, final OrderEntryGroup emptyOrderEntryList,
-			List<WarehouseModel> tmpWarehouseResult, final OrderEntryGroup tmpOrderEntryResult) {
+			List<WarehouseModel> tmpWarehouseResult, final OrderEntryGroup tmpOrderEntryResult,
+			final WarehouseAvailabilityMatrix availabilityMatrix) {
 		
 		List<WarehouseModel> results = tmpWarehouseResult;
 		for (final AbstractOrderEntryModel orderEntry : workingOrderEntryList)
 		{
-			final List<WarehouseModel> currentPossibleWarehouses = getPossibleWarehouses(orderEntry);
+			final List<WarehouseModel> currentPossibleWarehouses = getPossibleWarehouses(orderEntry, availabilityMatrix);
 
 			// no warehouse can solve order entry
 			if (currentPossibleWarehouses.isEmpty())
@@ -117,34 +210,83 @@ public class SplitByWarehouse implements SplittingStrategy
 		return results;
 	}
 
-	protected List<WarehouseModel> getPossibleWarehouses(final AbstractOrderEntryModel orderEntry)
+	protected List<WarehouseModel> getPossibleWarehouses(final AbstractOrderEntryModel orderEntry,
+			final WarehouseAvailabilityMatrix availabilityMatrix)
 	{
 		final List<WarehouseModel> possibleWarehouses = new ArrayList<WarehouseModel>();
+		final String productCode = orderEntry.getProduct().getCode();
 
-		if (orderEntry.getOrder().getStore() != null)
+		for (final WarehouseModel candidateWarehouseModel : getCandidateWarehouses(orderEntry))
 		{
-			final List<WarehouseModel> candidateWarehouses = new ArrayList<WarehouseModel>();
-
-			candidateWarehouses.addAll(orderEntry.getDeliveryPointOfService() == null
-					? orderEntry.getOrder().getStore().getWarehouses() : orderEntry.getDeliveryPointOfService().getWarehouses());
-
-			for (final WarehouseModel candidateWarehouseModel : candidateWarehouses)
+			if (availabilityMatrix.isAvailable(productCode, candidateWarehouseModel))
 			{
-				final Long availableCount = commerceAvailabilityCalculationStrategy.calculateAvailability(
-						getStockService().getStockLevels(orderEntry.getProduct(), Collections.singletonList(candidateWarehouseModel)));
-
-				if (availableCount == null || availableCount.longValue() > 0)
-				{
-					possibleWarehouses.add(candidateWarehouseModel);
-				}
+				possibleWarehouses.add(candidateWarehouseModel);
 			}
 		}
 
 		return possibleWarehouses;
 	}
 
+	protected Collection<WarehouseModel> getCandidateWarehouses(final AbstractOrderEntryModel orderEntry)
+	{
+		if (orderEntry.getOrder().getStore() == null)
+		{
+			return Collections.emptyList();
+		}
+		return orderEntry.getDeliveryPointOfService() == null ? orderEntry.getOrder().getStore().getWarehouses()
+				: orderEntry.getDeliveryPointOfService().getWarehouses();
+	}
+
+	/**
+	 * Loads the stock levels of all products of the given entries in all of their candidate warehouses with as few
+	 * queries as possible and calculates the availability per product and warehouse.
+	 *
+	 * @param orderEntries
+	 *           the order entries
+	 *
+	 * @return the availability matrix
+	 */
+	protected WarehouseAvailabilityMatrix createAvailabilityMatrix(final OrderEntryGroup orderEntries)
+	{
+		final Set<String> productCodes = new LinkedHashSet<String>();
+		final Set<WarehouseModel> warehouses = new LinkedHashSet<WarehouseModel>();
+		for (final AbstractOrderEntryModel orderEntry : orderEntries)
+		{
+			productCodes.add(orderEntry.getProduct().getCode());
+			warehouses.addAll(getCandidateWarehouses(orderEntry));
+		}
+
+		final WarehouseAvailabilityMatrix availabilityMatrix = new WarehouseAvailabilityMatrix(productCodes, warehouses);
+		if (productCodes.isEmpty() || warehouses.isEmpty())
+		{
+			return availabilityMatrix;
+		}
+
+		//a product without stock level in a warehouse gets what the strategy calculates for no stock levels at all
+		availabilityMatrix.fill(getCommerceAvailabilityCalculationStrategy().calculateAvailability(
+				Collections.<StockLevelModel> emptyList()));
+
+		final Map<String, Map<WarehouseModel, List<StockLevelModel>>> stockLevels = new HashMap<>();
+		for (final StockLevelModel stockLevel : getBulkStockLevelDao().findStockLevels(productCodes, warehouses))
+		{
+			stockLevels.computeIfAbsent(stockLevel.getProductCode(), code -> new HashMap<>())
+					.computeIfAbsent(stockLevel.getWarehouse(), warehouse -> new ArrayList<>()).add(stockLevel);
+		}
+		stockLevels.forEach((productCode, byWarehouse) -> byWarehouse.forEach((warehouse, levels) -> {
+			if (availabilityMatrix.contains(productCode, warehouse))
+			{
+				availabilityMatrix.setAvailability(productCode, warehouse,
+						getCommerceAvailabilityCalculationStrategy().calculateAvailability(levels));
+			}
+		}));
+
+		return availabilityMatrix;
+	}
+
 	/**
-	 * Choose best warehouse this function is called by getWarehouseList after we have set of possible warehouses.
+	 * Choose best warehouse this function is called by getWarehouseList after we have set of possible warehouses. Groups
+	 * created by the {@link WarehouseAssignmentSolver} carry only the chosen warehouse; for groups of the greedy split
+	 * the first possible warehouse is taken, so the result is reproducible.
 	 *
 	 * @param orderEntries
 	 *           the order entries
@@ -159,10 +301,7 @@ public class SplitByWarehouse implements SplittingStrategy
 		{
 			return null;
 		}
-		final Random rnd = new Random(new Date().getTime());
-
-		//basic solution is to random
-		return warehouses.get(rnd.nextInt(warehouses.size()));
+		return warehouses.get(0);
 	}
 
 	/**
@@ -222,20 +361,37 @@ public class SplitByWarehouse implements SplittingStrategy
 
 
 	/**
-	 * @return the stockService
+	 * @return the warehouseAssignmentSolver
+	 */
+	protected WarehouseAssignmentSolver getWarehouseAssignmentSolver()
+	{
+		return warehouseAssignmentSolver;
+	}
+
+	/**
+	 * @param warehouseAssignmentSolver
+	 *           the warehouseAssignmentSolver to set, if not set the greedy split is used
+	 */
+	public void setWarehouseAssignmentSolver(final WarehouseAssignmentSolver warehouseAssignmentSolver)
+	{
+		this.warehouseAssignmentSolver = warehouseAssignmentSolver;
+	}
+
+	/**
+	 * @return the bulkStockLevelDao
 	 */
-	protected StockService getStockService()
+	protected BulkStockLevelDao getBulkStockLevelDao()
 	{
-		return stockService;
+		return bulkStockLevelDao;
 	}
 
 	/**
-	 * @param stockService
-	 *           the stockService to set
+	 * @param bulkStockLevelDao
+	 *           the bulkStockLevelDao to set
 	 */
 	@Required
-	public void setStockService(final StockService stockService)
+	public void setBulkStockLevelDao(final BulkStockLevelDao bulkStockLevelDao)
 	{
-		this.stockService = stockService;
+		this.bulkStockLevelDao = bulkStockLevelDao;
 	}
 }
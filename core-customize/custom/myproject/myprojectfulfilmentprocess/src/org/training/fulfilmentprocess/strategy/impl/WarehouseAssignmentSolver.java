@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.strategy.impl;
+
+import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import org.training.fulfilmentprocess.strategy.WarehouseCostStrategy;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Assigns order entries to warehouses so that as few consignments as possible are created and, among those
+ * assignments, the one with the lowest cost according to the {@link WarehouseCostStrategy} is chosen.
+ *
+ * The warehouses able to serve an entry are given as a bit set over the candidate warehouse list. Up to
+ * {@link #setExactSearchMaxWarehouses(int)} candidate warehouses the minimum set cover is found by enumerating the
+ * warehouse subsets by increasing size; for more warehouses the weighted greedy set cover heuristic is used. Each entry
+ * is finally assigned to the cheapest selected warehouse that can serve it.
+ */
+public class WarehouseAssignmentSolver
+{
+	private static final int MAX_EXACT_SEARCH_WAREHOUSES = 20;
+
+	private WarehouseCostStrategy warehouseCostStrategy;
+	private int exactSearchMaxWarehouses = 12;
+
+	/**
+	 * @param entries
+	 *           the order entries, each of them must be servable by at least one warehouse
+	 * @param capabilities
+	 *           per entry the indexes of the warehouses that can serve it
+	 * @param warehouses
+	 *           the candidate warehouses
+	 * @param availabilityMatrix
+	 *           the stock of the entries' products in the warehouses
+	 * @return the entries per chosen warehouse
+	 */
+	public Map<WarehouseModel, List<AbstractOrderEntryModel>> assign(final List<AbstractOrderEntryModel> entries,
+			final List<BitSet> capabilities, final List<WarehouseModel> warehouses,
+			final WarehouseAvailabilityMatrix availabilityMatrix)
+	{
+		final double[][] entryCosts = new double[entries.size()][warehouses.size()];
+		for (int entry = 0; entry < entries.size(); entry++)
+		{
+			final AbstractOrderEntryModel orderEntry = entries.get(entry);
+			final BitSet capability = capabilities.get(entry);
+			for (int warehouse = capability.nextSetBit(0); warehouse >= 0; warehouse = capability.nextSetBit(warehouse + 1))
+			{
+				entryCosts[entry][warehouse] = getWarehouseCostStrategy().getEntryCost(orderEntry, warehouses.get(warehouse),
+						availabilityMatrix.getAvailability(orderEntry.getProduct().getCode(), warehouses.get(warehouse)));
+			}
+		}
+		final double[] consignmentCosts = new double[warehouses.size()];
+		for (int warehouse = 0; warehouse < warehouses.size(); warehouse++)
+		{
+			consignmentCosts[warehouse] = getWarehouseCostStrategy().getConsignmentCost(warehouses.get(warehouse));
+		}
+
+		final BitSet selected = warehouses.size() <= Math.min(getExactSearchMaxWarehouses(), MAX_EXACT_SEARCH_WAREHOUSES)
+				? findMinimumCover(capabilities, warehouses.size(), entryCosts, consignmentCosts)
+				: findGreedyCover(capabilities, warehouses.size(), entryCosts, consignmentCosts);
+
+		final Map<WarehouseModel, List<AbstractOrderEntryModel>> result = new LinkedHashMap<>();
+		for (int entry = 0; entry < entries.size(); entry++)
+		{
+			final int warehouse = cheapestWarehouse(capabilities.get(entry), selected, entryCosts[entry]);
+			result.computeIfAbsent(warehouses.get(warehouse), key -> new ArrayList<>()).add(entries.get(entry));
+		}
+		return result;
+	}
+
+	/**
+	 * Enumerates warehouse subsets of growing size and returns the cheapest of the smallest subsets covering all
+	 * entries. Entries with the same capabilities are checked only once.
+	 */
+	protected BitSet findMinimumCover(final List<BitSet> capabilities, final int warehouseCount, final double[][] entryCosts,
+			final double[] consignmentCosts)
+	{
+		final long[] patterns = toDistinctMasks(capabilities);
+		for (int size = 1; size <= warehouseCount; size++)
+		{
+			long best = 0L;
+			double bestCost = Double.MAX_VALUE;
+			// Gosper's hack: all masks with 'size' bits set below 2^warehouseCount in increasing order
+			for (long subset = (1L << size) - 1; subset < 1L << warehouseCount; subset = nextCombination(subset))
+			{
+				if (covers(patterns, subset))
+				{
+					final double cost = getCost(BitSet.valueOf(new long[]
+					{ subset }), capabilities, entryCosts, consignmentCosts);
+					if (cost < bestCost)
+					{
+						best = subset;
+						bestCost = cost;
+					}
+				}
+			}
+			if (best != 0L)
+			{
+				return BitSet.valueOf(new long[]
+				{ best });
+			}
+		}
+		throw new IllegalArgumentException("Entries without any capable warehouse can not be assigned");
+	}
+
+	/**
+	 * Weighted greedy set cover: repeatedly takes the warehouse with the lowest cost per newly covered entry.
+	 */
+	protected BitSet findGreedyCover(final List<BitSet> capabilities, final int warehouseCount, final double[][] entryCosts,
+			final double[] consignmentCosts)
+	{
+		final BitSet selected = new BitSet(warehouseCount);
+		final BitSet uncovered = new BitSet(capabilities.size());
+		uncovered.set(0, capabilities.size());
+
+		while (!uncovered.isEmpty())
+		{
+			int best = -1;
+			double bestRatio = Double.MAX_VALUE;
+			for (int warehouse = 0; warehouse < warehouseCount; warehouse++)
+			{
+				if (selected.get(warehouse))
+				{
+					continue;
+				}
+				int covered = 0;
+				double cost = consignmentCosts[warehouse];
+				for (int entry = uncovered.nextSetBit(0); entry >= 0; entry = uncovered.nextSetBit(entry + 1))
+				{
+					if (capabilities.get(entry).get(warehouse))
+					{
+						covered++;
+						cost += entryCosts[entry][warehouse];
+					}
+				}
+				if (covered > 0 && cost / covered < bestRatio)
+				{
+					best = warehouse;
+					bestRatio = cost / covered;
+				}
+			}
+			if (best < 0)
+			{
+				throw new IllegalArgumentException("Entries without any capable warehouse can not be assigned");
+			}
+			selected.set(best);
+			for (int entry = uncovered.nextSetBit(0); entry >= 0; entry = uncovered.nextSetBit(entry + 1))
+			{
+				if (capabilities.get(entry).get(best))
+				{
+					uncovered.clear(entry);
+				}
+			}
+		}
+		return selected;
+	}
+
+	protected double getCost(final BitSet selected, final List<BitSet> capabilities, final double[][] entryCosts,
+			final double[] consignmentCosts)
+	{
+		final BitSet used = new BitSet();
+		double cost = 0D;
+		for (int entry = 0; entry < capabilities.size(); entry++)
+		{
+			final int warehouse = cheapestWarehouse(capabilities.get(entry), selected, entryCosts[entry]);
+			used.set(warehouse);
+			cost += entryCosts[entry][warehouse];
+		}
+		for (int warehouse = used.nextSetBit(0); warehouse >= 0; warehouse = used.nextSetBit(warehouse + 1))
+		{
+			cost += consignmentCosts[warehouse];
+		}
+		return cost;
+	}
+
+	protected int cheapestWarehouse(final BitSet capability, final BitSet selected, final double[] costs)
+	{
+		int cheapest = -1;
+		for (int warehouse = capability.nextSetBit(0); warehouse >= 0; warehouse = capability.nextSetBit(warehouse + 1))
+		{
+			if (selected.get(warehouse) && (cheapest < 0 || costs[warehouse] < costs[cheapest]))
+			{
+				cheapest = warehouse;
+			}
+		}
+		return cheapest;
+	}
+
+	private static long[] toDistinctMasks(final Collection<BitSet> capabilities)
+	{
+		final Set<Long> masks = new LinkedHashSet<>();
+		for (final BitSet capability : capabilities)
+		{
+			final long[] words = capability.toLongArray();
+			masks.add(Long.valueOf(words.length == 0 ? 0L : words[0]));
+		}
+		final long[] result = new long[masks.size()];
+		int i = 0;
+		for (final Long mask : masks)
+		{
+			result[i++] = mask.longValue();
+		}
+		return result;
+	}
+
+	private static boolean covers(final long[] patterns, final long subset)
+	{
+		for (final long pattern : patterns)
+		{
+			if ((pattern & subset) == 0L)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long nextCombination(final long subset)
+	{
+		final long lowest = subset & -subset;
+		final long ripple = subset + lowest;
+		return ((ripple ^ subset) >>> 2) / lowest | ripple;
+	}
+
+	protected WarehouseCostStrategy getWarehouseCostStrategy()
+	{
+		return warehouseCostStrategy;
+	}
+
+	@Required
+	public void setWarehouseCostStrategy(final WarehouseCostStrategy warehouseCostStrategy)
+	{
+		this.warehouseCostStrategy = warehouseCostStrategy;
+	}
+
+	protected int getExactSearchMaxWarehouses()
+	{
+		return exactSearchMaxWarehouses;
+	}
+
+	/**
+	 * @param exactSearchMaxWarehouses
+	 *           up to this number of candidate warehouses (at most 20) the optimal assignment is searched
+	 */
+	public void setExactSearchMaxWarehouses(final int exactSearchMaxWarehouses)
+	{
+		this.exactSearchMaxWarehouses = exactSearchMaxWarehouses;
+	}
+}
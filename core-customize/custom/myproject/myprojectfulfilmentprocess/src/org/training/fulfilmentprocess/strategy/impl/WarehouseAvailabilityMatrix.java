@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.strategy.impl;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Available stock of a set of products in a set of warehouses, held in a single primitive array so the splitting
+ * algorithm does not have to go to the database for every (entry, warehouse) pair.
+ */
+public class WarehouseAvailabilityMatrix
+{
+	/**
+	 * Marker for cells whose stock is not limited, e.g. forced in stock.
+	 */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	private final Map<String, Integer> productIndex;
+	private final Map<PK, Integer> warehouseIndex;
+	private final long[] availability;
+
+	public WarehouseAvailabilityMatrix(final Collection<String> productCodes, final Collection<WarehouseModel> warehouses)
+	{
+		productIndex = new HashMap<>(productCodes.size() * 2);
+		for (final String productCode : productCodes)
+		{
+			productIndex.putIfAbsent(productCode, Integer.valueOf(productIndex.size()));
+		}
+		warehouseIndex = new HashMap<>(warehouses.size() * 2);
+		for (final WarehouseModel warehouse : warehouses)
+		{
+			warehouseIndex.putIfAbsent(warehouse.getPk(), Integer.valueOf(warehouseIndex.size()));
+		}
+		availability = new long[productIndex.size() * warehouseIndex.size()];
+	}
+
+	/**
+	 * Sets the available amount of a product in a warehouse, <code>null</code> stands for unlimited availability.
+	 */
+	public void setAvailability(final String productCode, final WarehouseModel warehouse, final Long available)
+	{
+		availability[index(productCode, warehouse)] = available == null ? UNLIMITED : available.longValue();
+	}
+
+	/**
+	 * Sets the same available amount for all cells.
+	 */
+	public void fill(final Long available)
+	{
+		Arrays.fill(availability, available == null ? UNLIMITED : available.longValue());
+	}
+
+	/**
+	 * @return the available amount of the product in the warehouse, {@link #UNLIMITED} if stock is not limited
+	 */
+	public long getAvailability(final String productCode, final WarehouseModel warehouse)
+	{
+		return availability[index(productCode, warehouse)];
+	}
+
+	public boolean isAvailable(final String productCode, final WarehouseModel warehouse)
+	{
+		return getAvailability(productCode, warehouse) > 0;
+	}
+
+	public boolean contains(final String productCode, final WarehouseModel warehouse)
+	{
+		return productIndex.containsKey(productCode) && warehouseIndex.containsKey(warehouse.getPk());
+	}
+
+	protected int index(final String productCode, final WarehouseModel warehouse)
+	{
+		final Integer product = productIndex.get(productCode);
+		final Integer column = warehouseIndex.get(warehouse.getPk());
+		if (product == null || column == null)
+		{
+			throw new IllegalArgumentException(
+					"No availability for product [" + productCode + "] in warehouse [" + warehouse.getCode() + "]");
+		}
+		return product.intValue() * warehouseIndex.size() + column.intValue();
+	}
+}
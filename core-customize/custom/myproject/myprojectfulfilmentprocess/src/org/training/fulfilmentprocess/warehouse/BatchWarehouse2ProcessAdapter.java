@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.warehouse;
+
+import de.hybris.platform.ordersplitting.model.ConsignmentModel;
+import de.hybris.platform.warehouse.Warehouse2ProcessAdapter;
+import de.hybris.platform.warehouse.WarehouseConsignmentStatus;
+
+import java.util.Map;
+
+
+/**
+ * Warehouse to process adapter receiving the statuses of many consignments at once.
+ */
+public interface BatchWarehouse2ProcessAdapter extends Warehouse2ProcessAdapter
+{
+	/**
+	 * Receives the statuses like {@link #receiveConsignmentStatus(ConsignmentModel, WarehouseConsignmentStatus)}, the
+	 * state updates of all consignment processes are saved and their events triggered together.
+	 *
+	 * @param statuses
+	 *           the status reported by the warehouse per consignment
+	 */
+	void receiveConsignmentStatuses(Map<ConsignmentModel, WarehouseConsignmentStatus> statuses);
+}
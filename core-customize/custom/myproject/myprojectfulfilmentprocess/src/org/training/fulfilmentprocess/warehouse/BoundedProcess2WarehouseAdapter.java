@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.warehouse;
+
+import de.hybris.platform.ordersplitting.model.ConsignmentModel;
+import de.hybris.platform.warehouse.Process2WarehouseAdapter;
+
+
+/**
+ * Process to warehouse adapter of a warehouse that only accepts a limited number of consignments at a time.
+ */
+public interface BoundedProcess2WarehouseAdapter extends Process2WarehouseAdapter
+{
+	/**
+	 * Hands the consignment over like {@link #prepareConsignment(ConsignmentModel)} if the warehouse has room for it,
+	 * never waits for room.
+	 *
+	 * @param consignment
+	 *           the consignment to send to the warehouse
+	 * @return <code>false</code> if the warehouse is full and the consignment has to be offered again later
+	 */
+	boolean offerConsignment(ConsignmentModel consignment);
+
+	/**
+	 * @return how long to wait before offering a refused consignment again
+	 */
+	long getRetryDelayMillis();
+}
@@ -6,26 +6,50 @@ package org.training.fulfilmentprocess.warehouse;
 import de.hybris.platform.commerceservices.enums.WarehouseConsignmentState;
 import de.hybris.platform.ordersplitting.model.ConsignmentModel;
 import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
-import de.hybris.platform.processengine.BusinessProcessService;
-import de.hybris.platform.servicelayer.model.ModelService;
-import de.hybris.platform.warehouse.Warehouse2ProcessAdapter;
 import de.hybris.platform.warehouse.WarehouseConsignmentStatus;
+import org.training.fulfilmentprocess.ProcessEventBatchService;
 import org.training.fulfilmentprocess.constants.MyprojectFulfilmentProcessConstants;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Required;
 
 
-public class DefaultWarehouse2ProcessAdapter implements Warehouse2ProcessAdapter
+/**
+ * Maps the warehouse statuses to the state of the consignment processes and wakes them up through the
+ * {@link ProcessEventBatchService}, which saves the processes and triggers their events in one transaction per chunk.
+ */
+public class DefaultWarehouse2ProcessAdapter implements BatchWarehouse2ProcessAdapter
 {
 	private Map<WarehouseConsignmentStatus, WarehouseConsignmentState> statusMap;
-	private ModelService modelService;
 
-	private BusinessProcessService businessProcessService;
+	private ProcessEventBatchService processEventBatchService;
 
 	@Override
 	public void receiveConsignmentStatus(final ConsignmentModel consignment, final WarehouseConsignmentStatus status)
+	{
+		final Map<ConsignmentProcessModel, String> processEvents = new LinkedHashMap<ConsignmentProcessModel, String>();
+		addProcessEvents(processEvents, consignment, status);
+		getProcessEventBatchService().saveAndTriggerEvents(processEvents);
+	}
+
+	@Override
+	public void receiveConsignmentStatuses(final Map<ConsignmentModel, WarehouseConsignmentStatus> statuses)
+	{
+		final Map<ConsignmentProcessModel, String> processEvents = new LinkedHashMap<ConsignmentProcessModel, String>();
+		for (final Map.Entry<ConsignmentModel, WarehouseConsignmentStatus> status : statuses.entrySet())
+		{
+			addProcessEvents(processEvents, status.getKey(), status.getValue());
+		}
+		if (!processEvents.isEmpty())
+		{
+			getProcessEventBatchService().saveAndTriggerEvents(processEvents);
+		}
+	}
+
+	protected void addProcessEvents(final Map<ConsignmentProcessModel, String> processEvents,
+			final ConsignmentModel consignment, final WarehouseConsignmentStatus status)
 	{
 		for (final ConsignmentProcessModel process : consignment.getConsignmentProcesses())
 		{
@@ -35,9 +59,7 @@ public class DefaultWarehouse2ProcessAdapter implements Warehouse2ProcessAdapter
 				throw new IllegalStateException("No mapping for WarehouseConsignmentStatus: " + status);
 			}
 			process.setWarehouseConsignmentState(state);
-			getModelService().save(process);
-			getBusinessProcessService().triggerEvent(
-					process.getCode() + "_" + MyprojectFulfilmentProcessConstants.WAIT_FOR_WAREHOUSE);
+			processEvents.put(process, process.getCode() + "_" + MyprojectFulfilmentProcessConstants.WAIT_FOR_WAREHOUSE);
 		}
 	}
 
@@ -52,25 +74,14 @@ public class DefaultWarehouse2ProcessAdapter implements Warehouse2ProcessAdapter
 		this.statusMap = statusMap;
 	}
 
-	protected ModelService getModelService()
-	{
-		return modelService;
-	}
-
-	@Required
-	public void setModelService(final ModelService modelService)
-	{
-		this.modelService = modelService;
-	}
-
-	protected BusinessProcessService getBusinessProcessService()
+	protected ProcessEventBatchService getProcessEventBatchService()
 	{
-		return businessProcessService;
+		return processEventBatchService;
 	}
 
 	@Required
-	public void setBusinessProcessService(final BusinessProcessService businessProcessService)
+	public void setProcessEventBatchService(final ProcessEventBatchService processEventBatchService)
 	{
-		this.businessProcessService = businessProcessService;
+		this.processEventBatchService = processEventBatchService;
 	}
 }
@@ -15,6 +15,9 @@ import de.hybris.platform.warehouse.Process2WarehouseAdapter;
 import de.hybris.platform.warehouse.Warehouse2ProcessAdapter;
 import de.hybris.platform.warehouse.WarehouseConsignmentStatus;
 
+import java.util.Collections;
+import java.util.Map;
+
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
 
@@ -69,7 +72,7 @@ public class MockProcess2WarehouseAdapter implements Process2WarehouseAdapter
 			try
 			{
 				final ConsignmentModel model = getModelService().get(PK.fromLong(consignment));
-				getWarehouse2ProcessAdapter().receiveConsignmentStatus(model, WarehouseConsignmentStatus.COMPLETE);
+				reportStatuses(Collections.singletonMap(model, WarehouseConsignmentStatus.COMPLETE));
 			}
 			finally
 			{
@@ -78,6 +81,24 @@ public class MockProcess2WarehouseAdapter implements Process2WarehouseAdapter
 		}
 	}
 
+	/**
+	 * Reports the warehouse answers to the processes, all at once if the {@link #getWarehouse2ProcessAdapter()} is a
+	 * {@link BatchWarehouse2ProcessAdapter}, one by one otherwise.
+	 */
+	protected void reportStatuses(final Map<ConsignmentModel, WarehouseConsignmentStatus> statuses)
+	{
+		if (getWarehouse2ProcessAdapter() instanceof BatchWarehouse2ProcessAdapter)
+		{
+			((BatchWarehouse2ProcessAdapter) getWarehouse2ProcessAdapter()).receiveConsignmentStatuses(statuses);
+		}
+		else
+		{
+			for (final Map.Entry<ConsignmentModel, WarehouseConsignmentStatus> status : statuses.entrySet())
+			{
+				getWarehouse2ProcessAdapter().receiveConsignmentStatus(status.getKey(), status.getValue());
+			}
+		}
+	}
 
 	@Override
 	public void shipConsignment(final ConsignmentModel consignment)
@@ -0,0 +1,551 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.warehouse;
+
+import de.hybris.platform.basecommerce.enums.ConsignmentStatus;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.ordersplitting.model.ConsignmentEntryModel;
+import de.hybris.platform.ordersplitting.model.ConsignmentModel;
+import de.hybris.platform.warehouse.WarehouseConsignmentStatus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+
+/**
+ * Warehouse simulator for load tests.
+ *
+ * Unlike the {@link MockProcess2WarehouseAdapter} it never blocks the process engine thread: the warehouse answer is
+ * scheduled on a shared {@link ScheduledExecutorService} after a latency drawn from the configured
+ * {@link WarehouseLatencyDistribution}. The answers are collected and reported every
+ * {@link #setReportIntervalMillis(long)} through the {@link de.hybris.platform.warehouse.Warehouse2ProcessAdapter}, up
+ * to {@link #setReportBatchSize(int)} answers at once when it is a {@link BatchWarehouse2ProcessAdapter}. A
+ * configurable share of the consignments is cancelled or only partially shipped. At most
+ * {@link #setMaxPendingConsignments(int)} consignments are in the warehouse at the same time. A consignment offered
+ * while the warehouse is full is refused without waiting, so the sending action can retry it later; one handed over by
+ * {@link #prepareConsignment(ConsignmentModel)} is admitted by the warehouse itself once a slot becomes free, checked
+ * every {@link #setBackpressureRetryMillis(long)}. Consignments are never cancelled because of back-pressure.
+ */
+public class SimulatedProcess2WarehouseAdapter extends MockProcess2WarehouseAdapter
+		implements BoundedProcess2WarehouseAdapter, InitializingBean, DisposableBean
+{
+	private static final Logger LOG = Logger.getLogger(SimulatedProcess2WarehouseAdapter.class);
+
+	private int poolSize = 4;
+	private WarehouseLatencyDistribution latencyDistribution = WarehouseLatencyDistribution.LOG_NORMAL;
+	private long meanLatencyMillis = 3000;
+	private long latencyDeviationMillis = 1500;
+	private long minLatencyMillis = 500;
+	private long maxLatencyMillis = 60000;
+	private double failureRate;
+	private double partialShipmentRate;
+	private int maxPendingConsignments = 1000;
+	private long backpressureRetryMillis = 1000;
+	private long reportIntervalMillis = 100;
+	private int reportBatchSize = 100;
+
+	private ScheduledExecutorService executor;
+	private final AtomicInteger pendingConsignments = new AtomicInteger();
+	private final Queue<Answer> answers = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong partiallyShipped = new AtomicLong();
+	private final AtomicLong cancelled = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	@Override
+	public void afterPropertiesSet()
+	{
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ThreadFactory threadFactory = runnable -> {
+			final Thread thread = new Thread(runnable, "simulated-warehouse-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		executor = Executors.newScheduledThreadPool(getPoolSize(), threadFactory);
+		executor.scheduleWithFixedDelay(this::reportAnswers, getReportIntervalMillis(), getReportIntervalMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy()
+	{
+		executor.shutdownNow();
+	}
+
+	@Override
+	public boolean offerConsignment(final ConsignmentModel consignment)
+	{
+		if (!acquireSlot())
+		{
+			rejected.incrementAndGet();
+			if (LOG.isDebugEnabled())
+			{
+				LOG.debug("Simulated warehouse is full, refusing consignment [" + consignment.getCode() + "] for now");
+			}
+			return false;
+		}
+		accept(consignment);
+		return true;
+	}
+
+	@Override
+	public void prepareConsignment(final ConsignmentModel consignment)
+	{
+		if (!offerConsignment(consignment))
+		{
+			executor.schedule(new Admission(getCurrentTenantId(), consignment.getPk().getLongValue()),
+					getBackpressureRetryMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Marks the consignment as ready and schedules the warehouse answer, the slot has to be acquired already.
+	 */
+	protected void accept(final ConsignmentModel consignment)
+	{
+		for (final ConsignmentEntryModel consignmentEntries : consignment.getConsignmentEntries())
+		{
+			consignmentEntries.setShippedQuantity(consignmentEntries.getQuantity());
+		}
+		consignment.setStatus(ConsignmentStatus.READY);
+		getModelService().save(consignment);
+
+		final long latency = getLatencyDistribution().sample(ThreadLocalRandom.current(), getMeanLatencyMillis(),
+				getLatencyDeviationMillis(), getMinLatencyMillis(), getMaxLatencyMillis());
+		executor.schedule(new SimulatedWarehouse(getCurrentTenantId(), consignment.getPk().getLongValue()), latency,
+				TimeUnit.MILLISECONDS);
+	}
+
+	protected String getCurrentTenantId()
+	{
+		return Registry.getCurrentTenant().getTenantID();
+	}
+
+	/**
+	 * Runs a task of the simulated warehouse in the tenant the consignment was sent from.
+	 */
+	protected void executeInTenant(final String tenant, final Runnable task)
+	{
+		Registry.setCurrentTenant(Registry.getTenantByID(tenant));
+		try
+		{
+			task.run();
+		}
+		finally
+		{
+			Registry.unsetCurrentTenant();
+		}
+	}
+
+	/**
+	 * Takes a slot if fewer than {@link #setMaxPendingConsignments(int)} consignments are pending, never waits.
+	 */
+	protected boolean acquireSlot()
+	{
+		while (true)
+		{
+			final int pending = pendingConsignments.get();
+			if (pending >= getMaxPendingConsignments())
+			{
+				return false;
+			}
+			if (pendingConsignments.compareAndSet(pending, pending + 1))
+			{
+				return true;
+			}
+		}
+	}
+
+	protected void releaseSlot()
+	{
+		pendingConsignments.decrementAndGet();
+	}
+
+	/**
+	 * Draws the warehouse answer and adjusts the shipped quantities of the consignment accordingly.
+	 */
+	protected WarehouseConsignmentStatus simulate(final ConsignmentModel consignment, final Random random)
+	{
+		final double outcome = random.nextDouble();
+		if (outcome < getFailureRate())
+		{
+			for (final ConsignmentEntryModel entry : consignment.getConsignmentEntries())
+			{
+				entry.setShippedQuantity(Long.valueOf(0));
+			}
+			getModelService().saveAll(consignment.getConsignmentEntries());
+			return WarehouseConsignmentStatus.CANCEL;
+		}
+		if (outcome < getFailureRate() + getPartialShipmentRate() && !consignment.getConsignmentEntries().isEmpty())
+		{
+			final List<ConsignmentEntryModel> entries = new ArrayList<>(consignment.getConsignmentEntries());
+			final ConsignmentEntryModel entry = entries.get(random.nextInt(entries.size()));
+			final long quantity = entry.getQuantity() == null ? 0L : entry.getQuantity().longValue();
+			entry.setShippedQuantity(Long.valueOf(quantity > 1 ? random.nextInt((int) Math.min(quantity, Integer.MAX_VALUE)) : 0L));
+			getModelService().save(entry);
+			return WarehouseConsignmentStatus.PARTIAL;
+		}
+		return WarehouseConsignmentStatus.COMPLETE;
+	}
+
+	/**
+	 * Reports the collected warehouse answers in batches of at most {@link #getReportBatchSize()}, each batch in the
+	 * tenant its consignments were sent from.
+	 */
+	protected void reportAnswers()
+	{
+		List<Answer> batch = pollAnswers();
+		while (!batch.isEmpty())
+		{
+			final Map<String, List<Answer>> answersByTenant = new LinkedHashMap<>();
+			for (final Answer answer : batch)
+			{
+				answersByTenant.computeIfAbsent(answer.tenant, tenant -> new ArrayList<>()).add(answer);
+			}
+			for (final Map.Entry<String, List<Answer>> tenantAnswers : answersByTenant.entrySet())
+			{
+				try
+				{
+					executeInTenant(tenantAnswers.getKey(), () -> report(tenantAnswers.getValue()));
+				}
+				catch (final RuntimeException e)
+				{
+					// keeps the report schedule alive, a failing schedule would not run again
+					LOG.error("Simulated warehouse failed to report to tenant [" + tenantAnswers.getKey() + "]", e);
+				}
+			}
+			batch = pollAnswers();
+		}
+	}
+
+	protected List<Answer> pollAnswers()
+	{
+		final List<Answer> batch = new ArrayList<>();
+		Answer answer;
+		while (batch.size() < getReportBatchSize() && (answer = answers.poll()) != null)
+		{
+			batch.add(answer);
+		}
+		return batch;
+	}
+
+	protected void report(final List<Answer> batch)
+	{
+		try
+		{
+			final Map<ConsignmentModel, WarehouseConsignmentStatus> statuses = new LinkedHashMap<>();
+			for (final Answer answer : batch)
+			{
+				statuses.put(getModelService().<ConsignmentModel> get(PK.fromLong(answer.consignment)), answer.status);
+			}
+			reportStatuses(statuses);
+		}
+		catch (final RuntimeException e)
+		{
+			LOG.error("Simulated warehouse failed to report " + batch.size() + " consignments", e);
+		}
+		finally
+		{
+			for (int i = 0; i < batch.size(); i++)
+			{
+				releaseSlot();
+			}
+		}
+	}
+
+	/**
+	 * Admits a consignment handed over while the warehouse was full once a slot is free.
+	 */
+	protected class Admission implements Runnable
+	{
+		private final String tenant;
+		private final long consignment;
+
+		public Admission(final String tenant, final long consignment)
+		{
+			this.tenant = tenant;
+			this.consignment = consignment;
+		}
+
+		@Override
+		public void run()
+		{
+			executeInTenant(tenant, () -> {
+				try
+				{
+					prepareConsignment(getModelService().<ConsignmentModel> get(PK.fromLong(consignment)));
+				}
+				catch (final RuntimeException e)
+				{
+					LOG.error("Simulated warehouse failed to admit consignment [" + consignment + "]", e);
+				}
+			});
+		}
+	}
+
+	protected class SimulatedWarehouse implements Runnable
+	{
+		private final String tenant;
+		private final long consignment;
+
+		public SimulatedWarehouse(final String tenant, final long consignment)
+		{
+			this.tenant = tenant;
+			this.consignment = consignment;
+		}
+
+		@Override
+		public void run()
+		{
+			executeInTenant(tenant, () -> {
+				try
+				{
+					final ConsignmentModel model = getModelService().get(PK.fromLong(consignment));
+					final WarehouseConsignmentStatus status = simulate(model, ThreadLocalRandom.current());
+					count(status);
+					answers.add(new Answer(tenant, consignment, status));
+				}
+				catch (final RuntimeException e)
+				{
+					LOG.error("Simulated warehouse failed to process consignment [" + consignment + "]", e);
+					releaseSlot();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Warehouse answer waiting for the next {@link #reportAnswers()}, the consignment keeps its slot until then.
+	 */
+	protected static class Answer
+	{
+		private final String tenant;
+		private final long consignment;
+		private final WarehouseConsignmentStatus status;
+
+		public Answer(final String tenant, final long consignment, final WarehouseConsignmentStatus status)
+		{
+			this.tenant = tenant;
+			this.consignment = consignment;
+			this.status = status;
+		}
+	}
+
+	protected void count(final WarehouseConsignmentStatus status)
+	{
+		if (WarehouseConsignmentStatus.COMPLETE.equals(status))
+		{
+			completed.incrementAndGet();
+		}
+		else if (WarehouseConsignmentStatus.PARTIAL.equals(status))
+		{
+			partiallyShipped.incrementAndGet();
+		}
+		else
+		{
+			cancelled.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the number of consignments currently processed by the simulated warehouse
+	 */
+	public int getPendingConsignments()
+	{
+		return pendingConsignments.get();
+	}
+
+	public long getCompletedCount()
+	{
+		return completed.get();
+	}
+
+	public long getPartiallyShippedCount()
+	{
+		return partiallyShipped.get();
+	}
+
+	public long getCancelledCount()
+	{
+		return cancelled.get();
+	}
+
+	/**
+	 * @return the number of times a consignment was refused because the warehouse was full
+	 */
+	public long getRejectedCount()
+	{
+		return rejected.get();
+	}
+
+	protected int getPoolSize()
+	{
+		return poolSize;
+	}
+
+	public void setPoolSize(final int poolSize)
+	{
+		this.poolSize = poolSize;
+	}
+
+	public WarehouseLatencyDistribution getLatencyDistribution()
+	{
+		return latencyDistribution;
+	}
+
+	public void setLatencyDistribution(final WarehouseLatencyDistribution latencyDistribution)
+	{
+		this.latencyDistribution = latencyDistribution;
+	}
+
+	public long getMeanLatencyMillis()
+	{
+		return meanLatencyMillis;
+	}
+
+	public void setMeanLatencyMillis(final long meanLatencyMillis)
+	{
+		this.meanLatencyMillis = meanLatencyMillis;
+	}
+
+	protected long getLatencyDeviationMillis()
+	{
+		return latencyDeviationMillis;
+	}
+
+	public void setLatencyDeviationMillis(final long latencyDeviationMillis)
+	{
+		this.latencyDeviationMillis = latencyDeviationMillis;
+	}
+
+	public long getMinLatencyMillis()
+	{
+		return minLatencyMillis;
+	}
+
+	/**
+	 * @param minLatencyMillis
+	 *           lower bound of the latency, gives the consignment process time to reach its wait node
+	 */
+	public void setMinLatencyMillis(final long minLatencyMillis)
+	{
+		this.minLatencyMillis = minLatencyMillis;
+	}
+
+	public long getMaxLatencyMillis()
+	{
+		return maxLatencyMillis;
+	}
+
+	public void setMaxLatencyMillis(final long maxLatencyMillis)
+	{
+		this.maxLatencyMillis = maxLatencyMillis;
+	}
+
+	protected double getFailureRate()
+	{
+		return failureRate;
+	}
+
+	/**
+	 * @param failureRate
+	 *           share of the consignments the warehouse cancels, between 0 and 1
+	 */
+	public void setFailureRate(final double failureRate)
+	{
+		this.failureRate = failureRate;
+	}
+
+	protected double getPartialShipmentRate()
+	{
+		return partialShipmentRate;
+	}
+
+	/**
+	 * @param partialShipmentRate
+	 *           share of the consignments the warehouse ships only partially, between 0 and 1
+	 */
+	public void setPartialShipmentRate(final double partialShipmentRate)
+	{
+		this.partialShipmentRate = partialShipmentRate;
+	}
+
+	public int getMaxPendingConsignments()
+	{
+		return maxPendingConsignments;
+	}
+
+	public void setMaxPendingConsignments(final int maxPendingConsignments)
+	{
+		this.maxPendingConsignments = maxPendingConsignments;
+	}
+
+	protected long getBackpressureRetryMillis()
+	{
+		return backpressureRetryMillis;
+	}
+
+	/**
+	 * @param backpressureRetryMillis
+	 *           delay before a refused consignment is offered again
+	 */
+	public void setBackpressureRetryMillis(final long backpressureRetryMillis)
+	{
+		this.backpressureRetryMillis = backpressureRetryMillis;
+	}
+
+	protected long getReportIntervalMillis()
+	{
+		return reportIntervalMillis;
+	}
+
+	/**
+	 * @param reportIntervalMillis
+	 *           delay between two reports of the collected warehouse answers
+	 */
+	public void setReportIntervalMillis(final long reportIntervalMillis)
+	{
+		this.reportIntervalMillis = reportIntervalMillis;
+	}
+
+	protected int getReportBatchSize()
+	{
+		return reportBatchSize;
+	}
+
+	/**
+	 * @param reportBatchSize
+	 *           maximum number of warehouse answers reported at once, best kept at the chunk size of the
+	 *           {@link org.training.fulfilmentprocess.ProcessEventBatchService} so a batch is triggered in one
+	 *           transaction
+	 */
+	public void setReportBatchSize(final int reportBatchSize)
+	{
+		this.reportBatchSize = reportBatchSize;
+	}
+
+	@Override
+	public long getRetryDelayMillis()
+	{
+		return getBackpressureRetryMillis();
+	}
+}
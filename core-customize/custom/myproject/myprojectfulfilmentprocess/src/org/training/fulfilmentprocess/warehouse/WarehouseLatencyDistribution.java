@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.warehouse;
+
+import java.util.Random;
+
+
+/**
+ * Distributions the {@link SimulatedProcess2WarehouseAdapter} draws the warehouse processing time from.
+ */
+public enum WarehouseLatencyDistribution
+{
+	/**
+	 * Always the mean.
+	 */
+	FIXED
+	{
+		@Override
+		protected double draw(final Random random, final double mean, final double deviation)
+		{
+			return mean;
+		}
+	},
+
+	/**
+	 * Uniform between mean - deviation and mean + deviation.
+	 */
+	UNIFORM
+	{
+		@Override
+		protected double draw(final Random random, final double mean, final double deviation)
+		{
+			return mean - deviation + 2 * deviation * random.nextDouble();
+		}
+	},
+
+	/**
+	 * Gaussian with the given mean and standard deviation.
+	 */
+	NORMAL
+	{
+		@Override
+		protected double draw(final Random random, final double mean, final double deviation)
+		{
+			return mean + deviation * random.nextGaussian();
+		}
+	},
+
+	/**
+	 * Exponential with the given mean, the deviation is ignored.
+	 */
+	EXPONENTIAL
+	{
+		@Override
+		protected double draw(final Random random, final double mean, final double deviation)
+		{
+			return -mean * Math.log(1D - random.nextDouble());
+		}
+	},
+
+	/**
+	 * Log-normal with the given mean and standard deviation, giving the long tail typical for warehouse processing.
+	 */
+	LOG_NORMAL
+	{
+		@Override
+		protected double draw(final Random random, final double mean, final double deviation)
+		{
+			if (mean <= 0D)
+			{
+				return 0D;
+			}
+			final double sigmaSquare = Math.log(1D + deviation * deviation / (mean * mean));
+			final double mu = Math.log(mean) - sigmaSquare / 2D;
+			return Math.exp(mu + Math.sqrt(sigmaSquare) * random.nextGaussian());
+		}
+	};
+
+	/**
+	 * @return a latency in milliseconds drawn from this distribution, clamped to [min, max]
+	 */
+	public long sample(final Random random, final long mean, final long deviation, final long min, final long max)
+	{
+		final double value = draw(random, mean, deviation);
+		return Math.max(min, Math.min(max, Math.round(value)));
+	}
+
+	protected abstract double draw(Random random, double mean, double deviation);
+}
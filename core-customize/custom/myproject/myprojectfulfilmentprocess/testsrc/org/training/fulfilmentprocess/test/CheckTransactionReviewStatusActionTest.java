@@ -230,4 +230,15 @@ public class CheckTransactionReviewStatusActionTest
 		}
 	}
 
+
+	@Test
+	public void testLatestDecisionEntryIsUsedWithoutScanningEntries() throws Exception
+	{
+		paymentTransactionEntriesList.add(reviewAccepted);
+		paymentTransactionEntriesList.add(authorizationAccepted);
+		final PaymentTransactionModel paymentTransaction = process.getOrder().getPaymentTransactions().get(0);
+		paymentTransaction.setLatestDecisionEntry(reviewRejected);
+
+		Assert.assertEquals(NOK, action.execute(process));
+	}
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.basecommerce.enums.FraudStatus;
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.fraud.FraudService;
+import de.hybris.platform.fraud.impl.FraudServiceResponse;
+import de.hybris.platform.fraud.impl.FraudSymptom;
+import de.hybris.platform.servicelayer.config.ConfigurationService;
+import de.hybris.platform.util.config.ConfigIntf;
+import org.training.fulfilmentprocess.fraud.CompiledFraudSymptomRule;
+import org.training.fulfilmentprocess.fraud.FraudOrderData;
+import org.training.fulfilmentprocess.fraud.FraudSymptomRule;
+import org.training.fulfilmentprocess.fraud.impl.DefaultFraudScoringEngine;
+import org.training.fulfilmentprocess.fraud.rules.BlackListSymptomRule;
+import org.training.fulfilmentprocess.fraud.rules.DifferentAddressesSymptomRule;
+import org.training.fulfilmentprocess.fraud.rules.FirstTimeOrderSymptomRule;
+import org.training.fulfilmentprocess.fraud.rules.OrderThresholdSymptomRule;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+@UnitTest
+public class DefaultFraudScoringEngineTest
+{
+	private final BaseConfiguration configuration = new BaseConfiguration();
+	private final FraudService fraudService = mock(FraudService.class);
+	private final OrderModel order = new OrderModel();
+	private ConfigIntf.ConfigChangeListener listener;
+	private DefaultFraudScoringEngine engine;
+
+	@Before
+	public void setUp()
+	{
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.scoreLimit", "500");
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.scoreTolerance", "50");
+		final ConfigurationService configurationService = mock(ConfigurationService.class);
+		given(configurationService.getConfiguration()).willReturn(configuration);
+
+		engine = new DefaultFraudScoringEngine()
+		{
+			@Override
+			protected void registerConfigChangeListener(final ConfigIntf.ConfigChangeListener configChangeListener)
+			{
+				listener = configChangeListener;
+			}
+
+			@Override
+			protected void unregisterConfigChangeListener(final ConfigIntf.ConfigChangeListener configChangeListener)
+			{
+				listener = null;
+			}
+		};
+		engine.setFraudService(fraudService);
+		engine.setProviderName("hybris");
+		engine.setConfigurationService(configurationService);
+		engine.setTimeBudgetMillis(500);
+	}
+
+	@After
+	public void tearDown()
+	{
+		engine.destroy();
+	}
+
+	@Test
+	public void shouldReloadConfigurationOnChange()
+	{
+		engine.afterPropertiesSet();
+		Assert.assertEquals(FraudStatus.CHECK, engine.getConfiguration().evaluate(520));
+
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.scoreLimit", "600");
+		listener.configChanged("myprojectfulfilmentprocess.fraud.scoreLimit", "600");
+
+		Assert.assertEquals(FraudStatus.OK, engine.getConfiguration().evaluate(520));
+		Assert.assertEquals(FraudStatus.FRAUD, engine.getConfiguration().evaluate(650));
+	}
+
+	@Test
+	public void shouldFallBackToFraudServiceWithoutDetections()
+	{
+		final FraudServiceResponse response = new FraudServiceResponse("hybris");
+		given(fraudService.recognizeOrderSymptoms("hybris", order)).willReturn(response);
+		engine.afterPropertiesSet();
+
+		Assert.assertSame(response, engine.recognizeOrderSymptoms(order));
+		Assert.assertEquals(1, engine.getSymptomMetrics().get("hybris").getEvaluations());
+	}
+
+	@Test
+	public void shouldMergeSymptomsOfAllRules()
+	{
+		engine.setSymptomDetections(Arrays.asList(rule("blackList", 100, 0), rule("firstTimeOrder", 200, 0)));
+		engine.afterPropertiesSet();
+
+		final FraudServiceResponse response = engine.recognizeOrderSymptoms(order);
+
+		Assert.assertEquals(2, response.getSymptoms().size());
+		Assert.assertEquals(300D, response.getScore(), 0.001D);
+	}
+
+	@Test
+	public void shouldSkipRulesExceedingTheTimeBudget()
+	{
+		engine.setTimeBudgetMillis(100);
+		engine.setSymptomDetections(Collections.singletonList(rule("slow", 1000, 5000)));
+		engine.afterPropertiesSet();
+
+		final long start = System.currentTimeMillis();
+		final FraudServiceResponse response = engine.recognizeOrderSymptoms(order);
+
+		Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+		Assert.assertTrue(response.getSymptoms().isEmpty());
+		Assert.assertEquals(1, engine.getSymptomMetrics().get("slow").getTimeouts());
+	}
+
+	@Test
+	public void shouldIgnoreFailingRulesAndKeyMetricsByRuleName()
+	{
+		final FraudSymptomRule failing = mock(FraudSymptomRule.class);
+		given(failing.getName()).willReturn("failingSymptomRule");
+		given(failing.compile(any(Configuration.class))).willReturn(orderData -> {
+			throw new IllegalStateException("failed");
+		});
+		engine.setSymptomDetections(Arrays.asList(failing, rule("firstTimeOrder", 200, 0)));
+		engine.afterPropertiesSet();
+
+		final FraudServiceResponse response = engine.recognizeOrderSymptoms(order);
+
+		Assert.assertEquals(200D, response.getScore(), 0.001D);
+		Assert.assertEquals(1, engine.getSymptomMetrics().get("failingSymptomRule").getFailures());
+		Assert.assertEquals(1, engine.getSymptomMetrics().get("firstTimeOrder").getEvaluations());
+	}
+
+	@Test
+	public void shouldPassOrderDataInsteadOfOrderToRules()
+	{
+		final List<FraudOrderData> evaluated = new CopyOnWriteArrayList<>();
+		final FraudSymptomRule recording = mock(FraudSymptomRule.class);
+		given(recording.getName()).willReturn("recording");
+		given(recording.compile(any(Configuration.class))).willReturn(orderData -> {
+			evaluated.add(orderData);
+			return null;
+		});
+		order.setCode("order1");
+		order.setTotalPrice(Double.valueOf(42D));
+		engine.setSymptomDetections(Collections.singletonList(recording));
+		engine.afterPropertiesSet();
+
+		engine.recognizeOrderSymptoms(order);
+
+		Assert.assertEquals(1, evaluated.size());
+		Assert.assertEquals("order1", evaluated.get(0).getCode());
+		Assert.assertEquals(42D, evaluated.get(0).getTotalPrice(), 0.001D);
+	}
+
+	@Test
+	public void shouldRecompileRulesOnChange()
+	{
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.orderThresholdSymptomRule.limit", "1000");
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.orderThresholdSymptomRule.score", "100");
+		final OrderThresholdSymptomRule threshold = new OrderThresholdSymptomRule();
+		threshold.setBeanName("orderThresholdSymptomRule");
+		order.setTotalPrice(Double.valueOf(800D));
+		engine.setSymptomDetections(Collections.<FraudSymptomRule> singletonList(threshold));
+		engine.afterPropertiesSet();
+		Assert.assertTrue(engine.recognizeOrderSymptoms(order).getSymptoms().isEmpty());
+
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.orderThresholdSymptomRule.limit", "500");
+		listener.configChanged("myprojectfulfilmentprocess.fraud.orderThresholdSymptomRule.limit", "500");
+
+		Assert.assertEquals(100D, engine.recognizeOrderSymptoms(order).getScore(), 0.001D);
+	}
+
+	@Test
+	public void shouldEvaluateCompiledRules()
+	{
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.firstTimeOrder.score", "100");
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.differentAddresses.score", "50");
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.blackList.score", "1000");
+		configuration.setProperty("myprojectfulfilmentprocess.fraud.blackList.entries", "fraud@test.com, @spam.com");
+		final FirstTimeOrderSymptomRule firstTimeOrder = new FirstTimeOrderSymptomRule();
+		firstTimeOrder.setBeanName("firstTimeOrder");
+		final DifferentAddressesSymptomRule differentAddresses = new DifferentAddressesSymptomRule();
+		differentAddresses.setBeanName("differentAddresses");
+		final BlackListSymptomRule blackList = new BlackListSymptomRule();
+		blackList.setBeanName("blackList");
+
+		final CompiledFraudSymptomRule firstTime = firstTimeOrder.compile(configuration);
+		final CompiledFraudSymptomRule different = differentAddresses.compile(configuration);
+		final CompiledFraudSymptomRule listed = blackList.compile(configuration);
+
+		final FraudOrderData firstOrder = new FraudOrderData("o1", 10D, "Fraud@Test.com", 1, "DE", "US");
+		final FraudOrderData regularOrder = new FraudOrderData("o2", 10D, "someone@test.com", 3, "DE", "DE");
+		final FraudOrderData spamOrder = new FraudOrderData("o3", 10D, "someone@spam.com", 3, "DE", null);
+		Assert.assertEquals(100D, firstTime.evaluate(firstOrder).getScore(), 0.001D);
+		Assert.assertNull(firstTime.evaluate(regularOrder));
+		Assert.assertEquals(50D, different.evaluate(firstOrder).getScore(), 0.001D);
+		Assert.assertNull(different.evaluate(regularOrder));
+		Assert.assertNull(different.evaluate(spamOrder));
+		Assert.assertEquals(1000D, listed.evaluate(firstOrder).getScore(), 0.001D);
+		Assert.assertEquals(1000D, listed.evaluate(spamOrder).getScore(), 0.001D);
+		Assert.assertNull(listed.evaluate(regularOrder));
+	}
+
+	private FraudSymptomRule rule(final String symptom, final double score, final long delayMillis)
+	{
+		final FraudSymptomRule rule = mock(FraudSymptomRule.class);
+		given(rule.getName()).willReturn(symptom);
+		given(rule.compile(any(Configuration.class))).willReturn(orderData -> {
+			if (delayMillis > 0)
+			{
+				try
+				{
+					Thread.sleep(delayMillis);
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return null;
+				}
+			}
+			return new FraudSymptom(symptom, score);
+		});
+		return rule;
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.payment.dto.TransactionStatus;
+import de.hybris.platform.payment.enums.PaymentTransactionType;
+import de.hybris.platform.payment.model.PaymentTransactionEntryModel;
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.tx.TransactionBody;
+import org.training.fulfilmentprocess.payment.PaymentCaptureResult;
+import org.training.fulfilmentprocess.payment.impl.DefaultPaymentCaptureOrchestrator;
+import org.training.fulfilmentprocess.test.beans.StubPaymentService;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+@UnitTest
+public class DefaultPaymentCaptureOrchestratorTest
+{
+	@Mock
+	private ModelService modelService;
+	@Mock
+	private SessionService sessionService;
+
+	private StubPaymentService paymentService;
+	private DefaultPaymentCaptureOrchestrator orchestrator;
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+		paymentService = new StubPaymentService();
+		paymentService.setLatencyMillis(300);
+		orchestrator = new DefaultPaymentCaptureOrchestrator()
+		{
+			@Override
+			protected Object executeInTransaction(final TransactionBody body)
+			{
+				try
+				{
+					return body.execute();
+				}
+				catch (final Exception e)
+				{
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+		orchestrator.setPaymentService(paymentService);
+		orchestrator.setModelService(modelService);
+		orchestrator.setSessionService(sessionService);
+		orchestrator.setCaptureTimeoutMillis(2000);
+		orchestrator.afterPropertiesSet();
+	}
+
+	@After
+	public void tearDown()
+	{
+		orchestrator.destroy();
+	}
+
+	@Test
+	public void shouldCaptureTransactionsConcurrently()
+	{
+		final long start = System.currentTimeMillis();
+		final PaymentCaptureResult result = orchestrator
+				.capture(Arrays.asList(transaction("txn1"), transaction("txn2"), transaction("txn3")));
+
+		Assert.assertTrue(result.isSuccessful());
+		Assert.assertEquals(3, result.getCaptured().size());
+		Assert.assertEquals(3, paymentService.getMaxConcurrency());
+		Assert.assertTrue(System.currentTimeMillis() - start < 900);
+	}
+
+	@Test
+	public void shouldVoidCapturesWhenOneIsRejected()
+	{
+		paymentService.setRejectedTransactions(Collections.singleton("txn2"));
+
+		final PaymentCaptureResult result = orchestrator.capture(Arrays.asList(transaction("txn1"), transaction("txn2")));
+
+		Assert.assertFalse(result.isSuccessful());
+		Assert.assertEquals(1, result.getFailed().size());
+		Assert.assertEquals(1, result.getVoided().size());
+		Assert.assertEquals(1, paymentService.getVoids());
+	}
+
+	@Test
+	public void shouldVoidLateCaptureAfterTimeout() throws InterruptedException
+	{
+		orchestrator.setCaptureTimeoutMillis(100);
+
+		final PaymentCaptureResult result = orchestrator.capture(Collections.singletonList(transaction("txn1")));
+
+		Assert.assertFalse(result.isSuccessful());
+		Assert.assertEquals(1, result.getTimedOut().size());
+		Thread.sleep(1000);
+		Assert.assertEquals(1, paymentService.getVoids());
+	}
+
+	@Test
+	public void shouldNotCaptureTransactionsTwice()
+	{
+		final PaymentTransactionModel transaction = transaction("txn1");
+		final PaymentCaptureResult first = orchestrator.capture(Collections.singletonList(transaction));
+		transaction.setEntries(first.getCaptured());
+
+		final PaymentCaptureResult second = orchestrator.capture(Collections.singletonList(transaction));
+
+		Assert.assertTrue(second.isSuccessful());
+		Assert.assertEquals(1, paymentService.getCaptures());
+	}
+
+	@Test
+	public void shouldCaptureAgainWhenCaptureHasBeenVoided()
+	{
+		final PaymentTransactionModel transaction = transaction("txn1");
+		transaction.setEntries(
+				Arrays.asList(entry(PaymentTransactionType.CAPTURE), entry(PaymentTransactionType.CANCEL)));
+
+		final PaymentCaptureResult result = orchestrator.capture(Collections.singletonList(transaction));
+
+		Assert.assertTrue(result.isSuccessful());
+		Assert.assertEquals(1, paymentService.getCaptures());
+	}
+
+	@Test
+	public void shouldNotSendCaptureClaimedOnOtherNode()
+	{
+		final PaymentTransactionModel transaction = persistedTransaction("txn1", 1L);
+		given(transaction.getCaptureRequestKey()).willReturn("1_CAPTURE_other");
+		given(transaction.getCaptureRequestTime()).willReturn(new Date());
+
+		final PaymentCaptureResult result = orchestrator.capture(Collections.singletonList(transaction));
+
+		Assert.assertEquals(1, result.getFailed().size());
+		Assert.assertEquals(0, paymentService.getCaptures());
+		verify(transaction, never()).setCaptureRequestKey(startsWith("1_CAPTURE_"));
+	}
+
+	@Test
+	public void shouldSendCaptureWhenClaimHasExpired()
+	{
+		final PaymentTransactionModel transaction = persistedTransaction("txn1", 1L);
+		given(transaction.getCaptureRequestKey()).willReturn("1_CAPTURE_other");
+		given(transaction.getCaptureRequestTime()).willReturn(new Date(System.currentTimeMillis() - 5000));
+
+		final PaymentCaptureResult result = orchestrator.capture(Collections.singletonList(transaction));
+
+		Assert.assertTrue(result.isSuccessful());
+		Assert.assertEquals(1, paymentService.getCaptures());
+		verify(transaction).setCaptureRequestKey(startsWith("1_CAPTURE_"));
+	}
+
+	@Test
+	public void shouldSendNewCaptureWhenRetriedAfterTimeout() throws InterruptedException
+	{
+		paymentService.setLatencyMillis(500);
+		orchestrator.setCaptureTimeoutMillis(100);
+		final PaymentTransactionModel transaction = persistedTransaction("txn1", 1L);
+
+		final PaymentCaptureResult first = orchestrator.capture(Collections.singletonList(transaction));
+		Assert.assertEquals(1, first.getTimedOut().size());
+
+		// the timed out capture is going to be voided, the retry must not join it
+		orchestrator.setCaptureTimeoutMillis(2000);
+		final PaymentCaptureResult retry = orchestrator.capture(Collections.singletonList(transaction));
+
+		Assert.assertTrue(retry.isSuccessful());
+		Assert.assertEquals(2, paymentService.getCaptures());
+		Thread.sleep(500);
+		Assert.assertEquals(1, paymentService.getVoids());
+		verify(transaction, times(2)).setCaptureRequestKey(startsWith("1_CAPTURE_"));
+	}
+
+	@Test
+	public void shouldJoinRunningCapture() throws Exception
+	{
+		final PaymentTransactionModel transaction = persistedTransaction("txn1", 1L);
+
+		final ExecutorService caller = Executors.newSingleThreadExecutor();
+		try
+		{
+			final Future<PaymentCaptureResult> first = caller
+					.submit(() -> orchestrator.capture(Collections.singletonList(transaction)));
+			Thread.sleep(100);
+			final PaymentCaptureResult second = orchestrator.capture(Collections.singletonList(transaction));
+
+			Assert.assertTrue(first.get(5, TimeUnit.SECONDS).isSuccessful());
+			Assert.assertTrue(second.isSuccessful());
+			Assert.assertEquals(1, paymentService.getCaptures());
+		}
+		finally
+		{
+			caller.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldNotVoidCaptureStillJoinedAfterTimeout() throws Exception
+	{
+		orchestrator.setCaptureTimeoutMillis(100);
+		final PaymentTransactionModel transaction = persistedTransaction("txn1", 1L);
+
+		final ExecutorService caller = Executors.newSingleThreadExecutor();
+		try
+		{
+			final Future<PaymentCaptureResult> first = caller
+					.submit(() -> orchestrator.capture(Collections.singletonList(transaction)));
+			Thread.sleep(20);
+			// joins before the first caller times out and keeps waiting for the capture
+			orchestrator.setCaptureTimeoutMillis(2000);
+			final PaymentCaptureResult second = orchestrator.capture(Collections.singletonList(transaction));
+
+			Assert.assertEquals(1, first.get(5, TimeUnit.SECONDS).getTimedOut().size());
+			Assert.assertTrue(second.isSuccessful());
+			Assert.assertEquals(1, paymentService.getCaptures());
+			Thread.sleep(300);
+			Assert.assertEquals(0, paymentService.getVoids());
+		}
+		finally
+		{
+			caller.shutdownNow();
+		}
+	}
+
+	private PaymentTransactionModel persistedTransaction(final String code, final long pk)
+	{
+		final PaymentTransactionModel transaction = mock(PaymentTransactionModel.class);
+		given(transaction.getCode()).willReturn(code);
+		given(transaction.getPk()).willReturn(PK.fromLong(pk));
+		given(modelService.get(PK.fromLong(pk))).willReturn(transaction);
+		return transaction;
+	}
+
+	private PaymentTransactionEntryModel entry(final PaymentTransactionType type)
+	{
+		final PaymentTransactionEntryModel entry = new PaymentTransactionEntryModel();
+		entry.setType(type);
+		entry.setTransactionStatus(TransactionStatus.ACCEPTED.name());
+		return entry;
+	}
+
+	private PaymentTransactionModel transaction(final String code)
+	{
+		final PaymentTransactionModel transaction = new PaymentTransactionModel();
+		transaction.setCode(code);
+		return transaction;
+	}
+}
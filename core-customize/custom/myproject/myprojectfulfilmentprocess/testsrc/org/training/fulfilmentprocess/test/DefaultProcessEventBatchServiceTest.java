@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.IntegrationTest;
+import de.hybris.platform.processengine.BusinessProcessService;
+import de.hybris.platform.processengine.model.BusinessProcessModel;
+import de.hybris.platform.servicelayer.ServicelayerTransactionalTest;
+import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.fulfilmentprocess.impl.DefaultProcessEventBatchService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+
+@IntegrationTest
+public class DefaultProcessEventBatchServiceTest extends ServicelayerTransactionalTest
+{
+	@Mock
+	private ModelService modelService;
+	@Mock
+	private BusinessProcessService businessProcessService;
+
+	private final List<Integer> savedChunkSizes = new ArrayList<>();
+	private DefaultProcessEventBatchService processEventBatchService;
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+		processEventBatchService = new DefaultProcessEventBatchService();
+		processEventBatchService.setModelService(modelService);
+		processEventBatchService.setBusinessProcessService(businessProcessService);
+		processEventBatchService.setChunkSize(2);
+
+		doAnswer(new Answer<Object>()
+		{
+			@Override
+			public Object answer(final InvocationOnMock invocation)
+			{
+				savedChunkSizes.add(Integer.valueOf(((Collection<?>) invocation.getArguments()[0]).size()));
+				return null;
+			}
+		}).when(modelService).saveAll(any(Collection.class));
+	}
+
+	@Test
+	public void shouldTriggerAllEventsInChunks()
+	{
+		processEventBatchService.triggerEvents(Arrays.asList("e1", "e2", "e3", "e4", "e5"));
+
+		verify(businessProcessService, times(5)).triggerEvent(anyString());
+		verify(businessProcessService).triggerEvent("e5");
+		verify(modelService, never()).saveAll(any(Collection.class));
+	}
+
+	@Test
+	public void shouldSaveProcessesOfEachChunk()
+	{
+		final Map<BusinessProcessModel, String> processEvents = new LinkedHashMap<>();
+		for (int i = 0; i < 3; i++)
+		{
+			processEvents.put(new BusinessProcessModel(), "process" + i + "_event");
+		}
+
+		processEventBatchService.saveAndTriggerEvents(processEvents);
+
+		Assert.assertEquals(Arrays.asList(Integer.valueOf(2), Integer.valueOf(1)), savedChunkSizes);
+		verify(businessProcessService).triggerEvent("process0_event");
+		verify(businessProcessService).triggerEvent("process2_event");
+	}
+
+	@Test
+	public void shouldStopAtFailingChunkAndPropagateFailure()
+	{
+		final IllegalStateException failure = new IllegalStateException("event failed");
+		doThrow(failure).when(businessProcessService).triggerEvent("e3");
+
+		try
+		{
+			processEventBatchService.triggerEvents(Arrays.asList("e1", "e2", "e3", "e4", "e5"));
+			Assert.fail("Expected the failure of the second chunk");
+		}
+		catch (final IllegalStateException e)
+		{
+			Assert.assertSame(failure, e);
+		}
+		verify(businessProcessService).triggerEvent("e2");
+		verify(businessProcessService, never()).triggerEvent("e4");
+		verify(businessProcessService, never()).triggerEvent("e5");
+	}
+}
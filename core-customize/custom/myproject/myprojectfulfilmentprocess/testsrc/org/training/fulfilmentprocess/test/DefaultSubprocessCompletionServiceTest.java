@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import de.hybris.bootstrap.annotations.IntegrationTest;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
+import de.hybris.platform.servicelayer.ServicelayerTest;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.util.Config;
+import org.training.fulfilmentprocess.SubprocessCompletionService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Runs {@link SubprocessCompletionService#markCompleted(ConsignmentProcessModel)} from several sessions at once, with
+ * optimistic locking enabled, like subprocesses ending at the same time on different nodes.
+ */
+@IntegrationTest
+public class DefaultSubprocessCompletionServiceTest extends ServicelayerTest
+{
+	private static final String OPTIMISTIC_LOCKING = "hjmp.throw.concurrent.modification.exceptions";
+
+	@Resource
+	private ModelService modelService;
+	@Resource
+	private SessionService sessionService;
+	@Resource
+	private SubprocessCompletionService subprocessCompletionService;
+
+	private final List<Object> created = new ArrayList<>();
+	private String optimisticLocking;
+	private OrderProcessModel parent;
+
+	@Before
+	public void setUp()
+	{
+		optimisticLocking = Config.getParameter(OPTIMISTIC_LOCKING);
+		Config.setParameter(OPTIMISTIC_LOCKING, "true");
+
+		parent = new OrderProcessModel();
+		parent.setCode("order-" + UUID.randomUUID());
+		parent.setProcessDefinitionName("order-process");
+		modelService.save(parent);
+		created.add(parent);
+	}
+
+	@After
+	public void tearDown()
+	{
+		Config.setParameter(OPTIMISTIC_LOCKING, optimisticLocking == null ? "false" : optimisticLocking);
+		modelService.removeAll(created);
+	}
+
+	@Test
+	public void shouldCountOnTopOfConcurrentUpdate() throws Exception
+	{
+		final ConsignmentProcessModel first = createSubprocess();
+		final ConsignmentProcessModel second = createSubprocess();
+		Assert.assertEquals(0, parent.getCompletedSubprocessCount());
+
+		// another node completes the first subprocess while this session still holds the parent with a count of 0
+		final PK firstPk = first.getPk();
+		final List<Integer> otherCounts = runInOtherSessions(1, () -> Integer.valueOf(
+				subprocessCompletionService.markCompleted(modelService.<ConsignmentProcessModel> get(firstPk))));
+		Assert.assertEquals(Integer.valueOf(1), otherCounts.get(0));
+
+		Assert.assertEquals(2, subprocessCompletionService.markCompleted(second));
+		modelService.refresh(parent);
+		Assert.assertEquals(2, parent.getCompletedSubprocessCount());
+	}
+
+	@Test
+	public void shouldNotLoseUpdatesOfSubprocessesEndingAtOnce() throws Exception
+	{
+		final int subprocesses = 6;
+		final List<PK> pks = new ArrayList<>();
+		for (int i = 0; i < subprocesses; i++)
+		{
+			pks.add(createSubprocess().getPk());
+		}
+		// the first subprocess ends twice, e.g. a retried task, and must be counted once
+		pks.add(pks.get(0));
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<PK> remaining = new ArrayList<>(pks);
+		final List<Integer> counts = runInOtherSessions(pks.size(), () -> {
+			final PK pk;
+			synchronized (remaining)
+			{
+				pk = remaining.remove(0);
+			}
+			start.await();
+			final ConsignmentProcessModel subprocess = modelService.get(pk);
+			return Integer.valueOf(subprocessCompletionService.markCompleted(subprocess));
+		}, start);
+
+		modelService.refresh(parent);
+		Assert.assertEquals(subprocesses, parent.getCompletedSubprocessCount());
+		for (final Integer count : counts)
+		{
+			Assert.assertTrue(count.intValue() >= 1 && count.intValue() <= subprocesses);
+		}
+	}
+
+	private ConsignmentProcessModel createSubprocess()
+	{
+		final ConsignmentProcessModel subprocess = new ConsignmentProcessModel();
+		subprocess.setCode("consignment-" + UUID.randomUUID());
+		subprocess.setProcessDefinitionName("consignment-process");
+		subprocess.setParentProcess(parent);
+		modelService.save(subprocess);
+		created.add(0, subprocess);
+		return subprocess;
+	}
+
+	private List<Integer> runInOtherSessions(final int threads, final Callable<Integer> task) throws Exception
+	{
+		return runInOtherSessions(threads, task, null);
+	}
+
+	/**
+	 * Runs the task on the given number of threads, each with its own session, and releases the latch once all of them
+	 * are submitted.
+	 */
+	private List<Integer> runInOtherSessions(final int threads, final Callable<Integer> task,
+			final CountDownLatch start) throws Exception
+	{
+		final Tenant tenant = Registry.getCurrentTenant();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			final List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < threads; i++)
+			{
+				futures.add(executor.submit(() -> {
+					Registry.setCurrentTenant(tenant);
+					try
+					{
+						final Session session = sessionService.createNewSession();
+						try
+						{
+							return task.call();
+						}
+						finally
+						{
+							sessionService.closeSession(session);
+						}
+					}
+					finally
+					{
+						Registry.unsetCurrentTenant();
+					}
+				}));
+			}
+			if (start != null)
+			{
+				start.countDown();
+			}
+			final List<Integer> results = new ArrayList<>();
+			for (final Future<Integer> future : futures)
+			{
+				results.add(future.get(30, TimeUnit.SECONDS));
+			}
+			return results;
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.fulfilmentprocess.actions.order.FusedOrderAction;
+import org.training.fulfilmentprocess.actions.order.FusibleOrderAction;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class FusedOrderActionTest
+{
+	@Mock
+	private ModelService modelService;
+	@Mock
+	private FusibleOrderAction checkOrder;
+	@Mock
+	private FusibleOrderAction checkReview;
+
+	private final FusedOrderAction action = new FusedOrderAction();
+	private final OrderProcessModel process = new OrderProcessModel();
+	private final OrderModel order = new OrderModel();
+
+	@Before
+	public void setUp() throws Exception
+	{
+		final Map<String, FusibleOrderAction> actions = new LinkedHashMap<>();
+		actions.put("checkOrder", checkOrder);
+		actions.put("checkTransactionReviewStatus", checkReview);
+		action.setActions(actions);
+		action.setModelService(modelService);
+		process.setOrder(order);
+
+		given(checkOrder.getTransitions()).willReturn(new HashSet<>(Arrays.asList("OK", "NOK")));
+		given(checkReview.getTransitions()).willReturn(new HashSet<>(Arrays.asList("OK", "NOK", "WAIT")));
+	}
+
+	@Test
+	public void shouldRunAllStepsAndSaveOrderOnce() throws Exception
+	{
+		given(checkOrder.executeWithoutSave(process)).willReturn("OK");
+		given(checkReview.executeWithoutSave(process)).willReturn("OK");
+
+		Assert.assertEquals("OK", action.execute(process));
+		verify(checkReview).executeWithoutSave(process);
+		verify(modelService, times(1)).save(order);
+	}
+
+	@Test
+	public void shouldStopAtFirstNonOkTransition() throws Exception
+	{
+		given(checkOrder.executeWithoutSave(process)).willReturn("NOK");
+
+		Assert.assertEquals("checkOrder_NOK", action.execute(process));
+		verify(checkReview, never()).executeWithoutSave(process);
+		verify(modelService, times(1)).save(order);
+	}
+
+	@Test
+	public void shouldPrefixTransitionsWithStepId()
+	{
+		Assert.assertEquals(new HashSet<>(Arrays.asList("OK", "checkOrder_NOK", "checkTransactionReviewStatus_NOK",
+				"checkTransactionReviewStatus_WAIT")), action.getTransitions());
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import de.hybris.bootstrap.annotations.PerformanceTest;
+import de.hybris.platform.basecommerce.enums.ReturnStatus;
+import de.hybris.platform.returns.model.ReturnEntryModel;
+import de.hybris.platform.returns.model.ReturnProcessModel;
+import de.hybris.platform.returns.model.ReturnRequestModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.fulfilmentprocess.actions.returns.CaptureRefundAction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Counts the persistence round trips of a return action with the unit of work: every
+ * {@link ModelService#save(Object)} opens its own transaction and flushes one model, whereas
+ * {@link ModelService#saveAll(Collection)} writes all changed models in one transaction with batched statements.
+ */
+@PerformanceTest
+public class ModelUnitOfWorkBenchmarkTest
+{
+	private static final Logger LOG = Logger.getLogger(ModelUnitOfWorkBenchmarkTest.class);
+
+	private static final int[] ENTRY_COUNTS = { 1, 10, 100 };
+
+	private final ModelService modelService = mock(ModelService.class);
+	private final AtomicInteger roundTrips = new AtomicInteger();
+	private final AtomicInteger savedModels = new AtomicInteger();
+
+	@Before
+	public void setUp()
+	{
+		doAnswer(invocation -> {
+			roundTrips.incrementAndGet();
+			savedModels.incrementAndGet();
+			return null;
+		}).when(modelService).save(any());
+		doAnswer(invocation -> {
+			roundTrips.incrementAndGet();
+			savedModels.addAndGet(((Collection<?>) invocation.getArguments()[0]).size());
+			return null;
+		}).when(modelService).saveAll(any(Collection.class));
+	}
+
+	@Test
+	public void shouldSaveReturnInOneRoundTrip()
+	{
+		final CaptureRefundAction action = new CaptureRefundAction();
+		action.setModelService(modelService);
+
+		for (final int entries : ENTRY_COUNTS)
+		{
+			roundTrips.set(0);
+			savedModels.set(0);
+			final ReturnProcessModel process = createReturnProcess(entries);
+
+			action.executeAction(process);
+
+			LOG.info(String.format("Return with %d entries: %d models saved in %d round trips (%d before coalescing)",
+					Integer.valueOf(entries), Integer.valueOf(savedModels.get()), Integer.valueOf(roundTrips.get()),
+					Integer.valueOf(entries + 1)));
+			Assert.assertEquals(1, roundTrips.get());
+			Assert.assertEquals(entries + 1, savedModels.get());
+			Assert.assertEquals(ReturnStatus.PAYMENT_REVERSED, process.getReturnRequest().getReturnEntries().get(0).getStatus());
+		}
+	}
+
+	private ReturnProcessModel createReturnProcess(final int entries)
+	{
+		final List<ReturnEntryModel> returnEntries = new ArrayList<>();
+		for (int i = 0; i < entries; i++)
+		{
+			returnEntries.add(new ReturnEntryModel());
+		}
+		final ReturnRequestModel returnRequest = new ReturnRequestModel();
+		returnRequest.setReturnEntries(returnEntries);
+		final ReturnProcessModel process = new ReturnProcessModel();
+		process.setCode("return-" + entries);
+		process.setReturnRequest(returnRequest);
+		return process;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.payment.enums.PaymentTransactionType;
+import de.hybris.platform.payment.model.PaymentTransactionEntryModel;
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+import de.hybris.platform.servicelayer.interceptor.InterceptorContext;
+import de.hybris.platform.servicelayer.interceptor.PersistenceOperation;
+import org.training.fulfilmentprocess.interceptors.PaymentTransactionDecisionPrepareInterceptor;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+@UnitTest
+public class PaymentTransactionDecisionPrepareInterceptorTest
+{
+	private final PaymentTransactionDecisionPrepareInterceptor interceptor = new PaymentTransactionDecisionPrepareInterceptor();
+	private InterceptorContext ctx;
+	private PaymentTransactionModel transaction;
+
+	@Before
+	public void setUp()
+	{
+		ctx = mock(InterceptorContext.class);
+		transaction = new PaymentTransactionModel();
+	}
+
+	@Test
+	public void shouldPointToNewDecisionEntry()
+	{
+		final PaymentTransactionEntryModel entry = createEntry(PaymentTransactionType.REVIEW_DECISION, true);
+
+		interceptor.onPrepare(entry, ctx);
+
+		Assert.assertSame(entry, transaction.getLatestDecisionEntry());
+		verify(ctx).registerElementFor(transaction, PersistenceOperation.SAVE);
+	}
+
+	@Test
+	public void shouldIgnoreOtherAndModifiedEntries()
+	{
+		interceptor.onPrepare(createEntry(PaymentTransactionType.CAPTURE, true), ctx);
+		interceptor.onPrepare(createEntry(PaymentTransactionType.AUTHORIZATION, false), ctx);
+
+		Assert.assertNull(transaction.getLatestDecisionEntry());
+	}
+
+	private PaymentTransactionEntryModel createEntry(final PaymentTransactionType type, final boolean isNew)
+	{
+		final PaymentTransactionEntryModel entry = new PaymentTransactionEntryModel();
+		entry.setType(type);
+		entry.setPaymentTransaction(transaction);
+		given(Boolean.valueOf(ctx.isNew(entry))).willReturn(Boolean.valueOf(isNew));
+		return entry;
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.Mockito.mock;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+import de.hybris.platform.processengine.action.AbstractSimpleDecisionAction;
+import de.hybris.platform.processengine.spring.Action;
+import de.hybris.platform.task.RetryLaterException;
+import org.training.fulfilmentprocess.metrics.ActionTimingSnapshot;
+import org.training.fulfilmentprocess.metrics.ProcessActionMetrics;
+import org.training.fulfilmentprocess.metrics.ProcessActionTimingBeanPostProcessor;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+@UnitTest
+public class ProcessActionTimingBeanPostProcessorTest
+{
+	private ProcessActionMetrics processActionMetrics;
+	private ProcessActionTimingBeanPostProcessor postProcessor;
+
+	@Before
+	public void setUp()
+	{
+		processActionMetrics = new ProcessActionMetrics();
+		postProcessor = new ProcessActionTimingBeanPostProcessor();
+		postProcessor.setProcessActionMetrics(processActionMetrics);
+		postProcessor.setActionPackage("org.training.fulfilmentprocess.test");
+	}
+
+	@Test
+	public void shouldRecordTransitionsRetriesAndExceptions() throws Exception
+	{
+		final AbstractSimpleDecisionAction<OrderProcessModel> target = new AbstractSimpleDecisionAction<OrderProcessModel>()
+		{
+			private int calls;
+
+			@Override
+			public Transition executeAction(final OrderProcessModel process) throws RetryLaterException
+			{
+				switch (calls++)
+				{
+					case 0:
+						return Transition.OK;
+					case 1:
+						throw new RetryLaterException("later");
+					default:
+						throw new IllegalStateException("failed");
+				}
+			}
+		};
+		@SuppressWarnings("unchecked")
+		final Action<OrderProcessModel> action = (Action<OrderProcessModel>) postProcessor.postProcessAfterInitialization(target,
+				"checkOrder");
+
+		Assert.assertNotSame(target, action);
+		Assert.assertEquals("OK", action.execute(new OrderProcessModel()));
+		try
+		{
+			action.execute(new OrderProcessModel());
+			Assert.fail("RetryLaterException expected");
+		}
+		catch (final RetryLaterException e)
+		{
+			// expected
+		}
+		try
+		{
+			action.execute(new OrderProcessModel());
+			Assert.fail("IllegalStateException expected");
+		}
+		catch (final IllegalStateException e)
+		{
+			// expected
+		}
+
+		Assert.assertEquals(1, processActionMetrics.getActionTimings().size());
+		final ActionTimingSnapshot snapshot = processActionMetrics.getActionTimings().get(0);
+		Assert.assertEquals("checkOrder", snapshot.getActionId());
+		Assert.assertEquals(3, snapshot.getCount());
+		Assert.assertEquals(1, snapshot.getRetries());
+		Assert.assertEquals(1, snapshot.getExceptions());
+		Assert.assertEquals(Collections.singletonMap("OK", Long.valueOf(1)), snapshot.getTransitions());
+	}
+
+	@Test
+	public void shouldKeepRecordingIntoHistogramOfProxyAfterReset() throws Exception
+	{
+		final AbstractSimpleDecisionAction<OrderProcessModel> target = new AbstractSimpleDecisionAction<OrderProcessModel>()
+		{
+			@Override
+			public Transition executeAction(final OrderProcessModel process)
+			{
+				return Transition.NOK;
+			}
+		};
+		@SuppressWarnings("unchecked")
+		final Action<OrderProcessModel> action = (Action<OrderProcessModel>) postProcessor.postProcessAfterInitialization(target,
+				"checkOrder");
+		action.execute(new OrderProcessModel());
+		action.execute(new OrderProcessModel());
+
+		processActionMetrics.reset();
+		Assert.assertTrue(processActionMetrics.getActionTimings().isEmpty());
+		action.execute(new OrderProcessModel());
+
+		Assert.assertEquals(1, processActionMetrics.getActionTimings().size());
+		final ActionTimingSnapshot snapshot = processActionMetrics.getActionTimings().get(0);
+		Assert.assertEquals(1, snapshot.getCount());
+		Assert.assertEquals(Collections.singletonMap("NOK", Long.valueOf(1)), snapshot.getTransitions());
+	}
+
+	@Test
+	public void shouldOnlyWrapActionsInActionPackage()
+	{
+		final Object bean = new Object();
+		Assert.assertSame(bean, postProcessor.postProcessAfterInitialization(bean, "other"));
+		final Action<?> action = mock(Action.class);
+		Assert.assertSame(action, postProcessor.postProcessAfterInitialization(action, "otherAction"));
+	}
+
+	@Test
+	public void shouldReportBucketUpperBoundsAsPercentiles()
+	{
+		for (int i = 0; i < 99; i++)
+		{
+			processActionMetrics.getHistogram("fast").recordTransition(500_000L, "OK");
+		}
+		processActionMetrics.getHistogram("fast").recordTransition(150_000_000L, "NOK");
+
+		final ActionTimingSnapshot snapshot = processActionMetrics.getActionTimings().get(0);
+		Assert.assertEquals(1, snapshot.getP50Millis());
+		Assert.assertEquals(1, snapshot.getP95Millis());
+		Assert.assertEquals(1, snapshot.getP99Millis());
+		Assert.assertEquals(150D, snapshot.getMaxMillis(), 0.001D);
+
+		processActionMetrics.reset();
+		Assert.assertTrue(processActionMetrics.getActionTimings().isEmpty());
+	}
+}
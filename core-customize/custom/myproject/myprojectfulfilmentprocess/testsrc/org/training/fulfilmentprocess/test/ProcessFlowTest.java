@@ -117,6 +117,7 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 	@Before
 	public void setupActions()
 	{
+		setResultForAction("test.checkOrderAction", "OK");
 		setResultForAction("test.checkAuthorizeOrderPaymentAction", "OK");
 		setThrowExceptionForAction("test.reserveOrderAmountAction", false);
 		setResultForAction("test.reserveOrderAmountAction", "OK");
@@ -182,7 +183,7 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 		{
 			final BusinessProcessModel process = createProcess("order-process-test");
 			TestUtils.disableFileAnalyzer(400);
-			assertStep(process, "checkOrder");
+			assertStep(process, "checkAndReserveOrder");
 
 		}
 		finally
@@ -199,10 +200,7 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
-		assertStep(process, "reserveAmount");
-		assertStep(process, "checkTransactionReviewStatus");
+		assertStep(process, "checkAndReserveOrder");
 		assertStep(process, "fraudCheck");
 		assertStep(process, "sendOrderPlacedNotification");
 		assertStep(process, "takePayment");
@@ -216,12 +214,10 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
 		TestUtils.disableFileAnalyzer(400);
 		try
 		{
-			assertStep(process, "reserveAmount");
+			assertStep(process, "checkAndReserveOrder");
 		}
 		finally
 		{
@@ -240,12 +236,10 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
 		TestUtils.disableFileAnalyzer(400);
 		try
 		{
-			assertStep(process, "reserveAmount");
+			assertStep(process, "checkAndReserveOrder");
 		}
 		finally
 		{
@@ -269,10 +263,7 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
-		assertStep(process, "reserveAmount");
-		assertStep(process, "checkTransactionReviewStatus");
+		assertStep(process, "checkAndReserveOrder");
 		assertStep(process, "fraudCheck");
 		assertStep(process, "notifyCustomer");
 		assertStep(process, "waitForCleanUp");
@@ -301,10 +292,7 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 		setResultForAction("test.scheduleForCleanUpAction", "OK");
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
-		assertStep(process, "reserveAmount");
-		assertStep(process, "checkTransactionReviewStatus");
+		assertStep(process, "checkAndReserveOrder");
 		assertStep(process, "fraudCheck");
 		assertStep(process, "notifyCustomer");
 		assertStep(process, "waitForCleanUp");
@@ -319,10 +307,7 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 		setResultForAction("test.scheduleForCleanUpAction", "NOK");
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
-		assertStep(process, "reserveAmount");
-		assertStep(process, "checkTransactionReviewStatus");
+		assertStep(process, "checkAndReserveOrder");
 		assertStep(process, "fraudCheck");
 		assertStep(process, "notifyCustomer");
 		assertStep(process, "waitForCleanUp");
@@ -337,10 +322,7 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 		setResultForAction("test.fraudCheckOrderInternalAction", "POTENTIAL");
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
-		assertStep(process, "reserveAmount");
-		assertStep(process, "checkTransactionReviewStatus");
+		assertStep(process, "checkAndReserveOrder");
 		assertStep(process, "fraudCheck");
 		assertStep(process, "manualOrderCheckCSA");
 		assertStep(process, "waitForManualOrderCheckCSA");
@@ -355,9 +337,7 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
-		assertStep(process, "reserveAmount");
+		assertStep(process, "checkAndReserveOrder");
 		assertStep(process, "sendPaymentFailedNotification");
 	}
 
@@ -368,21 +348,40 @@ public class ProcessFlowTest extends HybrisJUnit4Test
 
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
+		assertStep(process, "checkAndReserveOrder");
 		assertStep(process, "authorizationFailedNotification");
 	}
 
 
+	@Test
+	public void testProcessOrderCheckFailed() throws InterruptedException
+	{
+		setResultForAction("test.checkOrderAction", "NOK");
+
+		final BusinessProcessModel process = createProcess("order-process-test");
+
+		assertStep(process, "checkAndReserveOrder");
+		assertProcessState(process, ProcessState.ERROR);
+	}
+
+	@Test
+	public void testProcessReviewRejected() throws InterruptedException
+	{
+		setResultForAction("test.checkTransactionReviewStatusAction", "NOK");
+
+		final BusinessProcessModel process = createProcess("order-process-test");
+
+		assertStep(process, "checkAndReserveOrder");
+		assertStep(process, "notifyCustomer");
+		assertStep(process, "waitForCleanUp");
+	}
+
 	@Test
 	public void testProcessOk() throws InterruptedException
 	{
 		final BusinessProcessModel process = createProcess("order-process-test");
 
-		assertStep(process, "checkOrder");
-		assertStep(process, "checkAuthorizeOrderPayment");
-		assertStep(process, "reserveAmount");
-		assertStep(process, "checkTransactionReviewStatus");
+		assertStep(process, "checkAndReserveOrder");
 		assertStep(process, "fraudCheck");
 		assertStep(process, "sendOrderPlacedNotification");
 		assertStep(process, "takePayment");
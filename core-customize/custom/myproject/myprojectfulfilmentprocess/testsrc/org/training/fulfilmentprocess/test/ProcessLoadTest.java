@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import de.hybris.bootstrap.annotations.PerformanceTest;
+import de.hybris.platform.basecommerce.enums.RefundReason;
+import de.hybris.platform.basecommerce.enums.ReturnAction;
+import de.hybris.platform.basecommerce.enums.ReturnStatus;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.enums.CreditCardType;
+import de.hybris.platform.core.model.c2l.CountryModel;
+import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
+import de.hybris.platform.core.model.order.CartModel;
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.core.model.order.payment.CreditCardPaymentInfoModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.product.UnitModel;
+import de.hybris.platform.core.model.user.AddressModel;
+import de.hybris.platform.order.InvalidCartException;
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+import de.hybris.platform.payment.commands.factory.CommandFactory;
+import de.hybris.platform.payment.commands.factory.impl.DefaultCommandFactoryRegistryImpl;
+import de.hybris.platform.payment.dto.CardInfo;
+import de.hybris.platform.payment.PaymentService;
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+import de.hybris.platform.processengine.enums.ProcessState;
+import de.hybris.platform.processengine.model.BusinessProcessModel;
+import de.hybris.platform.processengine.model.ProcessTaskLogModel;
+import de.hybris.platform.returns.model.RefundEntryModel;
+import de.hybris.platform.returns.model.ReturnEntryModel;
+import de.hybris.platform.returns.model.ReturnProcessModel;
+import de.hybris.platform.returns.model.ReturnRequestModel;
+import de.hybris.platform.spring.ctx.ScopeTenantIgnoreDocReader;
+import de.hybris.platform.task.TaskService;
+import de.hybris.platform.tx.DefaultAfterSaveListenerRegistry;
+import de.hybris.platform.util.Config;
+import org.training.fulfilmentprocess.actions.order.FraudCheckOrderInternalAction;
+import org.training.fulfilmentprocess.constants.MyprojectFulfilmentProcessConstants;
+import org.training.fulfilmentprocess.fraud.FraudScoringEngine;
+import org.training.fulfilmentprocess.payment.impl.DefaultPaymentCaptureOrchestrator;
+import org.training.fulfilmentprocess.test.beans.StubFraudScoringEngine;
+import org.training.fulfilmentprocess.test.beans.StubPaymentService;
+import org.training.fulfilmentprocess.test.load.ProcessLoadStatistics;
+import org.training.fulfilmentprocess.test.load.WriteCountingAfterSaveListener;
+import org.training.fulfilmentprocess.warehouse.SimulatedProcess2WarehouseAdapter;
+import org.training.fulfilmentprocess.warehouse.WarehouseLatencyDistribution;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.io.ClassPathResource;
+
+
+/**
+ * Load test driving synthetic orders through the order, consignment and return process with stubbed payment provider
+ * and fraud scoring and simulated warehouse. It reports latency percentiles per action (taken from the process task
+ * logs), the end-to-end order throughput and the number of item writes, and fails if a process does not succeed in
+ * time.
+ *
+ * The load is configured with the <code>myprojectfulfilmentprocess.loadtest.*</code> properties.
+ */
+@PerformanceTest
+public class ProcessLoadTest extends AbstractProcessDemoTest
+{
+	private static final Logger LOG = Logger.getLogger(ProcessLoadTest.class);
+
+	private static final String CONFIG_PREFIX = MyprojectFulfilmentProcessConstants.EXTENSIONNAME + ".loadtest.";
+	private static final String RETURN_PROCESS_NAME = "return-process";
+	private static final Set<ProcessState> END_STATES = EnumSet.of(ProcessState.SUCCEEDED, ProcessState.FAILED,
+			ProcessState.ERROR);
+
+	@Resource
+	private TaskService taskService;
+	@Resource
+	private DefaultCommandFactoryRegistryImpl commandFactoryRegistry;
+	@Resource
+	private DefaultPaymentCaptureOrchestrator paymentCaptureOrchestrator;
+	@Resource
+	private SimulatedProcess2WarehouseAdapter simulatedProcess2WarehouseAdapter;
+	@Resource
+	private FraudCheckOrderInternalAction fraudCheckOrderInternalAction;
+	@Resource
+	private DefaultAfterSaveListenerRegistry afterSaveListenerRegistry;
+
+	private final int orderCount = Config.getInt(CONFIG_PREFIX + "orders", 1000);
+	private final int returnPercentage = Config.getInt(CONFIG_PREFIX + "returnPercentage", 10);
+	private final long timeoutSeconds = Config.getLong(CONFIG_PREFIX + "timeoutSeconds", 1800);
+
+	private BeanDefinitionRegistry beanDefinitionRegistry;
+	private final List<String> loadTestBeans = new ArrayList<>();
+	private Collection<CommandFactory> commandFactories;
+	private PaymentService originalPaymentService;
+	private FraudScoringEngine originalFraudScoringEngine;
+	private WarehouseLatencyDistribution latencyDistribution;
+	private long meanLatencyMillis;
+	private long minLatencyMillis;
+	private long maxLatencyMillis;
+	private int maxPendingConsignments;
+	private WriteCountingAfterSaveListener writeCounter;
+	private CountryModel country;
+
+	@Before
+	public void setUpLoad()
+	{
+		final ApplicationContext appCtx = Registry.getApplicationContext();
+		beanDefinitionRegistry = (BeanDefinitionRegistry) ((ConfigurableApplicationContext) appCtx).getBeanFactory();
+		final Set<String> existingBeans = new HashSet<>(Arrays.asList(beanDefinitionRegistry.getBeanDefinitionNames()));
+		final XmlBeanDefinitionReader xmlReader = new XmlBeanDefinitionReader(beanDefinitionRegistry);
+		xmlReader.setDocumentReaderClass(ScopeTenantIgnoreDocReader.class);
+		xmlReader.loadBeanDefinitions(
+				new ClassPathResource("/myprojectfulfilmentprocess/test/myprojectfulfilmentprocess-loadtest-spring.xml"));
+		for (final String bean : beanDefinitionRegistry.getBeanDefinitionNames())
+		{
+			if (!existingBeans.contains(bean))
+			{
+				loadTestBeans.add(bean);
+			}
+		}
+		writeCounter = appCtx.getBean("test.writeCountingAfterSaveListener", WriteCountingAfterSaveListener.class);
+		// the registry collects the listener beans on a context refresh only, so the one added above is registered here
+		afterSaveListenerRegistry.onApplicationEvent(new ContextRefreshedEvent(appCtx));
+		Assert.assertTrue("Write counter not registered",
+				afterSaveListenerRegistry.getListeners().contains(writeCounter));
+
+		// authorizations through the mockup provider, captures and fraud scoring through stubs, fast warehouse
+		commandFactories = new ArrayList<>(appCtx.getBeansOfType(CommandFactory.class).values());
+		commandFactoryRegistry.setCommandFactoryList(Collections.singletonList(appCtx.getBean("mockupCommandFactory",
+				CommandFactory.class)));
+		originalPaymentService = appCtx.getBean("paymentService", PaymentService.class);
+		paymentCaptureOrchestrator.setPaymentService(appCtx.getBean("test.stubPaymentService", StubPaymentService.class));
+		originalFraudScoringEngine = appCtx.getBean("fraudScoringEngine", FraudScoringEngine.class);
+		fraudCheckOrderInternalAction
+				.setFraudScoringEngine(appCtx.getBean("test.stubFraudScoringEngine", StubFraudScoringEngine.class));
+		latencyDistribution = simulatedProcess2WarehouseAdapter.getLatencyDistribution();
+		meanLatencyMillis = simulatedProcess2WarehouseAdapter.getMeanLatencyMillis();
+		minLatencyMillis = simulatedProcess2WarehouseAdapter.getMinLatencyMillis();
+		maxLatencyMillis = simulatedProcess2WarehouseAdapter.getMaxLatencyMillis();
+		maxPendingConsignments = simulatedProcess2WarehouseAdapter.getMaxPendingConsignments();
+		simulatedProcess2WarehouseAdapter.setLatencyDistribution(WarehouseLatencyDistribution.EXPONENTIAL);
+		simulatedProcess2WarehouseAdapter.setMeanLatencyMillis(Config.getLong(CONFIG_PREFIX + "warehouseLatencyMillis", 50));
+		simulatedProcess2WarehouseAdapter.setMinLatencyMillis(1);
+		simulatedProcess2WarehouseAdapter.setMaxLatencyMillis(5000);
+		simulatedProcess2WarehouseAdapter.setMaxPendingConsignments(Integer.MAX_VALUE);
+
+		if (!taskService.getEngine().isRunning())
+		{
+			taskService.getEngine().start();
+		}
+
+		country = modelService.create(CountryModel.class);
+		country.setName("Germany");
+		country.setIsocode("DEU");
+		modelService.save(country);
+	}
+
+	@After
+	public void tearDownLoad()
+	{
+		commandFactoryRegistry.setCommandFactoryList(commandFactories);
+		paymentCaptureOrchestrator.setPaymentService(originalPaymentService);
+		fraudCheckOrderInternalAction.setFraudScoringEngine(originalFraudScoringEngine);
+		simulatedProcess2WarehouseAdapter.setLatencyDistribution(latencyDistribution);
+		simulatedProcess2WarehouseAdapter.setMeanLatencyMillis(meanLatencyMillis);
+		simulatedProcess2WarehouseAdapter.setMinLatencyMillis(minLatencyMillis);
+		simulatedProcess2WarehouseAdapter.setMaxLatencyMillis(maxLatencyMillis);
+		simulatedProcess2WarehouseAdapter.setMaxPendingConsignments(maxPendingConsignments);
+		// also destroys the listener and stub singletons created from them
+		for (final String bean : loadTestBeans)
+		{
+			beanDefinitionRegistry.removeBeanDefinition(bean);
+		}
+		loadTestBeans.clear();
+		// drops the removed write counter from the registry
+		afterSaveListenerRegistry.onApplicationEvent(new ContextRefreshedEvent(Registry.getApplicationContext()));
+	}
+
+	@Test
+	public void shouldProcessOrdersUnderLoad() throws Exception
+	{
+		final List<OrderModel> orders = new ArrayList<>(orderCount);
+		for (int i = 0; i < orderCount; i++)
+		{
+			orders.add(createLoadOrder(i));
+		}
+		LOG.info("Created " + orderCount + " orders");
+
+		writeCounter.reset();
+		final long start = System.currentTimeMillis();
+		final List<OrderProcessModel> orderProcesses = new ArrayList<>(orderCount);
+		for (final OrderModel order : orders)
+		{
+			final OrderProcessModel process = businessProcessService.createProcess("load-" + order.getCode(),
+					MyprojectFulfilmentProcessConstants.ORDER_PROCESS_NAME);
+			process.setOrder(order);
+			modelService.save(process);
+			businessProcessService.startProcess(process);
+			orderProcesses.add(process);
+		}
+
+		final long deadline = start + TimeUnit.SECONDS.toMillis(timeoutSeconds);
+		awaitEnd(orderProcesses, deadline);
+
+		final List<ReturnProcessModel> returnProcesses = startReturns(orderProcesses);
+		awaitEnd(returnProcesses, deadline);
+		final long wallClock = System.currentTimeMillis() - start;
+
+		final ProcessLoadStatistics statistics = collect(orderProcesses, returnProcesses);
+		LOG.info(statistics.report(wallClock, writeCounter));
+
+		Assert.assertEquals("Order processes not completed in time", orderCount,
+				statistics.getCompletedOrders() + statistics.getFailedProcesses());
+		Assert.assertEquals("Failed processes", 0, statistics.getFailedProcesses());
+		Assert.assertTrue("No writes counted", writeCounter.getTotal() > 0);
+		assertSucceeded(orderProcesses);
+		assertSucceeded(returnProcesses);
+	}
+
+	protected OrderModel createLoadOrder(final int index) throws InvalidCartException
+	{
+		final UnitModel pieces = productService.getUnit("pieces");
+		final CartModel cart = cartService.getSessionCart();
+		// orders with 1 to 4 products spread over both test warehouses, so some of them are split
+		for (int entry = 0; entry <= index % 4; entry++)
+		{
+			final ProductModel product = productService.getProduct(String.format("product%02d",
+					Integer.valueOf((index + entry * 3) % 10 + 1)));
+			cartService.addToCart(cart, product, 1, pieces);
+		}
+
+		final AddressModel address = new AddressModel();
+		address.setTown("Town");
+		address.setStreetname("Street");
+		address.setStreetnumber(String.valueOf(index));
+		address.setPostalcode("12333");
+		address.setLastname("load");
+		address.setFirstname("test");
+		address.setEmail("load" + index + "@hybris.de");
+		address.setCountry(country);
+		final CreditCardPaymentInfoModel paymentInfo = new CreditCardPaymentInfoModel();
+		paymentInfo.setCcOwner("load");
+		paymentInfo.setType(CreditCardType.VISA);
+		paymentInfo.setNumber("4111-1111-1111-1111");
+		paymentInfo.setValidToMonth("12");
+		paymentInfo.setValidToYear(String.valueOf(Calendar.getInstance().get(Calendar.YEAR) + 2));
+		final OrderModel order = orderService.placeOrder(cart, address, null, paymentInfo);
+		cartService.removeSessionCart();
+
+		final CardInfo card = new CardInfo();
+		card.setCardType(CreditCardType.VISA);
+		card.setCardNumber("4111-1111-1111-1111");
+		card.setExpirationMonth(Integer.valueOf(12));
+		card.setExpirationYear(Integer.valueOf(Calendar.getInstance().get(Calendar.YEAR) + 2));
+		final PaymentTransactionModel paymentTransaction = paymentService.authorize("load" + index,
+				BigDecimal.valueOf(order.getTotalPrice().doubleValue()), Currency.getInstance("EUR"), address, address, card)
+				.getPaymentTransaction();
+		paymentTransaction.setInfo(paymentInfo);
+		order.setPaymentTransactions(Collections.singletonList(paymentTransaction));
+		modelService.saveAll(paymentTransaction, order);
+		return order;
+	}
+
+	/**
+	 * Starts an in store return, i.e. without waiting for goods, for the configured share of the completed orders.
+	 */
+	protected List<ReturnProcessModel> startReturns(final List<OrderProcessModel> orderProcesses)
+	{
+		final List<ReturnProcessModel> returnProcesses = new ArrayList<>();
+		for (int i = 0; i < orderProcesses.size(); i++)
+		{
+			final OrderProcessModel orderProcess = orderProcesses.get(i);
+			if (i * returnPercentage % 100 >= returnPercentage || !ProcessState.SUCCEEDED.equals(orderProcess.getState()))
+			{
+				continue;
+			}
+			final OrderModel order = orderProcess.getOrder();
+			final ReturnRequestModel returnRequest = modelService.create(ReturnRequestModel.class);
+			returnRequest.setRMA("rma-" + order.getCode());
+			returnRequest.setOrder(order);
+			returnRequest.setStatus(ReturnStatus.APPROVAL_PENDING);
+			final List<ReturnEntryModel> returnEntries = new ArrayList<>();
+			for (final AbstractOrderEntryModel orderEntry : order.getEntries())
+			{
+				final RefundEntryModel refundEntry = modelService.create(RefundEntryModel.class);
+				refundEntry.setOrderEntry(orderEntry);
+				refundEntry.setReturnRequest(returnRequest);
+				refundEntry.setExpectedQuantity(orderEntry.getQuantity());
+				refundEntry.setAction(ReturnAction.IMMEDIATE);
+				refundEntry.setReason(RefundReason.DAMAGEDINTRANSIT);
+				refundEntry.setStatus(ReturnStatus.APPROVAL_PENDING);
+				returnEntries.add(refundEntry);
+			}
+			returnRequest.setReturnEntries(returnEntries);
+			modelService.save(returnRequest);
+			modelService.saveAll(returnEntries);
+
+			final ReturnProcessModel process = businessProcessService.createProcess("load-return-" + order.getCode(),
+					RETURN_PROCESS_NAME);
+			process.setReturnRequest(returnRequest);
+			modelService.save(process);
+			businessProcessService.startProcess(process);
+			returnProcesses.add(process);
+		}
+		return returnProcesses;
+	}
+
+	protected void awaitEnd(final List<? extends BusinessProcessModel> processes, final long deadline)
+			throws InterruptedException
+	{
+		final List<BusinessProcessModel> running = new ArrayList<>(processes);
+		while (!running.isEmpty() && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(1000);
+			running.removeIf(process -> {
+				modelService.refresh(process);
+				return END_STATES.contains(process.getState());
+			});
+			LOG.info(running.size() + " of " + processes.size() + " processes running");
+		}
+	}
+
+	protected void assertSucceeded(final List<? extends BusinessProcessModel> processes)
+	{
+		for (final BusinessProcessModel process : processes)
+		{
+			modelService.refresh(process);
+			Assert.assertEquals("State of process " + process.getCode(), ProcessState.SUCCEEDED, process.getState());
+		}
+	}
+
+	protected ProcessLoadStatistics collect(final List<OrderProcessModel> orderProcesses,
+			final List<ReturnProcessModel> returnProcesses)
+	{
+		final ProcessLoadStatistics statistics = new ProcessLoadStatistics();
+		final List<BusinessProcessModel> processes = new ArrayList<>();
+		for (final OrderProcessModel orderProcess : orderProcesses)
+		{
+			processes.add(orderProcess);
+			processes.addAll(orderProcess.getConsignmentProcesses());
+			if (ProcessState.SUCCEEDED.equals(orderProcess.getState()))
+			{
+				statistics.recordOrder(getEndTime(orderProcess) - orderProcess.getCreationtime().getTime());
+			}
+		}
+		processes.addAll(returnProcesses);
+
+		for (final BusinessProcessModel process : processes)
+		{
+			if (ProcessState.FAILED.equals(process.getState()) || ProcessState.ERROR.equals(process.getState()))
+			{
+				statistics.recordFailedProcess();
+			}
+			for (final ProcessTaskLogModel log : process.getTaskLogs())
+			{
+				if (log.getStartDate() != null && log.getEndDate() != null)
+				{
+					statistics.recordAction(process.getProcessDefinitionName(), log.getActionId(),
+							log.getEndDate().getTime() - log.getStartDate().getTime());
+				}
+			}
+		}
+		return statistics;
+	}
+
+	protected long getEndTime(final BusinessProcessModel process)
+	{
+		long end = 0;
+		for (final ProcessTaskLogModel log : process.getTaskLogs())
+		{
+			if (log.getEndDate() != null)
+			{
+				end = Math.max(end, log.getEndDate().getTime());
+			}
+		}
+		return end;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.ordersplitting.model.ConsignmentModel;
+import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.task.RetryLaterException;
+import de.hybris.platform.warehouse.Warehouse2ProcessAdapter;
+import de.hybris.platform.warehouse.WarehouseConsignmentStatus;
+import org.training.fulfilmentprocess.actions.consignment.SendConsignmentToWarehouseAction;
+import org.training.fulfilmentprocess.warehouse.BatchWarehouse2ProcessAdapter;
+import org.training.fulfilmentprocess.warehouse.SimulatedProcess2WarehouseAdapter;
+import org.training.fulfilmentprocess.warehouse.WarehouseLatencyDistribution;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class SimulatedProcess2WarehouseAdapterTest
+{
+	private static final long LATENCY = 200;
+
+	@Mock
+	private ModelService modelService;
+	@Mock
+	private Warehouse2ProcessAdapter warehouse2ProcessAdapter;
+
+	private SimulatedProcess2WarehouseAdapter adapter;
+
+	@Before
+	public void setUp()
+	{
+		adapter = new SimulatedProcess2WarehouseAdapter()
+		{
+			@Override
+			protected String getCurrentTenantId()
+			{
+				return "junit";
+			}
+
+			@Override
+			protected void executeInTenant(final String tenant, final Runnable task)
+			{
+				task.run();
+			}
+		};
+		adapter.setModelService(modelService);
+		adapter.setWarehouse2ProcessAdapter(warehouse2ProcessAdapter);
+		adapter.setLatencyDistribution(WarehouseLatencyDistribution.FIXED);
+		adapter.setMeanLatencyMillis(LATENCY);
+		adapter.setMinLatencyMillis(LATENCY);
+		adapter.setMaxLatencyMillis(LATENCY);
+		adapter.setMaxPendingConsignments(1);
+		adapter.setBackpressureRetryMillis(50);
+		adapter.afterPropertiesSet();
+	}
+
+	@After
+	public void tearDown()
+	{
+		adapter.destroy();
+	}
+
+	@Test
+	public void shouldRefuseWithoutWaitingWhenFull()
+	{
+		final ConsignmentModel first = createConsignment(1L);
+		final ConsignmentModel second = createConsignment(2L);
+
+		Assert.assertTrue(adapter.offerConsignment(first));
+		final long start = System.currentTimeMillis();
+		Assert.assertFalse(adapter.offerConsignment(second));
+
+		Assert.assertTrue(System.currentTimeMillis() - start < LATENCY);
+		Assert.assertEquals(1, adapter.getPendingConsignments());
+		Assert.assertEquals(1, adapter.getRejectedCount());
+		verify(modelService, never()).save(second);
+	}
+
+	@Test
+	public void shouldAdmitPreparedConsignmentOnceSlotIsFree()
+	{
+		final ConsignmentModel first = createConsignment(1L);
+		final ConsignmentModel second = createConsignment(2L);
+
+		adapter.prepareConsignment(first);
+		adapter.prepareConsignment(second);
+
+		verify(warehouse2ProcessAdapter, timeout(5000)).receiveConsignmentStatus(first, WarehouseConsignmentStatus.COMPLETE);
+		verify(warehouse2ProcessAdapter, timeout(5000)).receiveConsignmentStatus(second, WarehouseConsignmentStatus.COMPLETE);
+		verify(warehouse2ProcessAdapter, never()).receiveConsignmentStatus(any(ConsignmentModel.class),
+				eq(WarehouseConsignmentStatus.CANCEL));
+		Assert.assertEquals(0, adapter.getCancelledCount());
+	}
+
+	@Test
+	public void shouldReportAnswersTogetherToBatchAdapter()
+	{
+		final BatchWarehouse2ProcessAdapter batchAdapter = mock(BatchWarehouse2ProcessAdapter.class);
+		adapter.setWarehouse2ProcessAdapter(batchAdapter);
+		adapter.setMaxPendingConsignments(2);
+		// both answers are due before the first report
+		adapter.destroy();
+		adapter.setReportIntervalMillis(5 * LATENCY);
+		adapter.afterPropertiesSet();
+		final ConsignmentModel first = createConsignment(1L);
+		final ConsignmentModel second = createConsignment(2L);
+
+		adapter.prepareConsignment(first);
+		adapter.prepareConsignment(second);
+
+		final Map<ConsignmentModel, WarehouseConsignmentStatus> statuses = new LinkedHashMap<>();
+		statuses.put(first, WarehouseConsignmentStatus.COMPLETE);
+		statuses.put(second, WarehouseConsignmentStatus.COMPLETE);
+		verify(batchAdapter, timeout(5000)).receiveConsignmentStatuses(statuses);
+		verify(batchAdapter, never()).receiveConsignmentStatus(any(ConsignmentModel.class),
+				any(WarehouseConsignmentStatus.class));
+	}
+
+	@Test
+	public void shouldRetrySendingActionLaterWhenFull() throws Exception
+	{
+		final SendConsignmentToWarehouseAction action = new SendConsignmentToWarehouseAction();
+		action.setModelService(modelService);
+		action.setProcess2WarehouseAdapter(adapter);
+		adapter.offerConsignment(createConsignment(1L));
+		final ConsignmentProcessModel process = mock(ConsignmentProcessModel.class);
+		final ConsignmentModel consignment = createConsignment(2L);
+		given(process.getConsignment()).willReturn(consignment);
+
+		try
+		{
+			action.executeAction(process);
+			Assert.fail("Expected the action to be retried later");
+		}
+		catch (final RetryLaterException e)
+		{
+			Assert.assertEquals(50, e.getDelay());
+		}
+		verify(process, never()).setWaitingForConsignment(true);
+		verify(warehouse2ProcessAdapter, never()).receiveConsignmentStatus(consignment, WarehouseConsignmentStatus.CANCEL);
+	}
+
+	private ConsignmentModel createConsignment(final long pk)
+	{
+		final ConsignmentModel consignment = mock(ConsignmentModel.class);
+		given(consignment.getPk()).willReturn(PK.fromLong(pk));
+		given(consignment.getCode()).willReturn("consignment-" + pk);
+		given(consignment.getConsignmentEntries()).willReturn(Collections.emptySet());
+		given(modelService.get(PK.fromLong(pk))).willReturn(consignment);
+		return consignment;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.commerceservices.stock.CommerceStockService;
+import de.hybris.platform.commerceservices.stock.strategies.CommerceAvailabilityCalculationStrategy;
+import de.hybris.platform.commerceservices.strategies.WarehouseSelectionStrategy;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import de.hybris.platform.ordersplitting.strategy.impl.OrderEntryGroup;
+import de.hybris.platform.store.BaseStoreModel;
+import de.hybris.platform.storelocator.model.PointOfServiceModel;
+import org.training.fulfilmentprocess.dao.BulkStockLevelDao;
+import org.training.fulfilmentprocess.strategy.impl.SplitByAvailableCount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class SplitByAvailableCountTest
+{
+	@Mock
+	private CommerceStockService commerceStockService;
+	@Mock
+	private BulkStockLevelDao bulkStockLevelDao;
+	@Mock
+	private CommerceAvailabilityCalculationStrategy commerceAvailabilityCalculationStrategy;
+	@Mock
+	private WarehouseSelectionStrategy warehouseSelectionStrategy;
+
+	@InjectMocks
+	private SplitByAvailableCount splitByAvailableCount;
+
+	private OrderModel order;
+	private WarehouseModel storeWarehouse;
+	private PointOfServiceModel pointOfService;
+	private final List<StockLevelModel> stockLevels = new ArrayList<>();
+
+	@Before
+	public void setUp()
+	{
+		storeWarehouse = createWarehouse(1L, "store");
+		final WarehouseModel posWarehouse = createWarehouse(2L, "pos");
+
+		final BaseStoreModel store = new BaseStoreModel();
+		order = new OrderModel();
+		order.setStore(store);
+		pointOfService = new PointOfServiceModel();
+		pointOfService.setWarehouses(Collections.singletonList(posWarehouse));
+
+		given(warehouseSelectionStrategy.getWarehousesForBaseStore(store)).willReturn(Collections.singletonList(storeWarehouse));
+		given(bulkStockLevelDao.findStockLevels(any(Collection.class), any(Collection.class))).willReturn(stockLevels);
+		given(commerceAvailabilityCalculationStrategy.calculateAvailability(any(Collection.class))).willAnswer(invocation -> {
+			long available = 0;
+			for (final Object stockLevel : (Collection<?>) invocation.getArguments()[0])
+			{
+				available += ((StockLevelModel) stockLevel).getAvailable();
+			}
+			return Long.valueOf(available);
+		});
+
+		addStockLevel("camera", storeWarehouse, 5);
+		addStockLevel("lens", storeWarehouse, 1);
+		addStockLevel("lens", posWarehouse, 4);
+	}
+
+	@Test
+	public void shouldResolveStockOfAllEntriesWithOneLookup()
+	{
+		final AbstractOrderEntryModel camera = createEntry("camera", 2, null);
+		final AbstractOrderEntryModel shippedLens = createEntry("lens", 3, null);
+		final AbstractOrderEntryModel pickedUpLens = createEntry("lens", 3, pointOfService);
+		final AbstractOrderEntryModel tripod = createEntry("tripod", 1, null);
+		final OrderEntryGroup group = new OrderEntryGroup();
+		group.addAll(Arrays.asList(camera, shippedLens, pickedUpLens, tripod));
+
+		final List<OrderEntryGroup> result = splitByAvailableCount.perform(Collections.singletonList(group));
+
+		Assert.assertEquals(2, result.size());
+		final Set<Set<AbstractOrderEntryModel>> groups = new HashSet<>();
+		for (final OrderEntryGroup resultGroup : result)
+		{
+			groups.add(new HashSet<>(resultGroup));
+		}
+		Assert.assertTrue(groups.contains(new HashSet<>(Arrays.asList(camera, pickedUpLens))));
+		Assert.assertTrue(groups.contains(new HashSet<>(Arrays.asList(shippedLens, tripod))));
+		verify(bulkStockLevelDao, times(1)).findStockLevels(any(Collection.class), any(Collection.class));
+		verify(warehouseSelectionStrategy, times(1)).getWarehousesForBaseStore(order.getStore());
+		verifyZeroInteractions(commerceStockService);
+	}
+
+	private WarehouseModel createWarehouse(final long pk, final String code)
+	{
+		final WarehouseModel warehouse = mock(WarehouseModel.class);
+		given(warehouse.getPk()).willReturn(PK.fromLong(pk));
+		given(warehouse.getCode()).willReturn(code);
+		return warehouse;
+	}
+
+	private AbstractOrderEntryModel createEntry(final String productCode, final long quantity,
+			final PointOfServiceModel deliveryPointOfService)
+	{
+		final ProductModel product = new ProductModel();
+		product.setCode(productCode);
+		final AbstractOrderEntryModel entry = mock(AbstractOrderEntryModel.class);
+		given(entry.getProduct()).willReturn(product);
+		given(entry.getOrder()).willReturn(order);
+		given(entry.getQuantity()).willReturn(Long.valueOf(quantity));
+		given(entry.getDeliveryPointOfService()).willReturn(deliveryPointOfService);
+		return entry;
+	}
+
+	private void addStockLevel(final String productCode, final WarehouseModel warehouse, final int available)
+	{
+		final StockLevelModel stockLevel = new StockLevelModel();
+		stockLevel.setProductCode(productCode);
+		stockLevel.setWarehouse(warehouse);
+		stockLevel.setAvailable(available);
+		stockLevels.add(stockLevel);
+	}
+}
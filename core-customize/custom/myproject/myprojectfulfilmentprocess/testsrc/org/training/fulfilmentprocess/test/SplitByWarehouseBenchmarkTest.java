@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+
+import de.hybris.bootstrap.annotations.PerformanceTest;
+import de.hybris.platform.commerceservices.stock.strategies.CommerceAvailabilityCalculationStrategy;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import de.hybris.platform.ordersplitting.strategy.impl.OrderEntryGroup;
+import de.hybris.platform.store.BaseStoreModel;
+import org.training.fulfilmentprocess.dao.BulkStockLevelDao;
+import org.training.fulfilmentprocess.strategy.impl.DefaultWarehouseCostStrategy;
+import org.training.fulfilmentprocess.strategy.impl.SplitByWarehouse;
+import org.training.fulfilmentprocess.strategy.impl.WarehouseAssignmentSolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Compares the number of consignments and the split time of the greedy warehouse split with the
+ * {@link WarehouseAssignmentSolver} on synthetic orders.
+ */
+@PerformanceTest
+public class SplitByWarehouseBenchmarkTest
+{
+	private static final Logger LOG = Logger.getLogger(SplitByWarehouseBenchmarkTest.class);
+
+	private static final int ORDERS = 200;
+	private static final int ENTRIES_PER_ORDER = 100;
+	private static final int WAREHOUSES = 8;
+	private static final double STOCKED_PROBABILITY = 0.4D;
+
+	private final BulkStockLevelDao bulkStockLevelDao = mock(BulkStockLevelDao.class);
+	private final CommerceAvailabilityCalculationStrategy availabilityStrategy = mock(
+			CommerceAvailabilityCalculationStrategy.class);
+	private final List<OrderEntryGroup> orders = new ArrayList<>();
+
+	@Before
+	public void setUp()
+	{
+		given(availabilityStrategy.calculateAvailability(any(Collection.class))).willAnswer(invocation -> {
+			long available = 0;
+			for (final Object stockLevel : (Collection<?>) invocation.getArguments()[0])
+			{
+				available += ((StockLevelModel) stockLevel).getAvailable();
+			}
+			return Long.valueOf(available);
+		});
+
+		final List<WarehouseModel> warehouses = new ArrayList<>();
+		for (int i = 0; i < WAREHOUSES; i++)
+		{
+			final WarehouseModel warehouse = mock(WarehouseModel.class);
+			given(warehouse.getPk()).willReturn(PK.fromLong(i + 1L));
+			given(warehouse.getCode()).willReturn("warehouse" + i);
+			warehouses.add(warehouse);
+		}
+		final BaseStoreModel store = new BaseStoreModel();
+		store.setWarehouses(warehouses);
+
+		final Random random = new Random(4711L);
+		final List<StockLevelModel> stockLevels = new ArrayList<>();
+		for (int o = 0; o < ORDERS; o++)
+		{
+			final OrderModel order = new OrderModel();
+			order.setStore(store);
+			final OrderEntryGroup group = new OrderEntryGroup();
+			for (int e = 0; e < ENTRIES_PER_ORDER; e++)
+			{
+				final String productCode = "product-" + o + "-" + e;
+				final ProductModel product = new ProductModel();
+				product.setCode(productCode);
+				final AbstractOrderEntryModel entry = mock(AbstractOrderEntryModel.class);
+				given(entry.getProduct()).willReturn(product);
+				given(entry.getOrder()).willReturn(order);
+				given(entry.getQuantity()).willReturn(Long.valueOf(1L + random.nextInt(5)));
+				group.add(entry);
+
+				for (final WarehouseModel warehouse : warehouses)
+				{
+					if (random.nextDouble() < STOCKED_PROBABILITY)
+					{
+						final StockLevelModel stockLevel = new StockLevelModel();
+						stockLevel.setProductCode(productCode);
+						stockLevel.setWarehouse(warehouse);
+						stockLevel.setAvailable(1 + random.nextInt(100));
+						stockLevels.add(stockLevel);
+					}
+				}
+			}
+			orders.add(group);
+		}
+		given(bulkStockLevelDao.findStockLevels(any(Collection.class), any(Collection.class))).willReturn(stockLevels);
+	}
+
+	@Test
+	public void compareGreedySplitWithSolver()
+	{
+		final SplitByWarehouse greedy = createSplitByWarehouse(null);
+
+		final WarehouseAssignmentSolver solver = new WarehouseAssignmentSolver();
+		solver.setWarehouseCostStrategy(new DefaultWarehouseCostStrategy());
+		final SplitByWarehouse optimized = createSplitByWarehouse(solver);
+
+		// warm up
+		run(greedy);
+		run(optimized);
+
+		long start = System.nanoTime();
+		final int greedyConsignments = run(greedy);
+		final long greedyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		start = System.nanoTime();
+		final int solverConsignments = run(optimized);
+		final long solverMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		LOG.info(String.format(
+				"%d orders with %d entries and %d warehouses: greedy %d consignments in %d ms, solver %d consignments in %d ms",
+				Integer.valueOf(ORDERS), Integer.valueOf(ENTRIES_PER_ORDER), Integer.valueOf(WAREHOUSES),
+				Integer.valueOf(greedyConsignments), Long.valueOf(greedyMillis), Integer.valueOf(solverConsignments),
+				Long.valueOf(solverMillis)));
+
+		Assert.assertTrue("solver must not create more consignments than the greedy split",
+				solverConsignments <= greedyConsignments);
+	}
+
+	private int run(final SplitByWarehouse splitByWarehouse)
+	{
+		int consignments = 0;
+		for (final OrderEntryGroup order : orders)
+		{
+			consignments += splitByWarehouse.perform(Collections.singletonList(order)).size();
+		}
+		return consignments;
+	}
+
+	private SplitByWarehouse createSplitByWarehouse(final WarehouseAssignmentSolver solver)
+	{
+		final SplitByWarehouse splitByWarehouse = new SplitByWarehouse();
+		splitByWarehouse.setBulkStockLevelDao(bulkStockLevelDao);
+		splitByWarehouse.setCommerceAvailabilityCalculationStrategy(availabilityStrategy);
+		splitByWarehouse.setWarehouseAssignmentSolver(solver);
+		return splitByWarehouse;
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.commerceservices.stock.strategies.CommerceAvailabilityCalculationStrategy;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import de.hybris.platform.ordersplitting.strategy.impl.OrderEntryGroup;
+import de.hybris.platform.store.BaseStoreModel;
+import org.training.fulfilmentprocess.dao.BulkStockLevelDao;
+import org.training.fulfilmentprocess.strategy.impl.SplitByWarehouse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class SplitByWarehouseTest
+{
+	@Mock
+	private BulkStockLevelDao bulkStockLevelDao;
+	@Mock
+	private CommerceAvailabilityCalculationStrategy commerceAvailabilityCalculationStrategy;
+
+	@InjectMocks
+	private SplitByWarehouse splitByWarehouse;
+
+	private OrderModel order;
+	private WarehouseModel warehouse1;
+	private WarehouseModel warehouse2;
+	private final List<StockLevelModel> stockLevels = new ArrayList<>();
+
+	@Before
+	public void setUp()
+	{
+		warehouse1 = createWarehouse(1L, "w1");
+		warehouse2 = createWarehouse(2L, "w2");
+
+		final BaseStoreModel store = new BaseStoreModel();
+		store.setWarehouses(Arrays.asList(warehouse1, warehouse2));
+		order = new OrderModel();
+		order.setStore(store);
+
+		given(commerceAvailabilityCalculationStrategy.calculateAvailability(any(Collection.class))).willAnswer(invocation -> {
+			long available = 0;
+			for (final Object stockLevel : (Collection<?>) invocation.getArguments()[0])
+			{
+				available += ((StockLevelModel) stockLevel).getAvailable();
+			}
+			return Long.valueOf(available);
+		});
+	}
+
+	@Test
+	public void shouldGroupEntriesByCommonWarehouseWithSingleStockQuery()
+	{
+		addStockLevel("camera", warehouse1, 5);
+		addStockLevel("lens", warehouse1, 2);
+		addStockLevel("lens", warehouse2, 3);
+		addStockLevel("tripod", warehouse2, 0);
+
+		final AbstractOrderEntryModel camera = createEntry("camera");
+		final AbstractOrderEntryModel lens = createEntry("lens");
+		final AbstractOrderEntryModel tripod = createEntry("tripod");
+		final OrderEntryGroup group = new OrderEntryGroup();
+		group.addAll(Arrays.asList(camera, lens, tripod));
+
+		final List<OrderEntryGroup> result = splitByWarehouse.perform(Collections.singletonList(group));
+
+		Assert.assertEquals(2, result.size());
+		Assert.assertEquals(Arrays.asList(camera, lens), new ArrayList<>(result.get(0)));
+		Assert.assertEquals(Collections.singletonList(warehouse1), result.get(0).getParameter("WAREHOUSE_LIST"));
+		Assert.assertEquals(Collections.singletonList(tripod), new ArrayList<>(result.get(1)));
+		verify(bulkStockLevelDao, times(1)).findStockLevels(any(Collection.class), any(Collection.class));
+	}
+
+	@Test
+	public void shouldCreateSeparateGroupWhenNoCommonWarehouse()
+	{
+		addStockLevel("camera", warehouse1, 5);
+		addStockLevel("lens", warehouse2, 3);
+
+		final AbstractOrderEntryModel camera = createEntry("camera");
+		final AbstractOrderEntryModel lens = createEntry("lens");
+		final OrderEntryGroup group = new OrderEntryGroup();
+		group.addAll(Arrays.asList(camera, lens));
+
+		final List<OrderEntryGroup> result = splitByWarehouse.perform(Collections.singletonList(group));
+
+		Assert.assertEquals(2, result.size());
+		Assert.assertEquals(Collections.singletonList(warehouse1), result.get(0).getParameter("WAREHOUSE_LIST"));
+		Assert.assertEquals(Collections.singletonList(warehouse2), result.get(1).getParameter("WAREHOUSE_LIST"));
+		verify(bulkStockLevelDao, times(1)).findStockLevels(any(Collection.class), any(Collection.class));
+	}
+
+	private WarehouseModel createWarehouse(final long pk, final String code)
+	{
+		final WarehouseModel warehouse = mock(WarehouseModel.class);
+		given(warehouse.getPk()).willReturn(PK.fromLong(pk));
+		given(warehouse.getCode()).willReturn(code);
+		return warehouse;
+	}
+
+	private AbstractOrderEntryModel createEntry(final String productCode)
+	{
+		final ProductModel product = new ProductModel();
+		product.setCode(productCode);
+		final AbstractOrderEntryModel entry = mock(AbstractOrderEntryModel.class);
+		given(entry.getProduct()).willReturn(product);
+		given(entry.getOrder()).willReturn(order);
+		return entry;
+	}
+
+	private void addStockLevel(final String productCode, final WarehouseModel warehouse, final int available)
+	{
+		final StockLevelModel stockLevel = new StockLevelModel();
+		stockLevel.setProductCode(productCode);
+		stockLevel.setWarehouse(warehouse);
+		stockLevel.setAvailable(available);
+		stockLevels.add(stockLevel);
+		given(bulkStockLevelDao.findStockLevels(any(Collection.class), any(Collection.class))).willReturn(stockLevels);
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.enums.DeliveryStatus;
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+import de.hybris.platform.ordersplitting.model.ConsignmentProcessModel;
+import de.hybris.platform.processengine.action.AbstractSimpleDecisionAction.Transition;
+import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.fulfilmentprocess.actions.order.SubprocessesCompletedAction;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+@UnitTest
+public class SubprocessesCompletedActionTest
+{
+	@InjectMocks
+	private final SubprocessesCompletedAction action = new SubprocessesCompletedAction();
+
+	@Mock
+	private ModelService modelService;
+
+	private OrderProcessModel process;
+	private OrderModel order;
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+		order = new OrderModel();
+		process = mock(OrderProcessModel.class);
+		given(process.getOrder()).willReturn(order);
+	}
+
+	@Test
+	public void shouldWaitWhileSubprocessesAreIncomplete()
+	{
+		given(Integer.valueOf(process.getExpectedSubprocessCount())).willReturn(Integer.valueOf(3));
+		given(Integer.valueOf(process.getCompletedSubprocessCount())).willReturn(Integer.valueOf(1));
+
+		Assert.assertEquals(Transition.NOK, action.executeAction(process));
+		Assert.assertEquals(DeliveryStatus.PARTSHIPPED, order.getDeliveryStatus());
+		verify(process, never()).getConsignmentProcesses();
+	}
+
+	@Test
+	public void shouldContinueWhenAllSubprocessesCompleted()
+	{
+		given(Integer.valueOf(process.getExpectedSubprocessCount())).willReturn(Integer.valueOf(3));
+		given(Integer.valueOf(process.getCompletedSubprocessCount())).willReturn(Integer.valueOf(3));
+
+		Assert.assertEquals(Transition.OK, action.executeAction(process));
+		Assert.assertEquals(DeliveryStatus.SHIPPED, order.getDeliveryStatus());
+		verify(modelService).save(order);
+	}
+
+	@Test
+	public void shouldScanSubprocessesOfProcessesWithoutCounter()
+	{
+		final ConsignmentProcessModel done = mock(ConsignmentProcessModel.class);
+		given(Boolean.valueOf(done.isDone())).willReturn(Boolean.TRUE);
+		final ConsignmentProcessModel running = mock(ConsignmentProcessModel.class);
+		given(process.getConsignmentProcesses()).willReturn(Arrays.asList(done, running));
+
+		Assert.assertEquals(Transition.NOK, action.executeAction(process));
+		Assert.assertEquals(DeliveryStatus.PARTSHIPPED, order.getDeliveryStatus());
+	}
+}
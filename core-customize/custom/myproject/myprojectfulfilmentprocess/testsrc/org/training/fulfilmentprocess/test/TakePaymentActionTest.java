@@ -21,10 +21,12 @@ import de.hybris.platform.payment.model.PaymentTransactionModel;
 import de.hybris.platform.processengine.action.AbstractSimpleDecisionAction;
 import de.hybris.platform.servicelayer.model.ModelService;
 import org.training.fulfilmentprocess.actions.order.TakePaymentAction;
+import org.training.fulfilmentprocess.payment.impl.DefaultPaymentCaptureOrchestrator;
 
 import java.util.Arrays;
 import java.util.Collections;
 
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -48,6 +50,7 @@ public class TakePaymentActionTest
 
 	private OrderProcessModel businessProcessModel;
 	private OrderModel order;
+	private DefaultPaymentCaptureOrchestrator paymentCaptureOrchestrator;
 
 
 	@Before
@@ -57,6 +60,16 @@ public class TakePaymentActionTest
 		order = new OrderModel();
 		given(businessProcessModel.getOrder()).willReturn(order);
 
+		paymentCaptureOrchestrator = new DefaultPaymentCaptureOrchestrator();
+		paymentCaptureOrchestrator.setPaymentService(paymentService);
+		paymentCaptureOrchestrator.afterPropertiesSet();
+		action.setPaymentCaptureOrchestrator(paymentCaptureOrchestrator);
+	}
+
+	@After
+	public void tearDown()
+	{
+		paymentCaptureOrchestrator.destroy();
 	}
 
 	protected PaymentTransactionModel createPaymentTransactionWithStatus(final TransactionStatus transactionStatus)
@@ -106,5 +119,7 @@ public class TakePaymentActionTest
 				createPaymentTransactionWithStatus(TransactionStatus.REJECTED)));
 		Assert.assertEquals("Execution should return NOK", AbstractSimpleDecisionAction.Transition.NOK,
 				action.executeAction(businessProcessModel));
+		// the accepted capture is voided again
+		verify(paymentService, times(1)).cancel(any(PaymentTransactionEntryModel.class));
 	}
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import org.training.fulfilmentprocess.strategy.WarehouseCostStrategy;
+import org.training.fulfilmentprocess.strategy.impl.WarehouseAssignmentSolver;
+import org.training.fulfilmentprocess.strategy.impl.WarehouseAvailabilityMatrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+@UnitTest
+public class WarehouseAssignmentSolverTest
+{
+	private final WarehouseAssignmentSolver solver = new WarehouseAssignmentSolver();
+	private final WarehouseCostStrategy warehouseCostStrategy = mock(WarehouseCostStrategy.class);
+
+	private List<WarehouseModel> warehouses;
+	private final List<AbstractOrderEntryModel> entries = new ArrayList<>();
+	private final List<BitSet> capabilities = new ArrayList<>();
+
+	@Before
+	public void setUp()
+	{
+		solver.setWarehouseCostStrategy(warehouseCostStrategy);
+		given(Double.valueOf(warehouseCostStrategy.getConsignmentCost(any(WarehouseModel.class)))).willReturn(Double.valueOf(100D));
+		warehouses = Arrays.asList(createWarehouse(1L, "a"), createWarehouse(2L, "b"), createWarehouse(3L, "c"));
+	}
+
+	@Test
+	public void shouldFindMinimumNumberOfConsignments()
+	{
+		// the greedy split takes 'a' for e1 and e2 and then needs 'b' and 'c' for the rest: 3 consignments
+		addEntry("e1", 0, 1);
+		addEntry("e2", 0, 2);
+		addEntry("e3", 1);
+		addEntry("e4", 2);
+
+		final Map<WarehouseModel, List<AbstractOrderEntryModel>> result = solver.assign(entries, capabilities, warehouses,
+				createMatrix());
+
+		Assert.assertEquals(2, result.size());
+		Assert.assertEquals(Arrays.asList(entries.get(0), entries.get(2)), result.get(warehouses.get(1)));
+		Assert.assertEquals(Arrays.asList(entries.get(1), entries.get(3)), result.get(warehouses.get(2)));
+	}
+
+	@Test
+	public void shouldPreferCheaperWarehouseForSameNumberOfConsignments()
+	{
+		addEntry("e1", 0, 1);
+		addEntry("e2", 0, 1);
+		given(Double.valueOf(warehouseCostStrategy.getEntryCost(any(AbstractOrderEntryModel.class), any(WarehouseModel.class),
+				anyLong()))).willAnswer(invocation -> Double.valueOf(invocation.getArguments()[1] == warehouses.get(0) ? 5D : 1D));
+
+		final Map<WarehouseModel, List<AbstractOrderEntryModel>> result = solver.assign(entries, capabilities, warehouses,
+				createMatrix());
+
+		Assert.assertEquals(Collections.singleton(warehouses.get(1)), result.keySet());
+	}
+
+	@Test
+	public void shouldCoverAllEntriesWithGreedyHeuristic()
+	{
+		solver.setExactSearchMaxWarehouses(0);
+		addEntry("e1", 0, 1);
+		addEntry("e2", 0, 2);
+		addEntry("e3", 1);
+		addEntry("e4", 2);
+
+		final Map<WarehouseModel, List<AbstractOrderEntryModel>> result = solver.assign(entries, capabilities, warehouses,
+				createMatrix());
+
+		Assert.assertEquals(4, result.values().stream().mapToInt(List::size).sum());
+	}
+
+	private WarehouseModel createWarehouse(final long pk, final String code)
+	{
+		final WarehouseModel warehouse = mock(WarehouseModel.class);
+		given(warehouse.getPk()).willReturn(PK.fromLong(pk));
+		given(warehouse.getCode()).willReturn(code);
+		return warehouse;
+	}
+
+	private void addEntry(final String productCode, final int... warehouseIndexes)
+	{
+		final ProductModel product = new ProductModel();
+		product.setCode(productCode);
+		final AbstractOrderEntryModel entry = mock(AbstractOrderEntryModel.class);
+		given(entry.getProduct()).willReturn(product);
+		given(entry.getQuantity()).willReturn(Long.valueOf(1L));
+		entries.add(entry);
+
+		final BitSet capability = new BitSet();
+		for (final int warehouseIndex : warehouseIndexes)
+		{
+			capability.set(warehouseIndex);
+		}
+		capabilities.add(capability);
+	}
+
+	private WarehouseAvailabilityMatrix createMatrix()
+	{
+		final List<String> productCodes = new ArrayList<>();
+		entries.forEach(entry -> productCodes.add(entry.getProduct().getCode()));
+		final WarehouseAvailabilityMatrix matrix = new WarehouseAvailabilityMatrix(productCodes, warehouses);
+		matrix.fill(Long.valueOf(10L));
+		return matrix;
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import org.training.fulfilmentprocess.warehouse.WarehouseLatencyDistribution;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+@UnitTest
+public class WarehouseLatencyDistributionTest
+{
+	private static final int SAMPLES = 20000;
+
+	@Test
+	public void shouldStayWithinBounds()
+	{
+		final Random random = new Random(42);
+		for (final WarehouseLatencyDistribution distribution : WarehouseLatencyDistribution.values())
+		{
+			for (int i = 0; i < SAMPLES; i++)
+			{
+				final long latency = distribution.sample(random, 3000, 1500, 500, 6000);
+				Assert.assertTrue(distribution + " returned " + latency, latency >= 500 && latency <= 6000);
+			}
+		}
+	}
+
+	@Test
+	public void shouldMatchConfiguredMean()
+	{
+		final Random random = new Random(42);
+		for (final WarehouseLatencyDistribution distribution : WarehouseLatencyDistribution.values())
+		{
+			long sum = 0;
+			for (int i = 0; i < SAMPLES; i++)
+			{
+				sum += distribution.sample(random, 3000, 500, 0, Long.MAX_VALUE);
+			}
+			Assert.assertEquals(distribution.name(), 3000D, (double) sum / SAMPLES, 100D);
+		}
+	}
+}
@@ -3,10 +3,8 @@
  */
 package org.training.fulfilmentprocess.test.actions;
 
-import de.hybris.platform.orderprocessing.model.OrderProcessModel;
 
-
-public class CheckAuthorizeOrderPayment extends TestActionTemp<OrderProcessModel>
+public class CheckAuthorizeOrderPayment extends FusibleTestAction
 {
 	// Empty
 }
@@ -8,7 +8,7 @@ package org.training.fulfilmentprocess.test.actions;
 /**
  * 
  */
-public class CheckOrder extends TestActionTemp
+public class CheckOrder extends FusibleTestAction
 {
 
 	//empty
@@ -4,7 +4,7 @@
 package org.training.fulfilmentprocess.test.actions;
 
 
-public class CheckTransactionReviewStatus extends TestActionTemp
+public class CheckTransactionReviewStatus extends FusibleTestAction
 {
 	//empty
 }
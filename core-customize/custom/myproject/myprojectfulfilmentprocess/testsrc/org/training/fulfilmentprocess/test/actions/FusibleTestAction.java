@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test.actions;
+
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+import org.training.fulfilmentprocess.actions.order.FusibleOrderAction;
+
+
+/**
+ * Test action that can also run as a step of the fused order action, it returns the same result either way.
+ */
+public class FusibleTestAction extends TestActionTemp<OrderProcessModel> implements FusibleOrderAction
+{
+	@Override
+	public String executeWithoutSave(final OrderProcessModel process) throws Exception
+	{
+		return execute(process);
+	}
+}
@@ -8,7 +8,7 @@ package org.training.fulfilmentprocess.test.actions;
 /**
  * 
  */
-public class ReserveOrderAmount extends TestActionTemp
+public class ReserveOrderAmount extends FusibleTestAction
 {
 
 	//empty
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test.beans;
+
+import de.hybris.platform.core.model.order.AbstractOrderModel;
+import de.hybris.platform.fraud.impl.FraudServiceResponse;
+import org.training.fulfilmentprocess.fraud.FraudCheckConfiguration;
+import org.training.fulfilmentprocess.fraud.FraudScoringEngine;
+import org.training.fulfilmentprocess.fraud.FraudSymptomMetrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+
+/**
+ * Fraud scoring stub recognizing no symptoms, so every order passes the fraud check without running the symptom rules.
+ */
+public class StubFraudScoringEngine implements FraudScoringEngine
+{
+	private final FraudCheckConfiguration configuration = new FraudCheckConfiguration(1D, 0D);
+	private String providerName;
+
+	@Override
+	public FraudServiceResponse recognizeOrderSymptoms(final AbstractOrderModel order)
+	{
+		return new FraudServiceResponse(getProviderName());
+	}
+
+	@Override
+	public FraudCheckConfiguration getConfiguration()
+	{
+		return configuration;
+	}
+
+	@Override
+	public Map<String, FraudSymptomMetrics> getSymptomMetrics()
+	{
+		return Collections.emptyMap();
+	}
+
+	protected String getProviderName()
+	{
+		return providerName;
+	}
+
+	public void setProviderName(final String providerName)
+	{
+		this.providerName = providerName;
+	}
+}
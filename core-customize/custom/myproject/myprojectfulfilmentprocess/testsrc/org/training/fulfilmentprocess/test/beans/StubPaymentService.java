@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test.beans;
+
+import de.hybris.platform.payment.dto.TransactionStatus;
+import de.hybris.platform.payment.enums.PaymentTransactionType;
+import de.hybris.platform.payment.impl.DefaultPaymentServiceImpl;
+import de.hybris.platform.payment.model.PaymentTransactionEntryModel;
+import de.hybris.platform.payment.model.PaymentTransactionModel;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Local payment provider stub answering captures and voids after a configurable latency, without persisting
+ * anything. Captures of transactions with a code in {@link #setRejectedTransactions(Set)} are rejected.
+ */
+public class StubPaymentService extends DefaultPaymentServiceImpl
+{
+	private long latencyMillis;
+	private Set<String> rejectedTransactions = Collections.emptySet();
+
+	private final AtomicInteger captures = new AtomicInteger();
+	private final AtomicInteger voids = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxConcurrency = new AtomicInteger();
+
+	@Override
+	public PaymentTransactionEntryModel capture(final PaymentTransactionModel transaction)
+	{
+		captures.incrementAndGet();
+		final boolean accepted = !getRejectedTransactions().contains(transaction.getCode());
+		return answer(transaction, PaymentTransactionType.CAPTURE, accepted);
+	}
+
+	@Override
+	public PaymentTransactionEntryModel cancel(final PaymentTransactionEntryModel entry)
+	{
+		voids.incrementAndGet();
+		return answer(entry.getPaymentTransaction(), PaymentTransactionType.CANCEL, true);
+	}
+
+	protected PaymentTransactionEntryModel answer(final PaymentTransactionModel transaction, final PaymentTransactionType type,
+			final boolean accepted)
+	{
+		maxConcurrency.accumulateAndGet(running.incrementAndGet(), Math::max);
+		try
+		{
+			Thread.sleep(getLatencyMillis());
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			running.decrementAndGet();
+		}
+
+		final PaymentTransactionEntryModel entry = new PaymentTransactionEntryModel();
+		entry.setCode(transaction.getCode() + "-" + type.getCode());
+		entry.setType(type);
+		entry.setPaymentTransaction(transaction);
+		entry.setTransactionStatus(accepted ? TransactionStatus.ACCEPTED.name() : TransactionStatus.REJECTED.name());
+		return entry;
+	}
+
+	public int getCaptures()
+	{
+		return captures.get();
+	}
+
+	public int getVoids()
+	{
+		return voids.get();
+	}
+
+	/**
+	 * @return the highest number of provider calls running at the same time
+	 */
+	public int getMaxConcurrency()
+	{
+		return maxConcurrency.get();
+	}
+
+	public long getLatencyMillis()
+	{
+		return latencyMillis;
+	}
+
+	public void setLatencyMillis(final long latencyMillis)
+	{
+		this.latencyMillis = latencyMillis;
+	}
+
+	public Set<String> getRejectedTransactions()
+	{
+		return rejectedTransactions;
+	}
+
+	public void setRejectedTransactions(final Set<String> rejectedTransactions)
+	{
+		this.rejectedTransactions = rejectedTransactions;
+	}
+}
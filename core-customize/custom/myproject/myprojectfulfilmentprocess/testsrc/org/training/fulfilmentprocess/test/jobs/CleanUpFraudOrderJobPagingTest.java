@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test.jobs;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.cronjob.enums.CronJobResult;
+import de.hybris.platform.cronjob.enums.CronJobStatus;
+import de.hybris.platform.servicelayer.cronjob.PerformResult;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.impl.SearchResultImpl;
+import org.training.fulfilmentprocess.ProcessEventBatchService;
+import org.training.fulfilmentprocess.jobs.CleanUpFraudOrderJob;
+import org.training.fulfilmentprocess.model.CleanUpFraudOrderCronJobModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+
+/**
+ * Pages, abort and resume of {@link CleanUpFraudOrderJob} against five waiting processes with the PKs 1 to 5.
+ */
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class CleanUpFraudOrderJobPagingTest
+{
+	private static final List<Long> WAITING_PROCESS_PKS = Arrays.asList(Long.valueOf(1), Long.valueOf(2), Long.valueOf(3),
+			Long.valueOf(4), Long.valueOf(5));
+
+	@Mock
+	private FlexibleSearchService flexibleSearchService;
+	@Mock
+	private ModelService modelService;
+	@Mock
+	private ProcessEventBatchService processEventBatchService;
+
+	private final List<Long> savedCursors = new ArrayList<>();
+	private final List<List<String>> triggeredPages = new ArrayList<>();
+	private CleanUpFraudOrderCronJobModel cronJob;
+	private CleanUpFraudOrderJob job;
+
+	@Before
+	public void setUp()
+	{
+		job = new CleanUpFraudOrderJob();
+		job.setFlexibleSearchService(flexibleSearchService);
+		job.setModelService(modelService);
+		job.setProcessEventBatchService(processEventBatchService);
+		job.setPageSize(2);
+		job.setConcurrency(1);
+		cronJob = new CleanUpFraudOrderCronJobModel();
+
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willAnswer(new Answer<Object>()
+		{
+			@Override
+			public Object answer(final InvocationOnMock invocation)
+			{
+				return search((FlexibleSearchQuery) invocation.getArguments()[0]);
+			}
+		});
+		doAnswer(new Answer<Object>()
+		{
+			@Override
+			public Object answer(final InvocationOnMock invocation)
+			{
+				savedCursors.add(cronJob.getLastProcessedProcessPk());
+				return null;
+			}
+		}).when(modelService).save(cronJob);
+		doAnswer(new Answer<Object>()
+		{
+			@Override
+			public Object answer(final InvocationOnMock invocation)
+			{
+				triggeredPages.add(new ArrayList<>((List<String>) invocation.getArguments()[0]));
+				return null;
+			}
+		}).when(processEventBatchService).triggerEvents(anyListOf(String.class));
+	}
+
+	@Test
+	public void shouldSaveCursorAfterEveryPage()
+	{
+		final PerformResult result = job.perform(cronJob);
+
+		Assert.assertEquals(CronJobResult.SUCCESS, result.getResult());
+		Assert.assertEquals(CronJobStatus.FINISHED, result.getStatus());
+		Assert.assertEquals(Arrays.asList(Arrays.asList("process-1_CleanUpEvent", "process-2_CleanUpEvent"),
+				Arrays.asList("process-3_CleanUpEvent", "process-4_CleanUpEvent"),
+				Collections.singletonList("process-5_CleanUpEvent")), triggeredPages);
+		Assert.assertEquals(Arrays.asList(Long.valueOf(2), Long.valueOf(4), Long.valueOf(5), null), savedCursors);
+		Assert.assertEquals(Long.valueOf(5), cronJob.getLastRunEventCount());
+	}
+
+	@Test
+	public void shouldKeepCursorOfLastPageWhenAborted()
+	{
+		cronJob.setRequestAbort(Boolean.TRUE);
+
+		final PerformResult result = job.perform(cronJob);
+
+		Assert.assertEquals(CronJobStatus.ABORTED, result.getStatus());
+		Assert.assertEquals(1, triggeredPages.size());
+		Assert.assertEquals(Long.valueOf(2), cronJob.getLastProcessedProcessPk());
+	}
+
+	@Test
+	public void shouldKeepCursorOfLastPageWhenPageFails()
+	{
+		doAnswer(new Answer<Object>()
+		{
+			@Override
+			public Object answer(final InvocationOnMock invocation)
+			{
+				triggeredPages.add(new ArrayList<>((List<String>) invocation.getArguments()[0]));
+				return null;
+			}
+		}).doThrow(new IllegalStateException("node died")).when(processEventBatchService)
+				.triggerEvents(anyListOf(String.class));
+
+		try
+		{
+			job.perform(cronJob);
+			Assert.fail("Expected the failing page to abort the run");
+		}
+		catch (final IllegalStateException e)
+		{
+			Assert.assertEquals(Collections.singletonList(Long.valueOf(2)), savedCursors);
+			Assert.assertEquals(Long.valueOf(2), cronJob.getLastProcessedProcessPk());
+		}
+	}
+
+	@Test
+	public void shouldResumeAfterSavedCursor()
+	{
+		cronJob.setLastProcessedProcessPk(Long.valueOf(3));
+
+		job.perform(cronJob);
+
+		Assert.assertEquals(Arrays.asList(Arrays.asList("process-4_CleanUpEvent", "process-5_CleanUpEvent")),
+				triggeredPages);
+		Assert.assertEquals(Arrays.asList(Long.valueOf(5), null), savedCursors);
+	}
+
+	@Test
+	public void shouldStartOverAfterCompletedRun()
+	{
+		job.perform(cronJob);
+		triggeredPages.clear();
+
+		job.perform(cronJob);
+
+		Assert.assertEquals(3, triggeredPages.size());
+		Assert.assertNull(cronJob.getLastProcessedProcessPk());
+	}
+
+	private SearchResultImpl<?> search(final FlexibleSearchQuery query)
+	{
+		final Object lastPk = query.getQueryParameters().get("lastPk");
+		if (lastPk != null)
+		{
+			final List<Long> page = new ArrayList<>();
+			for (final Long pk : WAITING_PROCESS_PKS)
+			{
+				if (pk.longValue() > ((Long) lastPk).longValue() && page.size() < query.getCount())
+				{
+					page.add(pk);
+				}
+			}
+			return new SearchResultImpl<>(page, page.size(), query.getCount(), 0);
+		}
+		final List<String> codes = new ArrayList<>();
+		for (final Object pk : (List<?>) query.getQueryParameters().get("pks"))
+		{
+			codes.add("process-" + pk);
+		}
+		return new SearchResultImpl<>(codes, codes.size(), -1, 0);
+	}
+}
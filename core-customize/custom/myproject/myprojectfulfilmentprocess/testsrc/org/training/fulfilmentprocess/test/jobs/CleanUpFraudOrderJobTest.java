@@ -18,6 +18,7 @@ import de.hybris.platform.servicelayer.cronjob.CronJobService;
 import de.hybris.platform.servicelayer.cronjob.JobDao;
 import de.hybris.platform.servicelayer.internal.model.ServicelayerJobModel;
 import de.hybris.platform.servicelayer.model.ModelService;
+import org.training.fulfilmentprocess.ProcessEventBatchService;
 import org.training.fulfilmentprocess.constants.MyprojectFulfilmentProcessConstants;
 import org.training.fulfilmentprocess.jobs.CleanUpFraudOrderJob;
 
@@ -44,12 +45,14 @@ public class CleanUpFraudOrderJobTest extends ServicelayerTransactionalTest
 	private CronJobService cronJobService;
 	@Resource
 	private BusinessProcessService businessProcessService;
+	@Resource
+	private ProcessEventBatchService processEventBatchService;
 
 	@Resource(name = "cleanUpFraudOrderJob")
 	private CleanUpFraudOrderJob job;
 
 
-	private final BusinessProcessService mockedService = mock(BusinessProcessService.class);
+	private final ProcessEventBatchService mockedService = mock(ProcessEventBatchService.class);
 
 	private final CronJobModel cronJob = new CronJobModel();
 	private String processCode = null;
@@ -62,13 +65,13 @@ public class CleanUpFraudOrderJobTest extends ServicelayerTransactionalTest
 	public void setup() throws Exception
 	{
 		findJobModel();
-		job.setBusinessProcessService(mockedService);
+		job.setProcessEventBatchService(mockedService);
 	}
 
 	@After
 	public void after()
 	{
-		job.setBusinessProcessService(businessProcessService);
+		job.setProcessEventBatchService(processEventBatchService);
 	}
 
 	private void findJobModel()
@@ -124,6 +127,6 @@ public class CleanUpFraudOrderJobTest extends ServicelayerTransactionalTest
 		//then
 		final int expectedNumberOfTriggeredEvents = 1;
 		final String expectedEventName = processCode + EVENT_NAME_SUFFIX;
-		verify(mockedService, times(expectedNumberOfTriggeredEvents)).triggerEvent(expectedEventName);
+		verify(mockedService, times(expectedNumberOfTriggeredEvents)).triggerEvents(Collections.singletonList(expectedEventName));
 	}
 }
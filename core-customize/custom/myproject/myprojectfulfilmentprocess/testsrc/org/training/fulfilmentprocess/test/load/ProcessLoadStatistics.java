@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Collects the latencies of a process load test run and renders them as a report with percentiles per action and
+ * the end-to-end order throughput.
+ */
+public class ProcessLoadStatistics
+{
+	private final Map<String, List<Long>> actionLatencies = new TreeMap<>();
+	private final List<Long> orderLatencies = new ArrayList<>();
+	private int failedProcesses;
+
+	/**
+	 * @param processDefinition
+	 *           the process definition name, e.g. <code>order-process</code>
+	 * @param actionId
+	 *           the id of the action node
+	 * @param millis
+	 *           execution time of the action
+	 */
+	public void recordAction(final String processDefinition, final String actionId, final long millis)
+	{
+		actionLatencies.computeIfAbsent(processDefinition + "." + actionId, key -> new ArrayList<>()).add(Long.valueOf(millis));
+	}
+
+	/**
+	 * @param millis
+	 *           time from starting the order process until the order process ended
+	 */
+	public void recordOrder(final long millis)
+	{
+		orderLatencies.add(Long.valueOf(millis));
+	}
+
+	public void recordFailedProcess()
+	{
+		failedProcesses++;
+	}
+
+	public int getFailedProcesses()
+	{
+		return failedProcesses;
+	}
+
+	public int getCompletedOrders()
+	{
+		return orderLatencies.size();
+	}
+
+	/**
+	 * @return the latency percentile of an action in milliseconds, -1 if the action has not been executed
+	 */
+	public long getActionPercentile(final String processDefinition, final String actionId, final double percentile)
+	{
+		final List<Long> latencies = actionLatencies.get(processDefinition + "." + actionId);
+		return latencies == null ? -1 : percentile(latencies, percentile);
+	}
+
+	public String report(final long wallClockMillis, final WriteCountingAfterSaveListener writes)
+	{
+		final StringBuilder report = new StringBuilder(4096);
+		report.append(String.format("%n%-60s %8s %8s %8s %8s %8s%n", "action", "count", "p50", "p95", "p99", "max"));
+		for (final Map.Entry<String, List<Long>> action : actionLatencies.entrySet())
+		{
+			appendLine(report, action.getKey(), action.getValue());
+		}
+		appendLine(report, "order end-to-end", orderLatencies);
+		report.append(String.format("orders: %d completed, %d processes failed, %.1f orders/s%n",
+				Integer.valueOf(orderLatencies.size()), Integer.valueOf(failedProcesses),
+				Double.valueOf(wallClockMillis == 0 ? 0D : orderLatencies.size() * 1000D / wallClockMillis)));
+		if (writes != null)
+		{
+			report.append(String.format("item writes: %d inserts, %d updates, %d deletes, %.1f per order%n",
+					Long.valueOf(writes.getCreates()), Long.valueOf(writes.getUpdates()), Long.valueOf(writes.getRemoves()),
+					Double.valueOf(orderLatencies.isEmpty() ? 0D : (double) writes.getTotal() / orderLatencies.size())));
+		}
+		return report.toString();
+	}
+
+	protected void appendLine(final StringBuilder report, final String name, final List<Long> latencies)
+	{
+		if (!latencies.isEmpty())
+		{
+			report.append(String.format("%-60s %8d %8d %8d %8d %8d%n", name, Integer.valueOf(latencies.size()),
+					Long.valueOf(percentile(latencies, 50)), Long.valueOf(percentile(latencies, 95)),
+					Long.valueOf(percentile(latencies, 99)), Long.valueOf(percentile(latencies, 100))));
+		}
+	}
+
+	protected static long percentile(final List<Long> latencies, final double percentile)
+	{
+		final List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		final int index = (int) Math.ceil(percentile / 100D * sorted.size()) - 1;
+		return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1))).longValue();
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.fulfilmentprocess.test.load;
+
+import de.hybris.platform.tx.AfterSaveEvent;
+import de.hybris.platform.tx.AfterSaveListener;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counts the item inserts, updates and deletes committed to the database, i.e. the write statements issued by the
+ * processes under load.
+ */
+public class WriteCountingAfterSaveListener implements AfterSaveListener
+{
+	private final LongAdder creates = new LongAdder();
+	private final LongAdder updates = new LongAdder();
+	private final LongAdder removes = new LongAdder();
+
+	@Override
+	public void afterSave(final Collection<AfterSaveEvent> events)
+	{
+		for (final AfterSaveEvent event : events)
+		{
+			switch (event.getType())
+			{
+				case AfterSaveEvent.CREATE:
+					creates.increment();
+					break;
+				case AfterSaveEvent.REMOVE:
+					removes.increment();
+					break;
+				default:
+					updates.increment();
+			}
+		}
+	}
+
+	public void reset()
+	{
+		creates.reset();
+		updates.reset();
+		removes.reset();
+	}
+
+	public long getCreates()
+	{
+		return creates.sum();
+	}
+
+	public long getUpdates()
+	{
+		return updates.sum();
+	}
+
+	public long getRemoves()
+	{
+		return removes.sum();
+	}
+
+	public long getTotal()
+	{
+		return getCreates() + getUpdates() + getRemoves();
+	}
+}
@@ -5,13 +5,13 @@ package org.training.initialdata.setup;
 
 import de.hybris.platform.commerceservices.dataimport.impl.CoreDataImportService;
 import de.hybris.platform.commerceservices.dataimport.impl.SampleDataImportService;
-import de.hybris.platform.commerceservices.setup.AbstractSystemSetup;
 import de.hybris.platform.core.initialization.SystemSetup;
 import de.hybris.platform.core.initialization.SystemSetup.Process;
 import de.hybris.platform.core.initialization.SystemSetup.Type;
 import de.hybris.platform.core.initialization.SystemSetupContext;
 import de.hybris.platform.core.initialization.SystemSetupParameter;
 import de.hybris.platform.core.initialization.SystemSetupParameterMethod;
+import org.training.core.setup.AbstractImpexImportSystemSetup;
 import org.training.initialdata.constants.MyprojectInitialDataConstants;
 
 import java.util.ArrayList;
@@ -22,10 +22,11 @@ import org.springframework.beans.factory.annotation.Required;
 
 
 /**
- * This class provides hooks into the system's initialization and update processes.
+ * This class provides hooks into the system's initialization and update processes. Impex files are imported with
+ * {@link #importImpexFiles(SystemSetupContext, List)}, so independent files are imported concurrently.
  */
 @SystemSetup(extension = MyprojectInitialDataConstants.EXTENSIONNAME)
-public class InitialDataSystemSetup extends AbstractSystemSetup
+public class InitialDataSystemSetup extends AbstractImpexImportSystemSetup
 {
 	@SuppressWarnings("unused")
 	private static final Logger LOG = Logger.getLogger(InitialDataSystemSetup.class);
@@ -64,7 +65,7 @@ public class InitialDataSystemSetup extends AbstractSystemSetup
 	@SystemSetup(type = Type.ESSENTIAL, process = Process.ALL)
 	public void createEssentialData(final SystemSetupContext context)
 	{
-		// Add Essential Data here as you require
+		// Add Essential Data here as you require, e.g. importImpexFiles(context, Arrays.asList(...))
 	}
 
 	/**
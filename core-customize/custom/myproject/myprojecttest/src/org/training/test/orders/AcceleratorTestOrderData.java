@@ -20,6 +20,8 @@ import de.hybris.platform.commerceservices.order.CommerceCartModificationExcepti
 import de.hybris.platform.commerceservices.order.CommerceCheckoutService;
 import de.hybris.platform.commerceservices.service.data.CommerceCheckoutParameter;
 import de.hybris.platform.commerceservices.service.data.CommerceOrderResult;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
 import de.hybris.platform.core.enums.CreditCardType;
 import de.hybris.platform.core.model.order.AbstractOrderEntryModel;
 import de.hybris.platform.core.model.order.CartModel;
@@ -38,17 +40,27 @@ import de.hybris.platform.servicelayer.i18n.CommonI18NService;
 import de.hybris.platform.servicelayer.internal.dao.DefaultGenericDao;
 import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
 import de.hybris.platform.servicelayer.user.UserService;
 import de.hybris.platform.site.BaseSiteService;
 import de.hybris.platform.store.BaseStoreModel;
 import de.hybris.platform.ticket.model.CsTicketModel;
 import de.hybris.platform.ticket.service.TicketService;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
@@ -57,6 +69,10 @@ import org.springframework.beans.factory.annotation.Required;
 
 /**
  * Create test order data
+ *
+ * The payment infos and orders of different customers are created by up to {@link #setWorkers(int)} threads, each in
+ * its own session; the orders of one customer are placed one after the other. The stores of the sites are switched to
+ * the mockup payment provider before the threads start and restored once all of them are done.
  */
 public class AcceleratorTestOrderData
 {
@@ -64,6 +80,8 @@ public class AcceleratorTestOrderData
 
 	private static final String ELECTRONICS_SITE_ID = "electronics";
 	private static final String CUSTOMER_UID = "OrderHistoryUser@test.com";
+	private static final String TICKET_CUSTOMER_UID = "aaron.customer@hybris.com";
+	private static final String PAYMENT_CUSTOMER_UID = "paymentuser@test.com";
 
 	private CMSAdminSiteService cmsAdminSiteService;
 	private UserService userService;
@@ -80,6 +98,10 @@ public class AcceleratorTestOrderData
 	private TicketService ticketService;
 	private BaseSiteService baseSiteService;
 	protected FlexibleSearchService flexibleSearchService;
+	private SessionService sessionService;
+	private int workers = 4;
+
+	private final Map<String, StoreSettings> storeSettings = new HashMap<>();
 
 	protected CMSAdminSiteService getCmsAdminSiteService()
 	{
@@ -238,15 +260,46 @@ public class AcceleratorTestOrderData
 		return flexibleSearchService;
 	}
 
+	protected SessionService getSessionService()
+	{
+		return sessionService;
+	}
+
+	@Required
+	public void setSessionService(final SessionService sessionService)
+	{
+		this.sessionService = sessionService;
+	}
+
+	protected int getWorkers()
+	{
+		return workers;
+	}
+
+	/**
+	 * @param workers
+	 *           number of threads creating the test data of different customers, 1 creates it on the calling thread
+	 */
+	public void setWorkers(final int workers)
+	{
+		this.workers = workers;
+	}
+
 	/**
 	 * Create stored card subscription info for the PaymentUser@test.com and OrderHistoryUser@test.com customers
 	 */
 	public void createPaymentInfos()
 	{
-		createPaymentInfo("paymentuser@test.com", "USD", createVisaCardInfo(), createUkBillingInfo());
-		createPaymentInfo("paymentuser@test.com", "USD", createMasterCardInfo(), createGermanyBillingInfo());
+		final Map<String, List<Runnable>> paymentInfos = new LinkedHashMap<>();
+		addTask(paymentInfos, PAYMENT_CUSTOMER_UID,
+				() -> createPaymentInfo(PAYMENT_CUSTOMER_UID, "USD", createVisaCardInfo(), createUkBillingInfo()));
+		addTask(paymentInfos, PAYMENT_CUSTOMER_UID, () -> createPaymentInfo(PAYMENT_CUSTOMER_UID, "USD",
+				createMasterCardInfo(), createGermanyBillingInfo()));
 
-		createPaymentInfo("orderhistoryuser@test.com", "USD", createVisaCardInfo(), createUkBillingInfo());
+		addTask(paymentInfos, CUSTOMER_UID,
+				() -> createPaymentInfo(CUSTOMER_UID, "USD", createVisaCardInfo(), createUkBillingInfo()));
+		// payment infos do not touch the stores
+		runPerCustomer(Collections.<String> emptyList(), paymentInfos);
 	}
 
 	public void createPaymentInfo(final String customerUid, final String currencyIso, final CardInfo cardInfo,
@@ -365,30 +418,125 @@ public class AcceleratorTestOrderData
 	 */
 	public void createSampleOrders()
 	{
-		Map<String, Long> products = null;
+		final Map<String, List<Runnable>> orders = new LinkedHashMap<>();
 		// Create sample order in the electronics site
-		products = new HashMap<String, Long>();
-		products.put("872912", Long.valueOf(1)); // Secure Digital Card 2GB
-		products.put("479956", Long.valueOf(1)); // 4GB Memory Stick Pro Duo + adapter
-		createSampleOrder(ELECTRONICS_SITE_ID, CUSTOMER_UID, "USD", products, createUkAddressData(), null, false);
-
-		final OrderModel order = createSampleOrder(ELECTRONICS_SITE_ID, "aaron.customer@hybris.com", "USD", products,
-				createUkAddressData(), null, false);
-
-		// from csticket.impex
-		wireTicketAndOrder(order, "0008000", "0009000");
+		final Map<String, Long> electronicsProducts = new HashMap<String, Long>();
+		electronicsProducts.put("872912", Long.valueOf(1)); // Secure Digital Card 2GB
+		electronicsProducts.put("479956", Long.valueOf(1)); // 4GB Memory Stick Pro Duo + adapter
+		addTask(orders, CUSTOMER_UID, () -> createSampleOrder(ELECTRONICS_SITE_ID, CUSTOMER_UID, "USD",
+				electronicsProducts, createUkAddressData(), null, false));
+
+		addTask(orders, TICKET_CUSTOMER_UID, () -> {
+			final OrderModel order = createSampleOrder(ELECTRONICS_SITE_ID, TICKET_CUSTOMER_UID, "USD",
+					electronicsProducts, createUkAddressData(), null, false);
+
+			// from csticket.impex
+			wireTicketAndOrder(order, "0008000", "0009000");
+		});
 
 		// Create sample order in the apparel-uk site
-		products = new HashMap<String, Long>();
-		products.put("300310086", Long.valueOf(1)); // Bag Dakine Factor Pack bomber
-		products.put("300147511", Long.valueOf(1)); // T-Shirt Men Playboard Logo Tee irish green M
-		createSampleOrder("apparel-uk", CUSTOMER_UID, "GBP", products, createUkAddressData(), null, false);
+		final Map<String, Long> apparelUkProducts = new HashMap<String, Long>();
+		apparelUkProducts.put("300310086", Long.valueOf(1)); // Bag Dakine Factor Pack bomber
+		apparelUkProducts.put("300147511", Long.valueOf(1)); // T-Shirt Men Playboard Logo Tee irish green M
+		addTask(orders, CUSTOMER_UID, () -> createSampleOrder("apparel-uk", CUSTOMER_UID, "GBP", apparelUkProducts,
+				createUkAddressData(), null, false));
 
 		// Create sample order in the apparel-de site
-		products = new HashMap<String, Long>();
-		products.put("300020465", Long.valueOf(1)); // Protector Dainese Waistcoat S7 black/silver M
-		products.put("300044623", Long.valueOf(1)); // Shades Anon Legion crystal & black gray
-		createSampleOrder("apparel-de", CUSTOMER_UID, "EUR", products, createGermanAddressData(), null, false);
+		final Map<String, Long> apparelDeProducts = new HashMap<String, Long>();
+		apparelDeProducts.put("300020465", Long.valueOf(1)); // Protector Dainese Waistcoat S7 black/silver M
+		apparelDeProducts.put("300044623", Long.valueOf(1)); // Shades Anon Legion crystal & black gray
+		addTask(orders, CUSTOMER_UID, () -> createSampleOrder("apparel-de", CUSTOMER_UID, "EUR", apparelDeProducts,
+				createGermanAddressData(), null, false));
+		runPerCustomer(Arrays.asList(ELECTRONICS_SITE_ID, "apparel-uk", "apparel-de"), orders);
+	}
+
+	protected void addTask(final Map<String, List<Runnable>> tasksByCustomer, final String customerUid,
+			final Runnable task)
+	{
+		tasksByCustomer.computeIfAbsent(customerUid.toLowerCase(), uid -> new ArrayList<>()).add(task);
+	}
+
+	/**
+	 * Runs the tasks of each customer one after the other, the tasks of different customers concurrently. The stores of
+	 * the given sites are switched to the mockup payment provider once for all threads, so no thread places an order in
+	 * a store it loaded before another thread switched it.
+	 */
+	protected void runPerCustomer(final Collection<String> siteUids, final Map<String, List<Runnable>> tasksByCustomer)
+	{
+		if (getWorkers() <= 1 || tasksByCustomer.size() <= 1)
+		{
+			for (final List<Runnable> tasks : tasksByCustomer.values())
+			{
+				tasks.forEach(Runnable::run);
+			}
+			return;
+		}
+
+		final List<BaseStoreModel> baseStores = new ArrayList<>();
+		for (final String siteUid : siteUids)
+		{
+			baseStores.addAll(getCmsAdminSiteService().getSiteForId(siteUid).getStores());
+		}
+		baseStores.forEach(this::switchStoreToMockup);
+
+		final Tenant tenant = Registry.getCurrentTenantNoFallback();
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(getWorkers(), tasksByCustomer.size()));
+		try
+		{
+			final Map<String, Future<?>> futures = new LinkedHashMap<>();
+			for (final Map.Entry<String, List<Runnable>> entry : tasksByCustomer.entrySet())
+			{
+				futures.put(entry.getKey(), executor.submit(() -> executeInSession(entry.getValue(), tenant)));
+			}
+			for (final Map.Entry<String, Future<?>> future : futures.entrySet())
+			{
+				try
+				{
+					future.getValue().get();
+				}
+				catch (final ExecutionException e)
+				{
+					LOG.error("Failed to create test data for [" + future.getKey() + "]", e.getCause());
+				}
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			executor.shutdownNow();
+			baseStores.forEach(this::restoreStore);
+		}
+	}
+
+	/**
+	 * Runs the tasks on a pool thread, in a new session of the admin user.
+	 */
+	protected void executeInSession(final List<Runnable> tasks, final Tenant tenant)
+	{
+		if (tenant != null)
+		{
+			Registry.setCurrentTenant(tenant);
+		}
+		try
+		{
+			final Session session = getSessionService().createNewSession();
+			try
+			{
+				getUserService().setCurrentUser(getUserService().getAdminUser());
+				tasks.forEach(Runnable::run);
+			}
+			finally
+			{
+				getSessionService().closeSession(session);
+			}
+		}
+		finally
+		{
+			Registry.unsetCurrentTenant();
+		}
 	}
 
 	protected void wireTicketAndOrder(final OrderModel order, final String... tickets)
@@ -439,10 +587,8 @@ public class AcceleratorTestOrderData
 					public OrderModel execute() throws ImpersonationService.Nothing
 					{
 						final BaseStoreModel baseStore = getBaseStoreSelectorStrategy().getCurrentBaseStore();
-						final String submitOrderProcessCode = baseStore.getSubmitOrderProcessCode();
-						final String originalPaymentProvider = baseStore.getPaymentProvider();
 						OrderModel orderModel = null;
-						baseStore.setPaymentProvider("Mockup");
+						switchStoreToMockup(baseStore);
 						try
 						{
 
@@ -451,8 +597,6 @@ public class AcceleratorTestOrderData
 									getBaseStoreSelectorStrategy().getCurrentBaseStore(), null);
 							if (isCSVData || !containsOrder(orderList, products))
 							{
-								baseStore.setSubmitOrderProcessCode("order-process");
-								getModelService().save(baseStore);
 								LOG.info("Creating order for [" + customerUid + "] for site [" + siteUid + "]");
 
 								// Remove any existing cart
@@ -554,9 +698,7 @@ public class AcceleratorTestOrderData
 						}
 						finally
 						{
-							baseStore.setPaymentProvider(originalPaymentProvider);
-							baseStore.setSubmitOrderProcessCode(submitOrderProcessCode);
-							getModelService().save(baseStore);
+							restoreStore(baseStore);
 						}
 						return orderModel;
 					}
@@ -565,6 +707,40 @@ public class AcceleratorTestOrderData
 
 	}
 
+	/**
+	 * Switches the store to the mockup payment provider and the order-process while sample orders are placed in it.
+	 * Nested switches of a store share the first one, the last restore puts back the original settings.
+	 */
+	protected void switchStoreToMockup(final BaseStoreModel baseStore)
+	{
+		synchronized (storeSettings)
+		{
+			final StoreSettings settings = storeSettings.computeIfAbsent(baseStore.getUid(),
+					uid -> new StoreSettings(baseStore));
+			if (settings.orders++ == 0)
+			{
+				baseStore.setPaymentProvider("Mockup");
+				baseStore.setSubmitOrderProcessCode("order-process");
+				getModelService().save(baseStore);
+			}
+		}
+	}
+
+	protected void restoreStore(final BaseStoreModel baseStore)
+	{
+		synchronized (storeSettings)
+		{
+			final StoreSettings settings = storeSettings.get(baseStore.getUid());
+			if (settings != null && --settings.orders == 0)
+			{
+				storeSettings.remove(baseStore.getUid());
+				baseStore.setPaymentProvider(settings.paymentProvider);
+				baseStore.setSubmitOrderProcessCode(settings.submitOrderProcessCode);
+				getModelService().save(baseStore);
+			}
+		}
+	}
+
 	protected void checkOrderData(final OrderData orderData) throws InterruptedException
 	{
 		if (orderData == null)
@@ -796,6 +972,22 @@ public class AcceleratorTestOrderData
 		}
 	}
 
+	/**
+	 * Original settings of a store while sample orders are placed in it.
+	 */
+	private static final class StoreSettings
+	{
+		private final String paymentProvider;
+		private final String submitOrderProcessCode;
+		private int orders;
+
+		private StoreSettings(final BaseStoreModel baseStore)
+		{
+			this.paymentProvider = baseStore.getPaymentProvider();
+			this.submitOrderProcessCode = baseStore.getSubmitOrderProcessCode();
+		}
+	}
+
 	protected CommonI18NService getI18nService()
 	{
 		return i18nService;
@@ -0,0 +1,398 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.test.setup;
+
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.impex.model.ImpExMediaModel;
+import de.hybris.platform.servicelayer.impex.ExportConfig;
+import de.hybris.platform.servicelayer.impex.ExportResult;
+import de.hybris.platform.servicelayer.impex.ExportService;
+import de.hybris.platform.servicelayer.impex.ImportConfig;
+import de.hybris.platform.servicelayer.impex.ImportResult;
+import de.hybris.platform.servicelayer.impex.ImportService;
+import de.hybris.platform.servicelayer.impex.impl.StreamBasedImpExResource;
+import de.hybris.platform.servicelayer.keygenerator.KeyGenerator;
+import de.hybris.platform.servicelayer.media.MediaService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import org.training.test.orders.AcceleratorTestOrderData;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Snapshot of the payment infos and orders generated by {@link AcceleratorTestOrderData}. Placing the orders through
+ * the checkout takes minutes, so once generated the data is exported with the {@link #setExportScript(String)} into a
+ * gzipped impex file and later initializations import that file instead.
+ *
+ * A snapshot is bound to its {@link #setVersion(String)}; a snapshot of another version is ignored and replaced by the
+ * next export, so raise the version whenever the generated data changes. Order processes and consignments are not part
+ * of the snapshot.
+ *
+ * A snapshot of the current version that fails to import has left part of its rows behind, so the restore fails
+ * instead of letting the test data be generated on top of them.
+ *
+ * The restored orders keep their exported codes, so after a restore the {@link #setOrderCodeGenerator(KeyGenerator)}
+ * is advanced past the highest order code; otherwise the next checkout could be given the code of a restored order.
+ */
+public class TestDataSnapshot
+{
+	private static final Logger LOG = Logger.getLogger(TestDataSnapshot.class);
+
+	private static final String VERSION_PREFIX = "# snapshot-version: ";
+	private static final String IMPORT_SCRIPT_ENTRY = "importscript.impex";
+	private static final String MAX_ORDER_CODE_QUERY = "SELECT MAX({" + OrderModel.CODE + "}) FROM {"
+			+ OrderModel._TYPECODE + "}";
+
+	private ExportService exportService;
+	private ImportService importService;
+	private MediaService mediaService;
+	private ModelService modelService;
+	private FlexibleSearchService flexibleSearchService;
+	private KeyGenerator orderCodeGenerator;
+	private String exportScript;
+	private String file;
+	private String version;
+	private boolean enabled = true;
+
+	/**
+	 * Imports the snapshot, if there is one of the current version.
+	 *
+	 * @return whether the snapshot was imported, otherwise the test data has to be generated
+	 * @throws IllegalStateException
+	 *            if the snapshot failed to import, the partly imported data has to be removed by initializing the system
+	 *            again, after deleting the snapshot if it is broken
+	 */
+	public boolean restore()
+	{
+		final File snapshot = new File(getFile());
+		if (!isEnabled() || !snapshot.isFile())
+		{
+			return false;
+		}
+		if (!isCurrentVersion(snapshot))
+		{
+			LOG.info("Ignoring test data snapshot [" + snapshot + "] of another version than [" + getVersion() + "]");
+			return false;
+		}
+
+		final long start = System.currentTimeMillis();
+		try (final InputStream stream = new GZIPInputStream(Files.newInputStream(snapshot.toPath())))
+		{
+			final ImportResult importResult = getImportService().importData(createImportConfig(stream));
+			if (importResult.isError())
+			{
+				throw new IllegalStateException("Import of test data snapshot [" + snapshot
+						+ "] failed, initialize the system again, after deleting the snapshot if it is broken");
+			}
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException("Failed to read test data snapshot [" + snapshot
+					+ "], initialize the system again after deleting the snapshot", e);
+		}
+		advanceOrderCodes();
+		LOG.info("Restored test data snapshot [" + snapshot + "] in " + (System.currentTimeMillis() - start) + " ms");
+		return true;
+	}
+
+	/**
+	 * Draws order codes until the generator is past the highest code of the orders, the codes are zero padded numbers of
+	 * the same generator, so the highest code is the highest number.
+	 */
+	protected void advanceOrderCodes()
+	{
+		final FlexibleSearchQuery query = new FlexibleSearchQuery(MAX_ORDER_CODE_QUERY);
+		query.setResultClassList(Collections.singletonList(String.class));
+		final List<String> maxCodes = getFlexibleSearchService().<String> search(query).getResult();
+		final String maxCode = maxCodes.isEmpty() ? null : maxCodes.get(0);
+		if (!StringUtils.isNumeric(maxCode) || maxCode.isEmpty())
+		{
+			return;
+		}
+
+		final long max = Long.parseLong(maxCode);
+		int drawn = 0;
+		String code;
+		do
+		{
+			code = String.valueOf(getOrderCodeGenerator().generate());
+			drawn++;
+		}
+		while (StringUtils.isNumeric(code) && Long.parseLong(code) <= max);
+		LOG.info("Advanced the order codes past restored order [" + maxCode + "] by " + drawn + " codes");
+	}
+
+	/**
+	 * Exports the generated test data into the snapshot, replacing an existing one.
+	 */
+	public void export()
+	{
+		if (!isEnabled())
+		{
+			return;
+		}
+
+		final ExportResult exportResult;
+		try (final InputStream script = getClass().getResourceAsStream(getExportScript()))
+		{
+			if (script == null)
+			{
+				LOG.error("Export script [" + getExportScript() + "] not found");
+				return;
+			}
+			final ExportConfig exportConfig = new ExportConfig();
+			exportConfig.setScript(new StreamBasedImpExResource(script, StandardCharsets.UTF_8.name()));
+			exportConfig.setEncoding(StandardCharsets.UTF_8.name());
+			exportConfig.setSingleFile(true);
+			exportResult = getExportService().exportData(exportConfig);
+		}
+		catch (final IOException e)
+		{
+			LOG.error("Failed to read export script [" + getExportScript() + "]", e);
+			return;
+		}
+
+		try
+		{
+			if (exportResult.isSuccessful() && exportResult.getExportedData() != null)
+			{
+				writeSnapshot(exportResult.getExportedData());
+				LOG.info("Exported test data snapshot [" + getFile() + "]");
+			}
+			else
+			{
+				LOG.error("Export of test data snapshot failed");
+			}
+		}
+		catch (final IOException e)
+		{
+			LOG.error("Failed to write test data snapshot [" + getFile() + "]", e);
+		}
+		finally
+		{
+			removeExportMedia(exportResult);
+		}
+	}
+
+	/**
+	 * @return the config importing the snapshot like the system setup imports its files, with code execution enabled for
+	 *         the <code>#% impex.setLocale</code> lines of the exported script
+	 */
+	protected ImportConfig createImportConfig(final InputStream stream)
+	{
+		final ImportConfig importConfig = new ImportConfig();
+		importConfig.setScript(new StreamBasedImpExResource(stream, StandardCharsets.UTF_8.name()));
+		importConfig.setLegacyMode(Boolean.FALSE);
+		importConfig.setEnableCodeExecution(Boolean.TRUE);
+		return importConfig;
+	}
+
+	protected boolean isCurrentVersion(final File snapshot)
+	{
+		try (final BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(snapshot.toPath())), StandardCharsets.UTF_8)))
+		{
+			return (VERSION_PREFIX + getVersion()).equals(reader.readLine());
+		}
+		catch (final IOException e)
+		{
+			LOG.warn("Failed to read test data snapshot [" + snapshot + "]", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the import script of the exported data behind the version line, the data of a single file export is part
+	 * of the script.
+	 */
+	protected void writeSnapshot(final ImpExMediaModel exportedData) throws IOException
+	{
+		final File snapshot = new File(getFile());
+		final File parent = snapshot.getAbsoluteFile().getParentFile();
+		Files.createDirectories(parent.toPath());
+		final File temp = File.createTempFile(snapshot.getName(), ".tmp", parent);
+		try
+		{
+			boolean written = false;
+			try (final ZipInputStream zip = new ZipInputStream(getMediaService().getStreamFromMedia(exportedData));
+					final Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temp.toPath())),
+							StandardCharsets.UTF_8))
+			{
+				for (ZipEntry entry = zip.getNextEntry(); entry != null && !written; entry = zip.getNextEntry())
+				{
+					if (IMPORT_SCRIPT_ENTRY.equals(entry.getName()))
+					{
+						writer.write(VERSION_PREFIX + getVersion() + "\n");
+						IOUtils.copy(new InputStreamReader(zip, StandardCharsets.UTF_8), writer);
+						written = true;
+					}
+				}
+			}
+			if (!written)
+			{
+				throw new IOException("No " + IMPORT_SCRIPT_ENTRY + " in exported data");
+			}
+			Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally
+		{
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+	protected void removeExportMedia(final ExportResult exportResult)
+	{
+		if (exportResult.getExportedData() != null)
+		{
+			getModelService().remove(exportResult.getExportedData());
+		}
+		if (exportResult.getExportedMedia() != null)
+		{
+			getModelService().remove(exportResult.getExportedMedia());
+		}
+	}
+
+	protected ExportService getExportService()
+	{
+		return exportService;
+	}
+
+	@Required
+	public void setExportService(final ExportService exportService)
+	{
+		this.exportService = exportService;
+	}
+
+	protected ImportService getImportService()
+	{
+		return importService;
+	}
+
+	@Required
+	public void setImportService(final ImportService importService)
+	{
+		this.importService = importService;
+	}
+
+	protected MediaService getMediaService()
+	{
+		return mediaService;
+	}
+
+	@Required
+	public void setMediaService(final MediaService mediaService)
+	{
+		this.mediaService = mediaService;
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected FlexibleSearchService getFlexibleSearchService()
+	{
+		return flexibleSearchService;
+	}
+
+	@Required
+	public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService)
+	{
+		this.flexibleSearchService = flexibleSearchService;
+	}
+
+	protected KeyGenerator getOrderCodeGenerator()
+	{
+		return orderCodeGenerator;
+	}
+
+	/**
+	 * @param orderCodeGenerator
+	 *           generator of the order codes of the checkout, advanced past the restored orders
+	 */
+	@Required
+	public void setOrderCodeGenerator(final KeyGenerator orderCodeGenerator)
+	{
+		this.orderCodeGenerator = orderCodeGenerator;
+	}
+
+	protected String getExportScript()
+	{
+		return exportScript;
+	}
+
+	/**
+	 * @param exportScript
+	 *           classpath location of the impex export script selecting the generated test data
+	 */
+	@Required
+	public void setExportScript(final String exportScript)
+	{
+		this.exportScript = exportScript;
+	}
+
+	protected String getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * @param file
+	 *           location of the snapshot, delete it to generate the test data again
+	 */
+	@Required
+	public void setFile(final String file)
+	{
+		this.file = file;
+	}
+
+	protected String getVersion()
+	{
+		return version;
+	}
+
+	@Required
+	public void setVersion(final String version)
+	{
+		this.version = version;
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+}
@@ -32,6 +32,7 @@ public class TestDataSystemSetup extends AbstractSystemSetup
 	private static final String CREATE_TEST_DATA = "createTestData";
 
 	private AcceleratorTestOrderData acceleratorTestOrderData;
+	private TestDataSnapshot testDataSnapshot;
 
 	protected AcceleratorTestOrderData getAcceleratorTestOrderData()
 	{
@@ -44,6 +45,17 @@ public class TestDataSystemSetup extends AbstractSystemSetup
 		this.acceleratorTestOrderData = acceleratorTestOrderData;
 	}
 
+	protected TestDataSnapshot getTestDataSnapshot()
+	{
+		return testDataSnapshot;
+	}
+
+	@Required
+	public void setTestDataSnapshot(final TestDataSnapshot testDataSnapshot)
+	{
+		this.testDataSnapshot = testDataSnapshot;
+	}
+
 	/**
 	 * Generates the Dropdown and Multi-select boxes for the projectdata import
 	 */
@@ -87,15 +99,21 @@ public class TestDataSystemSetup extends AbstractSystemSetup
 			LOG.info("Creating Reviews...");
 			importImpexFile(context, "/myprojecttest/import/reviews.impex");
 
-			LOG.info("Creating Test Payment Subscriptions...");
-			getAcceleratorTestOrderData().createPaymentInfos();
-
 			LOG.info("Creating CS Tickets...");
 			importImpexFile(context, "/myprojecttest/import/cstickets.impex");
 
-			LOG.info("Creating Test Orders...");
-			getAcceleratorTestOrderData().createSampleOrders();
-			getAcceleratorTestOrderData().createSampleBOPiSOrders();
+			LOG.info("Restoring Test Payment Subscriptions and Orders...");
+			if (!getTestDataSnapshot().restore())
+			{
+				LOG.info("Creating Test Payment Subscriptions...");
+				getAcceleratorTestOrderData().createPaymentInfos();
+
+				LOG.info("Creating Test Orders...");
+				getAcceleratorTestOrderData().createSampleOrders();
+				getAcceleratorTestOrderData().createSampleBOPiSOrders();
+
+				getTestDataSnapshot().export();
+			}
 
 			LOG.info("Creating Test Quotes...");
 			importImpexFile(context, "/myprojecttest/import/csquotes.impex");
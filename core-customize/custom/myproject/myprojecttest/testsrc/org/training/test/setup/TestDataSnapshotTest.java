@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package org.training.test.setup;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.impex.model.ImpExMediaModel;
+import de.hybris.platform.servicelayer.impex.ImportConfig;
+import de.hybris.platform.servicelayer.impex.ImportResult;
+import de.hybris.platform.servicelayer.impex.ImportService;
+import de.hybris.platform.servicelayer.keygenerator.KeyGenerator;
+import de.hybris.platform.servicelayer.media.MediaService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.impl.SearchResultImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+/**
+ * JUnit test suite for {@link TestDataSnapshot}
+ */
+@UnitTest
+public class TestDataSnapshotTest
+{
+	private static final String SCRIPT = "INSERT_UPDATE Order;code[unique=true]\n;00001\n";
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	private ImportService importService;
+	@Mock
+	private MediaService mediaService;
+	@Mock
+	private ImportResult importResult;
+	@Mock
+	private FlexibleSearchService flexibleSearchService;
+	@Mock
+	private KeyGenerator orderCodeGenerator;
+
+	private final TestDataSnapshot snapshot = new TestDataSnapshot();
+	private File file;
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+		file = new File(folder.getRoot(), "testdata-snapshot.impex.gz");
+		snapshot.setImportService(importService);
+		snapshot.setMediaService(mediaService);
+		snapshot.setFlexibleSearchService(flexibleSearchService);
+		snapshot.setOrderCodeGenerator(orderCodeGenerator);
+		snapshot.setFile(file.getPath());
+		snapshot.setVersion("2");
+		given(importService.importData(any(ImportConfig.class))).willReturn(importResult);
+		givenMaxOrderCode(null);
+	}
+
+	@Test
+	public void shouldIgnoreSnapshotOfOtherVersion() throws IOException
+	{
+		writeGzip("# snapshot-version: 1\n" + SCRIPT);
+
+		Assert.assertFalse(snapshot.restore());
+		verify(importService, never()).importData(any(ImportConfig.class));
+	}
+
+	@Test
+	public void shouldImportSnapshotOfCurrentVersion() throws IOException
+	{
+		writeGzip("# snapshot-version: 2\n" + SCRIPT);
+
+		Assert.assertTrue(snapshot.restore());
+		verify(importService).importData(any(ImportConfig.class));
+	}
+
+	@Test
+	public void shouldAdvanceOrderCodesPastRestoredOrders() throws IOException
+	{
+		writeGzip("# snapshot-version: 2\n" + SCRIPT);
+		givenMaxOrderCode("00000012");
+		given(orderCodeGenerator.generate()).willReturn("00000011", "00000012", "00000013", "00000014");
+
+		Assert.assertTrue(snapshot.restore());
+		verify(orderCodeGenerator, times(3)).generate();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldFailInsteadOfGeneratingOnTopOfPartlyImportedSnapshot() throws IOException
+	{
+		writeGzip("# snapshot-version: 2\n" + SCRIPT);
+		given(Boolean.valueOf(importResult.isError())).willReturn(Boolean.TRUE);
+
+		snapshot.restore();
+	}
+
+	@Test
+	public void shouldWriteImportScriptBehindVersionLine() throws IOException
+	{
+		writeGzip("# snapshot-version: 1\nold");
+		final ImpExMediaModel exportedData = givenExportedData("dataexport.csv", "importscript.impex");
+
+		snapshot.writeSnapshot(exportedData);
+
+		Assert.assertEquals("# snapshot-version: 2\n" + SCRIPT, readGzip());
+		Assert.assertEquals(Collections.singletonList(file.getName()), Arrays.asList(folder.getRoot().list()));
+	}
+
+	@Test
+	public void shouldKeepExistingSnapshotWithoutImportScript() throws IOException
+	{
+		writeGzip("# snapshot-version: 1\nold");
+		final ImpExMediaModel exportedData = givenExportedData("dataexport.csv");
+
+		try
+		{
+			snapshot.writeSnapshot(exportedData);
+			Assert.fail("Expected the missing import script to fail the snapshot");
+		}
+		catch (final IOException e)
+		{
+			Assert.assertTrue(e.getMessage().contains("importscript.impex"));
+		}
+
+		Assert.assertEquals("# snapshot-version: 1\nold", readGzip());
+		Assert.assertEquals(Collections.singletonList(file.getName()), Arrays.asList(folder.getRoot().list()));
+	}
+
+	private void givenMaxOrderCode(final String code)
+	{
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class)))
+				.willReturn(new SearchResultImpl<Object>(Collections.<Object> singletonList(code), 1, -1, 0));
+	}
+
+	/**
+	 * @return an exported media whose zip has the given entries, each holding the script
+	 */
+	private ImpExMediaModel givenExportedData(final String... entries) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final ZipOutputStream zip = new ZipOutputStream(bytes))
+		{
+			for (final String entry : entries)
+			{
+				zip.putNextEntry(new ZipEntry(entry));
+				zip.write(SCRIPT.getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		final ImpExMediaModel exportedData = mock(ImpExMediaModel.class);
+		given(mediaService.getStreamFromMedia(exportedData)).willReturn(new ByteArrayInputStream(bytes.toByteArray()));
+		return exportedData;
+	}
+
+	private void writeGzip(final String content) throws IOException
+	{
+		try (final OutputStream stream = new GZIPOutputStream(Files.newOutputStream(file.toPath())))
+		{
+			stream.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private String readGzip() throws IOException
+	{
+		try (final GZIPInputStream stream = new GZIPInputStream(Files.newInputStream(file.toPath())))
+		{
+			return IOUtils.toString(stream, StandardCharsets.UTF_8.name());
+		}
+	}
+}